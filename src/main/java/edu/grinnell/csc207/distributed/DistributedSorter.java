@@ -0,0 +1,406 @@
+package edu.grinnell.csc207.distributed;
+
+import edu.grinnell.csc207.sorting.KWayMerger;
+import edu.grinnell.csc207.sorting.Sorter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One node of a distributed sample sort. Every node calls sort with
+ * its own shard of the data; afterwards node r holds the r-th range of
+ * the whole, sorted, so reading the nodes' results in rank order gives
+ * everything in order.
+ *
+ * <ol>
+ * <li>Each node sorts its shard with a local Sorter.</li>
+ * <li>Each node sends evenly spaced samples of its shard to node 0,
+ *     which picks size() - 1 splitters from them and sends those back
+ *     to everyone.</li>
+ * <li>Each node cuts its sorted shard at the splitters and sends
+ *     piece r to node r.</li>
+ * <li>Each node merges the sorted pieces it receives.</li>
+ * </ol>
+ *
+ * Values travel by Java serialization, so they must be Serializable.
+ * By default a node reads back only the values' own class, its sub-
+ * and superclasses, and arrays of it, so values whose fields hold
+ * other classes (a record with a String field, say) are refused; give
+ * the constructor an ObjectInputFilter that admits those classes,
+ * such as one from ObjectInputFilter.Config.createFilter.
+ *
+ * If one node fails part way, it tells the others before it throws,
+ * so theirs throw too rather than waiting forever. The transport is
+ * left with stray messages and should be closed.
+ *
+ * Values equal to a splitter all go to one node, so a shard can grow
+ * well past its share when one value dominates the input.
+ *
+ * A DistributedSorter belongs to one node and is not thread safe.
+ *
+ * @param <T>
+ *   The types of values that are sorted.
+ *
+ * @author Andrew N. Fargo
+ */
+public class DistributedSorter<T> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of samples each node sends per node.
+   */
+  static final int OVERSAMPLE = 32;
+
+  // +---------+-----------------------------------------------------
+  // | Records |
+  // +---------+
+
+  /**
+   * Where one node's time went in its last sort.
+   *
+   * @param sortNanos
+   *   Sorting the shard.
+   * @param splitNanos
+   *   Sampling and agreeing on splitters.
+   * @param exchangeNanos
+   *   Cutting, sending, and receiving pieces.
+   * @param mergeNanos
+   *   Merging the pieces received.
+   * @param bytesSent
+   *   The bytes this node sent.
+   * @param received
+   *   The number of values this node ended up with.
+   */
+  public record Phases(long sortNanos, long splitNanos, long exchangeNanos, long mergeNanos,
+      long bytesSent, int received) {
+  } // record Phases
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * How this node reaches the others.
+   */
+  Transport transport;
+
+  /**
+   * Sorts the local shard.
+   */
+  Sorter<T> sorter;
+
+  /**
+   * How values are ordered. The sorter must agree.
+   */
+  Comparator<? super T> order;
+
+  /**
+   * The phases of the last sort, or null.
+   */
+  Phases phases;
+
+  /**
+   * The type of the values being sorted, which are the only values
+   * decode will accept by default.
+   */
+  Class<?> type;
+
+  /**
+   * What decode may read, or null to use admit.
+   */
+  ObjectInputFilter filter;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create one node's sorter.
+   *
+   * @param network
+   *   How this node reaches the others.
+   * @param local
+   *   How to sort the local shard.
+   * @param comparator
+   *   The order local uses.
+   */
+  public DistributedSorter(Transport network, Sorter<T> local,
+      Comparator<? super T> comparator) {
+    this.transport = network;
+    this.sorter = local;
+    this.order = comparator;
+  } // DistributedSorter(Transport, Sorter, Comparator)
+
+  /**
+   * Create one node's sorter that reads the classes filter allows.
+   *
+   * @param network
+   *   How this node reaches the others.
+   * @param local
+   *   How to sort the local shard.
+   * @param comparator
+   *   The order local uses.
+   * @param readable
+   *   Which classes may be read from other nodes, or null for only
+   *   the values' own type.
+   */
+  public DistributedSorter(Transport network, Sorter<T> local,
+      Comparator<? super T> comparator, ObjectInputFilter readable) {
+    this(network, local, comparator);
+    this.filter = readable;
+  } // DistributedSorter(Transport, Sorter, Comparator, ObjectInputFilter)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Sort this node's part of the data. Every node must call this at
+   * about the same time.
+   *
+   * @param shard
+   *   This node's values. It is sorted in place along the way.
+   * @return This node's range of the sorted whole.
+   * @throws IOException
+   *   If the nodes cannot communicate, a value cannot be read, or
+   *   another node failed.
+   */
+  public T[] sort(T[] shard) throws IOException {
+    this.type = shard.getClass().getComponentType();
+    long bytes = this.transport.bytesSent();
+    long start = System.nanoTime();
+    try {
+      this.sorter.sort(shard);
+      long sorted = System.nanoTime();
+      T[] splitters = this.splitters(shard);
+      long split = System.nanoTime();
+      List<T[]> pieces = this.exchange(shard, splitters);
+      long exchanged = System.nanoTime();
+      T[] result = new KWayMerger<T>(this.order).mergeArrays(pieces);
+      long merged = System.nanoTime();
+      this.phases = new Phases(sorted - start, split - sorted, exchanged - split,
+          merged - exchanged, this.transport.bytesSent() - bytes, result.length);
+      return result;
+    } catch (IOException | RuntimeException e) {
+      this.abort();
+      throw e;
+    } // try/catch
+  } // sort(T[])
+
+  /**
+   * Get where the time went in the last sort.
+   *
+   * @return The phases, or null if nothing has been sorted.
+   */
+  public Phases phases() {
+    return this.phases;
+  } // phases()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Agree on the splitters: everyone samples, node 0 chooses.
+   *
+   * @param shard
+   *   This node's sorted shard.
+   * @return The size() - 1 splitters, in order.
+   * @throws IOException
+   *   If the nodes cannot communicate.
+   */
+  T[] splitters(T[] shard) throws IOException {
+    int nodes = this.transport.size();
+    int count = Math.min(shard.length, OVERSAMPLE * nodes);
+    T[] samples = Arrays.copyOf(shard, count);
+    for (int i = 0; i < count; i++) {
+      samples[i] = shard[(int) ((2L * i + 1) * shard.length / (2L * count))];
+    } // for
+    if (this.transport.rank() != 0) {
+      this.transport.send(0, encode(samples));
+      return this.receive(0);
+    } // if
+
+    List<T[]> all = new ArrayList<T[]>(nodes);
+    all.add(samples);
+    for (int node = 1; node < nodes; node++) {
+      all.add(this.receive(node));
+    } // for
+    T[] pooled = new KWayMerger<T>(this.order).mergeArrays(all);
+    T[] splitters = Arrays.copyOf(pooled, Math.max(0, Math.min(nodes - 1, pooled.length)));
+    for (int i = 0; i < splitters.length; i++) {
+      splitters[i] = pooled[(int) ((long) (i + 1) * pooled.length / nodes)];
+    } // for
+    byte[] message = encode(splitters);
+    for (int node = 1; node < nodes; node++) {
+      this.transport.send(node, message);
+    } // for
+    return splitters;
+  } // splitters(T[])
+
+  /**
+   * Cut the sorted shard at the splitters, send each piece to its
+   * node, and gather the pieces sent here.
+   *
+   * @param shard
+   *   This node's sorted shard.
+   * @param splitters
+   *   The splitters.
+   * @return The sorted pieces for this node, one per node.
+   * @throws IOException
+   *   If the nodes cannot communicate.
+   */
+  List<T[]> exchange(T[] shard, T[] splitters) throws IOException {
+    int nodes = this.transport.size();
+    int self = this.transport.rank();
+    int[] bounds = new int[nodes + 1];
+    for (int s = 0; s < splitters.length; s++) {
+      bounds[s + 1] = this.lowerBound(shard, bounds[s], splitters[s]);
+    } // for
+    for (int s = splitters.length + 1; s <= nodes; s++) {
+      bounds[s] = shard.length;
+    } // for
+
+    for (int node = 0; node < nodes; node++) {
+      if (node != self) {
+        this.transport.send(node,
+            encode(Arrays.copyOfRange(shard, bounds[node], bounds[node + 1])));
+      } // if
+    } // for
+    List<T[]> pieces = new ArrayList<T[]>(nodes);
+    for (int node = 0; node < nodes; node++) {
+      pieces.add((node == self)
+          ? Arrays.copyOfRange(shard, bounds[self], bounds[self + 1])
+          : this.receive(node));
+    } // for
+    return pieces;
+  } // exchange(T[], T[])
+
+  /**
+   * Read the next array another node sent.
+   *
+   * @param node
+   *   The sender.
+   * @return The array.
+   * @throws IOException
+   *   If the nodes cannot communicate, the array cannot be read, or
+   *   the sender failed.
+   */
+  T[] receive(int node) throws IOException {
+    byte[] message = this.transport.receive(node);
+    if (message.length == 0) {
+      throw new IOException("Node " + node + " failed");
+    } // if
+    return this.decode(message);
+  } // receive(int)
+
+  /**
+   * Tell every other node that this one has failed, as far as we
+   * still can. An empty message stands for the failure, since encode
+   * never produces one.
+   */
+  void abort() {
+    for (int node = 0; node < this.transport.size(); node++) {
+      if (node != this.transport.rank()) {
+        try {
+          this.transport.send(node, new byte[0]);
+        } catch (IOException e) {
+          /* That node is gone already, so it is not waiting on us. */
+        } // try/catch
+      } // if
+    } // for
+  } // abort()
+
+  /**
+   * Find the first value not less than key.
+   *
+   * @param values
+   *   A sorted array.
+   * @param lo
+   *   Where to start looking.
+   * @param key
+   *   The key.
+   * @return The index, or values.length.
+   */
+  int lowerBound(T[] values, int lo, T key) {
+    int hi = values.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (this.order.compare(values[mid], key) < 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      } // if/else
+    } // while
+    return lo;
+  } // lowerBound(T[], int, T)
+
+  /**
+   * Serialize an array.
+   *
+   * @param values
+   *   The array, whose elements must be Serializable.
+   * @return The bytes.
+   * @throws IOException
+   *   If an element cannot be serialized.
+   */
+  static byte[] encode(Object[] values) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(values);
+    } // try
+    return bytes.toByteArray();
+  } // encode(Object[])
+
+  /**
+   * Deserialize an array. Only the classes the filter allows are read
+   * (by default, an array of the values being sorted); any other class
+   * in the stream is rejected before it is created.
+   *
+   * @param message
+   *   The bytes from encode.
+   * @return The array.
+   * @throws IOException
+   *   If the bytes are not an array we understand.
+   */
+  @SuppressWarnings({"unchecked"})
+  T[] decode(byte[] message) throws IOException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(message))) {
+      in.setObjectInputFilter((this.filter == null) ? this::admit : this.filter);
+      return (T[]) in.readObject();
+    } catch (ClassNotFoundException | ClassCastException e) {
+      throw new StreamCorruptedException("Unreadable values: " + e);
+    } // try/catch
+  } // decode(byte[])
+
+  /**
+   * Decide whether decode may read a class: an array of the values'
+   * type, the type itself or its subclasses, or the superclasses that
+   * serialization describes along with them.
+   *
+   * @param info
+   *   What is about to be read.
+   * @return Whether it may be read.
+   */
+  ObjectInputFilter.Status admit(ObjectInputFilter.FilterInfo info) {
+    Class<?> c = info.serialClass();
+    if (c == null) {
+      return ObjectInputFilter.Status.UNDECIDED;
+    } else if (c == this.type.arrayType() || (!c.isArray()
+        && (this.type.isAssignableFrom(c) || c.isAssignableFrom(this.type)))) {
+      return ObjectInputFilter.Status.ALLOWED;
+    } else {
+      return ObjectInputFilter.Status.REJECTED;
+    } // if/else
+  } // admit(ObjectInputFilter.FilterInfo)
+} // class DistributedSorter
@@ -0,0 +1,153 @@
+package edu.grinnell.csc207.distributed;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A transport between nodes that are threads of one JVM. Messages are
+ * handed over as they are, through one queue per pair of nodes.
+ *
+ * @author Andrew N. Fargo
+ */
+public class LocalTransport implements Transport {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of this node.
+   */
+  int rank;
+
+  /**
+   * The queues of every node, by receiver and then sender. Shared by
+   * all the transports of one group.
+   */
+  BlockingQueue<byte[]>[][] queues;
+
+  /**
+   * The bytes sent so far.
+   */
+  long sent = 0;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create one node's end of a group.
+   *
+   * @param node
+   *   The number of this node.
+   * @param shared
+   *   The queues of the group.
+   */
+  LocalTransport(int node, BlockingQueue<byte[]>[][] shared) {
+    this.rank = node;
+    this.queues = shared;
+  } // LocalTransport(int, BlockingQueue[][])
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Create a group of connected transports, one per node.
+   *
+   * @param nodes
+   *   The number of nodes.
+   * @return The transports, by rank.
+   */
+  @SuppressWarnings({"unchecked"})
+  public static List<Transport> group(int nodes) {
+    BlockingQueue<byte[]>[][] queues = new BlockingQueue[nodes][nodes];
+    for (int to = 0; to < nodes; to++) {
+      for (int from = 0; from < nodes; from++) {
+        queues[to][from] = new LinkedBlockingQueue<byte[]>();
+      } // for from
+    } // for to
+    List<Transport> result = new ArrayList<Transport>(nodes);
+    for (int node = 0; node < nodes; node++) {
+      result.add(new LocalTransport(node, queues));
+    } // for
+    return result;
+  } // group(int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the number of this node.
+   *
+   * @return The rank.
+   */
+  @Override
+  public int rank() {
+    return this.rank;
+  } // rank()
+
+  /**
+   * Get the number of nodes.
+   *
+   * @return The number of nodes.
+   */
+  @Override
+  public int size() {
+    return this.queues.length;
+  } // size()
+
+  /**
+   * Send a message to another node.
+   *
+   * @param to
+   *   The rank of the receiver.
+   * @param message
+   *   The message.
+   */
+  @Override
+  public void send(int to, byte[] message) {
+    this.queues[to][this.rank].add(message);
+    this.sent += message.length;
+  } // send(int, byte[])
+
+  /**
+   * Wait for the next message from another node.
+   *
+   * @param from
+   *   The rank of the sender.
+   * @return The message.
+   * @throws IOException
+   *   If we are interrupted.
+   */
+  @Override
+  public byte[] receive(int from) throws IOException {
+    try {
+      return this.queues[this.rank][from].take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for node " + from);
+    } // try/catch
+  } // receive(int)
+
+  /**
+   * Get the number of bytes this node has sent so far.
+   *
+   * @return The number of bytes.
+   */
+  @Override
+  public long bytesSent() {
+    return this.sent;
+  } // bytesSent()
+
+  /**
+   * Close this end. Nothing needs releasing.
+   */
+  @Override
+  public void close() {
+  } // close()
+} // class LocalTransport
@@ -0,0 +1,401 @@
+package edu.grinnell.csc207.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A transport over TCP, one connection per pair of nodes. Nodes may be
+ * separate JVMs on one machine or on several.
+ *
+ * Each node listens at its own address, connects to every node with a
+ * smaller rank, and accepts a connection from every node with a larger
+ * one. A message is a length followed by its bytes. A thread per peer
+ * reads messages as soon as they arrive, so two nodes that send each
+ * other large messages at once never wait on each other's buffers.
+ *
+ * A node listens only on the interface of its own address. A node that
+ * connects must send its rank and the group's key, and must come from
+ * the host listed for that rank; anything else is refused before its
+ * messages are read. The key keeps strangers out but does not encrypt
+ * anything, so the group should still run on a trusted network.
+ *
+ * @author Andrew N. Fargo
+ */
+public class SocketTransport implements Transport {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * How long to keep trying to reach a node that is not listening
+   * yet, in milliseconds.
+   */
+  static final long CONNECT_TIMEOUT = 30_000;
+
+  /**
+   * How long to wait between tries, in milliseconds.
+   */
+  static final long RETRY_DELAY = 100;
+
+  /**
+   * Put in a queue when its peer goes away.
+   */
+  static final byte[] CLOSED = new byte[0];
+
+  /**
+   * The longest message we accept, in bytes.
+   */
+  static final int MAX_MESSAGE = 1 << 30;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of this node.
+   */
+  int rank;
+
+  /**
+   * The connection to each node, with null for this one.
+   */
+  Socket[] sockets;
+
+  /**
+   * Where to write to each node.
+   */
+  DataOutputStream[] outputs;
+
+  /**
+   * The messages that have arrived from each node.
+   */
+  BlockingQueue<byte[]>[] inboxes;
+
+  /**
+   * The bytes sent so far.
+   */
+  long sent = 0;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Join a group of nodes, listening at this node's address and only
+   * on its interface.
+   *
+   * @param node
+   *   The number of this node.
+   * @param addresses
+   *   The address of every node, by rank.
+   * @param key
+   *   A secret shared by the group.
+   * @throws IOException
+   *   If the group cannot be connected.
+   */
+  public SocketTransport(int node, List<InetSocketAddress> addresses, long key)
+      throws IOException {
+    this(node, addresses, listen(addresses.get(node), addresses.size()), key);
+  } // SocketTransport(int, List, long)
+
+  /**
+   * Join a group of nodes, listening on a socket that is already
+   * bound. The socket is closed once the group is connected.
+   *
+   * @param node
+   *   The number of this node.
+   * @param addresses
+   *   The address of every node, by rank.
+   * @param server
+   *   Where this node listens.
+   * @param key
+   *   A secret shared by the group.
+   * @throws IOException
+   *   If the group cannot be connected, or a connection does not
+   *   belong to it.
+   */
+  @SuppressWarnings({"unchecked"})
+  public SocketTransport(int node, List<InetSocketAddress> addresses, ServerSocket server,
+      long key) throws IOException {
+    int nodes = addresses.size();
+    this.rank = node;
+    this.sockets = new Socket[nodes];
+    this.outputs = new DataOutputStream[nodes];
+    this.inboxes = new BlockingQueue[nodes];
+    try (server) {
+      for (int peer = 0; peer < node; peer++) {
+        Socket socket = connect(addresses.get(peer));
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.writeInt(node);
+        out.writeLong(key);
+        this.attach(peer, socket);
+      } // for
+      server.setSoTimeout((int) CONNECT_TIMEOUT);
+      for (int accepted = node + 1; accepted < nodes; accepted++) {
+        Socket socket = server.accept();
+        try {
+          int peer = this.handshake(socket, addresses, key);
+          this.attach(peer, socket);
+        } catch (IOException e) {
+          socket.close();
+          throw e;
+        } // try/catch
+      } // for
+    } catch (IOException e) {
+      this.close();
+      throw e;
+    } // try/catch
+  } // SocketTransport(int, List, ServerSocket, long)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the number of this node.
+   *
+   * @return The rank.
+   */
+  @Override
+  public int rank() {
+    return this.rank;
+  } // rank()
+
+  /**
+   * Get the number of nodes.
+   *
+   * @return The number of nodes.
+   */
+  @Override
+  public int size() {
+    return this.sockets.length;
+  } // size()
+
+  /**
+   * Send a message to another node.
+   *
+   * @param to
+   *   The rank of the receiver.
+   * @param message
+   *   The message.
+   * @throws IOException
+   *   If the connection fails.
+   */
+  @Override
+  public void send(int to, byte[] message) throws IOException {
+    DataOutputStream out = this.outputs[to];
+    synchronized (out) {
+      out.writeInt(message.length);
+      out.write(message);
+      out.flush();
+    } // synchronized
+    this.sent += message.length;
+  } // send(int, byte[])
+
+  /**
+   * Wait for the next message from another node.
+   *
+   * @param from
+   *   The rank of the sender.
+   * @return The message.
+   * @throws IOException
+   *   If the sender has gone away or we are interrupted.
+   */
+  @Override
+  public byte[] receive(int from) throws IOException {
+    try {
+      byte[] message = this.inboxes[from].take();
+      if (message == CLOSED) {
+        this.inboxes[from].add(CLOSED);
+        throw new EOFException("Node " + from + " has closed its connection");
+      } // if
+      return message;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for node " + from);
+    } // try/catch
+  } // receive(int)
+
+  /**
+   * Get the number of bytes this node has sent so far.
+   *
+   * @return The number of bytes, not counting lengths.
+   */
+  @Override
+  public long bytesSent() {
+    return this.sent;
+  } // bytesSent()
+
+  /**
+   * Close every connection.
+   *
+   * @throws IOException
+   *   If a connection cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    IOException failure = null;
+    for (Socket socket : this.sockets) {
+      if (socket != null) {
+        try {
+          socket.close();
+        } catch (IOException e) {
+          failure = e;
+        } // try/catch
+      } // if
+    } // for
+    if (failure != null) {
+      throw failure;
+    } // if
+  } // close()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Open a socket listening on just the interface of an address.
+   *
+   * @param address
+   *   The address.
+   * @param backlog
+   *   How many connections may wait to be accepted.
+   * @return The socket.
+   * @throws IOException
+   *   If the address cannot be bound.
+   */
+  static ServerSocket listen(InetSocketAddress address, int backlog) throws IOException {
+    ServerSocket server = new ServerSocket();
+    try {
+      server.bind(address, backlog);
+    } catch (IOException e) {
+      server.close();
+      throw e;
+    } // try/catch
+    return server;
+  } // listen(InetSocketAddress, int)
+
+  /**
+   * Check that an accepted connection is a node of the group that we
+   * are still waiting for.
+   *
+   * @param socket
+   *   The connection.
+   * @param addresses
+   *   The address of every node, by rank.
+   * @param key
+   *   The group's secret.
+   * @return The rank of the node.
+   * @throws IOException
+   *   If the connection does not belong to the group.
+   */
+  int handshake(Socket socket, List<InetSocketAddress> addresses, long key)
+      throws IOException {
+    socket.setSoTimeout((int) CONNECT_TIMEOUT);
+    DataInputStream in = new DataInputStream(socket.getInputStream());
+    int peer = in.readInt();
+    long claimed = in.readLong();
+    socket.setSoTimeout(0);
+    if (claimed != key) {
+      throw new IOException("Connection from " + socket.getInetAddress() + " has the wrong key");
+    } // if
+    if (peer <= this.rank || peer >= addresses.size() || this.sockets[peer] != null) {
+      throw new IOException("Unexpected connection from node " + peer);
+    } // if
+    InetAddress expected = addresses.get(peer).getAddress();
+    if (expected != null && !expected.equals(socket.getInetAddress())
+        && !(expected.isLoopbackAddress() && socket.getInetAddress().isLoopbackAddress())) {
+      throw new IOException("Node " + peer + " connected from " + socket.getInetAddress());
+    } // if
+    return peer;
+  } // handshake(Socket, List, long)
+
+  /**
+   * Start using a connection to a peer, with a thread that reads its
+   * messages into the peer's inbox.
+   *
+   * @param peer
+   *   The rank of the peer.
+   * @param socket
+   *   The connection.
+   * @throws IOException
+   *   If the connection's streams cannot be opened.
+   */
+  void attach(int peer, Socket socket) throws IOException {
+    socket.setTcpNoDelay(true);
+    this.sockets[peer] = socket;
+    this.outputs[peer] =
+        new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    BlockingQueue<byte[]> inbox = new LinkedBlockingQueue<byte[]>();
+    this.inboxes[peer] = inbox;
+    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    Thread reader = new Thread(() -> {
+      try {
+        while (true) {
+          int length = in.readInt();
+          if (length < 0 || length > MAX_MESSAGE) {
+            throw new IOException("Bad message length " + length + " from node " + peer);
+          } // if
+          byte[] message = new byte[length];
+          in.readFully(message);
+          inbox.add(message);
+        } // while
+      } catch (IOException e) {
+        // The peer has gone away or broken the protocol; drop it.
+        try {
+          socket.close();
+        } catch (IOException ignored) {
+          // Already failing.
+        } // try/catch
+      } finally {
+        inbox.add(CLOSED);
+      } // try/finally
+    }, "SocketTransport " + this.rank + " <- " + peer);
+    reader.setDaemon(true);
+    reader.start();
+  } // attach(int, Socket)
+
+  /**
+   * Connect to a node, retrying while it is not yet listening.
+   *
+   * @param address
+   *   Where it listens.
+   * @return The connection.
+   * @throws IOException
+   *   If it cannot be reached within CONNECT_TIMEOUT.
+   */
+  static Socket connect(InetSocketAddress address) throws IOException {
+    long deadline = System.nanoTime() + CONNECT_TIMEOUT * 1_000_000;
+    while (true) {
+      Socket socket = new Socket();
+      try {
+        socket.connect(address);
+        return socket;
+      } catch (ConnectException e) {
+        socket.close();
+        if (System.nanoTime() - deadline > 0) {
+          throw e;
+        } // if
+        try {
+          Thread.sleep(RETRY_DELAY);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted connecting to " + address);
+        } // try/catch
+      } // try/catch
+    } // while
+  } // connect(InetSocketAddress)
+} // class SocketTransport
@@ -0,0 +1,59 @@
+package edu.grinnell.csc207.distributed;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * How the nodes of a distributed computation talk to each other. There
+ * are size() nodes, numbered from 0; each has its own transport.
+ * Messages between any two nodes arrive whole and in the order they
+ * were sent. Sending never waits for the receiver to call receive, so
+ * every node may send to all the others before receiving anything.
+ *
+ * @author Andrew N. Fargo
+ */
+public interface Transport extends Closeable {
+  /**
+   * Get the number of this node.
+   *
+   * @return The rank, from 0 to size() - 1.
+   */
+  public int rank();
+
+  /**
+   * Get the number of nodes.
+   *
+   * @return The number of nodes.
+   */
+  public int size();
+
+  /**
+   * Send a message to another node.
+   *
+   * @param to
+   *   The rank of the receiver, other than rank().
+   * @param message
+   *   The message, which must not be changed afterwards.
+   * @throws IOException
+   *   If it cannot be sent.
+   */
+  public void send(int to, byte[] message) throws IOException;
+
+  /**
+   * Wait for the next message from another node.
+   *
+   * @param from
+   *   The rank of the sender, other than rank().
+   * @return The message.
+   * @throws IOException
+   *   If the sender has gone away or we are interrupted.
+   */
+  public byte[] receive(int from) throws IOException;
+
+  /**
+   * Get the number of bytes this node has sent so far.
+   *
+   * @return The number of bytes of messages sent.
+   */
+  public long bytesSent();
+} // interface Transport
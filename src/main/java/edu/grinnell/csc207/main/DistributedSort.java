@@ -0,0 +1,275 @@
+package edu.grinnell.csc207.main;
+
+import edu.grinnell.csc207.distributed.DistributedSorter;
+import edu.grinnell.csc207.distributed.SocketTransport;
+import edu.grinnell.csc207.distributed.Transport;
+import edu.grinnell.csc207.sorting.Sorter;
+import edu.grinnell.csc207.util.Workloads;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+
+import java.lang.management.ManagementFactory;
+import java.security.SecureRandom;
+
+/**
+ * Run a distributed sample sort as several JVMs on this machine, each
+ * a node listening on its own port, and check that the nodes end up
+ * holding the whole input in order.
+ *
+ * Without --rank, starts one JVM per node and waits for them. With
+ * --rank, is that node: it takes its share of the input, sorts with the
+ * others, and reports where its time went. Node 0 also checks the
+ * result. The launcher gives its nodes a random key through the
+ * environment, so that nothing else on the machine can join them.
+ *
+ * @author Andrew N. Fargo
+ */
+public class DistributedSort {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The default number of nodes.
+   */
+  static final int DEFAULT_NODES = 4;
+
+  /**
+   * The default number of values in all.
+   */
+  static final int DEFAULT_SIZE = 1_000_000;
+
+  /**
+   * The default port of node 0. Node r listens on this plus r.
+   */
+  static final int DEFAULT_BASE_PORT = 47_200;
+
+  /**
+   * The default local sorter.
+   */
+  static final String DEFAULT_SORTER = "FargoAndrewSorter";
+
+  /**
+   * The environment variable that holds the nodes' shared key.
+   */
+  static final String KEY_VARIABLE = "DISTRIBUTED_SORT_KEY";
+
+  // +------+--------------------------------------------------------
+  // | Main |
+  // +------+
+
+  /**
+   * Start the nodes, or be one.
+   *
+   * @param args
+   *   Options of the form --name=value.
+   * @throws Exception
+   *   If a node fails.
+   */
+  @SuppressWarnings({"rawtypes"})
+  public static void main(String[] args) throws Exception {
+    int nodes = DEFAULT_NODES;
+    int size = DEFAULT_SIZE;
+    int basePort = DEFAULT_BASE_PORT;
+    int rank = -1;
+    long seed = new Random().nextLong();
+    String shape = Workloads.Shape.UNIFORM.label();
+    String sorter = DEFAULT_SORTER;
+    for (String arg : args) {
+      String value = arg.substring(arg.indexOf('=') + 1);
+      if (arg.startsWith("--nodes=")) {
+        nodes = Integer.parseInt(value);
+      } else if (arg.startsWith("--size=")) {
+        size = Integer.parseInt(value);
+      } else if (arg.startsWith("--base-port=")) {
+        basePort = Integer.parseInt(value);
+      } else if (arg.startsWith("--rank=")) {
+        rank = Integer.parseInt(value);
+      } else if (arg.startsWith("--seed=")) {
+        seed = Long.parseLong(value);
+      } else if (arg.startsWith("--shape=")) {
+        shape = value;
+      } else if (arg.startsWith("--sorter=")) {
+        sorter = value;
+      } else {
+        System.err.println("Usage: java " + DistributedSort.class.getName()
+            + " [--nodes=N] [--size=N] [--base-port=P] [--seed=N] [--shape=NAME]"
+            + " [--sorter=NAME]");
+        System.exit(1);
+      } // if/else
+    } // for
+
+    if (rank < 0) {
+      System.exit(launch(nodes, args, seed));
+    } // if
+    Sorter<Comparable> local = SortTools.getSorter(sorter);
+    String key = System.getenv(KEY_VARIABLE);
+    if (local == null || key == null || key.isEmpty()) {
+      System.err.println((local == null) ? "Unknown sorter " + sorter
+          : "--rank is only for nodes that DistributedSort starts itself");
+      System.exit(1);
+    } // if
+    List<InetSocketAddress> addresses = new ArrayList<InetSocketAddress>();
+    for (int r = 0; r < nodes; r++) {
+      addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), basePort + r));
+    } // for
+    PrintWriter pen = new PrintWriter(System.out, true);
+    boolean ok;
+    try (SocketTransport transport =
+        new SocketTransport(rank, addresses, Long.parseUnsignedLong(key, 16))) {
+      ok = node(transport, size, new Workloads(seed), Workloads.Shape.parse(shape), local, pen);
+    } // try
+    System.exit(ok ? 0 : 2);
+  } // main(String[])
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Start one JVM per node with the same options and a fresh key, and
+   * wait for them.
+   *
+   * @param nodes
+   *   The number of nodes.
+   * @param args
+   *   The options.
+   * @param seed
+   *   The seed, so every node makes the same input.
+   * @return 0 if every node succeeded, or the status of one that did
+   *   not.
+   * @throws IOException
+   *   If a JVM cannot be started.
+   * @throws InterruptedException
+   *   If interrupted while waiting.
+   */
+  static int launch(int nodes, String[] args, long seed)
+      throws IOException, InterruptedException {
+    String key = Long.toHexString(new SecureRandom().nextLong());
+    List<Process> processes = new ArrayList<Process>();
+    for (int r = 0; r < nodes; r++) {
+      List<String> command = new ArrayList<String>();
+      command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+      for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+        if (!arg.startsWith("-agentlib") && !arg.startsWith("-javaagent")) {
+          command.add(arg);
+        } // if
+      } // for
+      command.add("-cp");
+      command.add(System.getProperty("java.class.path"));
+      command.add(DistributedSort.class.getName());
+      command.addAll(Arrays.asList(args));
+      command.add("--seed=" + seed);
+      command.add("--rank=" + r);
+      ProcessBuilder builder = new ProcessBuilder(command).inheritIO();
+      builder.environment().put(KEY_VARIABLE, key);
+      processes.add(builder.start());
+    } // for
+    int status = 0;
+    for (Process process : processes) {
+      int exit = process.waitFor();
+      if (exit != 0) {
+        status = exit;
+      } // if
+    } // for
+    return status;
+  } // launch(int, String[], long)
+
+  /**
+   * Be one node.
+   *
+   * @param transport
+   *   How this node reaches the others.
+   * @param size
+   *   The number of values across all the nodes.
+   * @param workloads
+   *   Makes the input. Every node must use the same seed.
+   * @param shape
+   *   The shape of the input.
+   * @param sorter
+   *   Sorts each node's shard.
+   * @param pen
+   *   Where to report.
+   * @return Whether the nodes ended up in order.
+   * @throws IOException
+   *   If the nodes cannot communicate.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  static boolean node(Transport transport, int size, Workloads workloads,
+      Workloads.Shape shape, Sorter sorter, PrintWriter pen) throws IOException {
+    int rank = transport.rank();
+    int nodes = transport.size();
+    Integer[] input = workloads.integers(shape, size);
+    Integer[] shard = Arrays.copyOfRange(input,
+        (int) ((long) rank * size / nodes), (int) ((long) (rank + 1) * size / nodes));
+
+    DistributedSorter<Integer> distributed =
+        new DistributedSorter<Integer>(transport, sorter, (x, y) -> x.compareTo(y));
+    Integer[] result = distributed.sort(shard);
+    DistributedSorter.Phases phases = distributed.phases();
+    pen.printf("node %d: %d values; sort %.1f ms, splitters %.1f ms, exchange %.1f ms, "
+        + "merge %.1f ms, %d bytes sent%n", rank, phases.received(),
+        phases.sortNanos() / 1e6, phases.splitNanos() / 1e6,
+        phases.exchangeNanos() / 1e6, phases.mergeNanos() / 1e6, phases.bytesSent());
+
+    // Everyone reports its count, sum, order, and ends to node 0.
+    boolean inOrder = true;
+    long sum = 0;
+    for (int i = 0; i < result.length; i++) {
+      sum += result[i];
+      inOrder &= (i == 0) || result[i - 1] <= result[i];
+    } // for
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(result.length);
+    out.writeLong(sum);
+    out.writeBoolean(inOrder);
+    out.writeInt((result.length == 0) ? 0 : result[0]);
+    out.writeInt((result.length == 0) ? 0 : result[result.length - 1]);
+    if (rank != 0) {
+      transport.send(0, bytes.toByteArray());
+      return true;
+    } // if
+
+    long expectedSum = 0;
+    for (Integer value : input) {
+      expectedSum += value;
+    } // for
+    long count = 0;
+    long total = 0;
+    boolean ok = true;
+    Integer last = null;
+    for (int r = 0; r < nodes; r++) {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+          (r == 0) ? bytes.toByteArray() : transport.receive(r)));
+      int length = in.readInt();
+      count += length;
+      total += in.readLong();
+      ok &= in.readBoolean();
+      int first = in.readInt();
+      int end = in.readInt();
+      if (length > 0) {
+        ok &= (last == null) || last <= first;
+        last = end;
+      } // if
+    } // for
+    ok &= (count == size) && (total == expectedSum);
+    pen.println((ok ? "Sorted " : "FAILED to sort ") + size + " values across " + nodes
+        + " nodes (seed " + workloads.seed() + ")");
+    return ok;
+  } // node(Transport, int, Workloads, Workloads.Shape, Sorter, PrintWriter)
+} // class DistributedSort
@@ -1,14 +1,27 @@
 package edu.grinnell.csc207.main;
 
 import edu.grinnell.csc207.sorting.Sorter;
-import edu.grinnell.csc207.util.SimpleTimer;
+import edu.grinnell.csc207.util.BenchmarkResults;
+import edu.grinnell.csc207.util.Profiler;
+import edu.grinnell.csc207.util.Scaling;
+import edu.grinnell.csc207.util.Statistics;
+import edu.grinnell.csc207.util.Workloads;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
 
+import java.nio.file.Path;
+
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Constructor;
 
 /**
@@ -25,7 +38,8 @@ public class SortTools {
   static final long MIN_USEFUL_TIME = 300;
 
   /**
-   * What is too long for the basic test? (unused)
+   * What is too long for the basic test? The scale command stops
+   * growing an input once sorting it takes this long.
    */
   static final long MAX_USEFUL_TIME = 2000;
 
@@ -34,6 +48,64 @@ public class SortTools {
    */
   static final long ROUNDS = 10;
 
+  /**
+   * The smallest size the scale command tries.
+   */
+  static final int SCALE_START = 100;
+
+  /**
+   * How long, in milliseconds, the scale command lets a sorter warm
+   * up before measuring it.
+   */
+  static final long WARMUP_TIME = 1000;
+
+  /**
+   * The default largest size the scale command tries.
+   */
+  static final int DEFAULT_MAX_SIZE = 1 << 22;
+
+  /**
+   * The default size the scale command predicts times for.
+   */
+  static final long DEFAULT_TARGET = 10_000_000;
+
+  /**
+   * Times below this many milliseconds are mostly noise, so scale
+   * leaves them out of its fits when it has enough other points.
+   */
+  static final double MIN_FIT_TIME = 0.05;
+
+  /**
+   * The default number of untimed sorts a forked competitor does
+   * before its first round.
+   */
+  static final int DEFAULT_WARMUP = 5;
+
+  /**
+   * The prefix of the lines in which a worker reports a round.
+   */
+  static final String ROUND_PREFIX = "ROUND ";
+
+  /**
+   * The default number of times time sorts each size.
+   */
+  static final int DEFAULT_REPEATS = 5;
+
+  /**
+   * The default slowdown, in percent, that compare calls a regression.
+   */
+  static final double DEFAULT_THRESHOLD = 5.0;
+
+  /**
+   * The default significance level for compare.
+   */
+  static final double DEFAULT_ALPHA = 0.05;
+
+  /**
+   * The exit code when compare finds a regression.
+   */
+  static final int REGRESSION_EXIT = 3;
+
   // +--------+------------------------------------------------------
   // | Fields |
   // +--------+
@@ -43,6 +115,80 @@ public class SortTools {
    */
   static Random rand;
 
+  /**
+   * Where to save timings, or null if they are not saved.
+   */
+  static Path resultsFile = null;
+
+  /**
+   * Where our benchmark inputs come from.
+   */
+  static Workloads workloads;
+
+  /**
+   * The shapes of input that compete chooses among.
+   */
+  static Workloads.Shape[] shapes = Workloads.Shape.values();
+
+  /**
+   * Where timings are recorded, or null if they are not saved.
+   */
+  static BenchmarkResults results;
+
+  /**
+   * The slowdown, in percent, that compare calls a regression.
+   */
+  static double threshold = DEFAULT_THRESHOLD;
+
+  /**
+   * The significance level for compare.
+   */
+  static double alpha = DEFAULT_ALPHA;
+
+  /**
+   * The number of times time sorts each size.
+   */
+  static int repeats = DEFAULT_REPEATS;
+
+  /**
+   * The largest size the scale command tries.
+   */
+  static int maxSize = DEFAULT_MAX_SIZE;
+
+  /**
+   * The size the scale command predicts times for.
+   */
+  static long target = DEFAULT_TARGET;
+
+  /**
+   * Whether the shapes were chosen on the command line.
+   */
+  static boolean shapesGiven = false;
+
+  /**
+   * How compete isolates sorters: null to run them all in this JVM,
+   * "sorter" for one JVM per sorter, or "round" for one JVM per sorter
+   * and round.
+   */
+  static String fork = null;
+
+  /**
+   * The number of untimed sorts a forked competitor does first.
+   */
+  static int warmup = DEFAULT_WARMUP;
+
+  /**
+   * The heap size for forked competitors, as for -Xmx, or null for the
+   * maximum heap of this JVM.
+   */
+  static String heap = null;
+
+  /**
+   * The rounds a worker runs, as round:shape:size entries separated by
+   * commas.
+   */
+  static String plan = null;
+
   /**
    * Prefixes for our sorters.
    */
@@ -61,13 +207,40 @@ public class SortTools {
    *   Command-line arguments. See the help document for details.
    */
   public static void main(String[] args) {
-    rand = new Random();
+    args = options(args);
+
     // Ensure that we have enough arguments.
     if (args.length < 2) {
       help();
       return;
     } // if
 
+    // Comparing result files needs no sorters.
+    if (args[0].equals("compare")) {
+      if (args.length != 3) {
+        help();
+        System.exit(1);
+      } // if
+      try {
+        if (compare(Path.of(args[1]), Path.of(args[2]),
+            new PrintWriter(System.out, true))) {
+          System.exit(REGRESSION_EXIT);
+        } // if
+      } catch (IOException e) {
+        System.err.println("Cannot read results: " + e.getMessage());
+        System.exit(1);
+      } // try/catch
+      return;
+    } // if
+    if (resultsFile != null) {
+      results = new BenchmarkResults();
+      results.metadata().put("seed", Long.toString(workloads.seed()));
+      if (fork != null) {
+        results.metadata().put("fork", fork);
+        results.metadata().put("warmup", Integer.toString(warmup));
+      } // if
+    } // if
+
     // Grab the sort classes
     boolean ok = true;
     Sorter<Comparable>[] sorters = new Sorter[args.length - 1];
@@ -86,6 +259,7 @@ public class SortTools {
     // For now, we're printing to standard output.  Eventually,
     // we may want to print to a log file for each sorter.
     PrintWriter pen = new PrintWriter(System.out, true);
+    pen.println("Seed " + workloads.seed());
 
     // Decide what command to try
     switch (args[0]) {
@@ -103,13 +277,98 @@ public class SortTools {
       case "compete":
         compete(sorters, pen);
         break;
+      case "worker":
+        if (sorters.length != 1 || plan == null) {
+          System.err.println("worker needs one sorter and a --plan");
+          System.exit(1);
+        } // if
+        worker(sorters[0], plan, pen);
+        break;
+      case "scale":
+        for (Sorter sorter : sorters) {
+          for (Workloads.Shape shape
+              : shapesGiven ? shapes : new Workloads.Shape[] {Workloads.Shape.UNIFORM}) {
+            scale(sorter, shape, pen);
+          } // for shape
+        } // for sorter
+        break;
       default:
         System.err.println("Invalid command: '" + args[0] + "'");
         help();
         System.exit(1);
     } // switch
+
+    // Save the timings.
+    if (results != null) {
+      try {
+        results.write(resultsFile);
+        pen.println("Results saved to " + resultsFile);
+      } catch (IOException e) {
+        System.err.println("Cannot save results: " + e.getMessage());
+        System.exit(1);
+      } // try/catch
+    } // if
   } // main(String[])
 
+  /**
+   * Pull out the --name=value options, setting the fields they
+   * control, and seed the random numbers and workloads.
+   *
+   * @param args
+   *   The command-line arguments.
+   * @return The arguments that are not options, in order.
+   */
+  static String[] options(String[] args) {
+    long seed = new Random().nextLong();
+    List<String> positional = new ArrayList<String>();
+    for (String arg : args) {
+      if (arg.startsWith("--results=")) {
+        resultsFile = Path.of(arg.substring("--results=".length()));
+      } else if (arg.startsWith("--threshold=")) {
+        threshold = Double.parseDouble(arg.substring("--threshold=".length()));
+      } else if (arg.startsWith("--alpha=")) {
+        alpha = Double.parseDouble(arg.substring("--alpha=".length()));
+      } else if (arg.startsWith("--repeats=")) {
+        repeats = Math.max(1, Integer.parseInt(arg.substring("--repeats=".length())));
+      } else if (arg.startsWith("--max-size=")) {
+        maxSize = Integer.parseInt(arg.substring("--max-size=".length()));
+      } else if (arg.startsWith("--target=")) {
+        target = Long.parseLong(arg.substring("--target=".length()));
+      } else if (arg.startsWith("--fork=")) {
+        fork = arg.substring("--fork=".length());
+        if (!fork.equals("sorter") && !fork.equals("round")) {
+          System.err.println("Invalid fork mode: '" + fork + "'");
+          help();
+          System.exit(1);
+        } // if
+      } else if (arg.startsWith("--warmup=")) {
+        warmup = Integer.parseInt(arg.substring("--warmup=".length()));
+      } else if (arg.startsWith("--heap=")) {
+        heap = arg.substring("--heap=".length());
+      } else if (arg.startsWith("--plan=")) {
+        plan = arg.substring("--plan=".length());
+      } else if (arg.startsWith("--seed=")) {
+        seed = Long.parseLong(arg.substring("--seed=".length()));
+      } else if (arg.startsWith("--shapes=")) {
+        String[] names = arg.substring("--shapes=".length()).split(",");
+        shapes = new Workloads.Shape[names.length];
+        for (int i = 0; i < names.length; i++) {
+          shapes[i] = Workloads.Shape.parse(names[i]);
+        } // for
+        shapesGiven = true;
+      } else if (arg.startsWith("--")) {
+        System.err.println("Invalid option: '" + arg + "'");
+        help();
+        System.exit(1);
+      } else {
+        positional.add(arg);
+      } // if/else
+    } // for
+    rand = new Random(seed);
+    workloads = new Workloads(seed);
+    return positional.toArray(new String[0]);
+  } // options(String[])
+
   // +---------+-----------------------------------------------------
   // | Actions |
   // +---------+
@@ -222,27 +481,42 @@ public class SortTools {
   } // test(Sorter, PrintWriter)
 
   /**
-   * Time a sorter on a series of random arrays until it takes
-   * more than MIN_USEFUL_TIME milliseconds.
+   * Time a sorter on a series of random arrays until the median of
+   * its runs takes more than MIN_USEFUL_TIME milliseconds. When
+   * printing, each size is sorted repeats times and reported as a
+   * distribution; quietly, once.
    */
   static int time(Sorter s, PrintWriter pen) {
-    long time = 0;
+    double time = 0;
     int size = 1000;
+    int step = 0;
+    int runs = (pen == null) ? 1 : repeats;
+    Profiler profiler = new Profiler();
 
     if (pen != null) { 
-      pen.println("Timing of " + s.getClass().getName()); 
-      pen.println("\tSize\tTime (in milliseconds)");
+      pen.println("Timing of " + s.getClass().getName() + " (times in milliseconds)");
+      pen.println("\tSize\tp50\tp90\tmax\tcpu\talloc MB\tgc");
     } // if pen
 
     do {
-      Integer[] sorted = sampleSortedArray(size);
-      Integer[] source = Arrays.copyOf(sorted, size);
-      permute(source);
-      SimpleTimer st = new SimpleTimer();
-      s.sort(source);
-      time = st.elapsed();
+      Integer[] original = workloads.integers(Workloads.Shape.UNIFORM, size);
+      List<Profiler.Measurement> measurements = new ArrayList<Profiler.Measurement>();
+      step++;
+      for (int run = 0; run < runs; run++) {
+        Integer[] source = Arrays.copyOf(original, size);
+        Profiler.Measurement m = profiler.measure(() -> s.sort(source));
+        measurements.add(m);
+        // compete calls us quietly to find sizes; only record real runs.
+        if (pen != null && results != null) {
+          results.add("time", s.getClass().getName(), step, "uniform", size, m.millis());
+        } // if results
+      } // for
+      Profiler.Summary summary = new Profiler.Summary(measurements);
+      time = summary.median();
       if (pen != null) {
-        pen.printf("\t%d\t%d\n", size, time);
+        pen.printf("\t%d\t%.3f\t%.3f\t%.3f\t%.3f\t%.2f\t\t%d\n", size, time,
+            summary.percentile(90), summary.percentile(100), summary.cpuMillis(),
+            summary.allocatedBytes() / 1e6, summary.gcCount());
       } // if pen
       size = size*2 + rand.nextInt(10);
     } while ((time < MIN_USEFUL_TIME) && (size < Integer.MAX_VALUE/4));
@@ -289,72 +563,64 @@ public class SortTools {
     } // for
     // int size = (int) (sum / count);
 
-    // Set up the times
-    long[] times = new long[sorters.length];
-    for (int i = 0; i < sorters.length; i++) {
-      times[i] = 0;
+    // Plan the rounds, so that every sorter, in whatever JVM, sorts
+    // the same inputs.
+    int rounds = (int) ROUNDS;
+    Workloads.Shape[] roundShapes = new Workloads.Shape[rounds];
+    int[] roundSizes = new int[rounds];
+    for (int round = 0; round < rounds; round++) {
+      roundSizes[round] = (3*size)/4 + rand.nextInt(size/2);
+      roundShapes[round] = shapes[rand.nextInt(shapes.length)];
     } // for
 
     // Run the rounds of the competition
-    for (int round = 1; round <= ROUNDS; round++) {
-      int tmpsize = (3*size)/4 + rand.nextInt(size/2);
-
-      // Generate the array
-      Integer[] original = sampleSortedArray(tmpsize);
-      String type;
-      switch (rand.nextInt(7)) {
-        case 0:
-          type = "sorted";
-          break;
-        case 1:
-          type = "reverse sorted";
-          reverse(original);
-          break;
-        case 2:
-          type = "slightly randomized";
-          permute(original, tmpsize/10);
-          break;
-        case 3:
-          type = "slightly randomized reverse sorted";
-          reverse(original);
-          permute(original, tmpsize/10);
-          break;
-        default:
-          type = "randomized";
-          permute(original);
-          break;
-      } // switch
+    Profiler.Measurement[][] runs = (fork == null)
+        ? competeHere(sorters, ok, roundShapes, roundSizes)
+        : competeForked(sorters, ok, roundShapes, roundSizes, pen);
 
+    // Report the rounds
+    double[] times = new double[sorters.length];
+    List<List<Profiler.Measurement>> measurements = new ArrayList<List<Profiler.Measurement>>();
+    for (int i = 0; i < sorters.length; i++) {
+      measurements.add(new ArrayList<Profiler.Measurement>());
+    } // for
+    for (int round = 1; round <= rounds; round++) {
+      String type = roundShapes[round - 1].label();
+      int tmpsize = roundSizes[round - 1];
       if (pen != null) {
         pen.printf("\nRound %d (%s, size %d)\n", round, type, tmpsize);
       } // if pen
-
       for (int i = 0; i < sorters.length; i++) {
         if (ok[i]) {
-          // Set up the arrays to sort
-          Integer[] source = Arrays.copyOf(original, tmpsize);
-          // Sort and time
-          SimpleTimer st = new SimpleTimer();
-          sorters[i].sort(source);
-          long time = st.elapsed();
+          double time = runs[i][round - 1].millis();
           times[i] += time;
+          measurements.get(i).add(runs[i][round - 1]);
           if (pen != null) {
-            pen.println("  " + sorters[i].getClass().getName() + ": " + time);
+            pen.printf("  %s: %.3f\n", sorters[i].getClass().getName(), time);
           } // if pen
+          if (results != null) {
+            results.add("compete", sorters[i].getClass().getName(), round, type,
+                tmpsize, time);
+          } // if results
         } // if ok
       } // for i
     } // for round
 
     // Print out the final results
     if (pen != null) {
-      System.out.println("\nFinal results");
+      System.out.println("\nFinal results (milliseconds per round)");
+      System.out.println("\tTotal\tp50\tp90\tmax\talloc MB\tgc\tSorter");
     } // if pen
-    long bestTime = Long.MAX_VALUE;
+    double bestTime = Double.MAX_VALUE;
     Sorter bestSorter = null;
     for (int i = 0; i < sorters.length; i++) {
       if (ok[i]) {
         if (pen != null) {
-          System.out.println(sorters[i].getClass().getName() + ": " + times[i]);
+          Profiler.Summary summary = new Profiler.Summary(measurements.get(i));
+          System.out.printf("\t%.1f\t%.3f\t%.3f\t%.3f\t%.2f\t\t%d\t%s\n", times[i],
+              summary.median(), summary.percentile(90), summary.percentile(100),
+              summary.allocatedBytes() / 1e6, summary.gcCount(),
+              sorters[i].getClass().getName());
         } // if pen
         if (times[i] < bestTime) {
           bestTime = times[i];
@@ -371,6 +637,323 @@ public class SortTools {
     return bestSorter;
   } // compete(Sorter[])
 
+  /**
+   * Run the rounds of a competition in this JVM, one sorter after
+   * another on each input.
+   *
+   * @param sorters
+   *   The sorters.
+   * @param ok
+   *   Which sorters passed their tests.
+   * @param roundShapes
+   *   The shape of input for each round.
+   * @param roundSizes
+   *   The size of input for each round.
+   * @return The measurements, by sorter and round, with nulls for the
+   *   sorters that are not ok.
+   */
+  static Profiler.Measurement[][] competeHere(Sorter[] sorters, boolean[] ok,
+      Workloads.Shape[] roundShapes, int[] roundSizes) {
+    Profiler profiler = new Profiler();
+    Profiler.Measurement[][] runs = new Profiler.Measurement[sorters.length][roundSizes.length];
+    for (int round = 0; round < roundSizes.length; round++) {
+      Integer[] original = workloads.integers(roundShapes[round], roundSizes[round]);
+      for (int i = 0; i < sorters.length; i++) {
+        if (ok[i]) {
+          Integer[] source = Arrays.copyOf(original, original.length);
+          Sorter sorter = sorters[i];
+          runs[i][round] = profiler.measure(() -> sorter.sort(source));
+        } // if
+      } // for i
+    } // for round
+    return runs;
+  } // competeHere(Sorter[], boolean[], Workloads.Shape[], int[])
+
+  /**
+   * Run the rounds of a competition in fresh JVMs, one per sorter or
+   * one per sorter and round, so that no sorter inherits another's JIT
+   * profile or pays for its warmup. Each JVM gets the same seed, heap,
+   * and warmup. A sorter whose JVM fails is marked not ok.
+   *
+   * @param sorters
+   *   The sorters.
+   * @param ok
+   *   Which sorters passed their tests.
+   * @param roundShapes
+   *   The shape of input for each round.
+   * @param roundSizes
+   *   The size of input for each round.
+   * @param pen
+   *   Where to report progress, or null.
+   * @return The measurements, by sorter and round, with nulls for the
+   *   sorters that are not ok.
+   */
+  static Profiler.Measurement[][] competeForked(Sorter[] sorters, boolean[] ok,
+      Workloads.Shape[] roundShapes, int[] roundSizes, PrintWriter pen) {
+    Profiler.Measurement[][] runs = new Profiler.Measurement[sorters.length][roundSizes.length];
+    boolean perRound = fork.equals("round");
+    int forks = perRound ? roundSizes.length : 1;
+    for (int f = 0; f < forks; f++) {
+      int from = perRound ? f : 0;
+      int to = perRound ? f + 1 : roundSizes.length;
+      StringBuilder entries = new StringBuilder();
+      for (int round = from; round < to; round++) {
+        entries.append((round > from) ? "," : "").append(round + 1).append(':')
+            .append(roundShapes[round].label()).append(':').append(roundSizes[round]);
+      } // for
+      for (int i = 0; i < sorters.length; i++) {
+        if (ok[i]) {
+          String name = sorters[i].getClass().getName();
+          if (pen != null) {
+            pen.printf("Forking %s for round%s %d-%d\n", name, perRound ? "" : "s", from + 1, to);
+          } // if pen
+          try {
+            runWorker(name, entries.toString(), runs[i]);
+          } catch (IOException e) {
+            System.err.println(name + " FAILED in its own JVM: " + e.getMessage());
+            ok[i] = false;
+          } // try/catch
+        } // if ok
+      } // for i
+    } // for f
+    return runs;
+  } // competeForked(Sorter[], boolean[], Workloads.Shape[], int[], PrintWriter)
+
+  /**
+   * Run a worker JVM and collect the rounds it reports.
+   *
+   * @param sorter
+   *   The name of the sorter class.
+   * @param rounds
+   *   The plan for the worker.
+   * @param runs
+   *   Where to put the measurements, by round.
+   * @throws IOException
+   *   If the worker cannot be started, fails, or skips a round.
+   */
+  static void runWorker(String sorter, String rounds, Profiler.Measurement[] runs)
+      throws IOException {
+    List<String> command = new ArrayList<String>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+      if (!arg.startsWith("-Xm") && !arg.startsWith("-agentlib")
+          && !arg.startsWith("-javaagent")) {
+        command.add(arg);
+      } // if
+    } // for
+    String size = (heap != null) ? heap : (Runtime.getRuntime().maxMemory() >> 20) + "m";
+    command.add("-Xms" + size);
+    command.add("-Xmx" + size);
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(SortTools.class.getName());
+    command.add("--seed=" + workloads.seed());
+    command.add("--warmup=" + warmup);
+    command.add("--plan=" + rounds);
+    command.add("worker");
+    command.add(sorter);
+
+    Process process = new ProcessBuilder(command)
+        .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    int reported = 0;
+    try (BufferedReader lines =
+        new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+      String line;
+      while ((line = lines.readLine()) != null) {
+        if (line.startsWith(ROUND_PREFIX)) {
+          String[] fields = line.substring(ROUND_PREFIX.length()).trim().split(" ");
+          runs[Integer.parseInt(fields[0]) - 1] = new Profiler.Measurement(
+              Long.parseLong(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+              Long.parseLong(fields[4]), Long.parseLong(fields[5]));
+          reported++;
+        } // if
+      } // while
+    } // try
+    try {
+      int status = process.waitFor();
+      if (status != 0) {
+        throw new IOException("worker exited with status " + status);
+      } // if
+    } catch (InterruptedException e) {
+      process.destroyForcibly();
+      Thread.currentThread().interrupt();
+      throw new IOException("interrupted while waiting for the worker");
+    } // try/catch
+    if (reported != rounds.split(",").length) {
+      throw new IOException("worker reported " + reported + " rounds");
+    } // if
+  } // runWorker(String, String, Profiler.Measurement[])
+
+  /**
+   * Be one forked competitor: sort the first planned input warmup
+   * times untimed, then time each planned round and report it on a
+   * line of its own as ROUND, the round, and the fields of the
+   * measurement.
+   *
+   * @param s
+   *   The sorter.
+   * @param rounds
+   *   The plan, as round:shape:size entries separated by commas.
+   * @param pen
+   *   Where to report.
+   */
+  static void worker(Sorter s, String rounds, PrintWriter pen) {
+    String[] entries = rounds.split(",");
+    Profiler profiler = new Profiler();
+    for (int e = 0; e < entries.length; e++) {
+      String[] fields = entries[e].split(":");
+      Integer[] original =
+          workloads.integers(Workloads.Shape.parse(fields[1]), Integer.parseInt(fields[2]));
+      if (e == 0) {
+        for (int w = 0; w < warmup; w++) {
+          s.sort(Arrays.copyOf(original, original.length));
+        } // for
+      } // if
+      Integer[] source = Arrays.copyOf(original, original.length);
+      Profiler.Measurement m = profiler.measure(() -> s.sort(source));
+      pen.printf("%s%s %d %d %d %d %d\n", ROUND_PREFIX, fields[0], m.nanos(), m.cpuNanos(),
+          m.allocatedBytes(), m.gcCount(), m.gcMillis());
+    } // for
+  } // worker(Sorter, String, PrintWriter)
+
+  /**
+   * Measure how a sorter's time grows on one shape of input. Sizes
+   * grow by a factor of sqrt(10) from SCALE_START until they pass
+   * maxSize or the median of repeats runs passes MAX_USEFUL_TIME.
+   * The medians are then fit to n, n log n, and n^2 and to a power
+   * law, and both the best model and the power law predict the time
+   * at target.
+   *
+   * @param s
+   *   The sorter.
+   * @param shape
+   *   The shape of input.
+   * @param pen
+   *   Where to report.
+   * @return The best fitting model, or null if there were too few
+   *   sizes to fit.
+   */
+  static Scaling.Fit scale(Sorter s, Workloads.Shape shape, PrintWriter pen) {
+    String name = s.getClass().getName();
+    Profiler profiler = new Profiler();
+    pen.println("Scaling of " + name + " on " + shape.label() + " input");
+    pen.println("\tSize\tp50 (ms)\tp90 (ms)");
+
+    // Let the JIT compile the sorter before we measure small sizes.
+    Integer[] warm = workloads.integers(shape, SCALE_START * 100);
+    long warmUntil = System.nanoTime() + WARMUP_TIME * 1_000_000;
+    do {
+      s.sort(Arrays.copyOf(warm, warm.length));
+    } while (System.nanoTime() < warmUntil);
+
+    List<double[]> points = new ArrayList<double[]>();
+    int step = 0;
+    double time = 0;
+    for (double n = SCALE_START; n <= maxSize && time < MAX_USEFUL_TIME; n *= Math.sqrt(10)) {
+      int size = (int) Math.round(n);
+      Integer[] original = workloads.integers(shape, size);
+      List<Profiler.Measurement> measurements = new ArrayList<Profiler.Measurement>();
+      step++;
+      for (int run = 0; run < repeats; run++) {
+        Integer[] source = Arrays.copyOf(original, size);
+        Profiler.Measurement m = profiler.measure(() -> s.sort(source));
+        measurements.add(m);
+        if (results != null) {
+          results.add("scale", name, step, shape.label(), size, m.millis());
+        } // if results
+      } // for
+      Profiler.Summary summary = new Profiler.Summary(measurements);
+      time = summary.median();
+      pen.printf("\t%d\t%.4f\t\t%.4f\n", size, time, summary.percentile(90));
+      points.add(new double[] {size, Math.max(time, 1e-6)});
+    } // for
+
+    // Fit the points that are long enough to trust, if there are enough.
+    long trusted = points.stream().filter((p) -> p[1] >= MIN_FIT_TIME).count();
+    double[][] fitted = points.stream().filter((p) -> trusted < 3 || p[1] >= MIN_FIT_TIME)
+        .toArray(double[][]::new);
+    if (fitted.length < 2) {
+      pen.println("  Too few sizes to fit.\n");
+      return null;
+    } // if
+    double[] sizes = new double[fitted.length];
+    double[] times = new double[fitted.length];
+    for (int i = 0; i < fitted.length; i++) {
+      sizes[i] = fitted[i][0];
+      times[i] = fitted[i][1];
+    } // for
+    Scaling.Fit best = Scaling.best(sizes, times);
+    for (Scaling.Fit fit : Scaling.fits(sizes, times)) {
+      pen.printf("  %-8s c = %.4g ms, error %.0f%%%s\n", fit.model().label() + ":",
+          fit.constant(), 100 * fit.error(), (fit == best) ? "  <- best" : "");
+    } // for
+    Scaling.PowerLaw law = Scaling.powerLaw(sizes, times);
+    pen.printf("  power law: %.4g ms * n^%.2f\n", law.constant(), law.exponent());
+    pen.printf("  at n = %d: %.4g ms (%s), %.4g ms (power law)\n\n", target,
+        best.predict(target), best.model().label(), law.predict(target));
+    return best;
+  } // scale(Sorter, Workloads.Shape, PrintWriter)
+
+  /**
+   * Compare two saved result files, sorter by sorter. Timings are
+   * scaled to nanoseconds per element and compared with the
+   * Mann-Whitney U test; a sorter has regressed when its median got
+   * more than threshold percent slower and the difference is
+   * significant at level alpha.
+   *
+   * @param before
+   *   The baseline results.
+   * @param after
+   *   The new results.
+   * @param pen
+   *   Where to report.
+   * @return true if any sorter regressed.
+   * @throws IOException
+   *   If either file cannot be read.
+   */
+  static boolean compare(Path before, Path after, PrintWriter pen) throws IOException {
+    BenchmarkResults old = BenchmarkResults.read(before);
+    BenchmarkResults current = BenchmarkResults.read(after);
+    for (String key : new String[] {"java.version", "cpu", "processors", "heap.max"}) {
+      String was = old.metadata().get(key);
+      String is = current.metadata().get(key);
+      if (was != null && !was.equals(is)) {
+        pen.println("Warning: " + key + " differs (" + was + " vs. " + is + ")");
+      } // if
+    } // for
+
+    boolean regressed = false;
+    pen.printf("%-45s %6s %12s %12s %8s %8s  %s\n", "Sorter", "Cmd", "Before ns/el",
+        "After ns/el", "Change", "p", "Verdict");
+    for (String command : new String[] {"compete", "time"}) {
+      Map<String, double[]> was = old.samples(command);
+      Map<String, double[]> is = current.samples(command);
+      for (Map.Entry<String, double[]> entry : was.entrySet()) {
+        double[] a = entry.getValue();
+        double[] b = is.get(entry.getKey());
+        if (b == null) {
+          continue;
+        } // if
+        double medianA = Statistics.median(a);
+        double medianB = Statistics.median(b);
+        double p = Statistics.mannWhitneyP(a, b);
+        /* A change relative to a zero or missing baseline means nothing. */
+        boolean known = Double.isFinite(medianA) && Double.isFinite(medianB) && medianA > 0;
+        double change = known ? 100 * (medianB - medianA) / medianA : Double.NaN;
+        String verdict = known ? "same" : "unknown";
+        if (known && p < alpha && change > threshold) {
+          verdict = "REGRESSION";
+          regressed = true;
+        } else if (known && p < alpha && change < -threshold) {
+          verdict = "improvement";
+        } // if/else
+        pen.printf("%-45s %6s %12.2f %12.2f %8s %8.4f  %s\n", entry.getKey(), command,
+            medianA, medianB, known ? String.format("%+7.1f%%", change) : "n/a", p, verdict);
+      } // for
+    } // for
+    return regressed;
+  } // compare(Path, Path, PrintWriter)
+
   // +-----------+---------------------------------------------------
   // | Utilities |
   // +-----------+
@@ -379,8 +962,29 @@ public class SortTools {
    * Print the help message.
    */
   static void help() {
-    System.err.println("Usage: java SortTools COMMAND SortClass1 ... SortClassn");
-    System.err.println("  Commands: time, test, compete\n");
+    System.err.println("Usage: java SortTools [OPTIONS] COMMAND SortClass1 ... SortClassn");
+    System.err.println("       java SortTools [OPTIONS] compare BEFORE AFTER");
+    System.err.println("  Commands: time, test, compete, scale, compare");
+    System.err.println("  Options:");
+    System.err.println("    --results=FILE   save timings as CSV (or JSON if FILE ends in .json)");
+    System.err.println("    --threshold=PCT  slowdown compare calls a regression (default 5)");
+    System.err.println("    --alpha=P        significance level for compare (default 0.05)");
+    System.err.println("    --repeats=N      runs of each size for time (default 5)");
+    System.err.println("    --max-size=N     largest size for scale (default 4194304)");
+    System.err.println("    --target=N       size scale predicts times for (default 10000000)");
+    System.err.println("    --fork=MODE      run compete in one JVM per sorter (MODE sorter)");
+    System.err.println("                     or per sorter and round (MODE round)");
+    System.err.println("    --warmup=N       untimed sorts before a forked compete (default 5)");
+    System.err.println("    --heap=SIZE      -Xms and -Xmx for forked JVMs (default this heap)");
+    System.err.println("    --seed=N         seed for the generated inputs (default random)");
+    System.err.println("    --shapes=A,B     input shapes for compete (default all) and scale");
+    System.err.println("                     (default uniform)");
+    System.err.println("  compare exits with status 3 when a sorter regressed.");
+    System.err.print("  Shapes:");
+    for (Workloads.Shape shape : Workloads.Shape.values()) {
+      System.err.print(" " + shape.label());
+    } // for
+    System.err.println("\n");
   } // help()
       
   /**
@@ -436,31 +1040,14 @@ public class SortTools {
   } // sampleSortedArray
 
   /**
-   * Permute an array.
-   *
-   * I recall a colleague telling me that this is not a great way to
-   * permute an array.  But I also recall an article by Knuth suggesting
-   * that this does randomly arrange things.  In any case, it's good
-   * enough for our purposes.
+   * Permute an array uniformly at random (Fisher-Yates).
    */
   static void permute(Object[] arr) {
-    for (int i = 0; i < arr.length; i++) {
-      swap(arr, i, rand.nextInt(arr.length));
+    for (int i = arr.length - 1; i > 0; i--) {
+      swap(arr, i, rand.nextInt(i + 1));
     } // for
   } // permute(Object[])
 
-  /**
-   * Permute an array by swapping n random pairs.
-   *
-   * Or perhaps this is the one that's less correct, even if
-   * n is arr.length.
-   */
-  static void permute(Object[] arr, int n) {
-    for (int i = 0; i < n; i++) {
-      swap(arr, rand.nextInt(arr.length), rand.nextInt(arr.length));
-    } // for
-  } // permute(Object[], int)
-
   /**
    * Reverse an array.
    */
@@ -0,0 +1,526 @@
+package edu.grinnell.csc207.sorting;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Something that sorts by looking at a small sample of the input and
+ * handing it to whichever sorter should do best on it. The sample
+ * estimates how presorted the array is (the fraction of descents
+ * between neighbours, and of inversions between random pairs) and how
+ * many distinct values it has. The decision table lives in a Policy,
+ * whose defaults come from SortTools timings and which may be
+ * overridden by properties.
+ *
+ * In order, the policy picks:
+ * <ol>
+ *   <li>the small engine (InsertionSorter) for tiny arrays;</li>
+ *   <li>an insertion sort for nearly sorted arrays, which gives up
+ *     and hands over to the presorted engine (BottomUpMergeSorter) if
+ *     it moves more than a few elements per element;</li>
+ *   <li>the duplicates engine (FargoAndrewSorter, whose three-way
+ *     partition collapses equal keys) when few values are distinct;</li>
+ *   <li>the parallel engine (SampleSorter) for very large arrays on
+ *     machines with several processors; and</li>
+ *   <li>the general engine (FargoAndrewSorter) otherwise.</li>
+ * </ol>
+ *
+ * The sort is not stable in general. All of the engines are safe to
+ * share, so an AdaptiveSorter is too.
+ *
+ * @param <T>
+ *   The types of values that are sorted.
+ *
+ * @author Andrew N. Fargo
+ */
+public class AdaptiveSorter<T> implements Sorter<T> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of pairs sampled for each estimate.
+   */
+  static final int SAMPLE = 64;
+
+  /**
+   * System properties starting with this override the policy.
+   */
+  static final String PROPERTY_PREFIX = "edu.grinnell.csc207.sorting.adaptive.";
+
+  /**
+   * A classpath resource that overrides the default policy.
+   */
+  static final String POLICY_RESOURCE = "/adaptive-sorter.properties";
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The way in which elements are ordered.
+   */
+  Comparator<? super T> order;
+
+  /**
+   * The decision table.
+   */
+  Policy policy;
+
+  /**
+   * Sorts tiny arrays.
+   */
+  Sorter<T> small;
+
+  /**
+   * Finishes nearly sorted arrays when insertion sort gives up.
+   */
+  Sorter<T> presorted;
+
+  /**
+   * Sorts arrays with many duplicates.
+   */
+  Sorter<T> duplicates;
+
+  /**
+   * Sorts very large arrays.
+   */
+  Sorter<T> parallel;
+
+  /**
+   * Sorts everything else.
+   */
+  Sorter<T> general;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a sorter using a particular comparator and the configured
+   * policy (see Policy.configured()).
+   *
+   * @param comparator
+   *   The order in which elements in the array should be ordered
+   *   after sorting.
+   */
+  public AdaptiveSorter(Comparator<? super T> comparator) {
+    this(comparator, Policy.configured());
+  } // AdaptiveSorter(Comparator)
+
+  /**
+   * Create a sorter with a given policy.
+   *
+   * @param comparator
+   *   The order in which elements in the array should be ordered
+   *   after sorting.
+   * @param decisions
+   *   The decision table.
+   */
+  public AdaptiveSorter(Comparator<? super T> comparator, Policy decisions) {
+    this.order = comparator;
+    this.policy = decisions;
+    this.small = engine(decisions.smallEngine, comparator);
+    this.presorted = engine(decisions.presortedEngine, comparator);
+    this.duplicates = engine(decisions.duplicatesEngine, comparator);
+    this.parallel = engine(decisions.parallelEngine, comparator);
+    this.general = engine(decisions.generalEngine, comparator);
+  } // AdaptiveSorter(Comparator, Policy)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Sort an array with the engine that suits it.
+   *
+   * @param values
+   *   an array to sort.
+   *
+   * @post
+   *   The array has been sorted according to some order (often
+   *   one given to the constructor).
+   * @post
+   *   For all i, 0 &lt; i &lt; values.length,
+   *     order.compare(values[i-1], values[i]) &lt;= 0
+   */
+  @Override
+  public void sort(T[] values) {
+    if (values.length < 2) {
+      return;
+    } else if (values.length <= this.policy.smallSize) {
+      this.small.sort(values);
+      return;
+    } // if
+    Profile profile = this.profile(values);
+    if (profile.nearlySorted(this.policy)) {
+      long budget = (long) this.policy.insertionMovesPerElement * values.length;
+      if (!this.insertionSort(values, budget)) {
+        this.presorted.sort(values);
+      } // if
+    } else {
+      this.choose(profile).sort(values);
+    } // if/else
+  } // sort(T[])
+
+  /**
+   * Pick the engine for an array that is not nearly sorted.
+   *
+   * @param profile
+   *   What the sample says about the array.
+   * @return The engine.
+   */
+  Sorter<T> choose(Profile profile) {
+    if (profile.distinct <= this.policy.duplicateDistinctRatio) {
+      return this.duplicates;
+    } else if (profile.size >= this.policy.parallelSize
+        && Runtime.getRuntime().availableProcessors() > 1) {
+      return this.parallel;
+    } else {
+      return this.general;
+    } // if/else
+  } // choose(Profile)
+
+  /**
+   * Sample an array.
+   *
+   * @param values
+   *   The array, with at least two elements.
+   * @return The estimates.
+   */
+  @SuppressWarnings({"unchecked"})
+  Profile profile(T[] values) {
+    ThreadLocalRandom rng = ThreadLocalRandom.current();
+    int n = values.length;
+    int descents = 0;
+    int inversions = 0;
+    for (int s = 0; s < SAMPLE; s++) {
+      int i = rng.nextInt(n - 1);
+      if (this.order.compare(values[i], values[i + 1]) > 0) {
+        descents++;
+      } // if
+      int a = rng.nextInt(n);
+      int b = rng.nextInt(n);
+      if (a != b && this.order.compare(values[Math.min(a, b)], values[Math.max(a, b)]) > 0) {
+        inversions++;
+      } // if
+    } // for
+
+    /* Distinct values in a sorted sample. */
+    T[] sample = (T[]) new Object[Math.min(n, SAMPLE)];
+    for (int s = 0; s < sample.length; s++) {
+      sample[s] = values[rng.nextInt(n)];
+    } // for
+    this.small.sort(sample);
+    int distinct = 1;
+    for (int s = 1; s < sample.length; s++) {
+      if (this.order.compare(sample[s - 1], sample[s]) != 0) {
+        distinct++;
+      } // if
+    } // for
+    return new Profile(n, (double) descents / SAMPLE, (double) inversions / SAMPLE,
+        (double) distinct / sample.length);
+  } // profile(T[])
+
+  /**
+   * Insertion sort an array unless that takes too many moves.
+   *
+   * @param values
+   *   The array.
+   * @param budget
+   *   The most elements to move.
+   * @return true if the array is sorted; false if the budget ran out,
+   *   in which case the array holds the same values in some order.
+   */
+  boolean insertionSort(T[] values, long budget) {
+    long moves = 0;
+    for (int j = 1; j < values.length; j++) {
+      T value = values[j];
+      int i = j - 1;
+      while (i >= 0 && this.order.compare(values[i], value) > 0) {
+        values[i + 1] = values[i];
+        i--;
+      } // while
+      values[i + 1] = value;
+      moves += j - 1 - i;
+      if (moves > budget) {
+        return false;
+      } // if
+    } // for
+    return true;
+  } // insertionSort(T[], long)
+
+  /**
+   * Build an engine by class name.
+   *
+   * @param <T>
+   *   The types of values that are sorted.
+   * @param name
+   *   The class name, either simple (for this package) or qualified.
+   * @param comparator
+   *   The order.
+   * @return The engine.
+   * @throws IllegalArgumentException
+   *   If there is no such sorter with a Comparator constructor.
+   */
+  @SuppressWarnings({"unchecked"})
+  static <T> Sorter<T> engine(String name, Comparator<? super T> comparator) {
+    String qualified = name.contains(".") ? name : "edu.grinnell.csc207.sorting." + name;
+    try {
+      return (Sorter<T>) Class.forName(qualified).getConstructor(Comparator.class)
+          .newInstance(comparator);
+    } catch (ReflectiveOperationException | ClassCastException e) {
+      throw new IllegalArgumentException("Cannot build sorter " + name, e);
+    } // try/catch
+  } // engine(String, Comparator)
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * What a sample says about an array.
+   */
+  static class Profile {
+    /**
+     * The length of the array.
+     */
+    int size;
+
+    /**
+     * The fraction of neighbouring pairs that are out of order.
+     */
+    double descents;
+
+    /**
+     * The fraction of random pairs that are out of order.
+     */
+    double inversions;
+
+    /**
+     * The fraction of distinct values in the sample.
+     */
+    double distinct;
+
+    /**
+     * Record a profile.
+     *
+     * @param length
+     *   The length of the array.
+     * @param descentRatio
+     *   The fraction of neighbouring pairs that are out of order.
+     * @param inversionRatio
+     *   The fraction of random pairs that are out of order.
+     * @param distinctRatio
+     *   The fraction of distinct values in the sample.
+     */
+    Profile(int length, double descentRatio, double inversionRatio, double distinctRatio) {
+      this.size = length;
+      this.descents = descentRatio;
+      this.inversions = inversionRatio;
+      this.distinct = distinctRatio;
+    } // Profile(int, double, double, double)
+
+    /**
+     * Determine whether the array looks nearly sorted.
+     *
+     * @param policy
+     *   The thresholds.
+     * @return true if it does.
+     */
+    boolean nearlySorted(Policy policy) {
+      return this.descents <= policy.nearlySortedDescents
+          && this.inversions <= policy.nearlySortedInversions;
+    } // nearlySorted(Policy)
+  } // class Profile
+
+  /**
+   * The decision table. The defaults come from timing the sorters with
+   * SortTools on random, duplicate-heavy, locally perturbed, and
+   * sorted-with-random-tail arrays of 16 to 2^20 Integers. Each value
+   * may be overridden by a property of the same name:
+   * smallSize, nearlySortedDescents, nearlySortedInversions,
+   * insertionMovesPerElement, duplicateDistinctRatio, parallelSize,
+   * smallEngine, presortedEngine, duplicatesEngine, parallelEngine,
+   * and generalEngine. Engines are named by class, as in SortTools.
+   */
+  public static class Policy {
+    /**
+     * Arrays this long or shorter go to the small engine.
+     */
+    int smallSize = 48;
+
+    /**
+     * At most this fraction of neighbouring pairs may be out of order
+     * for the array to count as nearly sorted.
+     */
+    double nearlySortedDescents = 0.05;
+
+    /**
+     * At most this fraction of random pairs may be out of order for
+     * the array to count as nearly sorted.
+     */
+    double nearlySortedInversions = 0.02;
+
+    /**
+     * Insertion sort gives up after this many moves per element.
+     */
+    int insertionMovesPerElement = 8;
+
+    /**
+     * Samples with at most this fraction of distinct values go to the
+     * duplicates engine.
+     */
+    double duplicateDistinctRatio = 0.25;
+
+    /**
+     * Arrays at least this long go to the parallel engine.
+     */
+    int parallelSize = 1 << 18;
+
+    /**
+     * The engine for tiny arrays.
+     */
+    String smallEngine = "InsertionSorter";
+
+    /**
+     * The engine that finishes nearly sorted arrays.
+     */
+    String presortedEngine = "BottomUpMergeSorter";
+
+    /**
+     * The engine for arrays with many duplicates.
+     */
+    String duplicatesEngine = "FargoAndrewSorter";
+
+    /**
+     * The engine for very large arrays.
+     */
+    String parallelEngine = "SampleSorter";
+
+    /**
+     * The engine for everything else.
+     */
+    String generalEngine = "FargoAndrewSorter";
+
+    /**
+     * Get the default policy.
+     *
+     * @return The policy.
+     */
+    public static Policy defaults() {
+      return new Policy();
+    } // defaults()
+
+    /**
+     * Get the default policy, overridden first by the classpath
+     * resource adaptive-sorter.properties, if there is one, and then by
+     * system properties named edu.grinnell.csc207.sorting.adaptive.*.
+     *
+     * @return The policy.
+     * @throws IllegalArgumentException
+     *   If an override cannot be read.
+     */
+    public static Policy configured() {
+      Properties overrides = new Properties();
+      try (InputStream in = AdaptiveSorter.class.getResourceAsStream(POLICY_RESOURCE)) {
+        if (in != null) {
+          overrides.load(in);
+        } // if
+      } catch (IOException e) {
+        throw new IllegalArgumentException("Cannot read " + POLICY_RESOURCE, e);
+      } // try/catch
+      for (String name : System.getProperties().stringPropertyNames()) {
+        if (name.startsWith(PROPERTY_PREFIX)) {
+          overrides.setProperty(name.substring(PROPERTY_PREFIX.length()),
+              System.getProperty(name));
+        } // if
+      } // for
+      return defaults().with(overrides);
+    } // configured()
+
+    /**
+     * Get a copy of this policy with some values overridden.
+     *
+     * @param overrides
+     *   The new values, by name.
+     * @return The new policy.
+     * @throws IllegalArgumentException
+     *   If a name is unknown or a value does not parse.
+     */
+    public Policy with(Properties overrides) {
+      Policy result = new Policy();
+      result.smallSize = this.smallSize;
+      result.nearlySortedDescents = this.nearlySortedDescents;
+      result.nearlySortedInversions = this.nearlySortedInversions;
+      result.insertionMovesPerElement = this.insertionMovesPerElement;
+      result.duplicateDistinctRatio = this.duplicateDistinctRatio;
+      result.parallelSize = this.parallelSize;
+      result.smallEngine = this.smallEngine;
+      result.presortedEngine = this.presortedEngine;
+      result.duplicatesEngine = this.duplicatesEngine;
+      result.parallelEngine = this.parallelEngine;
+      result.generalEngine = this.generalEngine;
+      for (String name : overrides.stringPropertyNames()) {
+        result.set(name, overrides.getProperty(name).trim());
+      } // for
+      return result;
+    } // with(Properties)
+
+    /**
+     * Set one value.
+     *
+     * @param name
+     *   The name of the value.
+     * @param value
+     *   The new value, as text.
+     * @throws IllegalArgumentException
+     *   If the name is unknown or the value does not parse.
+     */
+    void set(String name, String value) {
+      switch (name) {
+        case "smallSize":
+          this.smallSize = Integer.parseInt(value);
+          if (this.smallSize < 1) {
+            throw new IllegalArgumentException("smallSize must be at least 1, not " + value);
+          } // if
+          break;
+        case "nearlySortedDescents":
+          this.nearlySortedDescents = Double.parseDouble(value);
+          break;
+        case "nearlySortedInversions":
+          this.nearlySortedInversions = Double.parseDouble(value);
+          break;
+        case "insertionMovesPerElement":
+          this.insertionMovesPerElement = Integer.parseInt(value);
+          break;
+        case "duplicateDistinctRatio":
+          this.duplicateDistinctRatio = Double.parseDouble(value);
+          break;
+        case "parallelSize":
+          this.parallelSize = Integer.parseInt(value);
+          break;
+        case "smallEngine":
+          this.smallEngine = value;
+          break;
+        case "presortedEngine":
+          this.presortedEngine = value;
+          break;
+        case "duplicatesEngine":
+          this.duplicatesEngine = value;
+          break;
+        case "parallelEngine":
+          this.parallelEngine = value;
+          break;
+        case "generalEngine":
+          this.generalEngine = value;
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown policy setting: " + name);
+      } // switch
+    } // set(String, String)
+  } // class Policy
+} // class AdaptiveSorter
@@ -0,0 +1,284 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Sorts many small, independent arrays concurrently. Rather than
+ * parallelizing the inside of a single sort, each array is sorted
+ * sequentially by one worker, and the workers share the arrays.
+ *
+ * Arrays are grouped into batches so that the cost of handing work
+ * to the pool is paid once per batch rather than once per array.
+ * At most a fixed number of batches may be waiting in the pool;
+ * once that limit is reached, submitting blocks until a batch
+ * finishes.
+ *
+ * @param <T>
+ *   The types of values that are sorted.
+ *
+ * @author Andrew N. Fargo
+ */
+public class BatchSorter<T> implements AutoCloseable {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The default number of arrays handed to a worker at once.
+   */
+  static final int DEFAULT_BATCH_SIZE = 64;
+
+  /**
+   * The default number of batches that may be in flight per worker.
+   */
+  static final int DEFAULT_PENDING_PER_WORKER = 4;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The sorter used by the current worker thread. Each worker gets
+   * its own, so sorters need not be safe to share.
+   */
+  ThreadLocal<Sorter<T>> sorters;
+
+  /**
+   * The work-stealing pool that runs the batches.
+   */
+  ForkJoinPool pool;
+
+  /**
+   * One permit per batch that may be in flight.
+   */
+  Semaphore permits;
+
+  /**
+   * The number of arrays in a full batch.
+   */
+  int batchSize;
+
+  /**
+   * The jobs that have been submitted but not yet handed to the pool.
+   */
+  List<Job<T>> pending;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a batch sorter with one worker per available processor.
+   *
+   * @param factory
+   *   Makes a new sorter for each worker thread.
+   */
+  public BatchSorter(Supplier<? extends Sorter<T>> factory) {
+    this(factory, Runtime.getRuntime().availableProcessors(),
+        DEFAULT_BATCH_SIZE,
+        DEFAULT_PENDING_PER_WORKER * Runtime.getRuntime().availableProcessors());
+  } // BatchSorter(Supplier)
+
+  /**
+   * Create a batch sorter.
+   *
+   * @param factory
+   *   Makes a new sorter for each worker thread.
+   * @param parallelism
+   *   The number of worker threads.
+   * @param arraysPerBatch
+   *   The number of arrays handed to a worker at once.
+   * @param maxPending
+   *   The number of batches that may be in flight before
+   *   submitting blocks.
+   */
+  public BatchSorter(Supplier<? extends Sorter<T>> factory, int parallelism,
+      int arraysPerBatch, int maxPending) {
+    if (parallelism < 1 || arraysPerBatch < 1 || maxPending < 1) {
+      throw new IllegalArgumentException("BatchSorter sizes must be positive");
+    } // if
+    this.sorters = ThreadLocal.withInitial(factory::get);
+    this.pool = new ForkJoinPool(parallelism);
+    this.permits = new Semaphore(maxPending);
+    this.batchSize = arraysPerBatch;
+    this.pending = new ArrayList<Job<T>>(arraysPerBatch);
+  } // BatchSorter(Supplier, int, int, int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Submit one array to be sorted in place. The array is not handed
+   * to a worker until its batch fills or flush() is called.
+   *
+   * @param values
+   *   The array to sort.
+   * @return A future that completes with values once it is sorted.
+   * @throws InterruptedException
+   *   If interrupted while waiting for room in the pool.
+   */
+  public CompletableFuture<T[]> submit(T[] values) throws InterruptedException {
+    CompletableFuture<T[]> done = new CompletableFuture<T[]>();
+    List<Job<T>> full = null;
+    synchronized (this) {
+      this.pending.add(new Job<T>(values, done));
+      if (this.pending.size() >= this.batchSize) {
+        full = this.pending;
+        this.pending = new ArrayList<Job<T>>(this.batchSize);
+      } // if
+    } // synchronized
+    if (full != null) {
+      this.dispatch(full);
+    } // if
+    return done;
+  } // submit(T[])
+
+  /**
+   * Hand any partial batch to the pool.
+   *
+   * @throws InterruptedException
+   *   If interrupted while waiting for room in the pool.
+   */
+  public void flush() throws InterruptedException {
+    List<Job<T>> partial;
+    synchronized (this) {
+      if (this.pending.isEmpty()) {
+        return;
+      } // if
+      partial = this.pending;
+      this.pending = new ArrayList<Job<T>>(this.batchSize);
+    } // synchronized
+    this.dispatch(partial);
+  } // flush()
+
+  /**
+   * Sort every array in a collection, returning once all are sorted.
+   *
+   * @param arrays
+   *   The arrays to sort, each in place.
+   * @throws InterruptedException
+   *   If interrupted while waiting for the sorts.
+   */
+  public void sortAll(Collection<? extends T[]> arrays) throws InterruptedException {
+    List<CompletableFuture<T[]>> futures =
+        new ArrayList<CompletableFuture<T[]>>(arrays.size());
+    for (T[] values : arrays) {
+      futures.add(this.submit(values));
+    } // for
+    this.flush();
+    try {
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      } // if
+      throw e;
+    } // try/catch
+  } // sortAll(Collection)
+
+  /**
+   * Flush any partial batch and wait for the workers to finish.
+   *
+   * @throws InterruptedException
+   *   If interrupted while waiting.
+   */
+  @Override
+  public void close() throws InterruptedException {
+    this.flush();
+    this.pool.shutdown();
+    this.pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+  } // close()
+
+  /**
+   * Hand a batch to the pool, blocking while too many are in flight.
+   *
+   * @param batch
+   *   The jobs to run.
+   * @throws InterruptedException
+   *   If interrupted while waiting for a permit.
+   */
+  private void dispatch(List<Job<T>> batch) throws InterruptedException {
+    this.permits.acquire();
+    try {
+      this.pool.execute(() -> this.runBatch(batch));
+    } catch (RejectedExecutionException e) {
+      this.permits.release();
+      throw e;
+    } // try/catch
+  } // dispatch(List)
+
+  /**
+   * Sort each array in a batch with this thread's sorter. A sort that
+   * throws fails only its own job; anything else that goes wrong, such
+   * as an Error or a sorter that cannot be made, fails every job not
+   * yet done, so no caller waits forever.
+   *
+   * @param batch
+   *   The jobs to run.
+   */
+  private void runBatch(List<Job<T>> batch) {
+    try {
+      Sorter<T> sorter = this.sorters.get();
+      for (Job<T> job : batch) {
+        try {
+          sorter.sort(job.values);
+          job.done.complete(job.values);
+        } catch (RuntimeException e) {
+          job.done.completeExceptionally(e);
+        } // try/catch
+      } // for
+    } catch (Throwable e) {
+      for (Job<T> job : batch) {
+        job.done.completeExceptionally(e);
+      } // for
+      throw e;
+    } finally {
+      this.permits.release();
+    } // try/finally
+  } // runBatch(List)
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * One array waiting to be sorted.
+   *
+   * @param <T>
+   *   The types of values that are sorted.
+   */
+  static class Job<T> {
+    /**
+     * The array to sort.
+     */
+    T[] values;
+
+    /**
+     * Completed once the array is sorted.
+     */
+    CompletableFuture<T[]> done;
+
+    /**
+     * Create a job.
+     *
+     * @param vals
+     *   The array to sort.
+     * @param future
+     *   Completed once the array is sorted.
+     */
+    Job(T[] vals, CompletableFuture<T[]> future) {
+      this.values = vals;
+      this.done = future;
+    } // Job(T[], CompletableFuture)
+  } // class Job
+} // class BatchSorter
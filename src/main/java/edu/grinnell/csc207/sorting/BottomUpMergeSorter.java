@@ -0,0 +1,291 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Comparator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Something that sorts using a cache-aware, bottom-up merge sort.
+ * Rather than recursing down to single elements as MergeSorter does,
+ * it binary insertion sorts short runs, merges them pairwise within
+ * tiles small enough to stay in cache, and then merges fanIn tiles at
+ * a time
+ * with a KWayMerger, so each pass over memory does log2(fanIn)
+ * levels of merging. Tiles, and the independent merges of each pass,
+ * run in parallel on large arrays.
+ *
+ * The sort is stable.
+ *
+ * @param <T>
+ *   The types of values that are sorted.
+ *
+ * @author Andrew N. Fargo
+ */
+public class BottomUpMergeSorter<T> implements Sorter<T> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The length of the runs that are insertion sorted.
+   */
+  static final int RUN = 32;
+
+  /**
+   * The default tile size: 32768 references, which with the helper
+   * array fit in a typical L2 cache.
+   */
+  static final int DEFAULT_TILE = 1 << 15;
+
+  /**
+   * The default number of runs merged at once after the tiles.
+   */
+  static final int DEFAULT_FAN_IN = 8;
+
+  /**
+   * Arrays smaller than this are sorted on one thread.
+   */
+  static final int DEFAULT_THRESHOLD = 1 << 16;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The way in which elements are ordered.
+   */
+  Comparator<? super T> order;
+
+  /**
+   * Does the multiway merges.
+   */
+  KWayMerger<T> merger;
+
+  /**
+   * The number of elements sorted together in cache.
+   */
+  int tile;
+
+  /**
+   * The number of runs merged at once in each later pass.
+   */
+  int fanIn;
+
+  /**
+   * Arrays smaller than this are sorted sequentially.
+   */
+  int threshold;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a sorter using a particular comparator, with the default
+   * tile size and fan-in.
+   *
+   * @param comparator
+   *   The order in which elements in the array should be ordered
+   *   after sorting.
+   */
+  public BottomUpMergeSorter(Comparator<? super T> comparator) {
+    this(comparator, DEFAULT_TILE, DEFAULT_FAN_IN, DEFAULT_THRESHOLD);
+  } // BottomUpMergeSorter(Comparator)
+
+  /**
+   * Create a sorter.
+   *
+   * @param comparator
+   *   The order in which elements in the array should be ordered
+   *   after sorting.
+   * @param tileSize
+   *   The number of elements sorted together in cache; rounded up to
+   *   a multiple of the run length.
+   * @param runsPerMerge
+   *   The number of runs merged at once after the tiles, at least 2.
+   * @param sequentialBelow
+   *   Arrays smaller than this are sorted on one thread.
+   */
+  public BottomUpMergeSorter(Comparator<? super T> comparator, int tileSize,
+      int runsPerMerge, int sequentialBelow) {
+    this.order = comparator;
+    this.merger = new KWayMerger<T>(comparator);
+    this.tile = Math.max(RUN, (tileSize + RUN - 1) / RUN * RUN);
+    this.fanIn = Math.max(2, runsPerMerge);
+    this.threshold = sequentialBelow;
+  } // BottomUpMergeSorter(Comparator, int, int, int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Insertion sort a subarray, finding each insertion point by binary
+   * search. Equal values stay in order.
+   *
+   * @param values
+   *   The array.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound.
+   */
+  private void insertionSort(T[] values, int lb, int ub) {
+    for (int j = lb + 1; j < ub; j++) {
+      T value = values[j];
+      int lo = lb;
+      int hi = j;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (this.order.compare(values[mid], value) > 0) {
+          hi = mid;
+        } else {
+          lo = mid + 1;
+        } // if/else
+      } // while
+      System.arraycopy(values, lo, values, lo + 1, j - lo);
+      values[lo] = value;
+    } // for
+  } // insertionSort(T[], int, int)
+
+  /**
+   * Merge two adjacent sorted ranges of source into the same positions
+   * of sink. Ties go to the first range, as in MergeSorter.merge.
+   *
+   * @param source
+   *   The array holding the ranges.
+   * @param sink
+   *   Where to put the result.
+   * @param start
+   *   The (inclusive) lower bound.
+   * @param mid
+   *   The start of the second range.
+   * @param end
+   *   The (exclusive) upper bound.
+   */
+  private void merge(T[] source, T[] sink, int start, int mid, int end) {
+    int i = start;
+    int j = mid;
+    int n = start;
+    while (i < mid && j < end) {
+      if (this.order.compare(source[i], source[j]) <= 0) {
+        sink[n++] = source[i++];
+      } else {
+        sink[n++] = source[j++];
+      } // if/else
+    } // while
+    System.arraycopy(source, i, sink, n, mid - i);
+    n += mid - i;
+    System.arraycopy(source, j, sink, n, end - j);
+  } // merge(T[], T[], int, int, int)
+
+  /**
+   * Sort one tile: insertion sort its runs, then merge pairs of runs
+   * back and forth between the array and the helper. The tile ends up
+   * sorted in values.
+   *
+   * @param values
+   *   The array.
+   * @param helper
+   *   The auxiliary array.
+   * @param lb
+   *   The start of the tile.
+   * @param ub
+   *   The end of the tile.
+   */
+  private void sortTile(T[] values, T[] helper, int lb, int ub) {
+    for (int i = lb; i < ub; i += RUN) {
+      this.insertionSort(values, i, Math.min(i + RUN, ub));
+    } // for
+    T[] source = values;
+    T[] sink = helper;
+    for (int width = RUN; width < ub - lb; width *= 2) {
+      for (int i = lb; i < ub; i += 2 * width) {
+        int mid = Math.min(i + width, ub);
+        this.merge(source, sink, i, mid, Math.min(i + 2 * width, ub));
+      } // for
+      T[] temp = source;
+      source = sink;
+      sink = temp;
+    } // for
+    if (source != values) {
+      System.arraycopy(source, lb, values, lb, ub - lb);
+    } // if
+  } // sortTile(T[], T[], int, int)
+
+  /**
+   * Run a task for each of 0 through count - 1, in parallel if asked.
+   *
+   * @param count
+   *   The number of tasks.
+   * @param parallel
+   *   Whether to use the common fork/join pool.
+   * @param task
+   *   The task.
+   */
+  private static void forEach(int count, boolean parallel, IntConsumer task) {
+    if (parallel && count > 1) {
+      IntStream.range(0, count).parallel().forEach(task);
+    } else {
+      for (int i = 0; i < count; i++) {
+        task.accept(i);
+      } // for
+    } // if/else
+  } // forEach(int, boolean, IntConsumer)
+
+  /**
+   * Sort an array using a bottom-up merge sort.
+   *
+   * @param values
+   *   an array to sort.
+   *
+   * @post
+   *   The array has been sorted according to some order (often
+   *   one given to the constructor).
+   * @post
+   *   For all i, 0 &lt; i &lt; values.length,
+   *     order.compare(values[i-1], values[i]) &lt;= 0
+   */
+  @Override
+  @SuppressWarnings({"unchecked"})
+  public void sort(T[] values) {
+    int n = values.length;
+    if (n < 2) {
+      return;
+    } // if
+    boolean parallel = n >= this.threshold;
+    T[] helper = (T[]) new Object[n];
+
+    /* Sort each tile in cache. */
+    int tileSize = this.tile;
+    forEach((n + tileSize - 1) / tileSize, parallel, t -> {
+      int lb = t * tileSize;
+      this.sortTile(values, helper, lb, Math.min(lb + tileSize, n));
+    });
+
+    /* Merge fanIn runs at a time until one is left. */
+    T[] source = values;
+    T[] sink = helper;
+    for (long width = tileSize; width < n; width *= this.fanIn) {
+      int runWidth = (int) width;
+      long groupWidth = width * this.fanIn;
+      int groups = (int) ((n + groupWidth - 1) / groupWidth);
+      T[] from = source;
+      T[] to = sink;
+      forEach(groups, parallel, g -> {
+        long lb = g * groupWidth;
+        int runs = (int) Math.min(this.fanIn, (n - lb + runWidth - 1) / runWidth);
+        int[] bounds = new int[runs + 1];
+        for (int r = 0; r <= runs; r++) {
+          bounds[r] = (int) Math.min(n, lb + (long) r * runWidth);
+        } // for
+        this.merger.mergeRanges(from, bounds, to);
+      });
+      source = to;
+      sink = from;
+    } // for
+    if (source != values) {
+      System.arraycopy(source, 0, values, 0, n);
+    } // if
+  } // sort(T[])
+} // class BottomUpMergeSorter
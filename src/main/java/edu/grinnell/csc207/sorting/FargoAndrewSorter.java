@@ -1,12 +1,15 @@
 package edu.grinnell.csc207.sorting;
 
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Random;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import edu.grinnell.csc207.util.ArrayUtils;
 
 /**
- * Something that sorts using FargoAndrewSort.
+ * Something that sorts using FargoAndrewSort. The sorter keeps no
+ * mutable state, so one instance may be shared between threads.
  *
  * @param <T>
  *   The types of values that are sorted.
@@ -20,14 +23,9 @@ public class FargoAndrewSorter<T> implements Sorter<T> {
   Comparator<? super T> order;
 
   /**
-   * Our random number generator.
+   * How to choose pivots.
    */
-  Random rng;
-
-  /**
-   * Temporary result storage.
-   */
-  int[] result;
+  PivotSelector pivots;
 
   /*
    * Methods copied over from other sorts in this MP.
@@ -93,8 +91,12 @@ public class FargoAndrewSorter<T> implements Sorter<T> {
    *   The (inclusive) lower bound of the subarray.
    * @param end
    *   The (exclusive) upper bound of the subarray.
+   * @return The start of the elements equal to the pivot in the
+   *   upper 32 bits, and the start of the elements greater than the
+   *   pivot in the lower 32 bits. Packing both into a long keeps the
+   *   result on the stack rather than in a shared field.
    */
-  private void partition(T[] values, T pivot,
+  private long partition(T[] values, T pivot,
                          int start, int end) {
     int red = start;
     int white = start;
@@ -116,8 +118,7 @@ public class FargoAndrewSorter<T> implements Sorter<T> {
         white++;
       } // if/else
     } // while
-    result[0] = red;
-    result[1] = white;
+    return ((long) red << 32) | white;
   } // partition(T[], T, int, int)
 
   /*
@@ -132,79 +133,303 @@ public class FargoAndrewSorter<T> implements Sorter<T> {
    *   sorting.
    */
   public FargoAndrewSorter(Comparator<? super T> comparator) {
-    this.order = comparator;
-    this.rng = new Random();
-    this.result = new int[2];
+    this(comparator, PivotSelectors.RANDOM_MEDIAN_OF_THREE);
   } // FargoAndrewSorter(Comparator)
 
   /**
-   * Return the larger of two elements.
-   * @param first The first element.
-   * @param second The second element.
-   * @return The larger element.
+   * Create the sorter using a comparator and a way of choosing
+   * pivots.
+   *
+   * @param comparator
+   *   A comparator object that determines the ordering after
+   *   sorting.
+   * @param selector
+   *   How to choose the pivot for each partition.
    */
-  private T max(T first, T second) {
-    return order.compare(first, second) > 0 ? first : second;
-  } // max(T, T)
+  public FargoAndrewSorter(Comparator<? super T> comparator,
+                           PivotSelector selector) {
+    this.order = comparator;
+    this.pivots = selector;
+  } // FargoAndrewSorter(Comparator, PivotSelector)
+
+  /**
+   * The recursive "kernel" to the FargoAndrewSorter.
+   * @param values
+   *   The array.
+   * @param l
+   *   The inclusive lower bound.
+   * @param r
+   *   The exclusive upper bound.
+   * @param control
+   *   What to check and tell about progress, or null.
+   */
+  private void fsort(T[] values, int l, int r, SortControl control) {
+    final int threshold = 20;
+    if (r - l <= threshold) {
+      this.sortPartial(values, l, r);
+      if (control != null) {
+        control.settle(r - l);
+      } // if
+      return;
+    } // if
+    if (control != null && r - l >= SortControl.GRAIN) {
+      control.check();
+    } // if
+
+    final T pivot = this.pivots.select(values, this.order, l, r);
+
+    long bounds = this.partition(values, pivot, l, r);
+    int m1 = (int) (bounds >>> 32);
+    int m2 = (int) bounds;
+    if (control != null) {
+      control.settle(m2 - m1);
+    } // if
+
+    fsort(values, l, m1, control);
+    fsort(values, m2, r, control);
+  } // fsort(T[], int, int, SortControl)
 
   /**
-   * Return the smaller of two elements.
-   * @param first The first element.
-   * @param second The second element.
-   * @return The smaller element.
+   * The recursive kernel of sortUnique: sort a subarray and gather one
+   * of each distinct value at its start.
+   * @param values
+   *   The array.
+   * @param l
+   *   The inclusive lower bound.
+   * @param r
+   *   The exclusive upper bound.
+   * @return The number of distinct values, now sorted in
+   *   values[l], ..., values[l + count - 1].
    */
-  private T min(T first, T second) {
-    return order.compare(first, second) < 0 ? first : second;
-  } // min(T, T)
+  private int fsortUnique(T[] values, int l, int r) {
+    final int threshold = 20;
+    if (r - l <= threshold) {
+      this.sortPartial(values, l, r);
+      return this.compact(values, l, r);
+    } // if
+
+    final T pivot = this.pivots.select(values, this.order, l, r);
+    long bounds = this.partition(values, pivot, l, r);
+    int m1 = (int) (bounds >>> 32);
+    int m2 = (int) bounds;
+
+    // The smaller values, then one copy of the pivot, then the larger
+    // values, moved down over the rest of the pivot's copies.
+    int unique = fsortUnique(values, l, m1);
+    ArrayUtils.swap(values, l + unique, m1);
+    unique++;
+    int larger = fsortUnique(values, m2, r);
+    for (int i = 0; i < larger; i++) {
+      ArrayUtils.swap(values, l + unique + i, m2 + i);
+    } // for
+    return unique + larger;
+  } // fsortUnique(T[], int, int)
 
   /**
-   * Finds the middle of three random values without branches.
+   * Gather one of each value of a sorted subarray at its start,
+   * swapping the duplicates past them.
    * @param values
    *   The array.
    * @param l
-   *   The inclusive lower bound of the subarray.
+   *   The inclusive lower bound.
    * @param r
-   *   The exclusive upper bound of the subarray.
-   * @return
-   *   The middle of three random values between values[l] and values[r - 1]
+   *   The exclusive upper bound.
+   * @return The number of distinct values.
    */
-  @SuppressWarnings({"unchecked"})
-  private T getMedian(T[] values, int l, int r) {
-    T[] samp = (T[]) rng.ints(3, l, r).mapToObj(i -> values[i]).toArray();
-    /* https://stackoverflow.com/questions/1582356
-       /fastest-way-of-finding-the-middle-value-of-a-triple/14676309#14676309 */
-    return max(min(samp[0], samp[1]),
-               min(max(samp[0], samp[1]), samp[2]));
-  } // getMedian(T[], int, int)
+  private int compact(T[] values, int l, int r) {
+    if (r <= l) {
+      return 0;
+    } // if
+    int last = l;
+    for (int i = l + 1; i < r; i++) {
+      if (order.compare(values[last], values[i]) != 0) {
+        ArrayUtils.swap(values, ++last, i);
+      } // if
+    } // for
+    return last - l + 1;
+  } // compact(T[], int, int)
 
   /**
-   * The recursive "kernel" to the FargoAndrewSorter.
+   * The recursive kernel of sortGroups: sort a subarray and record
+   * where each group of equal values starts, in order.
    * @param values
    *   The array.
    * @param l
    *   The inclusive lower bound.
    * @param r
    *   The exclusive upper bound.
+   * @param starts
+   *   Where to record the starts.
    */
-  private void fsort(T[] values, int l, int r) {
+  private void fsortGroups(T[] values, int l, int r, Starts starts) {
     final int threshold = 20;
     if (r - l <= threshold) {
       this.sortPartial(values, l, r);
+      for (int i = l; i < r; i++) {
+        if (i == l || order.compare(values[i - 1], values[i]) != 0) {
+          starts.add(i);
+        } // if
+      } // for
       return;
     } // if
 
-    // T pivot = values[rng.nextInt(r - l) + l];
-    final T pivot = this.getMedian(values, l, r);
+    final T pivot = this.pivots.select(values, this.order, l, r);
+    long bounds = this.partition(values, pivot, l, r);
+    int m1 = (int) (bounds >>> 32);
+    int m2 = (int) bounds;
+
+    // The values equal to the pivot are already one group.
+    fsortGroups(values, l, m1, starts);
+    starts.add(m1);
+    fsortGroups(values, m2, r, starts);
+  } // fsortGroups(T[], int, int, Starts)
 
-    this.partition(values, pivot, l, r);
-    /* Push these to the stack, since they may get modified
-       on recursive calls. */
-    int m1 = result[0];
-    int m2 = result[1];
+  /**
+   * A growable list of group starts.
+   */
+  private static class Starts {
+    /**
+     * The starts.
+     */
+    int[] starts = new int[16];
 
-    fsort(values, l, m1);
-    fsort(values, m2, r);
-  } // fsort(T[])
+    /**
+     * The number of starts.
+     */
+    int size = 0;
+
+    /**
+     * Add a start.
+     *
+     * @param start
+     *   The start.
+     */
+    void add(int start) {
+      if (this.size == this.starts.length) {
+        this.starts = Arrays.copyOf(this.starts, 2 * this.size);
+      } // if
+      this.starts[this.size++] = start;
+    } // add(int)
+  } // class Starts
+
+  /**
+   * An iterator that sorts only as far as it has been read. The
+   * unsettled part of the array is a series of ranges, each holding
+   * values no greater than the next range's; a stack holds their ends,
+   * with the leftmost range on top. To settle the leftmost range we
+   * partition it and push the end of its smaller values, so reading k
+   * values costs about n + k log k comparisons rather than n log n.
+   */
+  private class Incremental implements Iterator<T> {
+    /**
+     * The array being sorted.
+     */
+    T[] values;
+
+    /**
+     * The index of the next value to return.
+     */
+    int next = 0;
+
+    /**
+     * Everything before this index is in its final place.
+     */
+    int settled = 0;
+
+    /**
+     * The ends of the unsettled ranges. An end stored as ~end marks
+     * a range of values equal to a pivot, which is already settled.
+     */
+    int[] ends = new int[64];
+
+    /**
+     * The number of ends on the stack.
+     */
+    int top = 0;
+
+    /**
+     * Start iterating over an array.
+     *
+     * @param array
+     *   The array, which will be sorted as we go.
+     */
+    Incremental(T[] array) {
+      this.values = array;
+      this.push(array.length);
+    } // Incremental(T[])
+
+    /**
+     * Determine whether any values remain.
+     *
+     * @return Whether next will return a value.
+     */
+    @Override
+    public boolean hasNext() {
+      return this.next < this.values.length;
+    } // hasNext()
+
+    /**
+     * Get the next smallest value.
+     *
+     * @return The value.
+     * @throws NoSuchElementException
+     *   If every value has been returned.
+     */
+    @Override
+    public T next() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      } // if
+      if (this.next == this.settled) {
+        this.settle();
+      } // if
+      return this.values[this.next++];
+    } // next()
+
+    /**
+     * Put at least values[next] in its final place, by partitioning
+     * the leftmost range until its smallest values are settled.
+     */
+    void settle() {
+      final int threshold = 20;
+      while (true) {
+        int end = this.ends[--this.top];
+        if (end < 0) {
+          this.settled = ~end;
+          return;
+        } // if
+        if (end - this.next <= threshold) {
+          sortPartial(this.values, this.next, end);
+          this.settled = end;
+          return;
+        } // if
+        T pivot = pivots.select(this.values, order, this.next, end);
+        long bounds = partition(this.values, pivot, this.next, end);
+        int m1 = (int) (bounds >>> 32);
+        int m2 = (int) bounds;
+        if (m2 < end) {
+          this.push(end);
+        } // if
+        this.push(~m2);
+        if (m1 > this.next) {
+          this.push(m1);
+        } // if
+      } // while
+    } // settle()
+
+    /**
+     * Push the end of a range.
+     *
+     * @param end
+     *   The end.
+     */
+    void push(int end) {
+      if (this.top == this.ends.length) {
+        this.ends = Arrays.copyOf(this.ends, 2 * this.top);
+      } // if
+      this.ends[this.top++] = end;
+    } // push(int)
+  } // class Incremental
 
   /**
    * FargoAndrewSort- My entry into the sorting competition.
@@ -214,8 +439,9 @@ public class FargoAndrewSorter<T> implements Sorter<T> {
    *
    * We first follow Hoare's suggestion to select the median
    * of three random values, rather than the left-most or single
-   * random value. In testing this improves time very slightly,
-   * but relies on a hacky way to calculate the median.
+   * random value. In testing this improves time very slightly.
+   * Other strategies may be given to the constructor; see
+   * PivotSelectors.
    *
    * Second, instead of perfoming a final insertion sort pass
    * like Sedgewick suggests, we perform a selection sort on small
@@ -236,6 +462,89 @@ public class FargoAndrewSorter<T> implements Sorter<T> {
    */
   @Override
   public void sort(T[] values) {
-    fsort(values, 0, values.length);
+    fsort(values, 0, values.length, null);
   } // sort(T[])
+
+  /**
+   * Sort an array as sort does, checking the control before each
+   * large partition. Values only ever swap places, so a cancelled sort
+   * leaves a permutation of the original.
+   *
+   * @param values
+   *   an array to sort.
+   * @param control
+   *   How to stop the sort and watch its progress.
+   */
+  @Override
+  public void sort(T[] values, SortControl control) {
+    control.begin(1);
+    control.check();
+    fsort(values, 0, values.length, control);
+    control.finish(values.length);
+  } // sort(T[], SortControl)
+
+  /**
+   * Sort an array and drop its duplicates in the same pass. The
+   * partition already gathers the values equal to each pivot, so
+   * instead of recursing into them we keep one and move the larger
+   * values down over the rest.
+   *
+   * @param values
+   *   an array to sort.
+   * @return The number of distinct values, m.
+   *
+   * @post
+   *   values[0], ..., values[m - 1] are one of each distinct value,
+   *   in strictly increasing order.
+   * @post
+   *   values[m], ..., values[values.length - 1] are the dropped
+   *   duplicates, in no particular order; nothing is lost, so the
+   *   array is still a permutation of the original.
+   */
+  public int sortUnique(T[] values) {
+    return fsortUnique(values, 0, values.length);
+  } // sortUnique(T[])
+
+  /**
+   * Sort an array and find its groups of equal values in the same
+   * pass. Each partition's band of values equal to the pivot is a
+   * whole group, so heavily duplicated inputs need neither a full
+   * sort of the groups nor a second scan.
+   *
+   * @param values
+   *   an array to sort.
+   * @return The start of each group, in increasing order, followed by
+   *   values.length; group g is values[b[g]], ..., values[b[g + 1] - 1].
+   *   An empty array has no groups, so the result is just {0}.
+   *
+   * @post
+   *   The array has been sorted, as by sort.
+   */
+  public int[] sortGroups(T[] values) {
+    Starts starts = new Starts();
+    fsortGroups(values, 0, values.length, starts);
+    starts.add(values.length);
+    return Arrays.copyOf(starts.starts, starts.size);
+  } // sortGroups(T[])
+
+  /**
+   * Iterate over an array in sorted order, sorting only as much as
+   * has been read. Partitioning stops as soon as the next value is in
+   * its final place, so reading the first k of n values takes about
+   * O(n + k log k) comparisons, and reading them all costs about the
+   * same as sort.
+   *
+   * @param values
+   *   an array to sort. It is rearranged in place as the iterator
+   *   advances, and must not be changed by anything else meanwhile.
+   * @return An iterator over the values in increasing order.
+   *
+   * @post
+   *   values[0], ..., values[k - 1] are the k values returned so far,
+   *   in order; the rest are a permutation of the remaining values.
+   *   Once every value has been read, the array is sorted.
+   */
+  public Iterator<T> sortedIterator(T[] values) {
+    return new Incremental(values);
+  } // sortedIterator(T[])
 } // FargoAndrewSorter
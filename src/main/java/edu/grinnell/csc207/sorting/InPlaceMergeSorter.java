@@ -0,0 +1,345 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Comparator;
+
+/**
+ * Something that sorts using a stable merge sort that needs only a
+ * small, fixed buffer rather than a helper as long as the array.
+ * Blocks of BLOCK elements are binary insertion sorted, and then
+ * neighbouring runs are merged bottom up, as MergeSorter would, but in
+ * place.
+ *
+ * A merge in which one run fits in the buffer is the usual linear
+ * merge, with the short run copied out of the way. Longer merges use
+ * SymMerge (Kim and Kutzner, "Stable Minimum Storage Merging by
+ * Symmetric Comparisons", 2004): a binary search finds how much of the
+ * end of the left run and the start of the right run belong on the
+ * other side, one rotation swaps them, and the two halves that result
+ * are merged recursively. Each level of merging then costs O(n log n)
+ * instead of O(n), but only the top few levels are long enough to
+ * need it, since the buffer handles everything below.
+ *
+ * The sort is stable. The buffer is allocated per sort, so one sorter
+ * may be shared between threads.
+ *
+ * @param <T>
+ *   The types of values that are sorted.
+ *
+ * @author Andrew N. Fargo
+ */
+public class InPlaceMergeSorter<T> implements Sorter<T> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The length of the blocks that are insertion sorted.
+   */
+  static final int BLOCK = 20;
+
+  /**
+   * The default number of elements in the buffer.
+   */
+  static final int DEFAULT_BUFFER = 2048;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The way in which elements are ordered.
+   */
+  Comparator<? super T> order;
+
+  /**
+   * The most elements the buffer may hold.
+   */
+  int bufferSize;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a sorter using a particular comparator and the default
+   * buffer.
+   *
+   * @param comparator
+   *   The order in which elements in the array should be ordered
+   *   after sorting.
+   */
+  public InPlaceMergeSorter(Comparator<? super T> comparator) {
+    this(comparator, DEFAULT_BUFFER);
+  } // InPlaceMergeSorter(Comparator)
+
+  /**
+   * Create a sorter with a buffer of a given size.
+   *
+   * @param comparator
+   *   The order in which elements in the array should be ordered
+   *   after sorting.
+   * @param buffer
+   *   The most elements to set aside while merging, at least 1.
+   *   Smaller buffers leave more of the work to SymMerge.
+   */
+  public InPlaceMergeSorter(Comparator<? super T> comparator, int buffer) {
+    this.order = comparator;
+    this.bufferSize = Math.max(1, buffer);
+  } // InPlaceMergeSorter(Comparator, int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Sort an array stably, using a buffer of at most bufferSize
+   * elements.
+   *
+   * @param values
+   *   an array to sort.
+   *
+   * @post
+   *   The array has been sorted according to some order (often
+   *   one given to the constructor).
+   * @post
+   *   For all i, 0 &lt; i &lt; values.length,
+   *     order.compare(values[i-1], values[i]) &lt;= 0
+   * @post
+   *   Equal values are in the same order as before.
+   */
+  @Override
+  @SuppressWarnings({"unchecked"})
+  public void sort(T[] values) {
+    int n = values.length;
+    if (n < 2) {
+      return;
+    } // if
+    for (int lb = 0; lb < n; lb += BLOCK) {
+      this.insertionSort(values, lb, Math.min(lb + BLOCK, n));
+    } // for
+    T[] buffer = (T[]) new Object[Math.min(this.bufferSize, n / 2)];
+    for (long width = BLOCK; width < n; width *= 2) {
+      for (long lb = 0; lb + width < n; lb += 2 * width) {
+        this.merge(values, buffer, (int) lb, (int) (lb + width),
+            (int) Math.min(lb + 2 * width, n));
+      } // for
+    } // for
+  } // sort(T[])
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Insertion sort a subarray, finding each insertion point by binary
+   * search. Equal values stay in order.
+   *
+   * @param values
+   *   The array.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound.
+   */
+  private void insertionSort(T[] values, int lb, int ub) {
+    for (int j = lb + 1; j < ub; j++) {
+      T value = values[j];
+      int lo = lb;
+      int hi = j;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (this.order.compare(values[mid], value) > 0) {
+          hi = mid;
+        } else {
+          lo = mid + 1;
+        } // if/else
+      } // while
+      System.arraycopy(values, lo, values, lo + 1, j - lo);
+      values[lo] = value;
+    } // for
+  } // insertionSort(T[], int, int)
+
+  /**
+   * Merge two adjacent sorted runs in place. Ties go to the first run.
+   *
+   * @param values
+   *   The array.
+   * @param buffer
+   *   Scratch space.
+   * @param a
+   *   The start of the first run.
+   * @param m
+   *   The start of the second run.
+   * @param b
+   *   The end of the second run.
+   */
+  private void merge(T[] values, T[] buffer, int a, int m, int b) {
+    if (a >= m || m >= b || this.order.compare(values[m - 1], values[m]) <= 0) {
+      return;
+    } // if
+    if (m - a <= buffer.length) {
+      this.mergeLow(values, buffer, a, m, b);
+    } else if (b - m <= buffer.length) {
+      this.mergeHigh(values, buffer, a, m, b);
+    } else {
+      this.symMerge(values, buffer, a, m, b);
+    } // if/else
+  } // merge(T[], T[], int, int, int)
+
+  /**
+   * Merge by copying the first run into the buffer and merging it
+   * with the second from the front.
+   *
+   * @param values
+   *   The array.
+   * @param buffer
+   *   Scratch space at least m - a long.
+   * @param a
+   *   The start of the first run.
+   * @param m
+   *   The start of the second run.
+   * @param b
+   *   The end of the second run.
+   */
+  private void mergeLow(T[] values, T[] buffer, int a, int m, int b) {
+    int length = m - a;
+    System.arraycopy(values, a, buffer, 0, length);
+    int i = 0;
+    int j = m;
+    int k = a;
+    while (i < length && j < b) {
+      if (this.order.compare(buffer[i], values[j]) <= 0) {
+        values[k++] = buffer[i++];
+      } else {
+        values[k++] = values[j++];
+      } // if/else
+    } // while
+    System.arraycopy(buffer, i, values, k, length - i);
+  } // mergeLow(T[], T[], int, int, int)
+
+  /**
+   * Merge by copying the second run into the buffer and merging it
+   * with the first from the back.
+   *
+   * @param values
+   *   The array.
+   * @param buffer
+   *   Scratch space at least b - m long.
+   * @param a
+   *   The start of the first run.
+   * @param m
+   *   The start of the second run.
+   * @param b
+   *   The end of the second run.
+   */
+  private void mergeHigh(T[] values, T[] buffer, int a, int m, int b) {
+    int length = b - m;
+    System.arraycopy(values, m, buffer, 0, length);
+    int i = m - 1;
+    int j = length - 1;
+    int k = b - 1;
+    while (i >= a && j >= 0) {
+      if (this.order.compare(values[i], buffer[j]) > 0) {
+        values[k--] = values[i--];
+      } else {
+        values[k--] = buffer[j--];
+      } // if/else
+    } // while
+    System.arraycopy(buffer, 0, values, a, j + 1);
+  } // mergeHigh(T[], T[], int, int, int)
+
+  /**
+   * Merge two adjacent sorted runs with SymMerge. Around the middle of
+   * the two runs, find the shortest end of the first run and start of
+   * the second such that swapping them leaves everything before the
+   * middle no greater than everything after; swap them by rotation;
+   * then merge each side.
+   *
+   * @param values
+   *   The array.
+   * @param buffer
+   *   Scratch space.
+   * @param a
+   *   The start of the first run.
+   * @param m
+   *   The start of the second run.
+   * @param b
+   *   The end of the second run.
+   */
+  private void symMerge(T[] values, T[] buffer, int a, int m, int b) {
+    int mid = (a + b) >>> 1;
+    int n = mid + m;
+    int start;
+    int r;
+    if (m > mid) {
+      start = n - b;
+      r = mid;
+    } else {
+      start = a;
+      r = m;
+    } // if/else
+    int p = n - 1;
+    while (start < r) {
+      int c = (start + r) >>> 1;
+      if (this.order.compare(values[p - c], values[c]) >= 0) {
+        start = c + 1;
+      } else {
+        r = c;
+      } // if/else
+    } // while
+    int end = n - start;
+    if (start < m && m < end) {
+      rotate(values, buffer, start, m, end);
+    } // if
+    this.merge(values, buffer, a, start, mid);
+    this.merge(values, buffer, mid, end, b);
+  } // symMerge(T[], T[], int, int, int)
+
+  /**
+   * Swap two adjacent ranges, keeping the order within each.
+   *
+   * @param values
+   *   The array.
+   * @param buffer
+   *   Scratch space.
+   * @param a
+   *   The start of the first range.
+   * @param m
+   *   The start of the second range.
+   * @param b
+   *   The end of the second range.
+   */
+  static void rotate(Object[] values, Object[] buffer, int a, int m, int b) {
+    if (m - a <= buffer.length) {
+      System.arraycopy(values, a, buffer, 0, m - a);
+      System.arraycopy(values, m, values, a, b - m);
+      System.arraycopy(buffer, 0, values, a + b - m, m - a);
+    } else if (b - m <= buffer.length) {
+      System.arraycopy(values, m, buffer, 0, b - m);
+      System.arraycopy(values, a, values, a + b - m, m - a);
+      System.arraycopy(buffer, 0, values, a, b - m);
+    } else {
+      reverse(values, a, m);
+      reverse(values, m, b);
+      reverse(values, a, b);
+    } // if/else
+  } // rotate(Object[], Object[], int, int, int)
+
+  /**
+   * Reverse a range.
+   *
+   * @param values
+   *   The array.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound.
+   */
+  static void reverse(Object[] values, int lb, int ub) {
+    for (int i = lb, j = ub - 1; i < j; i++, j--) {
+      Object temp = values[i];
+      values[i] = values[j];
+      values[j] = temp;
+    } // for
+  } // reverse(Object[], int, int)
+} // class InPlaceMergeSorter
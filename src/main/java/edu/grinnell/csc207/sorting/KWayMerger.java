@@ -0,0 +1,386 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Merges k sorted runs in one pass with a tournament (loser) tree. Each
+ * value costs about log2(k) comparisons, so merging k runs of n values
+ * in total takes O(n log k) rather than the O(n log n) of concatenating
+ * and sorting again.
+ *
+ * Comparisons follow MergeSorter.merge: a value from an earlier run
+ * wins ties against an equal value from a later run, so merging runs
+ * that were cut from one array in order is stable.
+ *
+ * A merger holds only its comparator, so one may be shared between
+ * threads.
+ *
+ * @param <T>
+ *   The types of values that are merged.
+ *
+ * @author Andrew N. Fargo
+ */
+public class KWayMerger<T> {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The way in which elements are ordered.
+   */
+  Comparator<? super T> order;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a merger using a particular comparator.
+   *
+   * @param comparator
+   *   The order in which the runs are sorted.
+   */
+  public KWayMerger(Comparator<? super T> comparator) {
+    this.order = comparator;
+  } // KWayMerger(Comparator)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Merge sorted arrays into a new array. The result has the runtime
+   * type of the first run.
+   *
+   * @param runs
+   *   The sorted arrays. They are left alone.
+   * @return The merged values.
+   */
+  @SuppressWarnings({"unchecked"})
+  public T[] mergeArrays(List<T[]> runs) {
+    if (runs.isEmpty()) {
+      return (T[]) new Object[0];
+    } // if
+    int total = 0;
+    for (T[] run : runs) {
+      total += run.length;
+    } // for
+    T[] result = Arrays.copyOf(runs.get(0), total);
+    if (runs.size() == 1) {
+      return result;
+    } // if
+    ArrayTournament tournament = new ArrayTournament(runs);
+    for (int n = 0; n < total; n++) {
+      result[n] = tournament.pop();
+    } // for
+    return result;
+  } // mergeArrays(List)
+
+  /**
+   * Merge adjacent sorted ranges of one array into the same positions
+   * of another. Range r is source[bounds[r]] through
+   * source[bounds[r + 1] - 1].
+   *
+   * @param source
+   *   The array holding the sorted ranges.
+   * @param bounds
+   *   The boundaries of the ranges, in increasing order.
+   * @param sink
+   *   Where to put the merged values, from sink[bounds[0]] up to but
+   *   not including sink[bounds[bounds.length - 1]]. May not be source.
+   */
+  public void mergeRanges(T[] source, int[] bounds, T[] sink) {
+    int lb = bounds[0];
+    int ub = bounds[bounds.length - 1];
+    if (bounds.length <= 2) {
+      System.arraycopy(source, lb, sink, lb, ub - lb);
+      return;
+    } // if
+    ArrayTournament tournament = new ArrayTournament(source, bounds);
+    for (int n = lb; n < ub; n++) {
+      sink[n] = tournament.pop();
+    } // for
+  } // mergeRanges(T[], int[], T[])
+
+  /**
+   * Merge sorted iterators lazily. Each source is read only as far as
+   * the merge has got, so the sources may be unbounded or too large to
+   * hold in memory.
+   *
+   * @param sources
+   *   Iterators that each return values in sorted order.
+   * @return An iterator over all their values in sorted order.
+   */
+  public Iterator<T> mergeIterators(List<? extends Iterator<? extends T>> sources) {
+    return new IteratorTournament(sources);
+  } // mergeIterators(List)
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * A loser tree over k runs. Leaf r stands for the head of run r.
+   * Internal node i (1 &lt;= i &lt; k) holds the run that lost the
+   * match played there, and node 0 holds the overall winner. Taking
+   * the winner's head and replaying only the matches on its path to
+   * the root costs one comparison per level.
+   */
+  abstract class Tournament {
+    /**
+     * The current head of each run.
+     */
+    T[] heads;
+
+    /**
+     * Whether each run still has a head.
+     */
+    boolean[] live;
+
+    /**
+     * The losers of each match, with the winner in slot 0.
+     */
+    int[] tree;
+
+    /**
+     * Create a tournament. Subclasses call start() once they can load
+     * heads.
+     *
+     * @param k
+     *   The number of runs.
+     */
+    @SuppressWarnings({"unchecked"})
+    Tournament(int k) {
+      this.heads = (T[]) new Object[k];
+      this.live = new boolean[k];
+      this.tree = new int[Math.max(k, 1)];
+    } // Tournament(int)
+
+    /**
+     * Load the next head of a run.
+     *
+     * @param r
+     *   The run.
+     * @return true if there was one, false if the run is exhausted.
+     */
+    abstract boolean load(int r);
+
+    /**
+     * Load every run's first head and play the initial tournament.
+     */
+    void start() {
+      int k = this.heads.length;
+      for (int r = 0; r < k; r++) {
+        this.live[r] = this.load(r);
+      } // for
+      if (k == 0) {
+        return;
+      } // if
+      /* winners[i] is the winner of the subtree at node i; leaves are k..2k-1. */
+      int[] winners = new int[2 * k];
+      for (int r = 0; r < k; r++) {
+        winners[k + r] = r;
+      } // for
+      for (int node = k - 1; node >= 1; node--) {
+        int a = winners[2 * node];
+        int b = winners[2 * node + 1];
+        if (this.beats(a, b)) {
+          winners[node] = a;
+          this.tree[node] = b;
+        } else {
+          winners[node] = b;
+          this.tree[node] = a;
+        } // if/else
+      } // for
+      this.tree[0] = (k == 1) ? 0 : winners[1];
+    } // start()
+
+    /**
+     * Determine whether run a's head comes out before run b's.
+     *
+     * @param a
+     *   One run.
+     * @param b
+     *   Another run.
+     * @return true if a wins.
+     */
+    boolean beats(int a, int b) {
+      if (!this.live[a]) {
+        return false;
+      } else if (!this.live[b]) {
+        return true;
+      } // if/else
+      int c = KWayMerger.this.order.compare(this.heads[a], this.heads[b]);
+      return (c < 0) || (c == 0 && a < b);
+    } // beats(int, int)
+
+    /**
+     * Determine whether any values are left.
+     *
+     * @return true if there are.
+     */
+    boolean hasNext() {
+      return this.heads.length > 0 && this.live[this.tree[0]];
+    } // hasNext()
+
+    /**
+     * Remove and return the smallest value left.
+     *
+     * @return The value.
+     */
+    T pop() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      } // if
+      int winner = this.tree[0];
+      T value = this.heads[winner];
+      this.live[winner] = this.load(winner);
+      int k = this.heads.length;
+      for (int node = (winner + k) / 2; node >= 1; node /= 2) {
+        int loser = this.tree[node];
+        if (this.beats(loser, winner)) {
+          this.tree[node] = winner;
+          winner = loser;
+        } // if
+      } // for
+      this.tree[0] = winner;
+      return value;
+    } // pop()
+  } // class Tournament
+
+  /**
+   * A tournament over ranges of arrays.
+   */
+  class ArrayTournament extends Tournament {
+    /**
+     * The array holding each run.
+     */
+    T[][] arrays;
+
+    /**
+     * The next position in each array.
+     */
+    int[] next;
+
+    /**
+     * Where to stop in each array.
+     */
+    int[] stop;
+
+    /**
+     * Create a tournament over whole arrays.
+     *
+     * @param runs
+     *   The arrays.
+     */
+    @SuppressWarnings({"unchecked"})
+    ArrayTournament(List<T[]> runs) {
+      super(runs.size());
+      this.arrays = runs.toArray((T[][]) new Object[runs.size()][]);
+      this.next = new int[runs.size()];
+      this.stop = new int[runs.size()];
+      for (int r = 0; r < this.stop.length; r++) {
+        this.stop[r] = runs.get(r).length;
+      } // for
+      this.start();
+    } // ArrayTournament(List)
+
+    /**
+     * Create a tournament over consecutive ranges of one array.
+     *
+     * @param source
+     *   The array.
+     * @param bounds
+     *   Range r runs from bounds[r] to bounds[r + 1].
+     */
+    @SuppressWarnings({"unchecked"})
+    ArrayTournament(T[] source, int[] bounds) {
+      super(bounds.length - 1);
+      this.arrays = (T[][]) new Object[bounds.length - 1][];
+      Arrays.fill(this.arrays, source);
+      this.next = Arrays.copyOf(bounds, bounds.length - 1);
+      this.stop = Arrays.copyOfRange(bounds, 1, bounds.length);
+      this.start();
+    } // ArrayTournament(T[], int[])
+
+    /**
+     * Load the next head of a run.
+     *
+     * @param r
+     *   The run.
+     * @return true if there was one.
+     */
+    @Override
+    boolean load(int r) {
+      if (this.next[r] >= this.stop[r]) {
+        return false;
+      } // if
+      this.heads[r] = this.arrays[r][this.next[r]++];
+      return true;
+    } // load(int)
+  } // class ArrayTournament
+
+  /**
+   * A tournament over iterators, which is itself an iterator.
+   */
+  class IteratorTournament extends Tournament implements Iterator<T> {
+    /**
+     * The sources.
+     */
+    List<? extends Iterator<? extends T>> sources;
+
+    /**
+     * Create a tournament.
+     *
+     * @param iterators
+     *   The sources.
+     */
+    IteratorTournament(List<? extends Iterator<? extends T>> iterators) {
+      super(iterators.size());
+      this.sources = iterators;
+      this.start();
+    } // IteratorTournament(List)
+
+    /**
+     * Load the next head of a run.
+     *
+     * @param r
+     *   The run.
+     * @return true if there was one.
+     */
+    @Override
+    boolean load(int r) {
+      Iterator<? extends T> source = this.sources.get(r);
+      if (!source.hasNext()) {
+        this.heads[r] = null;
+        return false;
+      } // if
+      this.heads[r] = source.next();
+      return true;
+    } // load(int)
+
+    /**
+     * Determine whether any values are left.
+     *
+     * @return true if there are.
+     */
+    @Override
+    public boolean hasNext() {
+      return super.hasNext();
+    } // hasNext()
+
+    /**
+     * Get the next value in sorted order.
+     *
+     * @return The value.
+     */
+    @Override
+    public T next() {
+      return this.pop();
+    } // next()
+  } // class IteratorTournament
+} // class KWayMerger
@@ -86,15 +86,26 @@ public class MergeSorter<T> implements Sorter<T> {
    *   The (inclusive) lower bound.
    * @param end
    *   The (exclusive) upper bound.
+   * @param control
+   *   What to check and tell about progress, or null.
    */
-  private void mergeSort(T[] values, T[] helper, int start, int end) {
+  private void mergeSort(T[] values, T[] helper, int start, int end,
+                         SortControl control) {
     if (end - start <= 1) {
       return;
     } // if
     /* Recurse. */
     int mid = start + (end - start) / 2;
-    mergeSort(values, helper, start, mid);
-    mergeSort(values, helper,  mid, end);
+    mergeSort(values, helper, start, mid, control);
+    mergeSort(values, helper,  mid, end, control);
+
+    /* Stop only between merges, while values holds every element. */
+    if (control != null) {
+      if (end - start >= SortControl.GRAIN) {
+        control.check();
+      } // if
+      control.settle(end - start);
+    } // if
 
     /* Merge the two arrays. */
     merge(values, helper, start, mid, end);
@@ -118,6 +129,28 @@ public class MergeSorter<T> implements Sorter<T> {
   @SuppressWarnings({"unchecked"})
   public void sort(T[] values) {
     T[] helper = (T[]) new Object[values.length];
-    mergeSort(values, helper, 0, values.length);
+    mergeSort(values, helper, 0, values.length, null);
   } // sort(T[])
+
+  /**
+   * Sort an array as sort does, checking the control before each
+   * large merge. A merge copies back only once it is complete, so a
+   * cancelled sort leaves a permutation of the original. Progress
+   * counts each element once per level of merging, scaled so that it
+   * still ends at values.length.
+   *
+   * @param values
+   *   an array to sort.
+   * @param control
+   *   How to stop the sort and watch its progress.
+   */
+  @Override
+  @SuppressWarnings({"unchecked"})
+  public void sort(T[] values, SortControl control) {
+    control.begin(32 - Integer.numberOfLeadingZeros(Math.max(1, values.length - 1)));
+    control.check();
+    T[] helper = (T[]) new Object[values.length];
+    mergeSort(values, helper, 0, values.length, control);
+    control.finish(values.length);
+  } // sort(T[], SortControl)
 } // class MergeSorter
@@ -0,0 +1,31 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Comparator;
+
+/**
+ * Things that know how to choose a pivot for a partitioning sort.
+ * Selectors are called once per partition, so they should neither
+ * allocate nor keep mutable state.
+ *
+ * @author Andrew N. Fargo
+ */
+public interface PivotSelector {
+  /**
+   * Choose a pivot from a subarray.
+   *
+   * @param <T>
+   *   The type of values in the array.
+   * @param values
+   *   The array.
+   * @param order
+   *   How to compare elements.
+   * @param lb
+   *   The inclusive lower bound of the subarray.
+   * @param ub
+   *   The exclusive upper bound of the subarray.
+   * @return One of values[lb], ..., values[ub - 1].
+   * @pre
+   *   0 &lt;= lb &lt; ub &lt;= values.length
+   */
+  public <T> T select(T[] values, Comparator<? super T> order, int lb, int ub);
+} // interface PivotSelector
@@ -0,0 +1,277 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The pivot selection strategies. None of them allocate, and none keep
+ * mutable state, so they may be shared between threads.
+ *
+ * @author Andrew N. Fargo
+ */
+public class PivotSelectors {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Subarrays at least this large use Tukey's ninther rather than
+   * a plain median of three.
+   */
+  static final int NINTHER_THRESHOLD = 128;
+
+  /**
+   * The median of three random elements. This is what
+   * FargoAndrewSorter has always used.
+   */
+  public static final PivotSelector RANDOM_MEDIAN_OF_THREE = new RandomMedianOfThree();
+
+  /**
+   * The median of the first, middle, and last elements.
+   */
+  public static final PivotSelector MEDIAN_OF_THREE = new MedianOfThree();
+
+  /**
+   * Tukey's ninther: the median of the medians of three evenly spaced
+   * triples, for large subarrays, and a median of three otherwise.
+   */
+  public static final PivotSelector NINTHER = new Ninther();
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Get a selector that takes the median of three pseudo-random
+   * elements, where the positions depend only on the seed and the
+   * bounds of the subarray. Sorting the same array with the same seed
+   * always makes the same choices.
+   *
+   * @param seed
+   *   The seed.
+   * @return The selector.
+   */
+  public static PivotSelector seeded(long seed) {
+    return new Seeded(seed);
+  } // seeded(long)
+
+  /**
+   * Find the middle of three values without branches.
+   *
+   * @param <T>
+   *   The type of the values.
+   * @param order
+   *   How to compare the values.
+   * @param a
+   *   The first value.
+   * @param b
+   *   The second value.
+   * @param c
+   *   The third value.
+   * @return The middle of the three values.
+   */
+  static <T> T median(Comparator<? super T> order, T a, T b, T c) {
+    /* https://stackoverflow.com/questions/1582356
+       /fastest-way-of-finding-the-middle-value-of-a-triple/14676309#14676309 */
+    return max(order, min(order, a, b), min(order, max(order, a, b), c));
+  } // median(Comparator, T, T, T)
+
+  /**
+   * Return the larger of two elements.
+   *
+   * @param <T>
+   *   The type of the values.
+   * @param order
+   *   How to compare the values.
+   * @param first
+   *   The first element.
+   * @param second
+   *   The second element.
+   * @return The larger element.
+   */
+  static <T> T max(Comparator<? super T> order, T first, T second) {
+    return order.compare(first, second) > 0 ? first : second;
+  } // max(Comparator, T, T)
+
+  /**
+   * Return the smaller of two elements.
+   *
+   * @param <T>
+   *   The type of the values.
+   * @param order
+   *   How to compare the values.
+   * @param first
+   *   The first element.
+   * @param second
+   *   The second element.
+   * @return The smaller element.
+   */
+  static <T> T min(Comparator<? super T> order, T first, T second) {
+    return order.compare(first, second) < 0 ? first : second;
+  } // min(Comparator, T, T)
+
+  /**
+   * Scramble the bits of a long (the SplitMix64 finalizer).
+   *
+   * @param z
+   *   The value to scramble.
+   * @return The scrambled value.
+   */
+  static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  } // mix(long)
+
+  /**
+   * Map the low 32 bits of a hash onto a subarray without division.
+   *
+   * @param hash
+   *   The hash.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound.
+   * @return An index between lb and ub.
+   */
+  static int index(long hash, int lb, int ub) {
+    return lb + (int) (((hash & 0xFFFFFFFFL) * (ub - lb)) >>> 32);
+  } // index(long, int, int)
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * The median of three random elements.
+   */
+  static class RandomMedianOfThree implements PivotSelector {
+    /**
+     * Choose a pivot from a subarray.
+     *
+     * @param <T>
+     *   The type of values in the array.
+     * @param values
+     *   The array.
+     * @param order
+     *   How to compare elements.
+     * @param lb
+     *   The inclusive lower bound of the subarray.
+     * @param ub
+     *   The exclusive upper bound of the subarray.
+     * @return The pivot.
+     */
+    @Override
+    public <T> T select(T[] values, Comparator<? super T> order, int lb, int ub) {
+      ThreadLocalRandom rng = ThreadLocalRandom.current();
+      return median(order, values[rng.nextInt(lb, ub)],
+          values[rng.nextInt(lb, ub)], values[rng.nextInt(lb, ub)]);
+    } // select(T[], Comparator, int, int)
+  } // class RandomMedianOfThree
+
+  /**
+   * The median of the first, middle, and last elements.
+   */
+  static class MedianOfThree implements PivotSelector {
+    /**
+     * Choose a pivot from a subarray.
+     *
+     * @param <T>
+     *   The type of values in the array.
+     * @param values
+     *   The array.
+     * @param order
+     *   How to compare elements.
+     * @param lb
+     *   The inclusive lower bound of the subarray.
+     * @param ub
+     *   The exclusive upper bound of the subarray.
+     * @return The pivot.
+     */
+    @Override
+    public <T> T select(T[] values, Comparator<? super T> order, int lb, int ub) {
+      return median(order, values[lb], values[lb + (ub - lb) / 2], values[ub - 1]);
+    } // select(T[], Comparator, int, int)
+  } // class MedianOfThree
+
+  /**
+   * Tukey's ninther.
+   */
+  static class Ninther implements PivotSelector {
+    /**
+     * Choose a pivot from a subarray.
+     *
+     * @param <T>
+     *   The type of values in the array.
+     * @param values
+     *   The array.
+     * @param order
+     *   How to compare elements.
+     * @param lb
+     *   The inclusive lower bound of the subarray.
+     * @param ub
+     *   The exclusive upper bound of the subarray.
+     * @return The pivot.
+     */
+    @Override
+    public <T> T select(T[] values, Comparator<? super T> order, int lb, int ub) {
+      int size = ub - lb;
+      int mid = lb + size / 2;
+      if (size < NINTHER_THRESHOLD) {
+        return median(order, values[lb], values[mid], values[ub - 1]);
+      } // if
+      int step = size / 8;
+      int last = ub - 1;
+      return median(order,
+          median(order, values[lb], values[lb + step], values[lb + 2 * step]),
+          median(order, values[mid - step], values[mid], values[mid + step]),
+          median(order, values[last - 2 * step], values[last - step], values[last]));
+    } // select(T[], Comparator, int, int)
+  } // class Ninther
+
+  /**
+   * The median of three elements chosen by hashing a seed with the
+   * bounds of the subarray.
+   */
+  static class Seeded implements PivotSelector {
+    /**
+     * The seed.
+     */
+    long seed;
+
+    /**
+     * Create a seeded selector.
+     *
+     * @param start
+     *   The seed.
+     */
+    Seeded(long start) {
+      this.seed = start;
+    } // Seeded(long)
+
+    /**
+     * Choose a pivot from a subarray.
+     *
+     * @param <T>
+     *   The type of values in the array.
+     * @param values
+     *   The array.
+     * @param order
+     *   How to compare elements.
+     * @param lb
+     *   The inclusive lower bound of the subarray.
+     * @param ub
+     *   The exclusive upper bound of the subarray.
+     * @return The pivot.
+     */
+    @Override
+    public <T> T select(T[] values, Comparator<? super T> order, int lb, int ub) {
+      long hash = mix(this.seed ^ (((long) lb << 32) | ub));
+      T a = values[index(hash, lb, ub)];
+      T b = values[index(hash >>> 32, lb, ub)];
+      hash = mix(hash);
+      T c = values[index(hash, lb, ub)];
+      return median(order, a, b, c);
+    } // select(T[], Comparator, int, int)
+  } // class Seeded
+} // class PivotSelectors
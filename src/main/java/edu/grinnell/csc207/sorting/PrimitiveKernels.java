@@ -0,0 +1,41 @@
+package edu.grinnell.csc207.sorting;
+
+/**
+ * A backend that sorts arrays of primitive keys. PrimitiveSorter picks
+ * the vectorized backend when it can and the scalar one otherwise.
+ *
+ * @author Andrew N. Fargo
+ */
+interface PrimitiveKernels {
+  /**
+   * Sort an array in place using a three-way quicksort.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  void quicksort(int[] values);
+
+  /**
+   * Sort an array in place using a three-way quicksort.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  void quicksort(long[] values);
+
+  /**
+   * Sort an array using merge sort.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  void mergeSort(int[] values);
+
+  /**
+   * Sort an array using merge sort.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  void mergeSort(long[] values);
+} // interface PrimitiveKernels
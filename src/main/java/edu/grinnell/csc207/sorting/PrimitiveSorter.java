@@ -0,0 +1,166 @@
+package edu.grinnell.csc207.sorting;
+
+/**
+ * Sorts arrays of primitive keys, with SIMD kernels when the
+ * jdk.incubator.vector module is present (run with
+ * --add-modules jdk.incubator.vector) and plain Java kernels otherwise.
+ * Both backends give the same results.
+ *
+ * @author Andrew N. Fargo
+ */
+public class PrimitiveSorter {
+  // +---------------+-----------------------------------------------
+  // | Static Fields |
+  // +---------------+
+
+  /**
+   * The name of the vector module.
+   */
+  static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+  /**
+   * Set this system property to true to force the scalar kernels.
+   */
+  static final String SCALAR_PROPERTY = "edu.grinnell.csc207.sorting.scalar";
+
+  /**
+   * The backend in use.
+   */
+  static final PrimitiveKernels KERNELS = chooseKernels();
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Determine whether the SIMD kernels are in use.
+   *
+   * @return true if they are, false if the scalar kernels are.
+   */
+  public static boolean isAccelerated() {
+    return !(KERNELS instanceof ScalarKernels);
+  } // isAccelerated()
+
+  /**
+   * Sort an array in place using a three-way quicksort.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  public static void quicksort(int[] values) {
+    KERNELS.quicksort(values);
+  } // quicksort(int[])
+
+  /**
+   * Sort an array in place using a three-way quicksort.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  public static void quicksort(long[] values) {
+    KERNELS.quicksort(values);
+  } // quicksort(long[])
+
+  /**
+   * Sort an array using a three-way quicksort. The order is that of
+   * Float.compare, except that all NaNs become the canonical NaN.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  public static void quicksort(float[] values) {
+    int[] keys = toKeys(values);
+    KERNELS.quicksort(keys);
+    fromKeys(keys, values);
+  } // quicksort(float[])
+
+  /**
+   * Sort an array using merge sort.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  public static void mergeSort(int[] values) {
+    KERNELS.mergeSort(values);
+  } // mergeSort(int[])
+
+  /**
+   * Sort an array using merge sort.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  public static void mergeSort(long[] values) {
+    KERNELS.mergeSort(values);
+  } // mergeSort(long[])
+
+  /**
+   * Sort an array using merge sort. The order is that of
+   * Float.compare, except that all NaNs become the canonical NaN.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  public static void mergeSort(float[] values) {
+    int[] keys = toKeys(values);
+    KERNELS.mergeSort(keys);
+    fromKeys(keys, values);
+  } // mergeSort(float[])
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Pick the vector kernels if the module is there, they load, and
+   * the hardware has vectors of at least 128 bits; and the scalar
+   * kernels otherwise. The vector kernels are named only as a string,
+   * so a missing module cannot break this class.
+   *
+   * @return The kernels.
+   */
+  static PrimitiveKernels chooseKernels() {
+    if (Boolean.getBoolean(SCALAR_PROPERTY)
+        || ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+      return new ScalarKernels();
+    } // if
+    try {
+      return (PrimitiveKernels) Class.forName("edu.grinnell.csc207.sorting.VectorKernels")
+          .getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return new ScalarKernels();
+    } // try/catch
+  } // chooseKernels()
+
+  /**
+   * Turn floats into ints whose signed order matches the order of
+   * the floats: negative floats have their magnitude bits flipped.
+   *
+   * @param values
+   *   The floats.
+   * @return The keys.
+   */
+  static int[] toKeys(float[] values) {
+    int[] keys = new int[values.length];
+    for (int i = 0; i < values.length; i++) {
+      int bits = Float.floatToIntBits(values[i]);
+      keys[i] = bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+    } // for
+    return keys;
+  } // toKeys(float[])
+
+  /**
+   * Undo toKeys.
+   *
+   * @param keys
+   *   The keys.
+   * @param values
+   *   Where to put the floats.
+   */
+  static void fromKeys(int[] keys, float[] values) {
+    for (int i = 0; i < keys.length; i++) {
+      int key = keys[i];
+      values[i] = Float.intBitsToFloat(key ^ ((key >> 31) & Integer.MAX_VALUE));
+    } // for
+  } // fromKeys(int[], float[])
+} // class PrimitiveSorter
@@ -2,10 +2,11 @@ package edu.grinnell.csc207.sorting;
 
 import edu.grinnell.csc207.util.ArrayUtils;
 import java.util.Comparator;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Something that sorts using Quicksort.
+ * Something that sorts using Quicksort. The sorter keeps no mutable
+ * state, so one instance may be shared between threads.
  *
  * @param <T>
  *   The types of values that are sorted.
@@ -24,11 +25,6 @@ public class Quicksorter<T> implements Sorter<T> {
    */
   Comparator<? super T> order;
 
-  /**
-   * Our random number generator to calculate the pivot.
-   */
-  Random rng;
-
   // +--------------+------------------------------------------------
   // | Constructors |
   // +--------------+
@@ -42,7 +38,6 @@ public class Quicksorter<T> implements Sorter<T> {
    */
   public Quicksorter(Comparator<? super T> comparator) {
     this.order = comparator;
-    this.rng = new Random();
   } // Quicksorter(Comparator)
 
   // +---------+-----------------------------------------------------
@@ -65,12 +60,14 @@ public class Quicksorter<T> implements Sorter<T> {
    *   The (inclusive) lower bound of the subarray.
    * @param end
    *   The (exclusive) upper bound of the subarray.
-   * @param result
-   *   The result of the computation, must be allocated.
+   * @return The start of the elements equal to the pivot in the
+   *   upper 32 bits, and the start of the elements greater than the
+   *   pivot in the lower 32 bits, so that no array is allocated per
+   *   call.
    */
-  private static <T> void partition(T[] values, T pivot,
+  private static <T> long partition(T[] values, T pivot,
                                     Comparator<? super T> order,
-                                    int start, int end, int[] result) {
+                                    int start, int end) {
     int red = start;
     int white = start;
     int blue = end;
@@ -91,8 +88,7 @@ public class Quicksorter<T> implements Sorter<T> {
         white++;
       } // if/else
     } // while
-    result[0] = red;
-    result[1] = white;
+    return ((long) red << 32) | white;
   } // partition(T[], T, Comparator<? super T>, int, int)
 
   /**
@@ -104,24 +100,38 @@ public class Quicksorter<T> implements Sorter<T> {
    *   The lower bound (inclusive) of the subarray.
    * @param end
    *   The upper bound (exclusive) of the subarray.
+   * @param control
+   *   What to check and tell about progress, or null.
    * @pre
    *   0 <= start <= end <= values.length
    * @post
    *   The subarray has been sorted.
    */
-  private void quicksort(T[] values, int start, int end) {
+  private void quicksort(T[] values, int start, int end, SortControl control) {
     if (end - start <= 1) {
+      if (control != null) {
+        control.settle(end - start);
+      } // if
       return; // We are sorted.
     } // if
-    T pivot = values[rng.nextInt(end - start) + start];
+    if (control != null && end - start >= SortControl.GRAIN) {
+      control.check();
+    } // if
+    /* Each thread has its own generator, so there is no contention. */
+    T pivot = values[ThreadLocalRandom.current().nextInt(start, end)];
 
-    int[] aux = new int[2];
-    Quicksorter.partition(values, pivot, order, start, end, aux);
+    long bounds = Quicksorter.partition(values, pivot, order, start, end);
+    int m1 = (int) (bounds >>> 32);
+    int m2 = (int) bounds;
+
+    if (control != null) {
+      control.settle(m2 - m1);
+    } // if
 
     /* Recurse. */
-    quicksort(values, start, aux[0]);
-    quicksort(values, aux[1], end);
-  } // quicksort(T[], int, int)
+    quicksort(values, start, m1, control);
+    quicksort(values, m2, end, control);
+  } // quicksort(T[], int, int, SortControl)
 
   /**
    * Sort an array in place using Quicksort.
@@ -147,6 +157,24 @@ public class Quicksorter<T> implements Sorter<T> {
    */
   @Override
   public void sort(T[] values) {
-    quicksort(values, 0, values.length);
+    quicksort(values, 0, values.length, null);
   } // sort(T[])
+
+  /**
+   * Sort an array in place using Quicksort, checking the control
+   * before each large partition. Values only ever swap places, so a
+   * cancelled sort leaves a permutation of the original.
+   *
+   * @param values
+   *   an array to sort.
+   * @param control
+   *   How to stop the sort and watch its progress.
+   */
+  @Override
+  public void sort(T[] values, SortControl control) {
+    control.begin(1);
+    control.check();
+    quicksort(values, 0, values.length, control);
+    control.finish(values.length);
+  } // sort(T[], SortControl)
 } // class Quicksorter
@@ -0,0 +1,317 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Something that sorts using a parallel sample sort. A random sample
+ * of the array picks splitters that cut it into buckets of about equal
+ * size; the elements are then classified and scattered into the
+ * buckets in parallel, and the buckets are sorted concurrently with
+ * another sorter. Unlike a parallel quicksort, every thread has work
+ * from the very first step. When the sample shows a value repeated
+ * across splitters, values equal to a splitter go to buckets of their
+ * own, which need no sorting, so a few common values cannot pile up
+ * in one bucket.
+ *
+ * @param <T>
+ *   The types of values that are sorted.
+ *
+ * @author Andrew N. Fargo
+ */
+public class SampleSorter<T> implements Sorter<T> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Arrays smaller than this are handed straight to the bucket sorter.
+   */
+  static final int DEFAULT_THRESHOLD = 1 << 16;
+
+  /**
+   * The number of samples taken per bucket.
+   */
+  static final int OVERSAMPLE = 16;
+
+  /**
+   * The largest number of buckets we use.
+   */
+  static final int MAX_BUCKETS = 1 << 10;
+
+  /**
+   * The number of elements each thread classifies at a time.
+   */
+  static final int BLOCK_SIZE = 1 << 14;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The way in which elements are ordered.
+   */
+  Comparator<? super T> order;
+
+  /**
+   * Sorts the sample and the buckets. Shared between threads.
+   */
+  Sorter<T> bucketSorter;
+
+  /**
+   * The number of buckets, a power of two.
+   */
+  int buckets;
+
+  /**
+   * Arrays smaller than this are sorted sequentially.
+   */
+  int threshold;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a sorter using a particular comparator, with four buckets
+   * per processor, sorted by FargoAndrewSorter.
+   *
+   * @param comparator
+   *   The order in which elements in the array should be ordered
+   *   after sorting.
+   */
+  public SampleSorter(Comparator<? super T> comparator) {
+    this(comparator, new FargoAndrewSorter<T>(comparator),
+        4 * Runtime.getRuntime().availableProcessors(), DEFAULT_THRESHOLD);
+  } // SampleSorter(Comparator)
+
+  /**
+   * Create a sorter.
+   *
+   * @param comparator
+   *   The order in which elements in the array should be ordered
+   *   after sorting.
+   * @param sorter
+   *   Sorts the buckets. It is used from several threads at once, so
+   *   it must be safe to share.
+   * @param bucketCount
+   *   The number of buckets; rounded up to a power of two.
+   * @param sequentialBelow
+   *   Arrays smaller than this are sorted sequentially by sorter.
+   */
+  public SampleSorter(Comparator<? super T> comparator, Sorter<T> sorter,
+      int bucketCount, int sequentialBelow) {
+    this.order = comparator;
+    this.bucketSorter = sorter;
+    this.buckets = (bucketCount <= 2) ? 2
+        : Math.min(MAX_BUCKETS, Integer.highestOneBit(bucketCount - 1) << 1);
+    this.threshold = sequentialBelow;
+  } // SampleSorter(Comparator, Sorter, int, int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Choose the splitters from a random sample.
+   *
+   * @param values
+   *   The array.
+   * @return The buckets - 1 splitters, in order.
+   */
+  @SuppressWarnings({"unchecked"})
+  private T[] splitters(T[] values) {
+    ThreadLocalRandom rng = ThreadLocalRandom.current();
+    T[] sample = (T[]) new Object[this.buckets * OVERSAMPLE];
+    for (int i = 0; i < sample.length; i++) {
+      sample[i] = values[rng.nextInt(values.length)];
+    } // for
+    this.bucketSorter.sort(sample);
+    T[] splitters = (T[]) new Object[this.buckets - 1];
+    for (int j = 0; j < splitters.length; j++) {
+      splitters[j] = sample[(j + 1) * OVERSAMPLE - 1];
+    } // for
+    return splitters;
+  } // splitters(T[])
+
+  /**
+   * Lay the splitters out as an implicit binary search tree, root at
+   * index 1 and the children of i at 2i and 2i + 1.
+   *
+   * @param splitters
+   *   The splitters, in order.
+   * @return The tree; index 0 is unused.
+   */
+  @SuppressWarnings({"unchecked"})
+  private T[] splitterTree(T[] splitters) {
+    T[] tree = (T[]) new Object[this.buckets];
+    this.fillTree(tree, 1, splitters, 0, this.buckets);
+    return tree;
+  } // splitterTree(T[])
+
+  /**
+   * Fill a subtree of the splitter tree with the splitters that
+   * separate buckets lb through ub.
+   *
+   * @param tree
+   *   The tree.
+   * @param node
+   *   The root of the subtree.
+   * @param splitters
+   *   The splitters, in order.
+   * @param lb
+   *   The first bucket under this subtree.
+   * @param ub
+   *   One past the last bucket under this subtree.
+   */
+  private void fillTree(T[] tree, int node, T[] splitters, int lb, int ub) {
+    if (ub - lb < 2) {
+      return;
+    } // if
+    int mid = lb + (ub - lb) / 2;
+    tree[node] = splitters[mid - 1];
+    this.fillTree(tree, 2 * node, splitters, lb, mid);
+    this.fillTree(tree, 2 * node + 1, splitters, mid, ub);
+  } // fillTree(T[], int, T[], int, int)
+
+  /**
+   * Find the bucket of a value, which holds the values greater than
+   * the previous splitter and no greater than its own. The descent has
+   * no data-dependent branches: the sign bit of the comparison picks
+   * the child.
+   *
+   * @param tree
+   *   The splitter tree.
+   * @param value
+   *   The value.
+   * @return The bucket, between 0 and buckets - 1.
+   */
+  private int classify(T[] tree, T value) {
+    int node = 1;
+    while (node < this.buckets) {
+      node = (node << 1) + (this.order.compare(tree[node], value) >>> 31);
+    } // while
+    return node - this.buckets;
+  } // classify(T[], T)
+
+  /**
+   * Find the bucket of a value when each splitter also has a bucket of
+   * its own for the values equal to it. Bucket j is split into 2j, for
+   * the values less than splitter j, and 2j + 1, for those equal to it.
+   *
+   * @param tree
+   *   The splitter tree.
+   * @param splitters
+   *   The splitters, in order.
+   * @param value
+   *   The value.
+   * @return The bucket, between 0 and 2 * buckets - 1.
+   */
+  private int classifyEqual(T[] tree, T[] splitters, T value) {
+    int bucket = this.classify(tree, value);
+    return 2 * bucket + ((bucket < splitters.length
+        && this.order.compare(value, splitters[bucket]) == 0) ? 1 : 0);
+  } // classifyEqual(T[], T[], T)
+
+  /**
+   * Determine whether any two adjacent splitters are equal, which
+   * means the sample is full of some value that would otherwise all
+   * land in one bucket.
+   *
+   * @param splitters
+   *   The splitters, in order.
+   * @return Whether any two are equal.
+   */
+  private boolean duplicated(T[] splitters) {
+    for (int j = 1; j < splitters.length; j++) {
+      if (this.order.compare(splitters[j - 1], splitters[j]) == 0) {
+        return true;
+      } // if
+    } // for
+    return false;
+  } // duplicated(T[])
+
+  /**
+   * Sort an array using a parallel sample sort.
+   *
+   * @param values
+   *   an array to sort.
+   *
+   * @post
+   *   The array has been sorted according to some order (often
+   *   one given to the constructor).
+   * @post
+   *   For all i, 0 &lt; i &lt; values.length,
+   *     order.compare(values[i-1], values[i]) &lt;= 0
+   */
+  @Override
+  @SuppressWarnings({"unchecked"})
+  public void sort(T[] values) {
+    int n = values.length;
+    if (n < Math.max(2, this.threshold)) {
+      this.bucketSorter.sort(values);
+      return;
+    } // if
+    T[] splitters = this.splitters(values);
+    T[] tree = this.splitterTree(splitters);
+
+    /* When the sample repeats a splitter, that value is common enough
+       to fill a bucket by itself. Giving each splitter a bucket for
+       its equals keeps them out of the ordinary buckets, and those
+       buckets need no sorting. */
+    boolean equal = this.duplicated(splitters);
+    int classes = equal ? 2 * this.buckets : this.buckets;
+
+    /* Classify each block in parallel, remembering each element's
+       bucket so the scatter need not compare again. */
+    int blocks = (n + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    short[] oracle = new short[n];
+    int[][] counts = new int[blocks][classes];
+    IntStream.range(0, blocks).parallel().forEach(b -> {
+      int[] count = counts[b];
+      int end = Math.min(n, (b + 1) * BLOCK_SIZE);
+      for (int i = b * BLOCK_SIZE; i < end; i++) {
+        int bucket = equal ? this.classifyEqual(tree, splitters, values[i])
+            : this.classify(tree, values[i]);
+        oracle[i] = (short) bucket;
+        count[bucket]++;
+      } // for
+    });
+
+    /* Turn the counts into where each block writes into each bucket,
+       and where each bucket lands in the array. */
+    T[][] bins = (T[][]) new Object[classes][];
+    int[] starts = new int[classes];
+    int start = 0;
+    for (int j = 0; j < classes; j++) {
+      starts[j] = start;
+      int size = 0;
+      for (int b = 0; b < blocks; b++) {
+        int count = counts[b][j];
+        counts[b][j] = size;
+        size += count;
+      } // for b
+      bins[j] = (T[]) new Object[size];
+      start += size;
+    } // for j
+
+    /* Scatter. */
+    IntStream.range(0, blocks).parallel().forEach(b -> {
+      int[] next = counts[b];
+      int end = Math.min(n, (b + 1) * BLOCK_SIZE);
+      for (int i = b * BLOCK_SIZE; i < end; i++) {
+        int bucket = oracle[i];
+        bins[bucket][next[bucket]++] = values[i];
+      } // for
+    });
+
+    /* Sort the buckets and copy them back. */
+    IntStream.range(0, classes).parallel().forEach(j -> {
+      if (!equal || j % 2 == 0) {
+        this.bucketSorter.sort(bins[j]);
+      } // if
+      System.arraycopy(bins[j], 0, values, starts[j], bins[j].length);
+    });
+  } // sort(T[])
+} // class SampleSorter
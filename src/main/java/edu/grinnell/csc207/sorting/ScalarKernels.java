@@ -0,0 +1,280 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The plain Java backend for primitive keys. The quicksort follows
+ * FargoAndrewSorter (median-of-three random pivot, dutch national flag
+ * partition, a simple sort for small subarrays) and the merge sort
+ * follows MergeSorter.
+ *
+ * @author Andrew N. Fargo
+ */
+class ScalarKernels implements PrimitiveKernels {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Subarrays this small are insertion sorted.
+   */
+  static final int THRESHOLD = 20;
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Sort an array in place using a three-way quicksort.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  @Override
+  public void quicksort(int[] values) {
+    quicksort(values, 0, values.length);
+  } // quicksort(int[])
+
+  /**
+   * Sort an array in place using a three-way quicksort.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  @Override
+  public void quicksort(long[] values) {
+    quicksort(values, 0, values.length);
+  } // quicksort(long[])
+
+  /**
+   * Sort an array using merge sort.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  @Override
+  public void mergeSort(int[] values) {
+    mergeSort(values, new int[values.length], 0, values.length);
+  } // mergeSort(int[])
+
+  /**
+   * Sort an array using merge sort.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  @Override
+  public void mergeSort(long[] values) {
+    mergeSort(values, new long[values.length], 0, values.length);
+  } // mergeSort(long[])
+
+  // +---------+-----------------------------------------------------
+  // | Kernels |
+  // +---------+
+
+  /**
+   * Sort a subarray using a three-way quicksort, recursing on the
+   * smaller side.
+   *
+   * @param values
+   *   The array.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound.
+   */
+  static void quicksort(int[] values, int lb, int ub) {
+    ThreadLocalRandom rng = ThreadLocalRandom.current();
+    while (ub - lb > THRESHOLD) {
+      int a = values[rng.nextInt(lb, ub)];
+      int b = values[rng.nextInt(lb, ub)];
+      int c = values[rng.nextInt(lb, ub)];
+      int pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+
+      int red = lb;
+      int white = lb;
+      int blue = ub;
+      while (white < blue) {
+        int value = values[white];
+        if (value < pivot) {
+          values[white++] = values[red];
+          values[red++] = value;
+        } else if (value > pivot) {
+          values[white] = values[--blue];
+          values[blue] = value;
+        } else {
+          white++;
+        } // if/else
+      } // while
+
+      if (red - lb < ub - white) {
+        quicksort(values, lb, red);
+        lb = white;
+      } else {
+        quicksort(values, white, ub);
+        ub = red;
+      } // if/else
+    } // while
+    insertionSort(values, lb, ub);
+  } // quicksort(int[], int, int)
+
+  /**
+   * Sort a subarray using a three-way quicksort, recursing on the
+   * smaller side.
+   *
+   * @param values
+   *   The array.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound.
+   */
+  static void quicksort(long[] values, int lb, int ub) {
+    ThreadLocalRandom rng = ThreadLocalRandom.current();
+    while (ub - lb > THRESHOLD) {
+      long a = values[rng.nextInt(lb, ub)];
+      long b = values[rng.nextInt(lb, ub)];
+      long c = values[rng.nextInt(lb, ub)];
+      long pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+
+      int red = lb;
+      int white = lb;
+      int blue = ub;
+      while (white < blue) {
+        long value = values[white];
+        if (value < pivot) {
+          values[white++] = values[red];
+          values[red++] = value;
+        } else if (value > pivot) {
+          values[white] = values[--blue];
+          values[blue] = value;
+        } else {
+          white++;
+        } // if/else
+      } // while
+
+      if (red - lb < ub - white) {
+        quicksort(values, lb, red);
+        lb = white;
+      } else {
+        quicksort(values, white, ub);
+        ub = red;
+      } // if/else
+    } // while
+    insertionSort(values, lb, ub);
+  } // quicksort(long[], int, int)
+
+  /**
+   * Insertion sort a subarray.
+   *
+   * @param values
+   *   The array.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound.
+   */
+  static void insertionSort(int[] values, int lb, int ub) {
+    for (int j = lb + 1; j < ub; j++) {
+      int value = values[j];
+      int i = j - 1;
+      while (i >= lb && values[i] > value) {
+        values[i + 1] = values[i];
+        i--;
+      } // while
+      values[i + 1] = value;
+    } // for
+  } // insertionSort(int[], int, int)
+
+  /**
+   * Insertion sort a subarray.
+   *
+   * @param values
+   *   The array.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound.
+   */
+  static void insertionSort(long[] values, int lb, int ub) {
+    for (int j = lb + 1; j < ub; j++) {
+      long value = values[j];
+      int i = j - 1;
+      while (i >= lb && values[i] > value) {
+        values[i + 1] = values[i];
+        i--;
+      } // while
+      values[i + 1] = value;
+    } // for
+  } // insertionSort(long[], int, int)
+
+  /**
+   * Merge sort a subarray.
+   *
+   * @param values
+   *   The array.
+   * @param helper
+   *   The auxiliary array.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound.
+   */
+  static void mergeSort(int[] values, int[] helper, int lb, int ub) {
+    if (ub - lb <= THRESHOLD) {
+      insertionSort(values, lb, ub);
+      return;
+    } // if
+    int mid = lb + (ub - lb) / 2;
+    mergeSort(values, helper, lb, mid);
+    mergeSort(values, helper, mid, ub);
+    if (values[mid - 1] <= values[mid]) {
+      return;
+    } // if
+    int i = lb;
+    int j = mid;
+    int n = lb;
+    while (i < mid && j < ub) {
+      helper[n++] = (values[i] <= values[j]) ? values[i++] : values[j++];
+    } // while
+    System.arraycopy(values, i, helper, n, mid - i);
+    n += mid - i;
+    System.arraycopy(values, j, helper, n, ub - j);
+    System.arraycopy(helper, lb, values, lb, ub - lb);
+  } // mergeSort(int[], int[], int, int)
+
+  /**
+   * Merge sort a subarray.
+   *
+   * @param values
+   *   The array.
+   * @param helper
+   *   The auxiliary array.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound.
+   */
+  static void mergeSort(long[] values, long[] helper, int lb, int ub) {
+    if (ub - lb <= THRESHOLD) {
+      insertionSort(values, lb, ub);
+      return;
+    } // if
+    int mid = lb + (ub - lb) / 2;
+    mergeSort(values, helper, lb, mid);
+    mergeSort(values, helper, mid, ub);
+    if (values[mid - 1] <= values[mid]) {
+      return;
+    } // if
+    int i = lb;
+    int j = mid;
+    int n = lb;
+    while (i < mid && j < ub) {
+      helper[n++] = (values[i] <= values[j]) ? values[i++] : values[j++];
+    } // while
+    System.arraycopy(values, i, helper, n, mid - i);
+    n += mid - i;
+    System.arraycopy(values, j, helper, n, ub - j);
+    System.arraycopy(helper, lb, values, lb, ub - lb);
+  } // mergeSort(long[], long[], int, int)
+} // class ScalarKernels
@@ -0,0 +1,302 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Collectors and stream adapters that sort with our Sorters rather
+ * than the JDK's built-in sort.
+ *
+ * The plain collectors gather every element into one array and sort it
+ * once at the end. The parallel collectors sort each chunk of a
+ * parallel stream when the stream first combines it with another, on
+ * whichever worker thread does that combining, and merge the sorted
+ * chunks as they combine further up. An accumulator cannot tell when
+ * its chunk is complete, so the sort has to wait for the combiner.
+ * The chunks are still sorted by many threads at once, so no single
+ * thread sorts everything. Either kind keeps encounter order among
+ * equal elements exactly when the sorter is stable.
+ *
+ * @author Andrew N. Fargo
+ */
+public class SortCollectors {
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Get a collector that sorts with FargoAndrewSorter.
+   *
+   * @param <T>
+   *   The type of the elements.
+   * @param order
+   *   How to order the elements.
+   * @return The collector, which produces a fixed-size list.
+   */
+  public static <T> Collector<T, ?, List<T>> sorted(Comparator<? super T> order) {
+    return sorted(new FargoAndrewSorter<T>(order));
+  } // sorted(Comparator)
+
+  /**
+   * Get a collector that gathers the elements into an array and sorts
+   * it once, at the end.
+   *
+   * @param <T>
+   *   The type of the elements.
+   * @param sorter
+   *   The sorter.
+   * @return The collector, which produces a fixed-size list.
+   */
+  public static <T> Collector<T, ?, List<T>> sorted(Sorter<T> sorter) {
+    return Collector.<T, Buffer<T>, List<T>>of(
+        Buffer::new,
+        Buffer::add,
+        Buffer::append,
+        (buffer) -> buffer.sortedList(sorter));
+  } // sorted(Sorter)
+
+  /**
+   * Get a collector for parallel streams that sorts with
+   * FargoAndrewSorter.
+   *
+   * @param <T>
+   *   The type of the elements.
+   * @param order
+   *   How to order the elements.
+   * @return The collector, which produces a fixed-size list.
+   */
+  public static <T> Collector<T, ?, List<T>> sortedParallel(Comparator<? super T> order) {
+    return sortedParallel(new FargoAndrewSorter<T>(order), order);
+  } // sortedParallel(Comparator)
+
+  /**
+   * Get a collector for parallel streams. Each chunk is sorted by the
+   * worker that first combines it, and sorted chunks are merged as
+   * they combine. On a sequential stream it behaves like
+   * sorted(sorter).
+   *
+   * @param <T>
+   *   The type of the elements.
+   * @param sorter
+   *   The sorter. It is used from several threads at once, so it must
+   *   be safe to share.
+   * @param order
+   *   The order the sorter sorts by, used for the merges.
+   * @return The collector, which produces a fixed-size list.
+   */
+  public static <T> Collector<T, ?, List<T>> sortedParallel(Sorter<T> sorter,
+      Comparator<? super T> order) {
+    KWayMerger<T> merger = new KWayMerger<T>(order);
+    return Collector.<T, Buffer<T>, List<T>>of(
+        Buffer::new,
+        Buffer::add,
+        (left, right) -> left.merge(right, sorter, merger),
+        (buffer) -> buffer.sortedList(sorter));
+  } // sortedParallel(Sorter, Comparator)
+
+  /**
+   * Sort a stream with a Sorter. Like Stream.sorted, nothing happens
+   * until a terminal operation runs. A sequential stream is collected
+   * straight into an array of the right size when its size is known;
+   * a parallel stream uses sortedParallel and stays parallel.
+   *
+   * @param <T>
+   *   The type of the elements.
+   * @param stream
+   *   The stream to sort.
+   * @param sorter
+   *   The sorter. For parallel streams it must be safe to share.
+   * @param order
+   *   The order the sorter sorts by.
+   * @return A stream of the same elements in sorted order.
+   */
+  public static <T> Stream<T> sorted(Stream<T> stream, Sorter<T> sorter,
+      Comparator<? super T> order) {
+    boolean parallel = stream.isParallel();
+    return StreamSupport.stream(() -> {
+      Object[] values;
+      if (parallel) {
+        values = stream.collect(sortedParallel(sorter, order)).toArray();
+      } else {
+        values = sortArray(stream.spliterator(), sorter);
+      } // if/else
+      return Arrays.spliterator(values);
+    }, Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED
+        | Spliterator.IMMUTABLE, parallel).map((x) -> SortCollectors.<T>cast(x));
+  } // sorted(Stream, Sorter, Comparator)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Drain a spliterator into an array, presized when the size is
+   * known, and sort it.
+   *
+   * @param <T>
+   *   The type of the elements.
+   * @param source
+   *   The elements.
+   * @param sorter
+   *   The sorter.
+   * @return The sorted elements.
+   */
+  static <T> Object[] sortArray(Spliterator<T> source, Sorter<T> sorter) {
+    long size = source.getExactSizeIfKnown();
+    Buffer<T> buffer = new Buffer<T>((size >= 0 && size < Integer.MAX_VALUE) ? (int) size : 16);
+    source.forEachRemaining(buffer::add);
+    buffer.sort(sorter);
+    return buffer.values;
+  } // sortArray(Spliterator, Sorter)
+
+  /**
+   * Recover the element type of something taken from an Object[].
+   *
+   * @param <T>
+   *   The element type.
+   * @param value
+   *   The value.
+   * @return The same value.
+   */
+  @SuppressWarnings({"unchecked"})
+  static <T> T cast(Object value) {
+    return (T) value;
+  } // cast(Object)
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * A growable array that remembers whether it has been sorted.
+   *
+   * @param <T>
+   *   The type of the elements.
+   */
+  static class Buffer<T> {
+    /**
+     * The elements, in values[0] through values[size - 1].
+     */
+    T[] values;
+
+    /**
+     * The number of elements.
+     */
+    int size;
+
+    /**
+     * Whether the elements are in sorted order.
+     */
+    boolean sorted;
+
+    /**
+     * Create an empty buffer.
+     */
+    Buffer() {
+      this(16);
+    } // Buffer()
+
+    /**
+     * Create an empty buffer with room for some elements.
+     *
+     * @param capacity
+     *   The number of elements to make room for.
+     */
+    @SuppressWarnings({"unchecked"})
+    Buffer(int capacity) {
+      this.values = (T[]) new Object[capacity];
+      this.size = 0;
+      this.sorted = true;
+    } // Buffer(int)
+
+    /**
+     * Add an element.
+     *
+     * @param value
+     *   The element.
+     */
+    void add(T value) {
+      if (this.size == this.values.length) {
+        this.values = Arrays.copyOf(this.values, Math.max(16, 2 * this.size));
+      } // if
+      this.values[this.size++] = value;
+      this.sorted = false;
+    } // add(T)
+
+    /**
+     * Append another buffer's elements to this one's.
+     *
+     * @param other
+     *   The other buffer, which comes later in encounter order.
+     * @return This buffer.
+     */
+    Buffer<T> append(Buffer<T> other) {
+      if (this.size + other.size > this.values.length) {
+        this.values = Arrays.copyOf(this.values, this.size + other.size);
+      } // if
+      System.arraycopy(other.values, 0, this.values, this.size, other.size);
+      this.size += other.size;
+      this.sorted = this.sorted && other.size == 0;
+      return this;
+    } // append(Buffer)
+
+    /**
+     * Trim the array to the elements and sort them, if that has not
+     * been done.
+     *
+     * @param sorter
+     *   The sorter.
+     */
+    void sort(Sorter<T> sorter) {
+      if (this.values.length != this.size) {
+        this.values = Arrays.copyOf(this.values, this.size);
+      } // if
+      if (!this.sorted) {
+        sorter.sort(this.values);
+        this.sorted = true;
+      } // if
+    } // sort(Sorter)
+
+    /**
+     * Sort both buffers and merge the other into this one. Ties go to
+     * this buffer, which comes first in encounter order.
+     *
+     * @param other
+     *   The other buffer.
+     * @param sorter
+     *   The sorter.
+     * @param merger
+     *   The merger.
+     * @return This buffer.
+     */
+    Buffer<T> merge(Buffer<T> other, Sorter<T> sorter, KWayMerger<T> merger) {
+      if (other.size == 0) {
+        return this;
+      } else if (this.size == 0) {
+        return other;
+      } // if/else
+      this.sort(sorter);
+      other.sort(sorter);
+      this.values = merger.mergeArrays(List.of(this.values, other.values));
+      this.size = this.values.length;
+      return this;
+    } // merge(Buffer, Sorter, KWayMerger)
+
+    /**
+     * Sort the elements and wrap them in a list.
+     *
+     * @param sorter
+     *   The sorter.
+     * @return A fixed-size list of the sorted elements.
+     */
+    List<T> sortedList(Sorter<T> sorter) {
+      this.sort(sorter);
+      return Arrays.asList(this.values);
+    } // sortedList(Sorter)
+  } // class Buffer
+} // class SortCollectors
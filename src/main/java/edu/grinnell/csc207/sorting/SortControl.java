@@ -0,0 +1,195 @@
+package edu.grinnell.csc207.sorting;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.function.LongConsumer;
+
+/**
+ * A way to stop a sort early and to watch it progress. A sorter that
+ * is given a control checks it between partitions or merges of at
+ * least GRAIN elements, so a check costs a volatile read and, with a
+ * deadline, a call to System.nanoTime, a few times per thousand
+ * elements. When the control has been cancelled or its deadline has
+ * passed, the sort throws a CancellationException and leaves the array
+ * a permutation of what it was, partly sorted.
+ *
+ * Another thread may cancel a control at any time. Each control is
+ * meant for one sort at a time.
+ *
+ * A sorter, in this package or not, supports a control by calling
+ * begin before it starts, settle as it finishes pieces of work, check
+ * before each piece of at least GRAIN elements, and finish at the end.
+ *
+ * @author Andrew N. Fargo
+ */
+public class SortControl {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Sorters check only before partitioning or merging at least this
+   * many elements.
+   */
+  public static final int GRAIN = 4096;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * Whether someone has asked us to stop.
+   */
+  volatile boolean cancelled = false;
+
+  /**
+   * The System.nanoTime at which to stop.
+   */
+  long deadline;
+
+  /**
+   * Whether there is a deadline.
+   */
+  boolean timed;
+
+  /**
+   * Who to tell about progress, or null.
+   */
+  LongConsumer progress;
+
+  /**
+   * The work done so far, in elements times passes.
+   */
+  long settled = 0;
+
+  /**
+   * The number of times the sort handles each element, so that
+   * settled / passes counts elements.
+   */
+  int passes = 1;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a control with no deadline that reports no progress.
+   */
+  public SortControl() {
+    this(null, null);
+  } // SortControl()
+
+  /**
+   * Create a control with a deadline.
+   *
+   * @param timeout
+   *   How long from now the sort may run, or null for no limit.
+   */
+  public SortControl(Duration timeout) {
+    this(timeout, null);
+  } // SortControl(Duration)
+
+  /**
+   * Create a control with a deadline and a progress callback.
+   *
+   * @param timeout
+   *   How long from now the sort may run, or null for no limit.
+   * @param callback
+   *   Told the number of elements settled at each check and once
+   *   more, with the length of the array, when the sort finishes; or
+   *   null. It runs on the sorting thread, so it should be quick.
+   */
+  public SortControl(Duration timeout, LongConsumer callback) {
+    this.timed = (timeout != null);
+    this.deadline = this.timed ? System.nanoTime() + timeout.toNanos() : 0;
+    this.progress = callback;
+  } // SortControl(Duration, LongConsumer)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Ask the sort to stop at its next check.
+   */
+  public void cancel() {
+    this.cancelled = true;
+  } // cancel()
+
+  /**
+   * Determine whether the sort should stop.
+   *
+   * @return Whether the control has been cancelled or its deadline has
+   *   passed.
+   */
+  public boolean isCancelled() {
+    return this.cancelled || this.expired();
+  } // isCancelled()
+
+  /**
+   * Determine whether the deadline has passed.
+   *
+   * @return Whether it has.
+   */
+  public boolean expired() {
+    return this.timed && System.nanoTime() - this.deadline >= 0;
+  } // expired()
+
+  // +--------------+------------------------------------------------
+  // | Sorter Hooks |
+  // +--------------+
+
+  /**
+   * Get ready for a sort.
+   *
+   * @param times
+   *   How many times the sort handles each element. Quicksorts settle
+   *   each element once; merge sorts merge each about log n times.
+   */
+  public void begin(int times) {
+    this.settled = 0;
+    this.passes = Math.max(1, times);
+  } // begin(int)
+
+  /**
+   * Count work done. This is only an addition, so sorters may call it
+   * as often as they like.
+   *
+   * @param count
+   *   The number of elements settled, or merged once.
+   */
+  public void settle(long count) {
+    this.settled += count;
+  } // settle(long)
+
+  /**
+   * Report progress and stop the sort if we should.
+   *
+   * @throws CancellationException
+   *   If the control has been cancelled or its deadline has passed.
+   */
+  public void check() {
+    if (this.cancelled) {
+      throw new CancellationException("Sort cancelled");
+    } // if
+    if (this.expired()) {
+      throw new CancellationException("Sort passed its deadline");
+    } // if
+    if (this.progress != null) {
+      this.progress.accept(this.settled / this.passes);
+    } // if
+  } // check()
+
+  /**
+   * Report that the sort has finished.
+   *
+   * @param length
+   *   The number of elements sorted.
+   */
+  public void finish(int length) {
+    this.settled = (long) length * this.passes;
+    if (this.progress != null) {
+      this.progress.accept(length);
+    } // if
+  } // finish(int)
+} // class SortControl
@@ -0,0 +1,413 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A sorted collection that absorbs batches of new values without
+ * re-sorting what it already holds. Each batch is sorted on its own
+ * with any Sorter and then merged into the existing values with a
+ * galloping merge, which skips over long stretches of old values in
+ * logarithmic time. When a few thousand values land in millions, the
+ * comparisons cost closer to the size of the batch than to the size of
+ * the buffer, and the old values are moved only once, in bulk copies.
+ *
+ * In eager mode the buffer always holds a single sorted run. In lazy
+ * mode it keeps a log-structured stack of sorted runs, each at least
+ * twice the size of the next, and merges runs only to keep that shape
+ * (or when compact() is called). Iteration and range queries merge the
+ * runs on the fly. Equal values come out in the order they were added.
+ *
+ * Not safe to share between threads.
+ *
+ * @param <T>
+ *   The types of values stored.
+ *
+ * @author Andrew N. Fargo
+ */
+public class SortedBuffer<T> implements Iterable<T> {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The way in which elements are ordered.
+   */
+  Comparator<? super T> order;
+
+  /**
+   * Sorts each new batch.
+   */
+  Sorter<T> batchSorter;
+
+  /**
+   * Whether to keep several runs rather than merging every batch.
+   */
+  boolean lazy;
+
+  /**
+   * The sorted runs, oldest (and largest) first.
+   */
+  List<T[]> runs;
+
+  /**
+   * The total number of values.
+   */
+  int size;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an eager buffer whose batches are sorted with MergeSorter.
+   *
+   * @param comparator
+   *   The order in which values are kept.
+   */
+  public SortedBuffer(Comparator<? super T> comparator) {
+    this(comparator, new MergeSorter<T>(comparator), false);
+  } // SortedBuffer(Comparator)
+
+  /**
+   * Create a buffer.
+   *
+   * @param comparator
+   *   The order in which values are kept.
+   * @param sorter
+   *   Sorts each new batch. Use a stable sorter to keep equal values
+   *   within a batch in the order given.
+   * @param logStructured
+   *   true to keep several runs and merge them lazily; false to merge
+   *   every batch straight into a single run.
+   */
+  public SortedBuffer(Comparator<? super T> comparator, Sorter<T> sorter,
+      boolean logStructured) {
+    this.order = comparator;
+    this.batchSorter = sorter;
+    this.lazy = logStructured;
+    this.runs = new ArrayList<T[]>();
+    this.size = 0;
+  } // SortedBuffer(Comparator, Sorter, boolean)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Add a batch of values. The batch itself is left alone.
+   *
+   * @param batch
+   *   The values to add, in any order.
+   */
+  public void addAll(T[] batch) {
+    if (batch.length == 0) {
+      return;
+    } // if
+    T[] run = batch.clone();
+    this.batchSorter.sort(run);
+    this.addSorted(run);
+  } // addAll(T[])
+
+  /**
+   * Add a run that is already sorted. The buffer takes ownership of
+   * the array.
+   *
+   * @param run
+   *   The values to add, sorted by the buffer's order.
+   */
+  public void addSorted(T[] run) {
+    if (run.length == 0) {
+      return;
+    } // if
+    this.runs.add(run);
+    this.size += run.length;
+    if (!this.lazy) {
+      this.compact();
+      return;
+    } // if
+    int last = this.runs.size() - 1;
+    while (last > 0 && this.runs.get(last - 1).length <= 2 * this.runs.get(last).length) {
+      this.mergeLastTwo();
+      last--;
+    } // while
+  } // addSorted(T[])
+
+  /**
+   * Merge all the runs into one.
+   */
+  public void compact() {
+    while (this.runs.size() > 1) {
+      this.mergeLastTwo();
+    } // while
+  } // compact()
+
+  /**
+   * Get the number of values in the buffer.
+   *
+   * @return The number of values.
+   */
+  public int size() {
+    return this.size;
+  } // size()
+
+  /**
+   * Get the number of sorted runs the buffer currently holds.
+   *
+   * @return The number of runs.
+   */
+  public int runCount() {
+    return this.runs.size();
+  } // runCount()
+
+  /**
+   * Iterate the values in sorted order.
+   *
+   * @return The iterator.
+   */
+  @Override
+  public Iterator<T> iterator() {
+    int[] starts = new int[this.runs.size()];
+    int[] ends = new int[this.runs.size()];
+    for (int r = 0; r < ends.length; r++) {
+      ends[r] = this.runs.get(r).length;
+    } // for
+    return new RunIterator(starts, ends);
+  } // iterator()
+
+  /**
+   * Get the values in a range, in sorted order.
+   *
+   * @param lo
+   *   The inclusive lower bound.
+   * @param hi
+   *   The exclusive upper bound.
+   * @return The values v with lo &lt;= v &lt; hi.
+   */
+  public List<T> range(T lo, T hi) {
+    int[] starts = new int[this.runs.size()];
+    int[] ends = new int[this.runs.size()];
+    int total = 0;
+    for (int r = 0; r < ends.length; r++) {
+      T[] run = this.runs.get(r);
+      starts[r] = this.lowerBound(run, 0, run.length, lo);
+      ends[r] = Math.max(starts[r], this.lowerBound(run, starts[r], run.length, hi));
+      total += ends[r] - starts[r];
+    } // for
+    List<T> result = new ArrayList<T>(total);
+    Iterator<T> values = new RunIterator(starts, ends);
+    while (values.hasNext()) {
+      result.add(values.next());
+    } // while
+    return result;
+  } // range(T, T)
+
+  /**
+   * Count the values in a range without visiting them.
+   *
+   * @param lo
+   *   The inclusive lower bound.
+   * @param hi
+   *   The exclusive upper bound.
+   * @return The number of values v with lo &lt;= v &lt; hi.
+   */
+  public int count(T lo, T hi) {
+    int total = 0;
+    for (T[] run : this.runs) {
+      int start = this.lowerBound(run, 0, run.length, lo);
+      total += Math.max(0, this.lowerBound(run, start, run.length, hi) - start);
+    } // for
+    return total;
+  } // count(T, T)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Replace the two newest runs with their merge.
+   */
+  private void mergeLastTwo() {
+    T[] newer = this.runs.remove(this.runs.size() - 1);
+    T[] older = this.runs.remove(this.runs.size() - 1);
+    this.runs.add(this.gallopingMerge(older, newer));
+  } // mergeLastTwo()
+
+  /**
+   * Merge two sorted runs. Rather than comparing element by element,
+   * each step searches for how far one run stays ahead of the other
+   * and copies that whole stretch at once. As in MergeSorter.merge,
+   * ties go to the older run.
+   *
+   * @param older
+   *   The run whose values were added first.
+   * @param newer
+   *   The other run.
+   * @return The merged run.
+   */
+  @SuppressWarnings({"unchecked"})
+  T[] gallopingMerge(T[] older, T[] newer) {
+    /* Every value is copied exactly once, a stretch at a time. */
+    T[] result = (T[]) new Object[older.length + newer.length];
+    int i = 0;
+    int j = 0;
+    int n = 0;
+    while (i < older.length && j < newer.length) {
+      /* Everything in older up to newer[j], ties included. */
+      int k = this.gallop(older, i, newer[j], true);
+      System.arraycopy(older, i, result, n, k - i);
+      n += k - i;
+      i = k;
+      if (i == older.length) {
+        break;
+      } // if
+      /* Everything in newer strictly below older[i]. */
+      k = this.gallop(newer, j, older[i], false);
+      System.arraycopy(newer, j, result, n, k - j);
+      n += k - j;
+      j = k;
+    } // while
+    System.arraycopy(older, i, result, n, older.length - i);
+    n += older.length - i;
+    System.arraycopy(newer, j, result, n, newer.length - j);
+    return result;
+  } // gallopingMerge(T[], T[])
+
+  /**
+   * Find the end of the stretch of a run, starting at a given point,
+   * that comes before a key. Probes at distances 1, 3, 7, ... and then
+   * binary searches the last gap, so short stretches cost few
+   * comparisons and long ones cost logarithmically many.
+   *
+   * @param run
+   *   The sorted run.
+   * @param start
+   *   Where to start.
+   * @param key
+   *   The key.
+   * @param inclusive
+   *   Whether values equal to the key belong to the stretch.
+   * @return The first index at or after start whose value does not
+   *   belong to the stretch.
+   */
+  private int gallop(T[] run, int start, T key, boolean inclusive) {
+    int bias = inclusive ? 1 : 0;
+    int lo = start;
+    int step = 1;
+    int hi = start;
+    while (hi < run.length && this.order.compare(run[hi], key) < bias) {
+      lo = hi + 1;
+      hi = start + step;
+      /* Never past the end, so start + step cannot overflow. */
+      step = (int) Math.min(2L * step + 1, run.length - start);
+    } // while
+    hi = Math.min(hi, run.length);
+    while (lo < hi) {
+      int mid = lo + (hi - lo) / 2;
+      if (this.order.compare(run[mid], key) < bias) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      } // if/else
+    } // while
+    return lo;
+  } // gallop(T[], int, T, boolean)
+
+  /**
+   * Find the first position in a sorted range whose value is not
+   * less than a key.
+   *
+   * @param run
+   *   The sorted run.
+   * @param lb
+   *   The inclusive lower bound of the range.
+   * @param ub
+   *   The exclusive upper bound of the range.
+   * @param key
+   *   The key.
+   * @return The position.
+   */
+  private int lowerBound(T[] run, int lb, int ub, T key) {
+    while (lb < ub) {
+      int mid = lb + (ub - lb) / 2;
+      if (this.order.compare(run[mid], key) < 0) {
+        lb = mid + 1;
+      } else {
+        ub = mid;
+      } // if/else
+    } // while
+    return lb;
+  } // lowerBound(T[], int, int, T)
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * Iterates a slice of each run in merged order. There are only
+   * logarithmically many runs, so it just scans their heads.
+   */
+  class RunIterator implements Iterator<T> {
+    /**
+     * The next position in each run.
+     */
+    int[] next;
+
+    /**
+     * Where to stop in each run.
+     */
+    int[] stop;
+
+    /**
+     * Create an iterator.
+     *
+     * @param starts
+     *   Where to start in each run.
+     * @param ends
+     *   Where to stop in each run.
+     */
+    RunIterator(int[] starts, int[] ends) {
+      this.next = starts;
+      this.stop = ends;
+    } // RunIterator(int[], int[])
+
+    /**
+     * Determine whether there are values left.
+     *
+     * @return true if there are.
+     */
+    @Override
+    public boolean hasNext() {
+      for (int r = 0; r < this.next.length; r++) {
+        if (this.next[r] < this.stop[r]) {
+          return true;
+        } // if
+      } // for
+      return false;
+    } // hasNext()
+
+    /**
+     * Get the next value. Ties go to the older run.
+     *
+     * @return The smallest value left.
+     */
+    @Override
+    public T next() {
+      int best = -1;
+      for (int r = 0; r < this.next.length; r++) {
+        if (this.next[r] < this.stop[r]
+            && (best < 0 || SortedBuffer.this.order.compare(
+                runs.get(r)[this.next[r]], runs.get(best)[this.next[best]]) < 0)) {
+          best = r;
+        } // if
+      } // for
+      if (best < 0) {
+        throw new NoSuchElementException();
+      } // if
+      return runs.get(best)[this.next[best]++];
+    } // next()
+  } // class RunIterator
+} // class SortedBuffer
@@ -0,0 +1,599 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Comparator;
+
+/**
+ * A read-only index over sorted values, laid out for fast searching.
+ *
+ * A binary search over a sorted array touches a new cache line on
+ * nearly every step once the array outgrows the cache, and the
+ * branch on each comparison is a coin flip. Here the values are kept
+ * in Eytzinger (breadth-first) order instead: the root at 1 and the
+ * children of k at 2k and 2k + 1. The first several levels share a
+ * handful of cache lines that stay hot, each step down is a multiply
+ * and an add rather than a data-dependent branch, and the index of
+ * the answer falls out of the final position.
+ *
+ * Ranks count from 0 in sorted order. The primitive versions, OfInt
+ * and OfLong, avoid boxing and a comparator call per step, keep each
+ * key next to its rank so that the answer costs no extra cache miss,
+ * and load a few levels ahead of the search so that the misses on the
+ * way down overlap. Without that look-ahead a branch-free search is
+ * no faster than a plain binary search on large arrays, whose
+ * mispredicted branches happen to prefetch for it.
+ *
+ * @param <T>
+ *   The type of values in the index.
+ *
+ * @author Andrew N. Fargo
+ */
+public class SortedIndex<T> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The look-ahead loads are folded into a value that is compared
+   * against this, so that the JIT cannot drop them.
+   */
+  static final long KEEP = 0x5EED5EED5EED5EEDL;
+
+  // +---------------+-----------------------------------------------
+  // | Static Fields |
+  // +---------------+
+
+  /**
+   * Written only if the look-ahead loads happen to fold to KEEP. It
+   * exists so the loads have a use.
+   */
+  static volatile long kept;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * How the values are ordered.
+   */
+  Comparator<? super T> order;
+
+  /**
+   * The values in sorted order.
+   */
+  T[] sorted;
+
+  /**
+   * The values in Eytzinger order, from index 1.
+   */
+  T[] tree;
+
+  /**
+   * The rank of each element of tree.
+   */
+  int[] ranks;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Index some values that are already sorted.
+   *
+   * @param values
+   *   The values, sorted by comparator. They are copied.
+   * @param comparator
+   *   How the values are ordered.
+   */
+  @SuppressWarnings({"unchecked"})
+  public SortedIndex(T[] values, Comparator<? super T> comparator) {
+    int n = values.length;
+    this.order = comparator;
+    this.sorted = values.clone();
+    this.tree = (T[]) new Object[n + 1];
+    this.ranks = new int[n + 1];
+    eytzinger(n, 0, 1, (from, to) -> {
+      this.tree[to] = this.sorted[from];
+      this.ranks[to] = from;
+    });
+  } // SortedIndex(T[], Comparator)
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Sort a copy of some values and index it.
+   *
+   * @param <T>
+   *   The type of the values.
+   * @param values
+   *   The values, which are left alone.
+   * @param sorter
+   *   How to sort them.
+   * @param order
+   *   The order the sorter uses.
+   * @return The index.
+   */
+  public static <T> SortedIndex<T> build(T[] values, Sorter<T> sorter,
+      Comparator<? super T> order) {
+    T[] copy = values.clone();
+    sorter.sort(copy);
+    return new SortedIndex<T>(copy, order);
+  } // build(T[], Sorter, Comparator)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the number of values.
+   *
+   * @return The number of values.
+   */
+  public int size() {
+    return this.sorted.length;
+  } // size()
+
+  /**
+   * Get a value by rank.
+   *
+   * @param rank
+   *   The rank.
+   * @return The value.
+   * @throws ArrayIndexOutOfBoundsException
+   *   If rank is not from 0 to size() - 1.
+   */
+  public T get(int rank) {
+    return this.sorted[rank];
+  } // get(int)
+
+  /**
+   * Find the rank of the first value not less than key, which is also
+   * the number of values less than key.
+   *
+   * @param key
+   *   The key.
+   * @return The rank, or size() if every value is less than key.
+   */
+  public int lowerBound(T key) {
+    T[] values = this.tree;
+    int n = values.length - 1;
+    int k = 1;
+    while (k <= n) {
+      k = 2 * k + ((this.order.compare(values[k], key) < 0) ? 1 : 0);
+    } // while
+    return rank(k, this.ranks);
+  } // lowerBound(T)
+
+  /**
+   * Find the rank of the first value greater than key, which is also
+   * the number of values no greater than key.
+   *
+   * @param key
+   *   The key.
+   * @return The rank, or size() if no value is greater than key.
+   */
+  public int upperBound(T key) {
+    T[] values = this.tree;
+    int n = values.length - 1;
+    int k = 1;
+    while (k <= n) {
+      k = 2 * k + ((this.order.compare(values[k], key) <= 0) ? 1 : 0);
+    } // while
+    return rank(k, this.ranks);
+  } // upperBound(T)
+
+  /**
+   * Count the values in a range.
+   *
+   * @param lo
+   *   The inclusive lower bound.
+   * @param hi
+   *   The exclusive upper bound.
+   * @return The number of values v with lo &lt;= v &lt; hi.
+   */
+  public int count(T lo, T hi) {
+    return Math.max(0, this.lowerBound(hi) - this.lowerBound(lo));
+  } // count(T, T)
+
+  /**
+   * Determine whether a value equal to key is in the index.
+   *
+   * @param key
+   *   The key.
+   * @return true if it is, false otherwise.
+   */
+  public boolean contains(T key) {
+    int rank = this.lowerBound(key);
+    return rank < this.sorted.length && this.order.compare(this.sorted[rank], key) == 0;
+  } // contains(T)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Something that copies one sorted value, and its rank, into the
+   * tree.
+   */
+  interface Placer {
+    /**
+     * Copy a value.
+     *
+     * @param from
+     *   Its rank.
+     * @param to
+     *   Its index in the tree.
+     */
+    void place(int from, int to);
+  } // interface Placer
+
+  /**
+   * Lay out the subtree rooted at k by an in-order walk, which visits
+   * the tree positions in sorted order.
+   *
+   * @param n
+   *   The number of values.
+   * @param next
+   *   The rank of the next value to place.
+   * @param k
+   *   The root of the subtree.
+   * @param placer
+   *   What copies values.
+   * @return The rank of the next value to place after this subtree.
+   */
+  static int eytzinger(int n, int next, int k, Placer placer) {
+    if (k <= n) {
+      next = eytzinger(n, next, 2 * k, placer);
+      placer.place(next++, k);
+      next = eytzinger(n, next, 2 * k + 1, placer);
+    } // if
+    return next;
+  } // eytzinger(int, int, int, Placer)
+
+  /**
+   * Turn the position where a search fell off the tree into a rank.
+   * Each step right appended a 1 bit to k; the answer is the last
+   * node where the search went left, so strip the trailing ones and
+   * the zero before them.
+   *
+   * @param k
+   *   The position, greater than n.
+   * @param ranks
+   *   The rank of each tree position.
+   * @return The rank, or n if the search only ever went right.
+   */
+  static int rank(int k, int[] ranks) {
+    k = last(k);
+    return (k == 0) ? ranks.length - 1 : ranks[k];
+  } // rank(int, int[])
+
+  /**
+   * Find the last node where a search went left.
+   *
+   * @param k
+   *   The position where the search fell off the tree.
+   * @return The node, or 0 if the search only ever went right.
+   */
+  static int last(int k) {
+    return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+  } // last(int)
+
+  /**
+   * Give the look-ahead loads of a search a use.
+   *
+   * @param ahead
+   *   The loaded values, folded together.
+   */
+  static void keep(long ahead) {
+    if (ahead == KEEP) {
+      kept = ahead;
+    } // if
+  } // keep(long)
+
+  // +-------------------+-------------------------------------------
+  // | Primitive Indices |
+  // +-------------------+
+
+  /**
+   * A SortedIndex of ints. Each node is a long with the key in the
+   * upper half and its rank in the lower, so a cache line holds eight
+   * nodes: the search loads node 8k, three levels below k, as it
+   * passes k.
+   */
+  public static class OfInt {
+    /**
+     * How many nodes ahead of the search to load.
+     */
+    static final int LOOKAHEAD = 8;
+
+    /**
+     * The values in sorted order.
+     */
+    int[] sorted;
+
+    /**
+     * The nodes in Eytzinger order, from index 1.
+     */
+    long[] tree;
+
+    /**
+     * Index some values that are already sorted.
+     *
+     * @param values
+     *   The values, in ascending order. They are copied.
+     */
+    public OfInt(int[] values) {
+      int n = values.length;
+      this.sorted = values.clone();
+      this.tree = new long[n + 1];
+      eytzinger(n, 0, 1,
+          (from, to) -> this.tree[to] = ((long) this.sorted[from] << 32) | from);
+    } // OfInt(int[])
+
+    /**
+     * Sort a copy of some values and index it.
+     *
+     * @param values
+     *   The values, which are left alone.
+     * @return The index.
+     */
+    public static OfInt build(int[] values) {
+      int[] copy = values.clone();
+      PrimitiveSorter.quicksort(copy);
+      return new OfInt(copy);
+    } // build(int[])
+
+    /**
+     * Get the number of values.
+     *
+     * @return The number of values.
+     */
+    public int size() {
+      return this.sorted.length;
+    } // size()
+
+    /**
+     * Get a value by rank.
+     *
+     * @param rank
+     *   The rank.
+     * @return The value.
+     */
+    public int get(int rank) {
+      return this.sorted[rank];
+    } // get(int)
+
+    /**
+     * Find the number of values less than key.
+     *
+     * @param key
+     *   The key.
+     * @return The rank of the first value not less than key.
+     */
+    public int lowerBound(int key) {
+      long[] nodes = this.tree;
+      int n = nodes.length - 1;
+      int far = n / LOOKAHEAD;
+      int k = 1;
+      long ahead = 0;
+      while (k <= n) {
+        ahead ^= nodes[LOOKAHEAD * Math.min(k, far)];
+        k = 2 * k + (((int) (nodes[k] >> 32) < key) ? 1 : 0);
+      } // while
+      return this.rank(k, ahead);
+    } // lowerBound(int)
+
+    /**
+     * Find the number of values no greater than key.
+     *
+     * @param key
+     *   The key.
+     * @return The rank of the first value greater than key.
+     */
+    public int upperBound(int key) {
+      long[] nodes = this.tree;
+      int n = nodes.length - 1;
+      int far = n / LOOKAHEAD;
+      int k = 1;
+      long ahead = 0;
+      while (k <= n) {
+        ahead ^= nodes[LOOKAHEAD * Math.min(k, far)];
+        k = 2 * k + (((int) (nodes[k] >> 32) <= key) ? 1 : 0);
+      } // while
+      return this.rank(k, ahead);
+    } // upperBound(int)
+
+    /**
+     * Count the values in a range.
+     *
+     * @param lo
+     *   The inclusive lower bound.
+     * @param hi
+     *   The exclusive upper bound.
+     * @return The number of values v with lo &lt;= v &lt; hi.
+     */
+    public int count(int lo, int hi) {
+      return Math.max(0, this.lowerBound(hi) - this.lowerBound(lo));
+    } // count(int, int)
+
+    /**
+     * Determine whether key is in the index.
+     *
+     * @param key
+     *   The key.
+     * @return true if it is, false otherwise.
+     */
+    public boolean contains(int key) {
+      int rank = this.lowerBound(key);
+      return rank < this.sorted.length && this.sorted[rank] == key;
+    } // contains(int)
+
+    /**
+     * Finish a search.
+     *
+     * @param k
+     *   The position where the search fell off the tree.
+     * @param ahead
+     *   The look-ahead loads, folded together.
+     * @return The rank.
+     */
+    int rank(int k, long ahead) {
+      keep(ahead);
+      k = last(k);
+      return (k == 0) ? this.sorted.length : (int) this.tree[k];
+    } // rank(int, long)
+  } // class OfInt
+
+  /**
+   * A SortedIndex of longs. Each node is a key followed by its rank,
+   * so a cache line holds four nodes: the search loads node 4k, two
+   * levels below k, as it passes k.
+   */
+  public static class OfLong {
+    /**
+     * How many nodes ahead of the search to load.
+     */
+    static final int LOOKAHEAD = 4;
+
+    /**
+     * The values in sorted order.
+     */
+    long[] sorted;
+
+    /**
+     * The nodes in Eytzinger order, from index 1: node k's key is at
+     * 2k and its rank at 2k + 1.
+     */
+    long[] tree;
+
+    /**
+     * Index some values that are already sorted.
+     *
+     * @param values
+     *   The values, in ascending order. They are copied.
+     */
+    public OfLong(long[] values) {
+      int n = values.length;
+      this.sorted = values.clone();
+      this.tree = new long[2 * (n + 1)];
+      eytzinger(n, 0, 1, (from, to) -> {
+        this.tree[2 * to] = this.sorted[from];
+        this.tree[2 * to + 1] = from;
+      });
+    } // OfLong(long[])
+
+    /**
+     * Sort a copy of some values and index it.
+     *
+     * @param values
+     *   The values, which are left alone.
+     * @return The index.
+     */
+    public static OfLong build(long[] values) {
+      long[] copy = values.clone();
+      PrimitiveSorter.quicksort(copy);
+      return new OfLong(copy);
+    } // build(long[])
+
+    /**
+     * Get the number of values.
+     *
+     * @return The number of values.
+     */
+    public int size() {
+      return this.sorted.length;
+    } // size()
+
+    /**
+     * Get a value by rank.
+     *
+     * @param rank
+     *   The rank.
+     * @return The value.
+     */
+    public long get(int rank) {
+      return this.sorted[rank];
+    } // get(int)
+
+    /**
+     * Find the number of values less than key.
+     *
+     * @param key
+     *   The key.
+     * @return The rank of the first value not less than key.
+     */
+    public int lowerBound(long key) {
+      long[] nodes = this.tree;
+      int n = this.sorted.length;
+      int far = n / LOOKAHEAD;
+      int k = 1;
+      long ahead = 0;
+      while (k <= n) {
+        ahead ^= nodes[2 * LOOKAHEAD * Math.min(k, far)];
+        k = 2 * k + ((nodes[2 * k] < key) ? 1 : 0);
+      } // while
+      return this.rank(k, ahead);
+    } // lowerBound(long)
+
+    /**
+     * Find the number of values no greater than key.
+     *
+     * @param key
+     *   The key.
+     * @return The rank of the first value greater than key.
+     */
+    public int upperBound(long key) {
+      long[] nodes = this.tree;
+      int n = this.sorted.length;
+      int far = n / LOOKAHEAD;
+      int k = 1;
+      long ahead = 0;
+      while (k <= n) {
+        ahead ^= nodes[2 * LOOKAHEAD * Math.min(k, far)];
+        k = 2 * k + ((nodes[2 * k] <= key) ? 1 : 0);
+      } // while
+      return this.rank(k, ahead);
+    } // upperBound(long)
+
+    /**
+     * Count the values in a range.
+     *
+     * @param lo
+     *   The inclusive lower bound.
+     * @param hi
+     *   The exclusive upper bound.
+     * @return The number of values v with lo &lt;= v &lt; hi.
+     */
+    public int count(long lo, long hi) {
+      return Math.max(0, this.lowerBound(hi) - this.lowerBound(lo));
+    } // count(long, long)
+
+    /**
+     * Determine whether key is in the index.
+     *
+     * @param key
+     *   The key.
+     * @return true if it is, false otherwise.
+     */
+    public boolean contains(long key) {
+      int rank = this.lowerBound(key);
+      return rank < this.sorted.length && this.sorted[rank] == key;
+    } // contains(long)
+
+    /**
+     * Finish a search.
+     *
+     * @param k
+     *   The position where the search fell off the tree.
+     * @param ahead
+     *   The look-ahead loads, folded together.
+     * @return The rank.
+     */
+    int rank(int k, long ahead) {
+      keep(ahead);
+      k = last(k);
+      return (k == 0) ? this.sorted.length : (int) this.tree[2 * k + 1];
+    } // rank(int, long)
+  } // class OfLong
+} // class SortedIndex
@@ -1,5 +1,9 @@
 package edu.grinnell.csc207.sorting;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Things that know how to sort arrays of values.
  *
@@ -23,5 +27,71 @@ public interface Sorter<T> {
    *     order.compare(values[i-1], values[i]) &lt;= 0
    */
   public void sort(T[] values);
+
+  /**
+   * Sort an array in place unless told to stop. Sorters that can stop
+   * partway override this; the rest check only before they start.
+   *
+   * @param values
+   *   an array to sort.
+   * @param control
+   *   How to stop the sort and watch its progress.
+   * @throws CancellationException
+   *   If the control was cancelled or its deadline passed before the
+   *   sort finished. The array is then a permutation of the original.
+   *
+   * @post
+   *   The array has been sorted, as by sort(values).
+   */
+  public default void sort(T[] values, SortControl control) {
+    control.begin(1);
+    control.check();
+    this.sort(values);
+    control.finish(values.length);
+  } // sort(T[], SortControl)
+
+  /**
+   * Sort an array in place on another thread. Cancelling the future
+   * also cancels the control, so the sort stops at its next check
+   * instead of running on for nobody.
+   *
+   * @param values
+   *   an array to sort. It must not be touched until the future
+   *   completes.
+   * @param control
+   *   How to stop the sort and watch its progress.
+   * @param executor
+   *   Where to sort.
+   * @return A future that completes with the sorted array, or
+   *   exceptionally with a CancellationException if the control
+   *   stopped the sort.
+   */
+  public default CompletableFuture<T[]> sortAsync(T[] values, SortControl control,
+      Executor executor) {
+    CompletableFuture<T[]> future = CompletableFuture.supplyAsync(() -> {
+      this.sort(values, control);
+      return values;
+    }, executor);
+    future.whenComplete((sorted, failure) -> {
+      if (future.isCancelled()) {
+        control.cancel();
+      } // if
+    });
+    return future;
+  } // sortAsync(T[], SortControl, Executor)
+
+  /**
+   * Sort an array in place in the common fork/join pool.
+   *
+   * @param values
+   *   an array to sort. It must not be touched until the future
+   *   completes.
+   * @param control
+   *   How to stop the sort and watch its progress.
+   * @return A future that completes with the sorted array.
+   */
+  public default CompletableFuture<T[]> sortAsync(T[] values, SortControl control) {
+    return this.sortAsync(values, control, ForkJoinPool.commonPool());
+  } // sortAsync(T[], SortControl)
 } // interface Sorter<T>
 
@@ -0,0 +1,752 @@
+package edu.grinnell.csc207.sorting;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Flow.Processor that emits the elements it receives in sorted
+ * order. Elements are gathered into runs of at most runSize elements,
+ * each sorted with a Sorter; when a run fills up it is written to a
+ * temporary file, so memory stays bounded however long the stream is.
+ * At the end, the spilled runs and the last in-memory run are merged
+ * with a KWayMerger as the subscriber asks for elements.
+ *
+ * In windowed mode the processor sorts and emits each window of
+ * elements separately: a window closes after a number of elements, or
+ * when an element arrives more than a given time after the window's
+ * first element. Windows are timed by arrivals, so a quiet stream does
+ * not close a window until it completes.
+ *
+ * Backpressure is respected in both directions. Upstream is asked for
+ * a few elements at a time, and in windowed mode not at all while a
+ * closed window is waiting for downstream demand, so a slow subscriber
+ * never causes unbounded buffering. Spilled elements must be
+ * Serializable. Equal elements keep their order when the sorter is
+ * stable. The processor accepts one subscriber.
+ *
+ * @param <T>
+ *   The types of values that are sorted.
+ *
+ * @author Andrew N. Fargo
+ */
+public class SortingProcessor<T> implements Flow.Processor<T, T> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The default number of elements kept in memory per run.
+   */
+  static final int DEFAULT_RUN_SIZE = 1 << 16;
+
+  /**
+   * The most elements requested from upstream at once.
+   */
+  static final int REQUEST_SIZE = 256;
+
+  /**
+   * How often the spill writer forgets the objects it has written.
+   */
+  static final int RESET_INTERVAL = 1024;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The way in which elements are ordered.
+   */
+  Comparator<? super T> order;
+
+  /**
+   * Sorts each run.
+   */
+  Sorter<T> runSorter;
+
+  /**
+   * Merges the runs.
+   */
+  KWayMerger<T> merger;
+
+  /**
+   * The largest number of elements kept in memory.
+   */
+  int runSize;
+
+  /**
+   * Where spilled runs go.
+   */
+  Path spillDirectory;
+
+  /**
+   * The number of elements in a window; Long.MAX_VALUE when windows
+   * are not counted.
+   */
+  long windowCount;
+
+  /**
+   * How long a window stays open; 0 when windows are not timed.
+   */
+  long windowNanos;
+
+  /**
+   * The current run. Touched only by upstream signals.
+   */
+  T[] buffer;
+
+  /**
+   * The number of elements in the current run.
+   */
+  int filled;
+
+  /**
+   * The number of elements in the current window.
+   */
+  long windowFill;
+
+  /**
+   * When the current window got its first element.
+   */
+  long windowStart;
+
+  /**
+   * The runs of the current window that have been spilled.
+   */
+  List<Path> spills;
+
+  /**
+   * The subscription to upstream.
+   */
+  volatile Flow.Subscription upstream;
+
+  /**
+   * The subscriber.
+   */
+  volatile Flow.Subscriber<? super T> downstream;
+
+  /**
+   * The sorted output of a closed window, waiting to be emitted.
+   */
+  volatile Output output;
+
+  /**
+   * Whether upstream has completed.
+   */
+  volatile boolean upstreamDone;
+
+  /**
+   * Whether downstream has cancelled.
+   */
+  volatile boolean cancelled;
+
+  /**
+   * The error to send downstream, if any.
+   */
+  volatile Throwable error;
+
+  /**
+   * Whether downstream has been sent onComplete or onError.
+   */
+  boolean finished;
+
+  /**
+   * Whether the last window has been closed, after upstream completed.
+   */
+  boolean lastWindow;
+
+  /**
+   * How many more elements downstream has asked for.
+   */
+  AtomicLong demand;
+
+  /**
+   * How many requested elements upstream has yet to send.
+   */
+  AtomicLong outstanding;
+
+  /**
+   * Serializes drain(): the number of calls that have not been handled.
+   */
+  AtomicInteger wip;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a processor that sorts the whole stream with
+   * FargoAndrewSorter, spilling to the system temporary directory.
+   *
+   * @param comparator
+   *   The order in which elements are emitted.
+   */
+  public SortingProcessor(Comparator<? super T> comparator) {
+    this(new FargoAndrewSorter<T>(comparator), comparator, DEFAULT_RUN_SIZE,
+        Paths.get(System.getProperty("java.io.tmpdir")));
+  } // SortingProcessor(Comparator)
+
+  /**
+   * Create a processor that sorts the whole stream.
+   *
+   * @param sorter
+   *   Sorts each run.
+   * @param comparator
+   *   The order the sorter sorts by.
+   * @param maxInMemory
+   *   The largest number of elements kept in memory.
+   * @param directory
+   *   Where spilled runs go.
+   */
+  public SortingProcessor(Sorter<T> sorter, Comparator<? super T> comparator,
+      int maxInMemory, Path directory) {
+    this(sorter, comparator, maxInMemory, directory, 0, Duration.ZERO);
+  } // SortingProcessor(Sorter, Comparator, int, Path)
+
+  /**
+   * Create a processor that sorts and emits each window separately.
+   *
+   * @param sorter
+   *   Sorts each run.
+   * @param comparator
+   *   The order the sorter sorts by.
+   * @param maxInMemory
+   *   The largest number of elements kept in memory.
+   * @param directory
+   *   Where spilled runs go.
+   * @param countPerWindow
+   *   The number of elements in a window, or 0 for no limit.
+   * @param timePerWindow
+   *   How long a window stays open, or Duration.ZERO for no limit.
+   */
+  @SuppressWarnings({"unchecked"})
+  public SortingProcessor(Sorter<T> sorter, Comparator<? super T> comparator,
+      int maxInMemory, Path directory, long countPerWindow, Duration timePerWindow) {
+    this.order = comparator;
+    this.runSorter = sorter;
+    this.merger = new KWayMerger<T>(comparator);
+    this.runSize = Math.max(1, maxInMemory);
+    this.spillDirectory = directory;
+    this.windowCount = (countPerWindow > 0) ? countPerWindow : Long.MAX_VALUE;
+    this.windowNanos = timePerWindow.toNanos();
+    this.buffer = (T[]) new Object[Math.min(this.runSize, REQUEST_SIZE)];
+    this.filled = 0;
+    this.windowFill = 0;
+    this.spills = Collections.synchronizedList(new ArrayList<Path>());
+    this.demand = new AtomicLong();
+    this.outstanding = new AtomicLong();
+    this.wip = new AtomicInteger();
+  } // SortingProcessor(Sorter, Comparator, int, Path, long, Duration)
+
+  // +-------------------+-------------------------------------------
+  // | Upstream Handlers |
+  // +-------------------+
+
+  /**
+   * Accept the subscription to upstream.
+   *
+   * @param subscription
+   *   The subscription.
+   */
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    if (this.upstream != null) {
+      subscription.cancel();
+      return;
+    } // if
+    this.upstream = subscription;
+    this.drain();
+  } // onSubscribe(Flow.Subscription)
+
+  /**
+   * Accept an element.
+   *
+   * @param item
+   *   The element.
+   */
+  @Override
+  public void onNext(T item) {
+    if (this.cancelled || this.error != null) {
+      return;
+    } // if
+    try {
+      long now = (this.windowNanos > 0) ? System.nanoTime() : 0;
+      if (this.windowNanos > 0 && this.windowFill > 0 && this.output == null
+          && now - this.windowStart >= this.windowNanos) {
+        this.closeWindow();
+      } // if
+      if (this.windowFill == 0) {
+        this.windowStart = now;
+      } // if
+      if (this.filled == this.buffer.length) {
+        this.buffer = Arrays.copyOf(this.buffer, Math.min(this.runSize, 2 * this.filled));
+      } // if
+      this.buffer[this.filled++] = item;
+      this.windowFill++;
+      if (this.windowFill == this.windowCount) {
+        this.closeWindow();
+      } else if (this.filled == this.runSize) {
+        this.spill();
+      } // if/else
+    } catch (UncheckedIOException e) {
+      this.fail(e.getCause());
+    } catch (RuntimeException e) {
+      /* A comparator that throws, say; cancel upstream and report it. */
+      this.fail(e);
+    } finally {
+      /* Only now may drain() ask for more. */
+      this.outstanding.decrementAndGet();
+    } // try/catch/finally
+    this.drain();
+  } // onNext(T)
+
+  /**
+   * Accept an error from upstream.
+   *
+   * @param throwable
+   *   The error.
+   */
+  @Override
+  public void onError(Throwable throwable) {
+    this.upstreamDone = true;
+    if (this.error == null) {
+      this.error = throwable;
+    } // if
+    this.drain();
+  } // onError(Throwable)
+
+  /**
+   * Note that upstream is done. The last window is closed by drain(),
+   * once any earlier window has been emitted.
+   */
+  @Override
+  public void onComplete() {
+    this.upstreamDone = true;
+    this.drain();
+  } // onComplete()
+
+  // +-----------+---------------------------------------------------
+  // | Publisher |
+  // +-----------+
+
+  /**
+   * Add the subscriber. Only one is allowed.
+   *
+   * @param subscriber
+   *   The subscriber.
+   */
+  @Override
+  public void subscribe(Flow.Subscriber<? super T> subscriber) {
+    synchronized (this) {
+      if (this.downstream != null) {
+        subscriber.onSubscribe(new Flow.Subscription() {
+          @Override
+          public void request(long n) {
+          } // request(long)
+
+          @Override
+          public void cancel() {
+          } // cancel()
+        });
+        subscriber.onError(new IllegalStateException("Only one subscriber is allowed"));
+        return;
+      } // if
+      this.downstream = subscriber;
+    } // synchronized
+    subscriber.onSubscribe(new Flow.Subscription() {
+      @Override
+      public void request(long n) {
+        SortingProcessor.this.request(n);
+      } // request(long)
+
+      @Override
+      public void cancel() {
+        SortingProcessor.this.cancel();
+      } // cancel()
+    });
+    this.drain();
+  } // subscribe(Flow.Subscriber)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Note demand from downstream.
+   *
+   * @param n
+   *   The number of elements asked for.
+   */
+  void request(long n) {
+    if (n <= 0) {
+      this.fail(new IllegalArgumentException("Requested " + n + " elements"));
+      return;
+    } // if
+    this.demand.getAndUpdate((d) -> (d + n < 0) ? Long.MAX_VALUE : d + n);
+    this.drain();
+  } // request(long)
+
+  /**
+   * Stop: downstream wants nothing more.
+   */
+  void cancel() {
+    this.cancelled = true;
+    Flow.Subscription subscription = this.upstream;
+    if (subscription != null) {
+      subscription.cancel();
+    } // if
+    this.drain();
+  } // cancel()
+
+  /**
+   * Give up with an error, which drain() sends downstream.
+   *
+   * @param cause
+   *   The error.
+   */
+  void fail(Throwable cause) {
+    if (this.error == null) {
+      this.error = cause;
+    } // if
+    Flow.Subscription subscription = this.upstream;
+    if (subscription != null && !this.upstreamDone) {
+      subscription.cancel();
+    } // if
+    this.drain();
+  } // fail(Throwable)
+
+  /**
+   * Sort the current run and write it to a temporary file.
+   */
+  void spill() {
+    T[] run = Arrays.copyOf(this.buffer, this.filled);
+    this.filled = 0;
+    this.runSorter.sort(run);
+    try {
+      Path file = Files.createTempFile(this.spillDirectory, "sort-run-", ".bin");
+      this.spills.add(file);
+      try (ObjectOutputStream out = new ObjectOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(file)))) {
+        out.writeInt(run.length);
+        for (int i = 0; i < run.length; i++) {
+          out.writeObject(run[i]);
+          if (i % RESET_INTERVAL == RESET_INTERVAL - 1) {
+            out.reset();
+          } // if
+        } // for
+      } // try
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } // try/catch
+  } // spill()
+
+  /**
+   * Sort the current run and set up the merge of the window's runs as
+   * the next output.
+   */
+  void closeWindow() {
+    T[] run = Arrays.copyOf(this.buffer, this.filled);
+    this.filled = 0;
+    this.windowFill = 0;
+    this.runSorter.sort(run);
+    List<Path> files = new ArrayList<Path>(this.spills);
+    this.spills.clear();
+    List<RunReader> readers = new ArrayList<RunReader>();
+    Output next = new Output(readers, files);
+    try {
+      for (Path file : files) {
+        readers.add(new RunReader(file));
+      } // for
+    } catch (UncheckedIOException e) {
+      next.close();
+      throw e;
+    } // try/catch
+    List<Iterator<T>> sources = new ArrayList<Iterator<T>>(readers);
+    sources.add(Arrays.asList(run).iterator());
+    next.values = this.merger.mergeIterators(sources);
+    this.output = next;
+  } // closeWindow()
+
+  /**
+   * Emit what downstream has asked for, finish when everything has
+   * been emitted, and ask upstream for more when there is room. Only
+   * one thread runs the loop at a time; calls made while it runs make
+   * it go around again.
+   */
+  void drain() {
+    if (this.wip.getAndIncrement() != 0) {
+      return;
+    } // if
+    int missed = 1;
+    do {
+      Flow.Subscriber<? super T> subscriber = this.downstream;
+      if (this.finished) {
+        this.cleanup();
+      } else if (this.cancelled) {
+        this.finished = true;
+        this.cleanup();
+      } else if (subscriber != null) {
+        this.emit(subscriber);
+      } // if/else
+      missed = this.wip.addAndGet(-missed);
+    } while (missed != 0);
+  } // drain()
+
+  /**
+   * One pass of the drain loop.
+   *
+   * @param subscriber
+   *   The subscriber.
+   */
+  void emit(Flow.Subscriber<? super T> subscriber) {
+    long requested = this.demand.get();
+    long emitted = 0;
+    try {
+      while (true) {
+        if (this.error != null) {
+          this.finished = true;
+          this.cleanup();
+          subscriber.onError(this.error);
+          return;
+        } // if
+        Output out = this.output;
+        if (out == null) {
+          if (!this.upstreamDone) {
+            break;
+          } else if (this.lastWindow) {
+            this.finished = true;
+            subscriber.onComplete();
+            return;
+          } // if/else
+          this.lastWindow = true;
+          this.closeWindow();
+          continue;
+        } // if
+        while (emitted < requested && out.hasNext()) {
+          subscriber.onNext(out.next());
+          emitted++;
+        } // while
+        if (out.hasNext()) {
+          break;
+        } // if
+        out.close();
+        this.output = null;
+      } // while
+    } catch (UncheckedIOException e) {
+      this.fail(e.getCause());
+      return;
+    } catch (RuntimeException e) {
+      /*
+       * A comparator failing in the last sort or in the merge, or the
+       * subscriber throwing. fail() only records it here, since we
+       * hold wip; the drain loop then delivers it.
+       */
+      this.fail(e);
+      return;
+    } // try/catch
+    if (emitted > 0 && requested != Long.MAX_VALUE) {
+      this.demand.addAndGet(-emitted);
+    } // if
+    Flow.Subscription subscription = this.upstream;
+    if (subscription != null && this.output == null && !this.upstreamDone
+        && this.outstanding.get() == 0) {
+      long chunk = Math.min(REQUEST_SIZE, this.windowCount - this.windowFill);
+      this.outstanding.set(chunk);
+      subscription.request(chunk);
+    } // if
+  } // emit(Flow.Subscriber)
+
+  /**
+   * Delete any spilled runs.
+   */
+  void cleanup() {
+    Output out = this.output;
+    if (out != null) {
+      this.output = null;
+      out.close();
+    } // if
+    synchronized (this.spills) {
+      for (Path file : this.spills) {
+        delete(file);
+      } // for
+      this.spills.clear();
+    } // synchronized
+  } // cleanup()
+
+  /**
+   * Delete a file, ignoring failures.
+   *
+   * @param file
+   *   The file.
+   */
+  static void delete(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      /* Nothing more we can do; it is a temporary file. */
+    } // try/catch
+  } // delete(Path)
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * The merged output of one window, which owns the window's spill
+   * files.
+   */
+  class Output implements Iterator<T> {
+    /**
+     * The merged values.
+     */
+    Iterator<T> values;
+
+    /**
+     * The readers of the spilled runs.
+     */
+    List<RunReader> readers;
+
+    /**
+     * The spilled runs.
+     */
+    List<Path> files;
+
+    /**
+     * Create an output.
+     *
+     * @param runReaders
+     *   The readers of the spilled runs.
+     * @param runFiles
+     *   The spilled runs.
+     */
+    Output(List<RunReader> runReaders, List<Path> runFiles) {
+      this.values = Collections.emptyIterator();
+      this.readers = runReaders;
+      this.files = runFiles;
+    } // Output(List, List)
+
+    /**
+     * Determine whether any values are left.
+     *
+     * @return true if there are.
+     */
+    @Override
+    public boolean hasNext() {
+      return this.values.hasNext();
+    } // hasNext()
+
+    /**
+     * Get the next value.
+     *
+     * @return The value.
+     */
+    @Override
+    public T next() {
+      return this.values.next();
+    } // next()
+
+    /**
+     * Close the readers and delete the files.
+     */
+    void close() {
+      for (RunReader reader : this.readers) {
+        reader.close();
+      } // for
+      for (Path file : this.files) {
+        delete(file);
+      } // for
+    } // close()
+  } // class Output
+
+  /**
+   * Reads a spilled run back.
+   */
+  class RunReader implements Iterator<T> {
+    /**
+     * The stream.
+     */
+    ObjectInputStream in;
+
+    /**
+     * The number of values left.
+     */
+    int remaining;
+
+    /**
+     * Open a run.
+     *
+     * @param file
+     *   The file holding the run.
+     */
+    RunReader(Path file) {
+      try {
+        this.in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        this.remaining = this.in.readInt();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } // try/catch
+    } // RunReader(Path)
+
+    /**
+     * Determine whether any values are left.
+     *
+     * @return true if there are.
+     */
+    @Override
+    public boolean hasNext() {
+      return this.remaining > 0;
+    } // hasNext()
+
+    /**
+     * Read the next value.
+     *
+     * @return The value.
+     */
+    @Override
+    @SuppressWarnings({"unchecked"})
+    public T next() {
+      if (this.remaining == 0) {
+        throw new NoSuchElementException();
+      } // if
+      try {
+        T value = (T) this.in.readObject();
+        if (--this.remaining == 0) {
+          this.close();
+        } // if
+        return value;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } catch (ClassNotFoundException e) {
+        throw new UncheckedIOException(new IOException(e));
+      } // try/catch
+    } // next()
+
+    /**
+     * Close the stream.
+     */
+    void close() {
+      try {
+        this.in.close();
+      } catch (IOException e) {
+        /* Only read from, so nothing is lost. */
+      } // try/catch
+    } // close()
+  } // class RunReader
+} // class SortingProcessor
@@ -0,0 +1,144 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The template from which SpecializedSorter makes one class per
+ * comparator class. It is FargoAndrewSorter with the random median of
+ * three written inline: every call to order.compare is in this class,
+ * so once the bytes are defined again as a hidden class, each copy
+ * profiles (and inlines) only the comparator it was made for.
+ *
+ * Nothing here may call out to shared code that compares, or the
+ * point is lost.
+ *
+ * @param <T>
+ *   The types of values that are sorted.
+ *
+ * @author Andrew N. Fargo
+ */
+final class SpecializedKernel<T> implements Sorter<T> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Subarrays this small are selection sorted, as in
+   * FargoAndrewSorter.
+   */
+  static final int THRESHOLD = 20;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * How to compare elements.
+   */
+  final Comparator<? super T> order;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a kernel.
+   *
+   * @param comparator
+   *   How to compare elements.
+   */
+  SpecializedKernel(Comparator<? super T> comparator) {
+    this.order = comparator;
+  } // SpecializedKernel(Comparator)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Sort an array.
+   *
+   * @param values
+   *   an array to sort.
+   */
+  @Override
+  public void sort(T[] values) {
+    this.fsort(values, 0, values.length);
+  } // sort(T[])
+
+  /**
+   * Sort a subarray.
+   *
+   * @param values
+   *   The array.
+   * @param l
+   *   The inclusive lower bound.
+   * @param r
+   *   The exclusive upper bound.
+   */
+  void fsort(T[] values, int l, int r) {
+    while (r - l > THRESHOLD) {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      T a = values[random.nextInt(l, r)];
+      T b = values[random.nextInt(l, r)];
+      T c = values[random.nextInt(l, r)];
+      T pivot = (this.order.compare(a, b) < 0)
+          ? ((this.order.compare(b, c) < 0) ? b : (this.order.compare(a, c) < 0) ? c : a)
+          : ((this.order.compare(a, c) < 0) ? a : (this.order.compare(b, c) < 0) ? c : b);
+
+      // Dutch national flag partition.
+      int red = l;
+      int white = l;
+      int blue = r;
+      while (white < blue) {
+        int cmp = this.order.compare(values[white], pivot);
+        if (cmp < 0) {
+          swap(values, white++, red++);
+        } else if (cmp > 0) {
+          swap(values, white, --blue);
+        } else {
+          white++;
+        } // if/else
+      } // while
+
+      // Recurse on the smaller side and loop on the larger.
+      if (red - l < r - white) {
+        this.fsort(values, l, red);
+        l = white;
+      } else {
+        this.fsort(values, white, r);
+        r = red;
+      } // if/else
+    } // while
+
+    // Selection sort what is left.
+    for (int j = r - 1; j > l; j--) {
+      int max = l;
+      for (int i = l + 1; i <= j; i++) {
+        if (this.order.compare(values[max], values[i]) <= 0) {
+          max = i;
+        } // if
+      } // for i
+      swap(values, max, j);
+    } // for j
+  } // fsort(T[], int, int)
+
+  /**
+   * Swap two elements.
+   *
+   * @param <T>
+   *   The type of the elements.
+   * @param values
+   *   The array.
+   * @param i
+   *   One position.
+   * @param j
+   *   The other position.
+   */
+  static <T> void swap(T[] values, int i, int j) {
+    T temp = values[i];
+    values[i] = values[j];
+    values[j] = temp;
+  } // swap(T[], int, int)
+} // class SpecializedKernel
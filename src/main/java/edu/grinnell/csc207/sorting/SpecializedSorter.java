@@ -0,0 +1,163 @@
+package edu.grinnell.csc207.sorting;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Comparator;
+
+/**
+ * Something that sorts using FargoAndrewSort, compiled separately for
+ * each class of comparator.
+ *
+ * A sorter calls order.compare from one place in its bytecode, so
+ * when a program sorts with many kinds of comparator that call site
+ * sees them all, goes megamorphic, and the JIT stops inlining the
+ * comparison. Here the bytes of SpecializedKernel are defined again as
+ * a hidden class for each comparator class, so each comparator gets a
+ * kernel whose call sites see it alone. The kernels are cached against
+ * the comparator class with a ClassValue and can be unloaded along
+ * with it.
+ *
+ * Lambdas of the same expression share a class, so comparators from
+ * one factory (Comparator.comparing, say) share a kernel; what they
+ * call inside is up to the JDK.
+ *
+ * @param <T>
+ *   The types of values that are sorted.
+ *
+ * @author Andrew N. Fargo
+ */
+public class SpecializedSorter<T> implements Sorter<T> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The bytes of the template kernel, or null if they cannot be read.
+   */
+  static final byte[] TEMPLATE = template();
+
+  /**
+   * The constructor of each comparator class's kernel, as a handle of
+   * type (Comparator)Sorter, or null if the kernel could not be made.
+   */
+  static final ClassValue<MethodHandle> KERNELS = new ClassValue<MethodHandle>() {
+    @Override
+    protected MethodHandle computeValue(Class<?> type) {
+      return specialize();
+    } // computeValue(Class)
+  }; // KERNELS
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The kernel that does the sorting.
+   */
+  Sorter<T> kernel;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a sorter using a particular comparator.
+   *
+   * @param comparator
+   *   The order in which elements in the array should be ordered
+   *   after sorting.
+   */
+  public SpecializedSorter(Comparator<? super T> comparator) {
+    this.kernel = kernel(comparator);
+  } // SpecializedSorter(Comparator)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Sort an array in place.
+   *
+   * @param values
+   *   an array to sort.
+   *
+   * @post
+   *   The array has been sorted according to some order (often
+   *   one given to the constructor).
+   * @post
+   *   For all i, 0 &lt; i &lt; values.length,
+   *     order.compare(values[i-1], values[i]) &lt;= 0
+   */
+  @Override
+  public void sort(T[] values) {
+    this.kernel.sort(values);
+  } // sort(T[])
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Get a kernel specialized to the class of a comparator. If hidden
+   * classes are unavailable, this is a plain SpecializedKernel, which
+   * sorts the same way but shares its call sites.
+   *
+   * @param <T>
+   *   The type of values to sort.
+   * @param order
+   *   The comparator.
+   * @return A sorter for that comparator.
+   */
+  @SuppressWarnings({"unchecked"})
+  public static <T> Sorter<T> kernel(Comparator<? super T> order) {
+    MethodHandle constructor = KERNELS.get(order.getClass());
+    if (constructor != null) {
+      try {
+        return (Sorter<T>) constructor.invokeExact((Comparator) order);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new IllegalStateException("Cannot create kernel", e);
+      } // try/catch
+    } // if
+    return new SpecializedKernel<T>(order);
+  } // kernel(Comparator)
+
+  /**
+   * Define a fresh copy of the template as a hidden class.
+   *
+   * @return Its constructor, of type (Comparator)Sorter, or null if it
+   *   cannot be defined.
+   */
+  static MethodHandle specialize() {
+    if (TEMPLATE == null) {
+      return null;
+    } // if
+    try {
+      MethodHandles.Lookup hidden =
+          MethodHandles.lookup().defineHiddenClass(TEMPLATE, true);
+      return hidden.findConstructor(hidden.lookupClass(),
+              MethodType.methodType(void.class, Comparator.class))
+          .asType(MethodType.methodType(Sorter.class, Comparator.class));
+    } catch (ReflectiveOperationException | LinkageError | SecurityException e) {
+      return null;
+    } // try/catch
+  } // specialize()
+
+  /**
+   * Read the bytes of the template kernel.
+   *
+   * @return The bytes, or null if they cannot be read.
+   */
+  static byte[] template() {
+    try (InputStream in =
+        SpecializedSorter.class.getResourceAsStream("SpecializedKernel.class")) {
+      return (in == null) ? null : in.readAllBytes();
+    } catch (IOException e) {
+      return null;
+    } // try/catch
+  } // template()
+} // class SpecializedSorter
@@ -0,0 +1,512 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Something that sorts strings in their natural order without chasing
+ * pointers. Sorting a String[] the usual way follows a reference to
+ * each String and another to its characters on every comparison, so
+ * large sorts spend their time in cache misses. Instead we copy the
+ * characters into one contiguous arena, keep each string's first
+ * characters as a big-endian long key, and sort parallel arrays of
+ * keys and string numbers by key, as unsigned longs. Only strings
+ * whose keys tie go back to the arena, for keys of their next
+ * characters, so long shared prefixes cost one pass per key rather
+ * than a character-by-character comparison each time two meet.
+ *
+ * When every character is Latin-1 the arena holds bytes and a key
+ * holds eight characters; otherwise it holds chars and a key holds
+ * four. Either way, key order agrees with String.compareTo.
+ *
+ * Only the natural order can use the arena, so for other comparators
+ * this sorter simply uses a FargoAndrewSorter.
+ *
+ * @author Andrew N. Fargo
+ */
+public class StringArenaSorter implements Sorter<String> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Ranges this short are insertion sorted.
+   */
+  static final int THRESHOLD = 16;
+
+  /**
+   * The most characters an arena may hold.
+   */
+  static final long MAX_ARENA = Integer.MAX_VALUE - 8;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * How to sort when the order is not the natural one, or null.
+   */
+  Sorter<String> fallback;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a sorter for the natural order of strings.
+   */
+  public StringArenaSorter() {
+    this(Comparator.naturalOrder());
+  } // StringArenaSorter()
+
+  /**
+   * Create a sorter using a particular comparator. Only null and
+   * Comparator.naturalOrder() are recognized as the natural order;
+   * any other comparator is sorted without the arena.
+   *
+   * @param comparator
+   *   The order in which elements in the array should be ordered
+   *   after sorting.
+   */
+  public StringArenaSorter(Comparator<? super String> comparator) {
+    if (comparator == null || comparator == Comparator.naturalOrder()) {
+      this.fallback = null;
+    } else {
+      this.fallback = new FargoAndrewSorter<String>(comparator);
+    } // if/else
+  } // StringArenaSorter(Comparator)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Sort an array of strings. The array ends up holding the same
+   * String objects, reordered; no strings are made.
+   *
+   * @param values
+   *   an array to sort.
+   *
+   * @post
+   *   The array has been sorted according to some order (often
+   *   one given to the constructor).
+   * @post
+   *   For all i, 0 &lt; i &lt; values.length,
+   *     order.compare(values[i-1], values[i]) &lt;= 0
+   */
+  @Override
+  public void sort(String[] values) {
+    if (this.fallback != null) {
+      this.fallback.sort(values);
+      return;
+    } // if
+    if (values.length < 2) {
+      return;
+    } // if
+    Arena arena = Arena.of(values);
+    if (arena == null) {
+      new FargoAndrewSorter<String>(Comparator.naturalOrder()).sort(values);
+      return;
+    } // if
+    arena.sort();
+    String[] original = values.clone();
+    for (int rank = 0; rank < values.length; rank++) {
+      values[rank] = original[arena.index[rank]];
+    } // for
+  } // sort(String[])
+
+  /**
+   * Sort strings into an arena, for callers that can work with the
+   * sorted characters without making a String for each.
+   *
+   * @param values
+   *   The strings, which are left alone.
+   * @return The sorted arena.
+   * @throws IllegalArgumentException
+   *   If the strings have more characters than an array can hold.
+   */
+  public static Arena arena(String[] values) {
+    Arena arena = Arena.of(values);
+    if (arena == null) {
+      throw new IllegalArgumentException("Too many characters for one arena");
+    } // if
+    arena.sort();
+    return arena;
+  } // arena(String[])
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * Strings packed end to end, with their keys and, once sorted, the
+   * order they go in.
+   */
+  public static class Arena {
+    /**
+     * The characters when all are Latin-1, or null.
+     */
+    byte[] latin1;
+
+    /**
+     * The characters when some are not Latin-1, or null.
+     */
+    char[] utf16;
+
+    /**
+     * Where each string starts, by original position, followed by
+     * the end of the last.
+     */
+    int[] offsets;
+
+    /**
+     * The number of characters in a key: 8 for Latin-1, 4 otherwise.
+     */
+    int width;
+
+    /**
+     * The key of each string, in the same order as index.
+     */
+    long[] keys;
+
+    /**
+     * The original position of each string; in sorted order once
+     * sorted.
+     */
+    int[] index;
+
+    /**
+     * Pack strings into an arena.
+     *
+     * @param values
+     *   The strings.
+     * @return The unsorted arena, or null if the strings have too many
+     *   characters.
+     */
+    static Arena of(String[] values) {
+      int n = values.length;
+      long total = 0;
+      boolean narrow = true;
+      for (String value : values) {
+        total += value.length();
+        for (int i = 0; narrow && i < value.length(); i++) {
+          narrow = value.charAt(i) < 256;
+        } // for
+      } // for
+      if (total > MAX_ARENA) {
+        return null;
+      } // if
+
+      Arena arena = new Arena();
+      arena.offsets = new int[n + 1];
+      arena.keys = new long[n];
+      arena.index = new int[n];
+      arena.width = narrow ? 8 : 4;
+      if (narrow) {
+        arena.latin1 = new byte[(int) total];
+      } else {
+        arena.utf16 = new char[(int) total];
+      } // if/else
+      int offset = 0;
+      for (int s = 0; s < n; s++) {
+        String value = values[s];
+        int length = value.length();
+        arena.offsets[s] = offset;
+        if (narrow) {
+          for (int i = 0; i < length; i++) {
+            arena.latin1[offset + i] = (byte) value.charAt(i);
+          } // for
+        } else {
+          value.getChars(0, length, arena.utf16, offset);
+        } // if/else
+        offset += length;
+        arena.index[s] = s;
+      } // for
+      arena.offsets[n] = offset;
+      for (int s = 0; s < n; s++) {
+        arena.keys[s] = arena.key(s, 0);
+      } // for
+      return arena;
+    } // of(String[])
+
+    /**
+     * Get the number of strings.
+     *
+     * @return The number.
+     */
+    public int size() {
+      return this.index.length;
+    } // size()
+
+    /**
+     * Get the length of a string.
+     *
+     * @param rank
+     *   Its place in sorted order.
+     * @return The number of characters.
+     */
+    public int length(int rank) {
+      int s = this.index[rank];
+      return this.offsets[s + 1] - this.offsets[s];
+    } // length(int)
+
+    /**
+     * Get a character of a string.
+     *
+     * @param rank
+     *   The string's place in sorted order.
+     * @param i
+     *   The character's place in the string.
+     * @return The character.
+     */
+    public char charAt(int rank, int i) {
+      int at = this.offsets[this.index[rank]] + i;
+      return (this.latin1 != null) ? (char) (this.latin1[at] & 0xff) : this.utf16[at];
+    } // charAt(int, int)
+
+    /**
+     * Get where a string was in the array the arena was made from.
+     *
+     * @param rank
+     *   Its place in sorted order.
+     * @return Its original position.
+     */
+    public int source(int rank) {
+      return this.index[rank];
+    } // source(int)
+
+    /**
+     * Make a String from the arena.
+     *
+     * @param rank
+     *   Its place in sorted order.
+     * @return The string.
+     */
+    public String get(int rank) {
+      int s = this.index[rank];
+      int start = this.offsets[s];
+      int length = this.offsets[s + 1] - start;
+      if (this.latin1 != null) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+          chars[i] = (char) (this.latin1[start + i] & 0xff);
+        } // for
+        return new String(chars);
+      } // if
+      return new String(this.utf16, start, length);
+    } // get(int)
+
+    /**
+     * Make every string, in sorted order.
+     *
+     * @return The strings.
+     */
+    public String[] toArray() {
+      String[] result = new String[this.size()];
+      for (int rank = 0; rank < result.length; rank++) {
+        result[rank] = this.get(rank);
+      } // for
+      return result;
+    } // toArray()
+
+    // +---------+---------------------------------------------------
+    // | Helpers |
+    // +---------+
+
+    /**
+     * Compute a key of a string: width characters from depth on, big
+     * endian, padded with zeros.
+     *
+     * @param s
+     *   The string's original position.
+     * @param depth
+     *   The first character of the key.
+     * @return The key.
+     */
+    long key(int s, int depth) {
+      int start = this.offsets[s] + depth;
+      int length = Math.min(this.width, this.offsets[s + 1] - start);
+      int bits = 64 / this.width;
+      long key = 0;
+      for (int i = 0; i < length; i++) {
+        long c = (this.latin1 != null) ? (this.latin1[start + i] & 0xff) : this.utf16[start + i];
+        key |= c << (64 - bits * (i + 1));
+      } // for
+      return key;
+    } // key(int, int)
+
+    /**
+     * Sort the strings. Sorting by key settles every string whose key
+     * differs from its neighbours'. A band of equal keys at some depth
+     * shares its first depth + width characters, give or take zero
+     * padding, so the strings in it that end there are prefixes of
+     * the rest, and are ordered by length; the rest get the keys of
+     * their next width characters and are sorted the same way. The
+     * arena is only read when computing keys, a run at a time.
+     */
+    void sort() {
+      int[] work = new int[48];
+      int top = 0;
+      work[top++] = 0;
+      work[top++] = this.index.length;
+      work[top++] = 0;
+      while (top > 0) {
+        int depth = work[--top];
+        int ub = work[--top];
+        int lb = work[--top];
+        this.quicksort(lb, ub);
+        int i = lb;
+        while (i < ub) {
+          int j = i + 1;
+          while (j < ub && this.keys[j] == this.keys[i]) {
+            j++;
+          } // while
+          int ended = (j - i > 1) ? this.splitBand(i, j, depth + this.width) : j;
+          if (j - ended > 1) {
+            if (top + 3 > work.length) {
+              work = Arrays.copyOf(work, 2 * work.length);
+            } // if
+            work[top++] = ended;
+            work[top++] = j;
+            work[top++] = depth + this.width;
+          } // if
+          i = j;
+        } // while
+      } // while
+    } // sort()
+
+    /**
+     * Handle a band of equal keys: move the strings that end within
+     * the key to the front and sort them by length, and give the rest
+     * the keys of their next characters.
+     *
+     * @param lb
+     *   The start of the band.
+     * @param ub
+     *   The end of the band.
+     * @param next
+     *   The depth of the next keys.
+     * @return Where the strings that go on start.
+     */
+    int splitBand(int lb, int ub, int next) {
+      int ended = lb;
+      for (int k = lb; k < ub; k++) {
+        if (this.offsets[this.index[k] + 1] - this.offsets[this.index[k]] <= next) {
+          this.swap(k, ended++);
+        } // if
+      } // for
+      for (int k = lb; k < ended; k++) {
+        this.keys[k] = this.offsets[this.index[k] + 1] - this.offsets[this.index[k]];
+      } // for
+      this.quicksort(lb, ended);
+      if (ub - ended > 1) {
+        for (int k = ended; k < ub; k++) {
+          this.keys[k] = this.key(this.index[k], next);
+        } // for
+      } // if
+      return ended;
+    } // splitBand(int, int, int)
+
+    /**
+     * Sort a range of keys and index by key, as unsigned longs, with a
+     * three-way Quicksort, so that a band of equal keys is settled in
+     * one partition.
+     *
+     * @param lb
+     *   The inclusive lower bound.
+     * @param ub
+     *   The exclusive upper bound.
+     */
+    void quicksort(int lb, int ub) {
+      while (ub - lb > THRESHOLD) {
+        ThreadLocalRandom rng = ThreadLocalRandom.current();
+        long pivot = this.median(this.keys[rng.nextInt(lb, ub)], this.keys[rng.nextInt(lb, ub)],
+            this.keys[rng.nextInt(lb, ub)]);
+        int red = lb;
+        int white = lb;
+        int blue = ub;
+        while (white < blue) {
+          int cmp = Long.compareUnsigned(this.keys[white], pivot);
+          if (cmp < 0) {
+            this.swap(white++, red++);
+          } else if (cmp > 0) {
+            this.swap(white, --blue);
+          } else {
+            white++;
+          } // if/else
+        } // while
+        // Recurse into the smaller side and loop on the larger.
+        if (red - lb < ub - white) {
+          this.quicksort(lb, red);
+          lb = white;
+        } else {
+          this.quicksort(white, ub);
+          ub = red;
+        } // if/else
+      } // while
+      this.insertionSort(lb, ub);
+    } // quicksort(int, int)
+
+    /**
+     * Find the median of three keys.
+     *
+     * @param a
+     *   One key.
+     * @param b
+     *   Another.
+     * @param c
+     *   A third.
+     * @return The middle one, as unsigned longs.
+     */
+    static long median(long a, long b, long c) {
+      boolean ab = Long.compareUnsigned(a, b) < 0;
+      boolean bc = Long.compareUnsigned(b, c) < 0;
+      boolean ac = Long.compareUnsigned(a, c) < 0;
+      if (ab == bc) {
+        return b;
+      } // if
+      return (ab == ac) ? c : a;
+    } // median(long, long, long)
+
+    /**
+     * Insertion sort a short range of keys and index by key.
+     *
+     * @param lb
+     *   The inclusive lower bound.
+     * @param ub
+     *   The exclusive upper bound.
+     */
+    void insertionSort(int lb, int ub) {
+      for (int i = lb + 1; i < ub; i++) {
+        long key = this.keys[i];
+        int s = this.index[i];
+        int j = i - 1;
+        while (j >= lb && Long.compareUnsigned(key, this.keys[j]) < 0) {
+          this.keys[j + 1] = this.keys[j];
+          this.index[j + 1] = this.index[j];
+          j--;
+        } // while
+        this.keys[j + 1] = key;
+        this.index[j + 1] = s;
+      } // for
+    } // insertionSort(int, int)
+
+    /**
+     * Swap two places in keys and index.
+     *
+     * @param i
+     *   One place.
+     * @param j
+     *   The other.
+     */
+    void swap(int i, int j) {
+      long key = this.keys[i];
+      this.keys[i] = this.keys[j];
+      this.keys[j] = key;
+      int s = this.index[i];
+      this.index[i] = this.index[j];
+      this.index[j] = s;
+    } // swap(int, int)
+  } // class Arena
+} // class StringArenaSorter
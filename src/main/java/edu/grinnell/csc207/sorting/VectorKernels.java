@@ -0,0 +1,825 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The SIMD backend for primitive keys, built on jdk.incubator.vector.
+ * Only PrimitiveSorter refers to this class, and only by name, so it
+ * is never loaded when the incubator module is missing.
+ *
+ * Three kernels do the work.
+ *
+ * 1. Partition: each vector of keys is compared with the pivot, and
+ *    the resulting masks pick permutations from a table that pack the
+ *    smaller keys to the front (written back in place) and the larger
+ *    keys to the front (written to a scratch buffer). Keys equal to the
+ *    pivot need not be moved at all; they are filled in afterwards.
+ *    The JDK 17 Vector API has no compress operation, hence the table.
+ *
+ * 2. Small blocks: up to two vectors of keys are sorted in registers
+ *    with a bitonic sorting network of min, max, and blends.
+ *
+ * 3. Merge: sorted runs are merged a vector at a time with a bitonic
+ *    merge network, always loading next from the run with the smaller
+ *    head.
+ *
+ * Vectors are the machine's preferred size, but no more than 256 bits,
+ * so on x86 with AVX2 or better, eight ints or four longs. The
+ * kernels refuse to run on hardware with vectors narrower than
+ * 128 bits, where the Vector API would only emulate them.
+ *
+ * @author Andrew N. Fargo
+ */
+class VectorKernels implements PrimitiveKernels {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The narrowest vectors worth using, in bits.
+   */
+  static final int MIN_BITS = 128;
+
+  /**
+   * The widest vectors we use, in bits. Wider ones would need a
+   * compress table with 2^16 entries for ints.
+   */
+  static final int MAX_BITS = 256;
+
+  /**
+   * The shape of our vectors.
+   */
+  static final VectorShape SHAPE =
+      VectorShape.forBitSize(Math.min(MAX_BITS, VectorShape.preferredShape().vectorBitSize()));
+
+  /**
+   * The shape of our int vectors.
+   */
+  static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, SHAPE);
+
+  /**
+   * The number of ints in a vector.
+   */
+  static final int INT_LANES = INTS.length();
+
+  /**
+   * The shape of our long vectors.
+   */
+  static final VectorSpecies<Long> LONGS = VectorSpecies.of(long.class, SHAPE);
+
+  /**
+   * The number of longs in a vector.
+   */
+  static final int LONG_LANES = LONGS.length();
+
+  /**
+   * For each mask of lanes, the permutation that packs those lanes
+   * to the front.
+   */
+  static final VectorShuffle<Integer>[] INT_COMPRESS = compressTable(INTS);
+
+  /**
+   * For each mask of lanes, the permutation that packs those lanes
+   * to the front.
+   */
+  static final VectorShuffle<Long>[] LONG_COMPRESS = compressTable(LONGS);
+
+  /**
+   * The permutation that reverses a vector.
+   */
+  static final VectorShuffle<Integer> INT_REVERSE =
+      VectorShuffle.fromOp(INTS, i -> INT_LANES - 1 - i);
+
+  /**
+   * The permutation that reverses a vector.
+   */
+  static final VectorShuffle<Long> LONG_REVERSE =
+      VectorShuffle.fromOp(LONGS, i -> LONG_LANES - 1 - i);
+
+  /**
+   * The partner of each lane at each stage of the bitonic sort.
+   */
+  static final VectorShuffle<Integer>[] INT_SORT_PARTNER = partners(INTS, false);
+
+  /**
+   * The lanes that keep the minimum at each stage of the bitonic sort.
+   */
+  static final VectorMask<Integer>[] INT_SORT_MIN = minLanes(INTS, false);
+
+  /**
+   * The partner of each lane at each stage of the bitonic merge.
+   */
+  static final VectorShuffle<Integer>[] INT_MERGE_PARTNER = partners(INTS, true);
+
+  /**
+   * The lanes that keep the minimum at each stage of the bitonic merge.
+   */
+  static final VectorMask<Integer>[] INT_MERGE_MIN = minLanes(INTS, true);
+
+  /**
+   * The partner of each lane at each stage of the bitonic sort.
+   */
+  static final VectorShuffle<Long>[] LONG_SORT_PARTNER = partners(LONGS, false);
+
+  /**
+   * The lanes that keep the minimum at each stage of the bitonic sort.
+   */
+  static final VectorMask<Long>[] LONG_SORT_MIN = minLanes(LONGS, false);
+
+  /**
+   * The partner of each lane at each stage of the bitonic merge.
+   */
+  static final VectorShuffle<Long>[] LONG_MERGE_PARTNER = partners(LONGS, true);
+
+  /**
+   * The lanes that keep the minimum at each stage of the bitonic merge.
+   */
+  static final VectorMask<Long>[] LONG_MERGE_MIN = minLanes(LONGS, true);
+
+  /**
+   * No ints.
+   */
+  static final int[] NO_INTS = new int[0];
+
+  /**
+   * No longs.
+   */
+  static final long[] NO_LONGS = new long[0];
+
+  // +---------------+-----------------------------------------------
+  // | Static Tables |
+  // +---------------+
+
+  /**
+   * Build the permutations that pack the lanes of each mask to the
+   * front of a vector.
+   *
+   * @param <E>
+   *   The lane type.
+   * @param species
+   *   The shape of the vectors.
+   * @return The table, indexed by mask bits.
+   */
+  @SuppressWarnings({"unchecked"})
+  static <E> VectorShuffle<E>[] compressTable(VectorSpecies<E> species) {
+    int lanes = species.length();
+    VectorShuffle<E>[] table = new VectorShuffle[1 << lanes];
+    int[] order = new int[lanes];
+    for (int mask = 0; mask < table.length; mask++) {
+      int n = 0;
+      for (int i = 0; i < lanes; i++) {
+        if ((mask & (1 << i)) != 0) {
+          order[n++] = i;
+        } // if
+      } // for
+      while (n < lanes) {
+        order[n++] = 0;
+      } // while
+      table[mask] = VectorShuffle.fromArray(species, order, 0);
+    } // for
+    return table;
+  } // compressTable(VectorSpecies)
+
+  /**
+   * List the (block, distance) pairs of a bitonic network. A sort
+   * runs every stage; a merge of a bitonic vector runs only the last
+   * log(lanes) stages, with the block size equal to the vector.
+   *
+   * @param lanes
+   *   The number of lanes.
+   * @param merge
+   *   Whether this is the merge network.
+   * @return Pairs {k, j}, one per stage.
+   */
+  static int[][] stages(int lanes, boolean merge) {
+    int[][] result = new int[32][];
+    int n = 0;
+    for (int k = merge ? lanes : 2; k <= lanes; k *= 2) {
+      for (int j = k / 2; j > 0; j /= 2) {
+        result[n++] = new int[] {k, j};
+      } // for j
+    } // for k
+    return Arrays.copyOf(result, n);
+  } // stages(int, boolean)
+
+  /**
+   * Build the partner permutations of a bitonic network.
+   *
+   * @param <E>
+   *   The lane type.
+   * @param species
+   *   The shape of the vectors.
+   * @param merge
+   *   Whether this is the merge network.
+   * @return One permutation per stage.
+   */
+  @SuppressWarnings({"unchecked"})
+  static <E> VectorShuffle<E>[] partners(VectorSpecies<E> species, boolean merge) {
+    int[][] stages = stages(species.length(), merge);
+    VectorShuffle<E>[] result = new VectorShuffle[stages.length];
+    for (int s = 0; s < stages.length; s++) {
+      int j = stages[s][1];
+      result[s] = VectorShuffle.fromOp(species, i -> i ^ j);
+    } // for
+    return result;
+  } // partners(VectorSpecies, boolean)
+
+  /**
+   * Build the masks of lanes that keep the smaller of each pair in a
+   * bitonic network. A lane keeps the minimum when it is the lower of
+   * its pair in an ascending block, or the upper in a descending one.
+   *
+   * @param <E>
+   *   The lane type.
+   * @param species
+   *   The shape of the vectors.
+   * @param merge
+   *   Whether this is the merge network.
+   * @return One mask per stage.
+   */
+  @SuppressWarnings({"unchecked"})
+  static <E> VectorMask<E>[] minLanes(VectorSpecies<E> species, boolean merge) {
+    int lanes = species.length();
+    int[][] stages = stages(lanes, merge);
+    VectorMask<E>[] result = new VectorMask[stages.length];
+    boolean[] keep = new boolean[lanes];
+    for (int s = 0; s < stages.length; s++) {
+      int k = stages[s][0];
+      int j = stages[s][1];
+      for (int i = 0; i < lanes; i++) {
+        keep[i] = ((i & j) == 0) == ((i & k) == 0);
+      } // for
+      result[s] = VectorMask.fromArray(species, keep, 0);
+    } // for
+    return result;
+  } // minLanes(VectorSpecies, boolean)
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create the kernels, if the hardware has real vectors.
+   *
+   * @throws UnsupportedOperationException
+   *   If the preferred vectors are narrower than MIN_BITS.
+   */
+  VectorKernels() {
+    if (SHAPE.vectorBitSize() < MIN_BITS) {
+      throw new UnsupportedOperationException("Vectors of " + SHAPE.vectorBitSize()
+          + " bits are too narrow");
+    } // if
+  } // VectorKernels()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Sort an array in place using a three-way quicksort with a
+   * vectorized partition.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  @Override
+  public void quicksort(int[] values) {
+    quicksort(values, 0, values.length, new int[values.length + INT_LANES]);
+  } // quicksort(int[])
+
+  /**
+   * Sort an array in place using a three-way quicksort with a
+   * vectorized partition.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  @Override
+  public void quicksort(long[] values) {
+    quicksort(values, 0, values.length, new long[values.length + LONG_LANES]);
+  } // quicksort(long[])
+
+  /**
+   * Sort an array using a bottom-up merge sort: small blocks are
+   * sorted in registers, then merged a vector at a time.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  @Override
+  public void mergeSort(int[] values) {
+    int n = values.length;
+    int block = 2 * INT_LANES;
+    for (int lb = 0; lb < n; lb += block) {
+      sortSmall(values, lb, Math.min(n, lb + block));
+    } // for
+    if (n <= block) {
+      return;
+    } // if
+    int[] src = values;
+    int[] dst = new int[n];
+    for (int width = block; width < n; width *= 2) {
+      for (int lb = 0; lb < n; lb += 2 * width) {
+        int mid = Math.min(n, lb + width);
+        merge(src, lb, mid, Math.min(n, lb + 2 * width), dst);
+      } // for
+      int[] tmp = src;
+      src = dst;
+      dst = tmp;
+    } // for
+    if (src != values) {
+      System.arraycopy(src, 0, values, 0, n);
+    } // if
+  } // mergeSort(int[])
+
+  /**
+   * Sort an array using a bottom-up merge sort: small blocks are
+   * sorted in registers, then merged a vector at a time.
+   *
+   * @param values
+   *   The array to sort.
+   */
+  @Override
+  public void mergeSort(long[] values) {
+    int n = values.length;
+    int block = 2 * LONG_LANES;
+    for (int lb = 0; lb < n; lb += block) {
+      sortSmall(values, lb, Math.min(n, lb + block));
+    } // for
+    if (n <= block) {
+      return;
+    } // if
+    long[] src = values;
+    long[] dst = new long[n];
+    for (int width = block; width < n; width *= 2) {
+      for (int lb = 0; lb < n; lb += 2 * width) {
+        int mid = Math.min(n, lb + width);
+        merge(src, lb, mid, Math.min(n, lb + 2 * width), dst);
+      } // for
+      long[] tmp = src;
+      src = dst;
+      dst = tmp;
+    } // for
+    if (src != values) {
+      System.arraycopy(src, 0, values, 0, n);
+    } // if
+  } // mergeSort(long[])
+
+  // +-------------+-------------------------------------------------
+  // | Int Kernels |
+  // +-------------+
+
+  /**
+   * Sort the lanes of a vector with a bitonic network.
+   *
+   * @param v
+   *   The vector.
+   * @return The vector, ascending.
+   */
+  static IntVector sortVector(IntVector v) {
+    for (int s = 0; s < INT_SORT_PARTNER.length; s++) {
+      IntVector partner = v.rearrange(INT_SORT_PARTNER[s]);
+      v = v.max(partner).blend(v.min(partner), INT_SORT_MIN[s]);
+    } // for
+    return v;
+  } // sortVector(IntVector)
+
+  /**
+   * Sort the lanes of a bitonic vector.
+   *
+   * @param v
+   *   The vector, ascending then descending (or the reverse).
+   * @return The vector, ascending.
+   */
+  static IntVector cleanVector(IntVector v) {
+    for (int s = 0; s < INT_MERGE_PARTNER.length; s++) {
+      IntVector partner = v.rearrange(INT_MERGE_PARTNER[s]);
+      v = v.max(partner).blend(v.min(partner), INT_MERGE_MIN[s]);
+    } // for
+    return v;
+  } // cleanVector(IntVector)
+
+  /**
+   * Sort a subarray of at most two vectors in registers.
+   *
+   * @param values
+   *   The array.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound; ub - lb &lt;= 2 * INT_LANES.
+   */
+  static void sortSmall(int[] values, int lb, int ub) {
+    int n = ub - lb;
+    if (n < 2) {
+      return;
+    } // if
+    IntVector top = IntVector.broadcast(INTS, Integer.MAX_VALUE);
+    VectorMask<Integer> first = INTS.indexInRange(0, n);
+    IntVector a = sortVector(top.blend(IntVector.fromArray(INTS, values, lb, first), first));
+    if (n <= INT_LANES) {
+      a.intoArray(values, lb, first);
+      return;
+    } // if
+    VectorMask<Integer> second = INTS.indexInRange(INT_LANES, n);
+    IntVector b = IntVector.fromArray(INTS, values, lb + INT_LANES, second);
+    b = sortVector(top.blend(b, second)).rearrange(INT_REVERSE);
+    cleanVector(a.min(b)).intoArray(values, lb);
+    cleanVector(a.max(b)).intoArray(values, lb + INT_LANES, second);
+  } // sortSmall(int[], int, int)
+
+  /**
+   * Partition a subarray around a pivot.
+   *
+   * @param values
+   *   The array.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound.
+   * @param pivot
+   *   The pivot.
+   * @param buffer
+   *   Scratch space for the keys larger than the pivot.
+   * @return The start of the keys equal to the pivot in the upper 32
+   *   bits and the start of the larger keys in the lower 32 bits.
+   */
+  static long partition(int[] values, int lb, int ub, int pivot, int[] buffer) {
+    IntVector pivots = IntVector.broadcast(INTS, pivot);
+    int less = lb;
+    int more = 0;
+    int i = lb;
+    /* The smaller keys are packed back into values; less never passes
+       i, so the store only covers keys that have already been read. */
+    for (; i + INT_LANES <= ub; i += INT_LANES) {
+      IntVector v = IntVector.fromArray(INTS, values, i);
+      int lt = (int) v.compare(VectorOperators.LT, pivots).toLong();
+      int gt = (int) v.compare(VectorOperators.GT, pivots).toLong();
+      v.rearrange(INT_COMPRESS[lt]).intoArray(values, less);
+      v.rearrange(INT_COMPRESS[gt]).intoArray(buffer, more);
+      less += Integer.bitCount(lt);
+      more += Integer.bitCount(gt);
+    } // for
+    for (; i < ub; i++) {
+      int value = values[i];
+      if (value < pivot) {
+        values[less++] = value;
+      } else if (value > pivot) {
+        buffer[more++] = value;
+      } // if/else
+    } // for
+    int greater = ub - more;
+    Arrays.fill(values, less, greater, pivot);
+    System.arraycopy(buffer, 0, values, greater, more);
+    return ((long) less << 32) | greater;
+  } // partition(int[], int, int, int, int[])
+
+  /**
+   * Sort a subarray using a three-way quicksort, recursing on the
+   * smaller side.
+   *
+   * @param values
+   *   The array.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound.
+   * @param buffer
+   *   Scratch space for partitioning.
+   */
+  static void quicksort(int[] values, int lb, int ub, int[] buffer) {
+    ThreadLocalRandom rng = ThreadLocalRandom.current();
+    while (ub - lb > 2 * INT_LANES) {
+      int a = values[rng.nextInt(lb, ub)];
+      int b = values[rng.nextInt(lb, ub)];
+      int c = values[rng.nextInt(lb, ub)];
+      int pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+      long bounds = partition(values, lb, ub, pivot, buffer);
+      int red = (int) (bounds >>> 32);
+      int white = (int) bounds;
+      if (red - lb < ub - white) {
+        quicksort(values, lb, red, buffer);
+        lb = white;
+      } else {
+        quicksort(values, white, ub, buffer);
+        ub = red;
+      } // if/else
+    } // while
+    sortSmall(values, lb, ub);
+  } // quicksort(int[], int, int, int[])
+
+  /**
+   * Merge two adjacent sorted runs into another array.
+   *
+   * @param src
+   *   The runs.
+   * @param lb
+   *   The start of the first run.
+   * @param mid
+   *   The start of the second run.
+   * @param ub
+   *   The end of the second run.
+   * @param dst
+   *   Where the merged run goes, at the same position.
+   */
+  static void merge(int[] src, int lb, int mid, int ub, int[] dst) {
+    if (mid - lb < INT_LANES || ub - mid < INT_LANES) {
+      mergeTails(src, lb, mid, mid, ub, NO_INTS, dst);
+      return;
+    } // if
+    int i = lb + INT_LANES;
+    int j = mid + INT_LANES;
+    int out = lb;
+    IntVector a = IntVector.fromArray(INTS, src, lb);
+    IntVector b = IntVector.fromArray(INTS, src, mid).rearrange(INT_REVERSE);
+    IntVector high = cleanVector(a.max(b));
+    cleanVector(a.min(b)).intoArray(dst, out);
+    out += INT_LANES;
+    /* Everything in high, and everything already written, is no larger
+       than the head of either run, so the smaller half of high and the
+       next vector is final. */
+    while (i + INT_LANES <= mid && j + INT_LANES <= ub) {
+      IntVector next;
+      if (src[i] <= src[j]) {
+        next = IntVector.fromArray(INTS, src, i);
+        i += INT_LANES;
+      } else {
+        next = IntVector.fromArray(INTS, src, j);
+        j += INT_LANES;
+      } // if/else
+      next = next.rearrange(INT_REVERSE);
+      cleanVector(high.min(next)).intoArray(dst, out);
+      high = cleanVector(high.max(next));
+      out += INT_LANES;
+    } // while
+    mergeTails(src, i, mid, j, ub, high.toArray(), dst);
+  } // merge(int[], int, int, int, int[])
+
+  /**
+   * Merge three sorted sequences, one element at a time.
+   *
+   * @param src
+   *   Holds the first two sequences.
+   * @param i
+   *   The start of the first sequence.
+   * @param iEnd
+   *   The end of the first sequence.
+   * @param j
+   *   The start of the second sequence.
+   * @param jEnd
+   *   The end of the second sequence.
+   * @param extra
+   *   The third sequence.
+   * @param dst
+   *   Where the merged sequence goes. Everything before the three
+   *   sequences has already been written, so the output starts at
+   *   i + (j - iEnd) - extra.length.
+   */
+  static void mergeTails(int[] src, int i, int iEnd, int j, int jEnd,
+      int[] extra, int[] dst) {
+    int k = 0;
+    int kEnd = extra.length;
+    int out = i + (j - iEnd) - kEnd;
+    int end = jEnd;
+    while (out < end) {
+      if (i < iEnd && (j >= jEnd || src[i] <= src[j])) {
+        dst[out++] = (k < kEnd && extra[k] < src[i]) ? extra[k++] : src[i++];
+      } else if (j < jEnd) {
+        dst[out++] = (k < kEnd && extra[k] < src[j]) ? extra[k++] : src[j++];
+      } else {
+        dst[out++] = extra[k++];
+      } // if/else
+    } // while
+  } // mergeTails(int[], int, int, int, int, int[], int[])
+
+  // +--------------+------------------------------------------------
+  // | Long Kernels |
+  // +--------------+
+
+  /**
+   * Sort the lanes of a vector with a bitonic network.
+   *
+   * @param v
+   *   The vector.
+   * @return The vector, ascending.
+   */
+  static LongVector sortVector(LongVector v) {
+    for (int s = 0; s < LONG_SORT_PARTNER.length; s++) {
+      LongVector partner = v.rearrange(LONG_SORT_PARTNER[s]);
+      v = v.max(partner).blend(v.min(partner), LONG_SORT_MIN[s]);
+    } // for
+    return v;
+  } // sortVector(LongVector)
+
+  /**
+   * Sort the lanes of a bitonic vector.
+   *
+   * @param v
+   *   The vector, ascending then descending (or the reverse).
+   * @return The vector, ascending.
+   */
+  static LongVector cleanVector(LongVector v) {
+    for (int s = 0; s < LONG_MERGE_PARTNER.length; s++) {
+      LongVector partner = v.rearrange(LONG_MERGE_PARTNER[s]);
+      v = v.max(partner).blend(v.min(partner), LONG_MERGE_MIN[s]);
+    } // for
+    return v;
+  } // cleanVector(LongVector)
+
+  /**
+   * Sort a subarray of at most two vectors in registers.
+   *
+   * @param values
+   *   The array.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound; ub - lb &lt;= 2 * LONG_LANES.
+   */
+  static void sortSmall(long[] values, int lb, int ub) {
+    int n = ub - lb;
+    if (n < 2) {
+      return;
+    } // if
+    LongVector top = LongVector.broadcast(LONGS, Long.MAX_VALUE);
+    VectorMask<Long> first = LONGS.indexInRange(0, n);
+    LongVector a = sortVector(top.blend(LongVector.fromArray(LONGS, values, lb, first), first));
+    if (n <= LONG_LANES) {
+      a.intoArray(values, lb, first);
+      return;
+    } // if
+    VectorMask<Long> second = LONGS.indexInRange(LONG_LANES, n);
+    LongVector b = LongVector.fromArray(LONGS, values, lb + LONG_LANES, second);
+    b = sortVector(top.blend(b, second)).rearrange(LONG_REVERSE);
+    cleanVector(a.min(b)).intoArray(values, lb);
+    cleanVector(a.max(b)).intoArray(values, lb + LONG_LANES, second);
+  } // sortSmall(long[], int, int)
+
+  /**
+   * Partition a subarray around a pivot.
+   *
+   * @param values
+   *   The array.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound.
+   * @param pivot
+   *   The pivot.
+   * @param buffer
+   *   Scratch space for the keys larger than the pivot.
+   * @return The start of the keys equal to the pivot in the upper 32
+   *   bits and the start of the larger keys in the lower 32 bits.
+   */
+  static long partition(long[] values, int lb, int ub, long pivot, long[] buffer) {
+    LongVector pivots = LongVector.broadcast(LONGS, pivot);
+    int less = lb;
+    int more = 0;
+    int i = lb;
+    for (; i + LONG_LANES <= ub; i += LONG_LANES) {
+      LongVector v = LongVector.fromArray(LONGS, values, i);
+      int lt = (int) v.compare(VectorOperators.LT, pivots).toLong();
+      int gt = (int) v.compare(VectorOperators.GT, pivots).toLong();
+      v.rearrange(LONG_COMPRESS[lt]).intoArray(values, less);
+      v.rearrange(LONG_COMPRESS[gt]).intoArray(buffer, more);
+      less += Integer.bitCount(lt);
+      more += Integer.bitCount(gt);
+    } // for
+    for (; i < ub; i++) {
+      long value = values[i];
+      if (value < pivot) {
+        values[less++] = value;
+      } else if (value > pivot) {
+        buffer[more++] = value;
+      } // if/else
+    } // for
+    int greater = ub - more;
+    Arrays.fill(values, less, greater, pivot);
+    System.arraycopy(buffer, 0, values, greater, more);
+    return ((long) less << 32) | greater;
+  } // partition(long[], int, int, long, long[])
+
+  /**
+   * Sort a subarray using a three-way quicksort, recursing on the
+   * smaller side.
+   *
+   * @param values
+   *   The array.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound.
+   * @param buffer
+   *   Scratch space for partitioning.
+   */
+  static void quicksort(long[] values, int lb, int ub, long[] buffer) {
+    ThreadLocalRandom rng = ThreadLocalRandom.current();
+    while (ub - lb > 2 * LONG_LANES) {
+      long a = values[rng.nextInt(lb, ub)];
+      long b = values[rng.nextInt(lb, ub)];
+      long c = values[rng.nextInt(lb, ub)];
+      long pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+      long bounds = partition(values, lb, ub, pivot, buffer);
+      int red = (int) (bounds >>> 32);
+      int white = (int) bounds;
+      if (red - lb < ub - white) {
+        quicksort(values, lb, red, buffer);
+        lb = white;
+      } else {
+        quicksort(values, white, ub, buffer);
+        ub = red;
+      } // if/else
+    } // while
+    sortSmall(values, lb, ub);
+  } // quicksort(long[], int, int, long[])
+
+  /**
+   * Merge two adjacent sorted runs into another array.
+   *
+   * @param src
+   *   The runs.
+   * @param lb
+   *   The start of the first run.
+   * @param mid
+   *   The start of the second run.
+   * @param ub
+   *   The end of the second run.
+   * @param dst
+   *   Where the merged run goes, at the same position.
+   */
+  static void merge(long[] src, int lb, int mid, int ub, long[] dst) {
+    if (mid - lb < LONG_LANES || ub - mid < LONG_LANES) {
+      mergeTails(src, lb, mid, mid, ub, NO_LONGS, dst);
+      return;
+    } // if
+    int i = lb + LONG_LANES;
+    int j = mid + LONG_LANES;
+    int out = lb;
+    LongVector a = LongVector.fromArray(LONGS, src, lb);
+    LongVector b = LongVector.fromArray(LONGS, src, mid).rearrange(LONG_REVERSE);
+    LongVector high = cleanVector(a.max(b));
+    cleanVector(a.min(b)).intoArray(dst, out);
+    out += LONG_LANES;
+    while (i + LONG_LANES <= mid && j + LONG_LANES <= ub) {
+      LongVector next;
+      if (src[i] <= src[j]) {
+        next = LongVector.fromArray(LONGS, src, i);
+        i += LONG_LANES;
+      } else {
+        next = LongVector.fromArray(LONGS, src, j);
+        j += LONG_LANES;
+      } // if/else
+      next = next.rearrange(LONG_REVERSE);
+      cleanVector(high.min(next)).intoArray(dst, out);
+      high = cleanVector(high.max(next));
+      out += LONG_LANES;
+    } // while
+    mergeTails(src, i, mid, j, ub, high.toArray(), dst);
+  } // merge(long[], int, int, int, long[])
+
+  /**
+   * Merge three sorted sequences, one element at a time.
+   *
+   * @param src
+   *   Holds the first two sequences.
+   * @param i
+   *   The start of the first sequence.
+   * @param iEnd
+   *   The end of the first sequence.
+   * @param j
+   *   The start of the second sequence.
+   * @param jEnd
+   *   The end of the second sequence.
+   * @param extra
+   *   The third sequence.
+   * @param dst
+   *   Where the merged sequence goes. Everything before the three
+   *   sequences has already been written, so the output starts at
+   *   i + (j - iEnd) - extra.length.
+   */
+  static void mergeTails(long[] src, int i, int iEnd, int j, int jEnd,
+      long[] extra, long[] dst) {
+    int k = 0;
+    int kEnd = extra.length;
+    int out = i + (j - iEnd) - kEnd;
+    int end = jEnd;
+    while (out < end) {
+      if (i < iEnd && (j >= jEnd || src[i] <= src[j])) {
+        dst[out++] = (k < kEnd && extra[k] < src[i]) ? extra[k++] : src[i++];
+      } else if (j < jEnd) {
+        dst[out++] = (k < kEnd && extra[k] < src[j]) ? extra[k++] : src[j++];
+      } else {
+        dst[out++] = extra[k++];
+      } // if/else
+    } // while
+  } // mergeTails(long[], int, int, int, int, long[], long[])
+} // class VectorKernels
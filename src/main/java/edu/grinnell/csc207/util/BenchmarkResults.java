@@ -0,0 +1,453 @@
+package edu.grinnell.csc207.util;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Timings gathered by SortTools, along with a description of the
+ * machine and JVM that produced them, saved as CSV or JSON so that
+ * runs can be compared later.
+ *
+ * A CSV file starts with one "# key: value" line per metadata entry,
+ * followed by a header and one line per timing. A JSON file holds a
+ * "metadata" object and a "results" array with one object per line;
+ * read() understands the files write() produces, not arbitrary JSON.
+ *
+ * @author Andrew N. Fargo
+ */
+public class BenchmarkResults {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The CSV header.
+   */
+  static final String HEADER = "command,sorter,round,shape,size,millis";
+
+  /**
+   * One result object in a JSON file.
+   */
+  static final Pattern JSON_ROW = Pattern.compile(
+      "\\{\"command\": \"(.*?)\", \"sorter\": \"(.*?)\", \"round\": (\\d+), "
+      + "\"shape\": \"(.*?)\", \"size\": (\\d+), \"millis\": ([0-9.eE+-]+)\\}");
+
+  /**
+   * One metadata entry in a JSON file.
+   */
+  static final Pattern JSON_ENTRY = Pattern.compile("^\\s*\"(.*?)\": \"(.*?)\",?$");
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * A description of where the results came from.
+   */
+  Map<String, String> metadata;
+
+  /**
+   * The timings.
+   */
+  List<Row> rows;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an empty set of results described by the current JVM.
+   */
+  public BenchmarkResults() {
+    this(environment());
+  } // BenchmarkResults()
+
+  /**
+   * Create an empty set of results with given metadata.
+   *
+   * @param description
+   *   Where the results came from.
+   */
+  public BenchmarkResults(Map<String, String> description) {
+    this.metadata = description;
+    this.rows = new ArrayList<Row>();
+  } // BenchmarkResults(Map)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Record one timing.
+   *
+   * @param command
+   *   The SortTools command that took it.
+   * @param sorter
+   *   The name of the sorter.
+   * @param round
+   *   The round or step.
+   * @param shape
+   *   What the input looked like, such as "randomized".
+   * @param size
+   *   The length of the input.
+   * @param millis
+   *   The time taken, in milliseconds.
+   */
+  public void add(String command, String sorter, int round, String shape, int size,
+      double millis) {
+    this.rows.add(new Row(command, sorter, round, shape, size, millis));
+  } // add(String, String, int, String, int, double)
+
+  /**
+   * Get the metadata.
+   *
+   * @return The metadata, in the order written.
+   */
+  public Map<String, String> metadata() {
+    return this.metadata;
+  } // metadata()
+
+  /**
+   * Get the timings.
+   *
+   * @return The timings, in the order recorded.
+   */
+  public List<Row> rows() {
+    return this.rows;
+  } // rows()
+
+  /**
+   * Gather each sorter's timings from one command, scaled to
+   * nanoseconds per element so that rounds of different sizes can be
+   * pooled.
+   *
+   * @param command
+   *   The command whose timings to use.
+   * @return The samples, by sorter, in the order first seen.
+   */
+  public Map<String, double[]> samples(String command) {
+    Map<String, List<Double>> lists = new LinkedHashMap<String, List<Double>>();
+    for (Row row : this.rows) {
+      if (row.command.equals(command) && row.size > 0) {
+        lists.computeIfAbsent(row.sorter, (k) -> new ArrayList<Double>())
+            .add(row.millis * 1e6 / row.size);
+      } // if
+    } // for
+    Map<String, double[]> result = new LinkedHashMap<String, double[]>();
+    for (Map.Entry<String, List<Double>> entry : lists.entrySet()) {
+      result.put(entry.getKey(),
+          entry.getValue().stream().mapToDouble(Double::doubleValue).toArray());
+    } // for
+    return result;
+  } // samples(String)
+
+  /**
+   * Save the results. The format follows the file name: JSON for
+   * names ending in .json and CSV otherwise.
+   *
+   * @param file
+   *   Where to save them.
+   * @throws IOException
+   *   If the file cannot be written.
+   */
+  public void write(Path file) throws IOException {
+    try (PrintWriter pen = new PrintWriter(Files.newBufferedWriter(file))) {
+      if (isJson(file)) {
+        this.writeJson(pen);
+      } else {
+        this.writeCsv(pen);
+      } // if/else
+    } // try
+  } // write(Path)
+
+  /**
+   * Write the results as CSV.
+   *
+   * @param pen
+   *   Where to write them.
+   */
+  void writeCsv(PrintWriter pen) {
+    for (Map.Entry<String, String> entry : this.metadata.entrySet()) {
+      pen.println("# " + entry.getKey() + ": " + entry.getValue());
+    } // for
+    pen.println(HEADER);
+    for (Row row : this.rows) {
+      pen.println(csv(row.command) + "," + csv(row.sorter) + "," + row.round + ","
+          + csv(row.shape) + "," + row.size + "," + row.millis);
+    } // for
+  } // writeCsv(PrintWriter)
+
+  /**
+   * Write the results as JSON.
+   *
+   * @param pen
+   *   Where to write them.
+   */
+  void writeJson(PrintWriter pen) {
+    pen.println("{");
+    pen.println("  \"metadata\": {");
+    int i = 0;
+    for (Map.Entry<String, String> entry : this.metadata.entrySet()) {
+      pen.println("    \"" + json(entry.getKey()) + "\": \"" + json(entry.getValue()) + "\""
+          + ((++i < this.metadata.size()) ? "," : ""));
+    } // for
+    pen.println("  },");
+    pen.println("  \"results\": [");
+    for (int r = 0; r < this.rows.size(); r++) {
+      Row row = this.rows.get(r);
+      pen.println("    {\"command\": \"" + json(row.command) + "\", \"sorter\": \""
+          + json(row.sorter) + "\", \"round\": " + row.round + ", \"shape\": \""
+          + json(row.shape) + "\", \"size\": " + row.size + ", \"millis\": " + row.millis
+          + "}" + ((r + 1 < this.rows.size()) ? "," : ""));
+    } // for
+    pen.println("  ]");
+    pen.println("}");
+  } // writeJson(PrintWriter)
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Load results saved by write().
+   *
+   * @param file
+   *   The file.
+   * @return The results.
+   * @throws IOException
+   *   If the file cannot be read or is not in the expected format.
+   */
+  public static BenchmarkResults read(Path file) throws IOException {
+    BenchmarkResults results = new BenchmarkResults(new LinkedHashMap<String, String>());
+    List<String> lines = Files.readAllLines(file);
+    boolean json = isJson(file);
+    boolean inMetadata = false;
+    for (String line : lines) {
+      if (json) {
+        Matcher row = JSON_ROW.matcher(line);
+        Matcher entry = JSON_ENTRY.matcher(line);
+        if (line.contains("\"metadata\"")) {
+          inMetadata = true;
+        } else if (line.trim().startsWith("}")) {
+          inMetadata = false;
+        } else if (row.find()) {
+          results.add(unjson(row.group(1)), unjson(row.group(2)),
+              Integer.parseInt(row.group(3)), unjson(row.group(4)),
+              Integer.parseInt(row.group(5)), Double.parseDouble(row.group(6)));
+        } else if (inMetadata && entry.find()) {
+          results.metadata.put(unjson(entry.group(1)), unjson(entry.group(2)));
+        } // if/else
+      } else if (line.startsWith("# ")) {
+        int colon = line.indexOf(": ");
+        if (colon > 0) {
+          results.metadata.put(line.substring(2, colon), line.substring(colon + 2));
+        } // if
+      } else if (!line.isBlank() && !line.equals(HEADER)) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 6) {
+          throw new IOException("Malformed line in " + file + ": " + line);
+        } // if
+        try {
+          results.add(fields[0], fields[1], Integer.parseInt(fields[2]), fields[3],
+              Integer.parseInt(fields[4]), Double.parseDouble(fields[5]));
+        } catch (NumberFormatException e) {
+          throw new IOException("Malformed line in " + file + ": " + line, e);
+        } // try/catch
+      } // if/else
+    } // for
+    return results;
+  } // read(Path)
+
+  /**
+   * Describe the current JVM and machine.
+   *
+   * @return The description.
+   */
+  public static Map<String, String> environment() {
+    Map<String, String> env = new LinkedHashMap<String, String>();
+    Runtime runtime = Runtime.getRuntime();
+    env.put("timestamp", Instant.now().toString());
+    env.put("java.version", System.getProperty("java.version"));
+    env.put("java.vm.name", System.getProperty("java.vm.name"));
+    env.put("java.vm.version", System.getProperty("java.vm.version"));
+    env.put("os.name", System.getProperty("os.name"));
+    env.put("os.arch", System.getProperty("os.arch"));
+    env.put("cpu", cpuModel());
+    env.put("processors", Integer.toString(runtime.availableProcessors()));
+    env.put("heap.max", Long.toString(runtime.maxMemory()));
+    env.put("heap.total", Long.toString(runtime.totalMemory()));
+    List<String> collectors = new ArrayList<String>();
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      collectors.add(gc.getName());
+    } // for
+    env.put("gc", String.join("; ", collectors));
+    env.put("jvm.args",
+        String.join(" ", ManagementFactory.getRuntimeMXBean().getInputArguments()));
+    return env;
+  } // environment()
+
+  /**
+   * Find the processor model, where the operating system says.
+   *
+   * @return The model, or the architecture if it cannot be found.
+   */
+  static String cpuModel() {
+    Path cpuinfo = Path.of("/proc/cpuinfo");
+    try {
+      if (Files.isReadable(cpuinfo)) {
+        for (String line : Files.readAllLines(cpuinfo)) {
+          if (line.startsWith("model name")) {
+            return line.substring(line.indexOf(':') + 1).trim();
+          } // if
+        } // for
+      } // if
+    } catch (IOException e) {
+      /* Fall through to the architecture. */
+    } // try/catch
+    return System.getProperty("os.arch");
+  } // cpuModel()
+
+  /**
+   * Determine whether a file should hold JSON.
+   *
+   * @param file
+   *   The file.
+   * @return true if its name ends in .json.
+   */
+  static boolean isJson(Path file) {
+    return file.getFileName().toString().toLowerCase().endsWith(".json");
+  } // isJson(Path)
+
+  /**
+   * Make a string safe for a CSV field.
+   *
+   * @param text
+   *   The string.
+   * @return The string with commas and line breaks replaced.
+   */
+  static String csv(String text) {
+    return text.replaceAll("[,\\r\\n]", " ");
+  } // csv(String)
+
+  /**
+   * Escape a string for JSON.
+   *
+   * @param text
+   *   The string.
+   * @return The escaped string, without quotes.
+   */
+  static String json(String text) {
+    StringBuilder result = new StringBuilder();
+    for (char c : text.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        result.append('\\').append(c);
+      } else if (c < ' ') {
+        result.append(String.format("\\u%04x", (int) c));
+      } else {
+        result.append(c);
+      } // if/else
+    } // for
+    return result.toString();
+  } // json(String)
+
+  /**
+   * Undo json().
+   *
+   * @param text
+   *   The escaped string.
+   * @return The original string.
+   */
+  static String unjson(String text) {
+    StringBuilder result = new StringBuilder();
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '\\' && i + 1 < text.length()) {
+        char next = text.charAt(++i);
+        if (next == 'u' && i + 4 < text.length()) {
+          result.append((char) Integer.parseInt(text.substring(i + 1, i + 5), 16));
+          i += 4;
+        } else {
+          result.append(next);
+        } // if/else
+      } else {
+        result.append(c);
+      } // if/else
+    } // for
+    return result.toString();
+  } // unjson(String)
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * One timing.
+   */
+  public static class Row {
+    /**
+     * The SortTools command that took it.
+     */
+    final String command;
+
+    /**
+     * The name of the sorter.
+     */
+    final String sorter;
+
+    /**
+     * The round or step.
+     */
+    final int round;
+
+    /**
+     * What the input looked like.
+     */
+    final String shape;
+
+    /**
+     * The length of the input.
+     */
+    final int size;
+
+    /**
+     * The time taken, in milliseconds.
+     */
+    final double millis;
+
+    /**
+     * Record a timing.
+     *
+     * @param cmd
+     *   The SortTools command that took it.
+     * @param name
+     *   The name of the sorter.
+     * @param step
+     *   The round or step.
+     * @param kind
+     *   What the input looked like.
+     * @param length
+     *   The length of the input.
+     * @param time
+     *   The time taken, in milliseconds.
+     */
+    Row(String cmd, String name, int step, String kind, int length, double time) {
+      this.command = cmd;
+      this.sorter = name;
+      this.round = step;
+      this.shape = kind;
+      this.size = length;
+      this.millis = time;
+    } // Row(String, String, int, String, int, double)
+  } // class Row
+} // class BenchmarkResults
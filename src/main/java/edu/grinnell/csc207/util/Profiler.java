@@ -0,0 +1,326 @@
+package edu.grinnell.csc207.util;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/**
+ * Measures a piece of work: the wall-clock time, from System.nanoTime,
+ * and, where the JVM can tell us, the CPU time and bytes allocated by
+ * the current thread and the garbage collections that ran meanwhile.
+ *
+ * CPU time and allocation are per thread, so work handed to other
+ * threads (a parallel sort, say) shows up in the wall-clock time and
+ * the collections but not in those two. Values the JVM cannot supply
+ * are reported as -1.
+ *
+ * @author Andrew N. Fargo
+ */
+public class Profiler {
+  // +--------------+------------------------------------------------
+  // | Measurements |
+  // +--------------+
+
+  /**
+   * What one run cost.
+   *
+   * @param nanos
+   *   The wall-clock time, in nanoseconds.
+   * @param cpuNanos
+   *   The CPU time of the measuring thread, in nanoseconds, or -1.
+   * @param allocatedBytes
+   *   The bytes allocated by the measuring thread, or -1.
+   * @param gcCount
+   *   The number of collections that ran.
+   * @param gcMillis
+   *   The time those collections took, in milliseconds.
+   */
+  public record Measurement(long nanos, long cpuNanos, long allocatedBytes, long gcCount,
+      long gcMillis) {
+    /**
+     * Get the wall-clock time in milliseconds.
+     *
+     * @return The time, with its fraction.
+     */
+    public double millis() {
+      return this.nanos / 1e6;
+    } // millis()
+  } // record Measurement
+
+  /**
+   * The distribution of a series of measurements.
+   */
+  public static class Summary {
+    /**
+     * The wall-clock times, in milliseconds.
+     */
+    double[] millis;
+
+    /**
+     * The CPU times, in milliseconds, of the runs that had one.
+     */
+    double[] cpuMillis;
+
+    /**
+     * The bytes allocated by the runs that knew.
+     */
+    double[] allocated;
+
+    /**
+     * The total number of collections.
+     */
+    long gcCount;
+
+    /**
+     * The total time spent collecting, in milliseconds.
+     */
+    long gcMillis;
+
+    /**
+     * Summarize some measurements.
+     *
+     * @param runs
+     *   The measurements.
+     */
+    public Summary(List<Measurement> runs) {
+      this.millis = runs.stream().mapToDouble(Measurement::millis).toArray();
+      this.cpuMillis = runs.stream().filter((m) -> m.cpuNanos() >= 0)
+          .mapToDouble((m) -> m.cpuNanos() / 1e6).toArray();
+      this.allocated = runs.stream().filter((m) -> m.allocatedBytes() >= 0)
+          .mapToDouble(Measurement::allocatedBytes).toArray();
+      this.gcCount = runs.stream().mapToLong(Measurement::gcCount).sum();
+      this.gcMillis = runs.stream().mapToLong(Measurement::gcMillis).sum();
+    } // Summary(List)
+
+    /**
+     * Get the number of runs.
+     *
+     * @return The number of runs.
+     */
+    public int count() {
+      return this.millis.length;
+    } // count()
+
+    /**
+     * Get a percentile of the wall-clock times.
+     *
+     * @param p
+     *   The percentile, from 0 to 100.
+     * @return The time, in milliseconds, or NaN if there were no runs.
+     */
+    public double percentile(double p) {
+      return Statistics.percentile(this.millis, p);
+    } // percentile(double)
+
+    /**
+     * Get the median wall-clock time.
+     *
+     * @return The time, in milliseconds, or NaN if there were no runs.
+     */
+    public double median() {
+      return Statistics.median(this.millis);
+    } // median()
+
+    /**
+     * Get the median CPU time.
+     *
+     * @return The time, in milliseconds, or NaN if it is unknown.
+     */
+    public double cpuMillis() {
+      return Statistics.median(this.cpuMillis);
+    } // cpuMillis()
+
+    /**
+     * Get the median number of bytes allocated.
+     *
+     * @return The bytes, or NaN if they are unknown.
+     */
+    public double allocatedBytes() {
+      return Statistics.median(this.allocated);
+    } // allocatedBytes()
+
+    /**
+     * Get the number of collections over all the runs.
+     *
+     * @return The number of collections.
+     */
+    public long gcCount() {
+      return this.gcCount;
+    } // gcCount()
+
+    /**
+     * Get the time spent collecting over all the runs.
+     *
+     * @return The time, in milliseconds.
+     */
+    public long gcMillis() {
+      return this.gcMillis;
+    } // gcMillis()
+  } // class Summary
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * Where thread CPU times come from, or null if the JVM has none.
+   */
+  ThreadMXBean threads;
+
+  /**
+   * Where thread allocation counts come from, or null if the JVM has
+   * none.
+   */
+  com.sun.management.ThreadMXBean allocations;
+
+  /**
+   * The collectors.
+   */
+  List<GarbageCollectorMXBean> collectors;
+
+  /**
+   * The wall-clock time at the start.
+   */
+  long startNanos;
+
+  /**
+   * The CPU time at the start.
+   */
+  long startCpu;
+
+  /**
+   * The bytes allocated at the start.
+   */
+  long startAllocated;
+
+  /**
+   * The collection count at the start.
+   */
+  long startGcCount;
+
+  /**
+   * The collection time at the start.
+   */
+  long startGcMillis;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a profiler, turning on CPU and allocation accounting if
+   * the JVM supports them.
+   */
+  public Profiler() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    try {
+      if (bean.isCurrentThreadCpuTimeSupported()) {
+        bean.setThreadCpuTimeEnabled(true);
+        this.threads = bean;
+      } // if
+      if (bean instanceof com.sun.management.ThreadMXBean sun
+          && sun.isThreadAllocatedMemorySupported()) {
+        sun.setThreadAllocatedMemoryEnabled(true);
+        this.allocations = sun;
+      } // if
+    } catch (UnsupportedOperationException | SecurityException e) {
+      // Fall back to whatever was set up before the failure.
+    } // try/catch
+    this.collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    this.start();
+  } // Profiler()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Start measuring.
+   */
+  public void start() {
+    this.startGcCount = this.gcCount();
+    this.startGcMillis = this.gcMillis();
+    this.startAllocated = this.allocated();
+    this.startCpu = this.cpu();
+    this.startNanos = System.nanoTime();
+  } // start()
+
+  /**
+   * Stop measuring.
+   *
+   * @return What happened since the last start.
+   */
+  public Measurement stop() {
+    long nanos = System.nanoTime() - this.startNanos;
+    long cpu = this.cpu();
+    long allocated = this.allocated();
+    return new Measurement(nanos,
+        (cpu < 0 || this.startCpu < 0) ? -1 : cpu - this.startCpu,
+        (allocated < 0 || this.startAllocated < 0) ? -1 : allocated - this.startAllocated,
+        this.gcCount() - this.startGcCount, this.gcMillis() - this.startGcMillis);
+  } // stop()
+
+  /**
+   * Measure some work.
+   *
+   * @param work
+   *   The work.
+   * @return What it cost.
+   */
+  public Measurement measure(Runnable work) {
+    this.start();
+    work.run();
+    return this.stop();
+  } // measure(Runnable)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Get the CPU time of this thread.
+   *
+   * @return The time, in nanoseconds, or -1.
+   */
+  long cpu() {
+    return (this.threads == null) ? -1 : this.threads.getCurrentThreadCpuTime();
+  } // cpu()
+
+  /**
+   * Get the bytes allocated by this thread.
+   *
+   * @return The bytes, or -1.
+   */
+  long allocated() {
+    return (this.allocations == null) ? -1
+        : this.allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+  } // allocated()
+
+  /**
+   * Get the number of collections so far.
+   *
+   * @return The number, over all collectors that report one.
+   */
+  long gcCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean collector : this.collectors) {
+      count += Math.max(0, collector.getCollectionCount());
+    } // for
+    return count;
+  } // gcCount()
+
+  /**
+   * Get the time spent collecting so far.
+   *
+   * @return The time, in milliseconds, over all collectors that report
+   *   one.
+   */
+  long gcMillis() {
+    long millis = 0;
+    for (GarbageCollectorMXBean collector : this.collectors) {
+      millis += Math.max(0, collector.getCollectionTime());
+    } // for
+    return millis;
+  } // gcMillis()
+} // class Profiler
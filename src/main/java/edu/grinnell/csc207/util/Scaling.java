@@ -0,0 +1,218 @@
+package edu.grinnell.csc207.util;
+
+/**
+ * Fits running times measured at several sizes to the usual growth
+ * rates, so that we can say how an algorithm scales and guess how long
+ * it will take on larger inputs.
+ *
+ * Times spread over orders of magnitude, so the fits minimize relative
+ * rather than absolute error: otherwise the largest size would decide
+ * everything.
+ *
+ * @author Andrew N. Fargo
+ */
+public class Scaling {
+  // +--------+------------------------------------------------------
+  // | Models |
+  // +--------+
+
+  /**
+   * The growth rates we try.
+   */
+  public enum Model {
+    /** c n. */
+    LINEAR("n"),
+    /** c n log n. */
+    LINEARITHMIC("n log n"),
+    /** c n^2. */
+    QUADRATIC("n^2");
+
+    /**
+     * How we write the model.
+     */
+    final String label;
+
+    /**
+     * Create a model.
+     *
+     * @param name
+     *   How we write it.
+     */
+    Model(String name) {
+      this.label = name;
+    } // Model(String)
+
+    /**
+     * Get how we write the model.
+     *
+     * @return The label, such as "n log n".
+     */
+    public String label() {
+      return this.label;
+    } // label()
+
+    /**
+     * Evaluate the model without its constant.
+     *
+     * @param n
+     *   The size.
+     * @return The growth at n.
+     */
+    public double apply(double n) {
+      switch (this) {
+        case LINEAR:
+          return n;
+        case LINEARITHMIC:
+          return n * Math.log(Math.max(n, 2)) / Math.log(2);
+        default:
+          return n * n;
+      } // switch
+    } // apply(double)
+  } // enum Model
+
+  /**
+   * A model with its fitted constant.
+   *
+   * @param model
+   *   The model.
+   * @param constant
+   *   The constant c in c f(n).
+   * @param error
+   *   The root-mean-square relative error of the fit, where 0.1 means
+   *   the model is typically off by 10%.
+   */
+  public record Fit(Model model, double constant, double error) {
+    /**
+     * Predict the time at a size.
+     *
+     * @param n
+     *   The size.
+     * @return The predicted time, in the units of the data.
+     */
+    public double predict(double n) {
+      return this.constant * this.model.apply(n);
+    } // predict(double)
+  } // record Fit
+
+  /**
+   * A fitted power law, a n^b.
+   *
+   * @param constant
+   *   The constant a.
+   * @param exponent
+   *   The exponent b.
+   */
+  public record PowerLaw(double constant, double exponent) {
+    /**
+     * Predict the time at a size.
+     *
+     * @param n
+     *   The size.
+     * @return The predicted time, in the units of the data.
+     */
+    public double predict(double n) {
+      return this.constant * Math.pow(n, this.exponent);
+    } // predict(double)
+  } // record PowerLaw
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Fit one model. The constant minimizes the sum of squared relative
+   * errors, sum ((t - c f(n)) / t)^2, which has the closed form
+   * c = sum (f / t) / sum (f / t)^2.
+   *
+   * @param model
+   *   The model.
+   * @param sizes
+   *   The sizes.
+   * @param times
+   *   The times, all positive, in the same order.
+   * @return The fit.
+   */
+  public static Fit fit(Model model, double[] sizes, double[] times) {
+    double num = 0;
+    double den = 0;
+    for (int i = 0; i < sizes.length; i++) {
+      double ratio = model.apply(sizes[i]) / times[i];
+      num += ratio;
+      den += ratio * ratio;
+    } // for
+    double c = (den == 0) ? 0 : num / den;
+    double squares = 0;
+    for (int i = 0; i < sizes.length; i++) {
+      double relative = (times[i] - c * model.apply(sizes[i])) / times[i];
+      squares += relative * relative;
+    } // for
+    return new Fit(model, c, Math.sqrt(squares / Math.max(1, sizes.length)));
+  } // fit(Model, double[], double[])
+
+  /**
+   * Fit every model.
+   *
+   * @param sizes
+   *   The sizes.
+   * @param times
+   *   The times, all positive, in the same order.
+   * @return The fits, in the order of Model.values().
+   */
+  public static Fit[] fits(double[] sizes, double[] times) {
+    Model[] models = Model.values();
+    Fit[] result = new Fit[models.length];
+    for (int i = 0; i < models.length; i++) {
+      result[i] = fit(models[i], sizes, times);
+    } // for
+    return result;
+  } // fits(double[], double[])
+
+  /**
+   * Find the model that fits best.
+   *
+   * @param sizes
+   *   The sizes.
+   * @param times
+   *   The times, all positive, in the same order.
+   * @return The fit with the least error.
+   */
+  public static Fit best(double[] sizes, double[] times) {
+    Fit best = null;
+    for (Fit fit : fits(sizes, times)) {
+      if (best == null || fit.error() < best.error()) {
+        best = fit;
+      } // if
+    } // for
+    return best;
+  } // best(double[], double[])
+
+  /**
+   * Fit a power law by least squares on log t against log n.
+   *
+   * @param sizes
+   *   The sizes, at least two of them distinct.
+   * @param times
+   *   The times, all positive, in the same order.
+   * @return The power law.
+   */
+  public static PowerLaw powerLaw(double[] sizes, double[] times) {
+    int n = sizes.length;
+    double sx = 0;
+    double sy = 0;
+    for (int i = 0; i < n; i++) {
+      sx += Math.log(sizes[i]);
+      sy += Math.log(times[i]);
+    } // for
+    double mx = sx / n;
+    double my = sy / n;
+    double sxy = 0;
+    double sxx = 0;
+    for (int i = 0; i < n; i++) {
+      double dx = Math.log(sizes[i]) - mx;
+      sxy += dx * (Math.log(times[i]) - my);
+      sxx += dx * dx;
+    } // for
+    double b = (sxx == 0) ? 0 : sxy / sxx;
+    return new PowerLaw(Math.exp(my - b * mx), b);
+  } // powerLaw(double[], double[])
+} // class Scaling
@@ -0,0 +1,161 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Arrays;
+
+/**
+ * Small statistical helpers for comparing benchmark timings.
+ *
+ * @author Andrew N. Fargo
+ */
+public class Statistics {
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Find the median of some values.
+   *
+   * @param values
+   *   The values, which are left alone.
+   * @return The median, or NaN if there are none.
+   */
+  public static double median(double[] values) {
+    return percentile(values, 50);
+  } // median(double[])
+
+  /**
+   * Find a percentile of some values, interpolating between the two
+   * nearest ranks.
+   *
+   * @param values
+   *   The values, which are left alone.
+   * @param p
+   *   The percentile, from 0 to 100.
+   * @return The percentile, or NaN if there are no values.
+   */
+  public static double percentile(double[] values, double p) {
+    if (values.length == 0) {
+      return Double.NaN;
+    } // if
+    double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    double rank = p / 100 * (sorted.length - 1);
+    int lo = (int) Math.floor(rank);
+    int hi = (int) Math.ceil(rank);
+    return sorted[lo] + (rank - lo) * (sorted[hi] - sorted[lo]);
+  } // percentile(double[], double)
+
+  /**
+   * Compute the Mann-Whitney U statistic of a against b: the number of
+   * pairs (x from a, y from b) with x &gt; y, counting ties as half.
+   *
+   * @param a
+   *   One sample.
+   * @param b
+   *   The other sample.
+   * @return U for a.
+   */
+  public static double mannWhitneyU(double[] a, double[] b) {
+    double[] ranks = ranks(a, b);
+    double rankSum = 0;
+    for (int i = 0; i < a.length; i++) {
+      rankSum += ranks[i];
+    } // for
+    return rankSum - a.length * (a.length + 1) / 2.0;
+  } // mannWhitneyU(double[], double[])
+
+  /**
+   * Test whether two samples come from the same distribution with the
+   * Mann-Whitney U test, using the normal approximation with a
+   * correction for ties. The approximation is rough below about eight
+   * values per sample.
+   *
+   * @param a
+   *   One sample.
+   * @param b
+   *   The other sample.
+   * @return The two-sided p-value.
+   */
+  public static double mannWhitneyP(double[] a, double[] b) {
+    int n1 = a.length;
+    int n2 = b.length;
+    if (n1 == 0 || n2 == 0) {
+      return 1.0;
+    } // if
+    double u = mannWhitneyU(a, b);
+    double n = n1 + n2;
+
+    /* Tie correction: sum of t^3 - t over groups of equal values. */
+    double[] all = new double[n1 + n2];
+    System.arraycopy(a, 0, all, 0, n1);
+    System.arraycopy(b, 0, all, n1, n2);
+    Arrays.sort(all);
+    double ties = 0;
+    for (int i = 0; i < all.length;) {
+      int j = i;
+      while (j < all.length && all[j] == all[i]) {
+        j++;
+      } // while
+      double t = j - i;
+      ties += t * t * t - t;
+      i = j;
+    } // for
+    double variance = n1 * n2 / 12.0 * ((n + 1) - ties / (n * (n - 1)));
+    if (variance <= 0) {
+      return 1.0;
+    } // if
+    double z = (Math.abs(u - n1 * n2 / 2.0) - 0.5) / Math.sqrt(variance);
+    return Math.min(1.0, 2 * (1 - normalCdf(Math.max(0, z))));
+  } // mannWhitneyP(double[], double[])
+
+  /**
+   * Find the midranks of the values of a followed by those of b in the
+   * pooled sample.
+   *
+   * @param a
+   *   One sample.
+   * @param b
+   *   The other sample.
+   * @return The ranks, starting at 1, in the order of a then b.
+   */
+  static double[] ranks(double[] a, double[] b) {
+    int n = a.length + b.length;
+    Integer[] index = new Integer[n];
+    double[] all = new double[n];
+    for (int i = 0; i < n; i++) {
+      index[i] = i;
+      all[i] = (i < a.length) ? a[i] : b[i - a.length];
+    } // for
+    Arrays.sort(index, (x, y) -> Double.compare(all[x], all[y]));
+    double[] ranks = new double[n];
+    for (int i = 0; i < n;) {
+      int j = i;
+      while (j < n && all[index[j]] == all[index[i]]) {
+        j++;
+      } // while
+      double midrank = (i + j + 1) / 2.0;
+      for (int k = i; k < j; k++) {
+        ranks[index[k]] = midrank;
+      } // for
+      i = j;
+    } // for
+    return ranks;
+  } // ranks(double[], double[])
+
+  /**
+   * The standard normal cumulative distribution function, from the
+   * Abramowitz and Stegun approximation to erf (error below 1.5e-7).
+   *
+   * @param z
+   *   The point.
+   * @return The probability that a standard normal is at most z.
+   */
+  public static double normalCdf(double z) {
+    double x = Math.abs(z) / Math.sqrt(2);
+    double t = 1 / (1 + 0.3275911 * x);
+    double poly = t * (0.254829592 + t * (-0.284496736 + t * (1.421413741
+        + t * (-1.453152027 + t * 1.061405429))));
+    double erf = 1 - poly * Math.exp(-x * x);
+    return (z >= 0) ? (1 + erf) / 2 : (1 - erf) / 2;
+  } // normalCdf(double)
+} // class Statistics
@@ -0,0 +1,414 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A seeded generator of benchmark inputs in a variety of shapes.
+ *
+ * Every array is determined by the seed, the shape, and the length
+ * alone, so asking for the same workload twice, in any order or from
+ * any thread, gives the same values. The keys always fit in an int,
+ * so the Integer, long, String, and Item versions of a workload are
+ * ordered alike.
+ *
+ * @author Andrew N. Fargo
+ */
+public class Workloads {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of distinct values in FEW_UNIQUE.
+   */
+  static final int FEW = 8;
+
+  /**
+   * The number of hot values in SKEWED_DUPLICATES.
+   */
+  static final int HOT = 10;
+
+  /**
+   * The fraction of SKEWED_DUPLICATES drawn from the hot values.
+   */
+  static final double HOT_FRACTION = 0.9;
+
+  /**
+   * The exponent of the Zipf distribution.
+   */
+  static final double ZIPF_EXPONENT = 1.1;
+
+  /**
+   * The fraction of SORTED_RANDOM_TAIL that is random.
+   */
+  static final double TAIL_FRACTION = 0.1;
+
+  /**
+   * The fraction of elements that NEARLY_SORTED moves.
+   */
+  static final double PERTURBED_FRACTION = 0.01;
+
+  // +--------+------------------------------------------------------
+  // | Shapes |
+  // +--------+
+
+  /**
+   * The shapes of input we can make.
+   */
+  public enum Shape {
+    /** Uniformly random ints. */
+    UNIFORM,
+    /** 0 through n - 1 in order. */
+    SORTED,
+    /** n - 1 down to 0. */
+    REVERSE,
+    /** Sorted, with 1% of the elements swapped with a near neighbour. */
+    NEARLY_SORTED,
+    /** Values drawn from a Zipf distribution over n ranks. */
+    ZIPF,
+    /** 90% of the values from 10 hot keys, the rest uniform. */
+    SKEWED_DUPLICATES,
+    /** Ascending to the middle, then descending. */
+    ORGAN_PIPE,
+    /** Ascending runs of about sqrt(n) elements each. */
+    SAWTOOTH,
+    /** Sorted, except for a random last 10%. */
+    SORTED_RANDOM_TAIL,
+    /** Uniform over only 8 distinct values. */
+    FEW_UNIQUE,
+    /** Musser's sequence that drives a first/middle/last median of three quadratic. */
+    MEDIAN_OF_3_KILLER;
+
+    /**
+     * Get the name used on the command line.
+     *
+     * @return The name, in lower case with dashes.
+     */
+    public String label() {
+      return this.name().toLowerCase().replace('_', '-');
+    } // label()
+
+    /**
+     * Find a shape by its label or constant name.
+     *
+     * @param name
+     *   The name.
+     * @return The shape.
+     * @throws IllegalArgumentException
+     *   If there is no such shape.
+     */
+    public static Shape parse(String name) {
+      return Shape.valueOf(name.trim().toUpperCase().replace('-', '_'));
+    } // parse(String)
+  } // enum Shape
+
+  /**
+   * A key with an identifier, for benchmarks on objects larger than
+   * boxed numbers and for checking stability. Items compare by key
+   * alone.
+   *
+   * @param key
+   *   The sort key.
+   * @param id
+   *   The position at which the item was generated.
+   */
+  public record Item(long key, int id) implements Comparable<Item> {
+    /**
+     * Compare by key.
+     *
+     * @param other
+     *   The other item.
+     * @return Negative, zero, or positive as this key is smaller, equal,
+     *   or larger.
+     */
+    @Override
+    public int compareTo(Item other) {
+      return Long.compare(this.key, other.key);
+    } // compareTo(Item)
+  } // record Item
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The seed everything derives from.
+   */
+  long seed;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a generator.
+   *
+   * @param initial
+   *   The seed.
+   */
+  public Workloads(long initial) {
+    this.seed = initial;
+  } // Workloads(long)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the seed.
+   *
+   * @return The seed.
+   */
+  public long seed() {
+    return this.seed;
+  } // seed()
+
+  /**
+   * Make the keys of a workload.
+   *
+   * @param shape
+   *   The shape.
+   * @param n
+   *   The length.
+   * @return The keys, each within the range of an int.
+   */
+  public long[] longs(Shape shape, int n) {
+    SplittableRandom rng = this.random(shape, n);
+    long[] keys = new long[n];
+    switch (shape) {
+      case UNIFORM:
+        for (int i = 0; i < n; i++) {
+          keys[i] = rng.nextInt();
+        } // for
+        break;
+      case SORTED:
+        Arrays.setAll(keys, (i) -> i);
+        break;
+      case REVERSE:
+        Arrays.setAll(keys, (i) -> n - 1 - i);
+        break;
+      case NEARLY_SORTED:
+        Arrays.setAll(keys, (i) -> i);
+        for (int k = 0; k < n * PERTURBED_FRACTION; k++) {
+          int i = rng.nextInt(n);
+          swap(keys, i, Math.min(n - 1, i + 1 + rng.nextInt(8)));
+        } // for
+        break;
+      case ZIPF:
+        zipf(keys, rng);
+        break;
+      case SKEWED_DUPLICATES:
+        for (int i = 0; i < n; i++) {
+          keys[i] = (rng.nextDouble() < HOT_FRACTION)
+              ? (long) rng.nextInt(HOT) * (Integer.MAX_VALUE / HOT) : rng.nextInt();
+        } // for
+        break;
+      case ORGAN_PIPE:
+        Arrays.setAll(keys, (i) -> Math.min(i, n - 1 - i));
+        break;
+      case SAWTOOTH:
+        int period = Math.max(1, (int) Math.sqrt(n));
+        Arrays.setAll(keys, (i) -> i % period);
+        break;
+      case SORTED_RANDOM_TAIL:
+        int head = n - (int) (n * TAIL_FRACTION);
+        for (int i = 0; i < n; i++) {
+          keys[i] = (i < head) ? i : rng.nextInt(n);
+        } // for
+        break;
+      case FEW_UNIQUE:
+        for (int i = 0; i < n; i++) {
+          keys[i] = rng.nextInt(FEW);
+        } // for
+        break;
+      case MEDIAN_OF_3_KILLER:
+        medianOfThreeKiller(keys);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown shape " + shape);
+    } // switch
+    return keys;
+  } // longs(Shape, int)
+
+  /**
+   * Make a workload of Integers.
+   *
+   * @param shape
+   *   The shape.
+   * @param n
+   *   The length.
+   * @return The values.
+   */
+  public Integer[] integers(Shape shape, int n) {
+    long[] keys = this.longs(shape, n);
+    Integer[] values = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      values[i] = (int) keys[i];
+    } // for
+    return values;
+  } // integers(Shape, int)
+
+  /**
+   * Make a workload of Strings whose lexicographic order matches the
+   * order of the keys: each is "k" followed by eight hex digits.
+   *
+   * @param shape
+   *   The shape.
+   * @param n
+   *   The length.
+   * @return The values.
+   */
+  public String[] strings(Shape shape, int n) {
+    long[] keys = this.longs(shape, n);
+    String[] values = new String[n];
+    char[] chars = new char[9];
+    chars[0] = 'k';
+    for (int i = 0; i < n; i++) {
+      int bits = (int) keys[i] ^ Integer.MIN_VALUE;
+      for (int d = 8; d >= 1; d--) {
+        chars[d] = Character.forDigit(bits & 0xF, 16);
+        bits >>>= 4;
+      } // for
+      values[i] = new String(chars);
+    } // for
+    return values;
+  } // strings(Shape, int)
+
+  /**
+   * Make a workload of Items, each remembering its position.
+   *
+   * @param shape
+   *   The shape.
+   * @param n
+   *   The length.
+   * @return The values.
+   */
+  public Item[] items(Shape shape, int n) {
+    long[] keys = this.longs(shape, n);
+    Item[] values = new Item[n];
+    for (int i = 0; i < n; i++) {
+      values[i] = new Item(keys[i], i);
+    } // for
+    return values;
+  } // items(Shape, int)
+
+  /**
+   * Shuffle an array uniformly (Fisher-Yates), reproducibly for a
+   * given seed and length.
+   *
+   * @param <T>
+   *   The type of the elements.
+   * @param values
+   *   The array.
+   */
+  public <T> void shuffle(T[] values) {
+    SplittableRandom rng = new SplittableRandom(mix(this.seed, -1, values.length));
+    for (int i = values.length - 1; i > 0; i--) {
+      int j = rng.nextInt(i + 1);
+      T temp = values[i];
+      values[i] = values[j];
+      values[j] = temp;
+    } // for
+  } // shuffle(T[])
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Get the random numbers for one workload.
+   *
+   * @param shape
+   *   The shape.
+   * @param n
+   *   The length.
+   * @return A generator seeded from the seed, shape, and length.
+   */
+  SplittableRandom random(Shape shape, int n) {
+    return new SplittableRandom(mix(this.seed, shape.ordinal(), n));
+  } // random(Shape, int)
+
+  /**
+   * Mix a seed with two small values (the splitmix64 finalizer).
+   *
+   * @param seed
+   *   The seed.
+   * @param a
+   *   One value.
+   * @param b
+   *   Another value.
+   * @return The mixed value.
+   */
+  static long mix(long seed, int a, int b) {
+    long z = seed + 0x9E3779B97F4A7C15L * (((long) a << 32) ^ (b & 0xFFFFFFFFL) ^ 1);
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  } // mix(long, int, int)
+
+  /**
+   * Fill an array with Zipf-distributed ranks from 0 to n - 1 by
+   * inverting the cumulative distribution.
+   *
+   * @param keys
+   *   The array.
+   * @param rng
+   *   The random numbers.
+   */
+  static void zipf(long[] keys, SplittableRandom rng) {
+    int ranks = Math.max(1, keys.length);
+    double[] cumulative = new double[ranks];
+    double total = 0;
+    for (int r = 0; r < ranks; r++) {
+      total += 1 / Math.pow(r + 1, ZIPF_EXPONENT);
+      cumulative[r] = total;
+    } // for
+    for (int i = 0; i < keys.length; i++) {
+      int r = Arrays.binarySearch(cumulative, rng.nextDouble() * total);
+      keys[i] = (r >= 0) ? r : Math.min(ranks - 1, -r - 1);
+    } // for
+  } // zipf(long[], SplittableRandom)
+
+  /**
+   * Fill an array with Musser's median-of-3 killer: a permutation of
+   * 1 through n on which a quicksort that takes the median of the
+   * first, middle, and last elements splits off only two elements per
+   * partition. The construction needs a multiple of four, so up to
+   * three of the largest values are appended in order.
+   *
+   * @param keys
+   *   The array.
+   */
+  static void medianOfThreeKiller(long[] keys) {
+    int n = keys.length;
+    int m = n - n % 4;
+    int k = m / 2;
+    for (int i = 1; i <= k; i++) {
+      if (i % 2 == 1) {
+        keys[i - 1] = i;
+        keys[i] = k + i;
+      } // if
+      keys[k + i - 1] = 2 * i;
+    } // for
+    for (int i = m; i < n; i++) {
+      keys[i] = i + 1;
+    } // for
+  } // medianOfThreeKiller(long[])
+
+  /**
+   * Swap two elements of an array.
+   *
+   * @param keys
+   *   The array.
+   * @param i
+   *   One position.
+   * @param j
+   *   Another position.
+   */
+  static void swap(long[] keys, int i, int j) {
+    long temp = keys[i];
+    keys[i] = keys[j];
+    keys[j] = temp;
+  } // swap(long[], int, int)
+} // class Workloads
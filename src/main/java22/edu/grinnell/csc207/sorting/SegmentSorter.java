@@ -0,0 +1,340 @@
+package edu.grinnell.csc207.sorting;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+/**
+ * Sorts primitive keys that live in a MemorySegment, typically one
+ * allocated off-heap through an Arena, so that multi-gigabyte key sets
+ * neither inflate the heap nor lengthen garbage collection pauses.
+ * Segments are read as arrays of native-order longs or ints, and
+ * indices are longs, so segments may hold more than 2^31 elements.
+ *
+ * Two algorithms are offered. The quicksort mirrors FargoAndrewSorter:
+ * a median-of-three random pivot, a dutch national flag partition, and
+ * a simple sort for small subarrays (insertion sort here, since
+ * swapping primitives is cheap). The radix sort is an LSD radix sort on
+ * bytes, which needs a scratch segment as large as the input.
+ *
+ * Requires a JDK in which java.lang.foreign is final (22 or later);
+ * see the jdk22 profile in pom.xml.
+ *
+ * @author Andrew N. Fargo
+ */
+public class SegmentSorter {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Subarrays this small are insertion sorted.
+   */
+  static final long THRESHOLD = 20;
+
+  /**
+   * The number of bits sorted per radix pass.
+   */
+  static final int RADIX_BITS = 8;
+
+  /**
+   * The number of buckets per radix pass.
+   */
+  static final int RADIX = 1 << RADIX_BITS;
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Sort the longs in a segment using a three-way quicksort.
+   *
+   * @param segment
+   *   The keys, as native-order longs.
+   */
+  public static void quicksortLongs(MemorySegment segment) {
+    quicksortLongs(segment, 0, segment.byteSize() / JAVA_LONG.byteSize());
+  } // quicksortLongs(MemorySegment)
+
+  /**
+   * Sort the ints in a segment using a three-way quicksort.
+   *
+   * @param segment
+   *   The keys, as native-order ints.
+   */
+  public static void quicksortInts(MemorySegment segment) {
+    quicksortInts(segment, 0, segment.byteSize() / JAVA_INT.byteSize());
+  } // quicksortInts(MemorySegment)
+
+  /**
+   * Sort the longs in a segment using an LSD radix sort, with a
+   * temporary off-heap scratch segment.
+   *
+   * @param segment
+   *   The keys, as native-order longs.
+   */
+  public static void radixSortLongs(MemorySegment segment) {
+    try (Arena arena = Arena.ofConfined()) {
+      radixSortLongs(segment,
+          arena.allocate(segment.byteSize(), JAVA_LONG.byteAlignment()));
+    } // try
+  } // radixSortLongs(MemorySegment)
+
+  /**
+   * Sort the ints in a segment using an LSD radix sort, with a
+   * temporary off-heap scratch segment.
+   *
+   * @param segment
+   *   The keys, as native-order ints.
+   */
+  public static void radixSortInts(MemorySegment segment) {
+    try (Arena arena = Arena.ofConfined()) {
+      radixSortInts(segment,
+          arena.allocate(segment.byteSize(), JAVA_INT.byteAlignment()));
+    } // try
+  } // radixSortInts(MemorySegment)
+
+  /**
+   * Sort the longs in a segment using an LSD radix sort.
+   *
+   * @param segment
+   *   The keys, as native-order longs.
+   * @param scratch
+   *   Working space at least as large as segment.
+   */
+  public static void radixSortLongs(MemorySegment segment, MemorySegment scratch) {
+    long n = segment.byteSize() / JAVA_LONG.byteSize();
+    if (scratch.byteSize() < n * JAVA_LONG.byteSize()) {
+      throw new IllegalArgumentException("Scratch segment is too small");
+    } // if
+    int passes = Long.SIZE / RADIX_BITS;
+
+    /* Count every digit in one read of the input. */
+    long[][] counts = new long[passes][RADIX];
+    for (long i = 0; i < n; i++) {
+      long key = flip(segment.getAtIndex(JAVA_LONG, i));
+      for (int p = 0; p < passes; p++) {
+        counts[p][(int) (key >>> (p * RADIX_BITS)) & (RADIX - 1)]++;
+      } // for p
+    } // for i
+
+    MemorySegment from = segment;
+    MemorySegment to = scratch;
+    for (int p = 0; p < passes; p++) {
+      if (!toOffsets(counts[p], n)) {
+        continue;
+      } // if
+      long[] next = counts[p];
+      int shift = p * RADIX_BITS;
+      for (long i = 0; i < n; i++) {
+        long value = from.getAtIndex(JAVA_LONG, i);
+        int digit = (int) (flip(value) >>> shift) & (RADIX - 1);
+        to.setAtIndex(JAVA_LONG, next[digit]++, value);
+      } // for i
+      MemorySegment tmp = from;
+      from = to;
+      to = tmp;
+    } // for p
+    if (from != segment) {
+      MemorySegment.copy(from, 0, segment, 0, n * JAVA_LONG.byteSize());
+    } // if
+  } // radixSortLongs(MemorySegment, MemorySegment)
+
+  /**
+   * Sort the ints in a segment using an LSD radix sort.
+   *
+   * @param segment
+   *   The keys, as native-order ints.
+   * @param scratch
+   *   Working space at least as large as segment.
+   */
+  public static void radixSortInts(MemorySegment segment, MemorySegment scratch) {
+    long n = segment.byteSize() / JAVA_INT.byteSize();
+    if (scratch.byteSize() < n * JAVA_INT.byteSize()) {
+      throw new IllegalArgumentException("Scratch segment is too small");
+    } // if
+    int passes = Integer.SIZE / RADIX_BITS;
+
+    long[][] counts = new long[passes][RADIX];
+    for (long i = 0; i < n; i++) {
+      int key = segment.getAtIndex(JAVA_INT, i) ^ Integer.MIN_VALUE;
+      for (int p = 0; p < passes; p++) {
+        counts[p][(key >>> (p * RADIX_BITS)) & (RADIX - 1)]++;
+      } // for p
+    } // for i
+
+    MemorySegment from = segment;
+    MemorySegment to = scratch;
+    for (int p = 0; p < passes; p++) {
+      if (!toOffsets(counts[p], n)) {
+        continue;
+      } // if
+      long[] next = counts[p];
+      int shift = p * RADIX_BITS;
+      for (long i = 0; i < n; i++) {
+        int value = from.getAtIndex(JAVA_INT, i);
+        int digit = ((value ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1);
+        to.setAtIndex(JAVA_INT, next[digit]++, value);
+      } // for i
+      MemorySegment tmp = from;
+      from = to;
+      to = tmp;
+    } // for p
+    if (from != segment) {
+      MemorySegment.copy(from, 0, segment, 0, n * JAVA_INT.byteSize());
+    } // if
+  } // radixSortInts(MemorySegment, MemorySegment)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Flip the sign bit, so that unsigned order matches signed order.
+   *
+   * @param key
+   *   The key.
+   * @return The key with its sign bit flipped.
+   */
+  static long flip(long key) {
+    return key ^ Long.MIN_VALUE;
+  } // flip(long)
+
+  /**
+   * Turn a histogram into starting offsets, in place.
+   *
+   * @param counts
+   *   The number of keys with each digit.
+   * @param n
+   *   The total number of keys.
+   * @return false if every key has the same digit, in which case the
+   *   pass would not move anything and counts is left alone.
+   */
+  static boolean toOffsets(long[] counts, long n) {
+    long sum = 0;
+    for (int d = 0; d < counts.length; d++) {
+      if (counts[d] == n) {
+        return false;
+      } // if
+      long count = counts[d];
+      counts[d] = sum;
+      sum += count;
+    } // for
+    return true;
+  } // toOffsets(long[], long)
+
+  /**
+   * Sort a range of longs using a three-way quicksort. Recurses on
+   * the smaller side and loops on the larger, so the stack stays
+   * logarithmic.
+   *
+   * @param seg
+   *   The keys.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound.
+   */
+  static void quicksortLongs(MemorySegment seg, long lb, long ub) {
+    ThreadLocalRandom rng = ThreadLocalRandom.current();
+    while (ub - lb > THRESHOLD) {
+      long a = seg.getAtIndex(JAVA_LONG, rng.nextLong(lb, ub));
+      long b = seg.getAtIndex(JAVA_LONG, rng.nextLong(lb, ub));
+      long c = seg.getAtIndex(JAVA_LONG, rng.nextLong(lb, ub));
+      long pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+
+      long red = lb;
+      long white = lb;
+      long blue = ub;
+      while (white < blue) {
+        long value = seg.getAtIndex(JAVA_LONG, white);
+        if (value < pivot) {
+          seg.setAtIndex(JAVA_LONG, white++, seg.getAtIndex(JAVA_LONG, red));
+          seg.setAtIndex(JAVA_LONG, red++, value);
+        } else if (value > pivot) {
+          blue--;
+          seg.setAtIndex(JAVA_LONG, white, seg.getAtIndex(JAVA_LONG, blue));
+          seg.setAtIndex(JAVA_LONG, blue, value);
+        } else {
+          white++;
+        } // if/else
+      } // while
+
+      if (red - lb < ub - white) {
+        quicksortLongs(seg, lb, red);
+        lb = white;
+      } else {
+        quicksortLongs(seg, white, ub);
+        ub = red;
+      } // if/else
+    } // while
+
+    for (long j = lb + 1; j < ub; j++) {
+      long value = seg.getAtIndex(JAVA_LONG, j);
+      long i = j - 1;
+      while (i >= lb && seg.getAtIndex(JAVA_LONG, i) > value) {
+        seg.setAtIndex(JAVA_LONG, i + 1, seg.getAtIndex(JAVA_LONG, i));
+        i--;
+      } // while
+      seg.setAtIndex(JAVA_LONG, i + 1, value);
+    } // for
+  } // quicksortLongs(MemorySegment, long, long)
+
+  /**
+   * Sort a range of ints using a three-way quicksort.
+   *
+   * @param seg
+   *   The keys.
+   * @param lb
+   *   The inclusive lower bound.
+   * @param ub
+   *   The exclusive upper bound.
+   */
+  static void quicksortInts(MemorySegment seg, long lb, long ub) {
+    ThreadLocalRandom rng = ThreadLocalRandom.current();
+    while (ub - lb > THRESHOLD) {
+      int a = seg.getAtIndex(JAVA_INT, rng.nextLong(lb, ub));
+      int b = seg.getAtIndex(JAVA_INT, rng.nextLong(lb, ub));
+      int c = seg.getAtIndex(JAVA_INT, rng.nextLong(lb, ub));
+      int pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+
+      long red = lb;
+      long white = lb;
+      long blue = ub;
+      while (white < blue) {
+        int value = seg.getAtIndex(JAVA_INT, white);
+        if (value < pivot) {
+          seg.setAtIndex(JAVA_INT, white++, seg.getAtIndex(JAVA_INT, red));
+          seg.setAtIndex(JAVA_INT, red++, value);
+        } else if (value > pivot) {
+          blue--;
+          seg.setAtIndex(JAVA_INT, white, seg.getAtIndex(JAVA_INT, blue));
+          seg.setAtIndex(JAVA_INT, blue, value);
+        } else {
+          white++;
+        } // if/else
+      } // while
+
+      if (red - lb < ub - white) {
+        quicksortInts(seg, lb, red);
+        lb = white;
+      } else {
+        quicksortInts(seg, white, ub);
+        ub = red;
+      } // if/else
+    } // while
+
+    for (long j = lb + 1; j < ub; j++) {
+      int value = seg.getAtIndex(JAVA_INT, j);
+      long i = j - 1;
+      while (i >= lb && seg.getAtIndex(JAVA_INT, i) > value) {
+        seg.setAtIndex(JAVA_INT, i + 1, seg.getAtIndex(JAVA_INT, i));
+        i--;
+      } // while
+      seg.setAtIndex(JAVA_INT, i + 1, value);
+    } // for
+  } // quicksortInts(MemorySegment, long, long)
+} // class SegmentSorter
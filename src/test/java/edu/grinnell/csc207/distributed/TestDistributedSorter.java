@@ -0,0 +1,368 @@
+package edu.grinnell.csc207.distributed;
+
+import edu.grinnell.csc207.sorting.FargoAndrewSorter;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of DistributedSorter over both transports.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestDistributedSorter {
+  /**
+   * How to compare integers.
+   */
+  static final Comparator<Integer> ORDER = (x, y) -> x.compareTo(y);
+
+  /**
+   * The key the socket tests' nodes share.
+   */
+  static final long KEY = 0x5eed_0046L;
+
+  /**
+   * A value whose fields are of other classes.
+   *
+   * @param name
+   *   A name.
+   * @param age
+   *   What people are sorted by.
+   */
+  record Person(String name, Integer age) implements Serializable {
+  } // record Person
+
+  /**
+   * Sort shards on a group of nodes, one thread per node, and check
+   * that the results, read in rank order, are everything in order.
+   *
+   * @param transports
+   *   The nodes.
+   * @param shards
+   *   Each node's shard.
+   * @throws Exception
+   *   If a node fails.
+   */
+  static void check(List<Transport> transports, Integer[][] shards) throws Exception {
+    List<Integer> expected = new ArrayList<Integer>();
+    for (Integer[] shard : shards) {
+      expected.addAll(Arrays.asList(shard));
+    } // for
+    expected.sort(ORDER);
+
+    ExecutorService pool = Executors.newFixedThreadPool(transports.size());
+    try {
+      List<Future<Integer[]>> results = new ArrayList<Future<Integer[]>>();
+      for (int r = 0; r < transports.size(); r++) {
+        Transport transport = transports.get(r);
+        Integer[] shard = shards[r];
+        results.add(pool.submit(() -> new DistributedSorter<Integer>(transport,
+            new FargoAndrewSorter<Integer>(ORDER), ORDER).sort(shard)));
+      } // for
+      List<Integer> actual = new ArrayList<Integer>();
+      for (Future<Integer[]> result : results) {
+        actual.addAll(Arrays.asList(result.get(30, TimeUnit.SECONDS)));
+      } // for
+      assertArrayEquals(expected.toArray(), actual.toArray());
+    } finally {
+      pool.shutdownNow();
+      for (Transport transport : transports) {
+        transport.close();
+      } // for
+    } // try/finally
+  } // check(List, Integer[][])
+
+  /**
+   * Make random shards of the given lengths.
+   *
+   * @param rng
+   *   The random numbers.
+   * @param distinct
+   *   The number of possible values.
+   * @param lengths
+   *   The length of each shard.
+   * @return The shards.
+   */
+  static Integer[][] shards(Random rng, int distinct, int... lengths) {
+    Integer[][] shards = new Integer[lengths.length][];
+    for (int r = 0; r < lengths.length; r++) {
+      shards[r] = new Integer[lengths[r]];
+      for (int i = 0; i < lengths[r]; i++) {
+        shards[r][i] = rng.nextInt(distinct);
+      } // for
+    } // for
+    return shards;
+  } // shards(Random, int, int...)
+
+  /**
+   * Nodes in one JVM sort random shards of uneven sizes, including
+   * empty ones and heavy duplicates.
+   *
+   * @throws Exception
+   *   If a node fails.
+   */
+  @Test
+  public void localTest() throws Exception {
+    Random rng = new Random(46);
+    check(LocalTransport.group(1), shards(rng, 1000, 500));
+    check(LocalTransport.group(4), shards(rng, 1_000_000, 5000, 3000, 7000, 4000));
+    check(LocalTransport.group(4), shards(rng, 5, 2000, 0, 2000, 10));
+    check(LocalTransport.group(3), shards(rng, 100, 0, 0, 0));
+    check(LocalTransport.group(5), shards(rng, 1000, 1, 2, 0, 3, 1));
+  } // localTest()
+
+  /**
+   * Connect a group of nodes by sockets on free loopback ports.
+   *
+   * @param nodes
+   *   The number of nodes.
+   * @return The nodes, by rank.
+   * @throws Exception
+   *   If the group cannot be connected.
+   */
+  static List<Transport> sockets(int nodes) throws Exception {
+    List<ServerSocket> servers = new ArrayList<ServerSocket>();
+    List<InetSocketAddress> addresses = new ArrayList<InetSocketAddress>();
+    for (int r = 0; r < nodes; r++) {
+      ServerSocket server = new ServerSocket(0, nodes, InetAddress.getLoopbackAddress());
+      servers.add(server);
+      addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+          server.getLocalPort()));
+    } // for
+
+    ExecutorService pool = Executors.newFixedThreadPool(nodes);
+    try {
+      List<Future<Transport>> joined = new ArrayList<Future<Transport>>();
+      for (int r = 0; r < nodes; r++) {
+        int rank = r;
+        joined.add(pool.submit(() -> (Transport)
+            new SocketTransport(rank, addresses, servers.get(rank), KEY)));
+      } // for
+      List<Transport> transports = new ArrayList<Transport>();
+      for (Future<Transport> transport : joined) {
+        transports.add(transport.get(30, TimeUnit.SECONDS));
+      } // for
+      return transports;
+    } finally {
+      pool.shutdownNow();
+    } // try/finally
+  } // sockets(int)
+
+  /**
+   * Nodes connected by sockets sort random shards.
+   *
+   * @throws Exception
+   *   If a node fails.
+   */
+  @Test
+  public void socketTest() throws Exception {
+    check(sockets(3), shards(new Random(46), 10_000, 20_000, 15_000, 25_000));
+  } // socketTest()
+
+  /**
+   * Messages arrive whole and in order, and a node whose peer has gone
+   * away fails instead of waiting forever.
+   *
+   * @throws Exception
+   *   If the group cannot be connected.
+   */
+  @Test
+  public void closedPeerTest() throws Exception {
+    List<Transport> transports = sockets(2);
+    transports.get(1).send(0, new byte[] {1, 2, 3});
+    transports.get(1).send(0, new byte[100_000]);
+    transports.get(1).close();
+    assertArrayEquals(new byte[] {1, 2, 3}, transports.get(0).receive(1));
+    assertEquals(100_000, transports.get(0).receive(1).length);
+    assertEquals(100_003, transports.get(1).bytesSent());
+    assertThrows(EOFException.class, () -> transports.get(0).receive(1));
+    transports.get(0).close();
+  } // closedPeerTest()
+
+  /**
+   * Start node 0 of a pair on a free loopback port and connect to it
+   * by hand, as node 1 would.
+   *
+   * @param pool
+   *   Runs node 0 while it waits.
+   * @param key
+   *   The key to offer.
+   * @param joined
+   *   Where node 0 is put once it has accepted.
+   * @return The connection to node 0.
+   * @throws Exception
+   *   If the connection cannot be made.
+   */
+  static DataOutputStream impostor(ExecutorService pool, long key,
+      List<Future<Transport>> joined) throws Exception {
+    ServerSocket server = new ServerSocket(0, 2, InetAddress.getLoopbackAddress());
+    List<InetSocketAddress> addresses = List.of(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort()),
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 1));
+    joined.add(pool.submit(() -> (Transport) new SocketTransport(0, addresses, server, KEY)));
+    Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+    out.writeInt(1);
+    out.writeLong(key);
+    out.flush();
+    return out;
+  } // impostor(ExecutorService, long, List)
+
+  /**
+   * A connection without the group's key is refused.
+   *
+   * @throws Exception
+   *   If the test cannot run.
+   */
+  @Test
+  public void wrongKeyTest() throws Exception {
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    try {
+      List<Future<Transport>> joined = new ArrayList<Future<Transport>>();
+      try (DataOutputStream out = impostor(pool, KEY + 1, joined)) {
+        ExecutionException failure = assertThrows(ExecutionException.class,
+            () -> joined.get(0).get(30, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, failure.getCause());
+      } // try
+    } finally {
+      pool.shutdownNow();
+    } // try/finally
+  } // wrongKeyTest()
+
+  /**
+   * A peer that sends a bad length is dropped, and receive fails
+   * rather than waiting forever.
+   *
+   * @throws Exception
+   *   If the test cannot run.
+   */
+  @Test
+  public void badLengthTest() throws Exception {
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    try {
+      List<Future<Transport>> joined = new ArrayList<Future<Transport>>();
+      try (DataOutputStream out = impostor(pool, KEY, joined)) {
+        Transport transport = joined.get(0).get(30, TimeUnit.SECONDS);
+        out.writeInt(3);
+        out.write(new byte[] {4, 5, 6});
+        out.writeInt(-1);
+        out.flush();
+        assertArrayEquals(new byte[] {4, 5, 6}, transport.receive(1));
+        assertThrows(EOFException.class, () -> transport.receive(1));
+        transport.close();
+      } // try
+    } finally {
+      pool.shutdownNow();
+    } // try/finally
+  } // badLengthTest()
+
+  /**
+   * decode reads arrays of the values being sorted and refuses
+   * anything else.
+   *
+   * @throws Exception
+   *   If encoding fails.
+   */
+  @Test
+  public void decodeFilterTest() throws Exception {
+    DistributedSorter<Integer> sorter = new DistributedSorter<Integer>(
+        LocalTransport.group(1).get(0), new FargoAndrewSorter<Integer>(ORDER), ORDER);
+    sorter.type = Integer.class;
+    Integer[] values = {3, 1, 2};
+    assertArrayEquals(values, sorter.decode(DistributedSorter.encode(values)));
+    assertThrows(InvalidClassException.class, () ->
+        sorter.decode(DistributedSorter.encode(new Object[] {new ArrayList<Integer>()})));
+    assertThrows(InvalidClassException.class, () ->
+        sorter.decode(DistributedSorter.encode(new Long[] {1L})));
+  } // decodeFilterTest()
+
+  /**
+   * Sort people on three nodes in one JVM, reading with filter.
+   *
+   * @param filter
+   *   What the nodes may read, or null for the default.
+   * @return What each node returned or threw, by rank.
+   * @throws Exception
+   *   If a node takes too long.
+   */
+  static List<Object> people(ObjectInputFilter filter) throws Exception {
+    Comparator<Person> order = Comparator.comparing(Person::age);
+    Random rng = new Random(46);
+    List<Transport> transports = LocalTransport.group(3);
+    ExecutorService pool = Executors.newFixedThreadPool(3);
+    try {
+      List<Future<Person[]>> results = new ArrayList<Future<Person[]>>();
+      for (Transport transport : transports) {
+        Person[] shard = new Person[1000];
+        for (int i = 0; i < shard.length; i++) {
+          shard[i] = new Person("p" + i, rng.nextInt(100));
+        } // for
+        results.add(pool.submit(() -> new DistributedSorter<Person>(transport,
+            new FargoAndrewSorter<Person>(order), order, filter).sort(shard)));
+      } // for
+      List<Object> outcomes = new ArrayList<Object>();
+      for (Future<Person[]> result : results) {
+        try {
+          outcomes.add(result.get(30, TimeUnit.SECONDS));
+        } catch (ExecutionException e) {
+          outcomes.add(e.getCause());
+        } // try/catch
+      } // for
+      return outcomes;
+    } finally {
+      pool.shutdownNow();
+    } // try/finally
+  } // people(ObjectInputFilter)
+
+  /**
+   * Records with fields of other classes sort when the filter admits
+   * those classes. Without it a node refuses them, and every node
+   * fails rather than waiting forever for the one that gave up.
+   *
+   * @throws Exception
+   *   If a node takes too long.
+   */
+  @Test
+  public void recordTest() throws Exception {
+    List<Object> sorted = people(ObjectInputFilter.Config.createFilter(
+        "java.base/*;edu.grinnell.csc207.distributed.*;!*"));
+    int total = 0;
+    int last = -1;
+    for (Object result : sorted) {
+      for (Person person : (Person[]) result) {
+        assertTrue(last <= person.age());
+        last = person.age();
+        total++;
+      } // for
+    } // for
+    assertEquals(3000, total);
+
+    for (Object result : people(null)) {
+      assertInstanceOf(IOException.class, result);
+    } // for
+  } // recordTest()
+} // class TestDistributedSorter
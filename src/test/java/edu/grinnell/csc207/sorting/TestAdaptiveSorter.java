@@ -0,0 +1,147 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of AdaptiveSorter.
+ */
+public class TestAdaptiveSorter extends TestSorter {
+  /**
+   * How to compare integers.
+   */
+  static final Comparator<Integer> ORDER = (x, y) -> x.compareTo(y);
+
+  /**
+   * Set up the sorters.
+   */
+  @BeforeAll
+  static void setup() {
+    stringSorter = new AdaptiveSorter<String>((x, y) -> x.compareTo(y));
+    intSorter = new AdaptiveSorter<Integer>(ORDER);
+  } // setup()
+
+  /**
+   * Sort arrays of each shape the policy distinguishes.
+   */
+  @Test
+  public void shapesTest() {
+    Random rng = new Random();
+    int n = 100000;
+    Integer[][] inputs = new Integer[5][n];
+    for (int i = 0; i < n; i++) {
+      inputs[0][i] = rng.nextInt();
+      inputs[1][i] = rng.nextInt(5);
+      inputs[2][i] = i;
+      inputs[3][i] = (i < n - n / 50) ? i : rng.nextInt(n);
+      inputs[4][i] = n - i;
+    } // for
+    for (int k = 0; k < 100; k++) {
+      int i = rng.nextInt(n - 4);
+      Integer temp = inputs[2][i];
+      inputs[2][i] = inputs[2][i + 3];
+      inputs[2][i + 3] = temp;
+    } // for
+    for (Integer[] values : inputs) {
+      Integer[] expected = values.clone();
+      Arrays.sort(expected);
+      intSorter.sort(values);
+      assertArrayEquals(expected, values);
+    } // for
+  } // shapesTest()
+
+  /**
+   * The profile tells sorted, duplicate-heavy, and random arrays apart,
+   * and the default policy picks accordingly.
+   */
+  @Test
+  public void dispatchTest() {
+    AdaptiveSorter<Integer> sorter = new AdaptiveSorter<Integer>(ORDER,
+        AdaptiveSorter.Policy.defaults());
+    Random rng = new Random();
+    Integer[] sorted = new Integer[10000];
+    Integer[] dups = new Integer[10000];
+    Integer[] random = new Integer[10000];
+    for (int i = 0; i < sorted.length; i++) {
+      sorted[i] = i;
+      dups[i] = rng.nextInt(3);
+      random[i] = rng.nextInt();
+    } // for
+    AdaptiveSorter.Profile profile = sorter.profile(sorted);
+    assertTrue(profile.nearlySorted(sorter.policy));
+    assertSame(sorter.duplicates, sorter.choose(sorter.profile(dups)));
+    profile = sorter.profile(random);
+    assertFalse(profile.nearlySorted(sorter.policy));
+    assertSame(sorter.general, sorter.choose(profile));
+  } // dispatchTest()
+
+  /**
+   * Insertion sort gives up on arrays that are not nearly sorted,
+   * leaving a permutation behind.
+   */
+  @Test
+  public void insertionBudgetTest() {
+    AdaptiveSorter<Integer> sorter = new AdaptiveSorter<Integer>(ORDER);
+    Integer[] values = new Integer[1000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = values.length - i;
+    } // for
+    assertFalse(sorter.insertionSort(values, 8 * values.length));
+    Integer[] sorted = values.clone();
+    Arrays.sort(sorted);
+    for (int i = 0; i < sorted.length; i++) {
+      assertEquals(i + 1, sorted[i]);
+    } // for
+  } // insertionBudgetTest()
+
+  /**
+   * Properties override the policy, and bad ones are rejected.
+   */
+  @Test
+  public void policyTest() {
+    Properties overrides = new Properties();
+    overrides.setProperty("generalEngine", "MergeSorter");
+    overrides.setProperty("smallSize", " 5 ");
+    AdaptiveSorter.Policy policy = AdaptiveSorter.Policy.defaults().with(overrides);
+    assertEquals(5, policy.smallSize);
+    AdaptiveSorter<Integer> sorter = new AdaptiveSorter<Integer>(ORDER, policy);
+    assertTrue(sorter.general instanceof MergeSorter);
+    assertEquals(48, AdaptiveSorter.Policy.defaults().smallSize);
+
+    overrides.setProperty("noSuchSetting", "1");
+    assertThrows(IllegalArgumentException.class,
+        () -> AdaptiveSorter.Policy.defaults().with(overrides));
+    Properties badEngine = new Properties();
+    badEngine.setProperty("generalEngine", "NoSuchSorter");
+    assertThrows(IllegalArgumentException.class, () -> new AdaptiveSorter<Integer>(ORDER,
+        AdaptiveSorter.Policy.defaults().with(badEngine)));
+    Properties tooSmall = new Properties();
+    tooSmall.setProperty("smallSize", "0");
+    assertThrows(IllegalArgumentException.class,
+        () -> AdaptiveSorter.Policy.defaults().with(tooSmall));
+
+    tooSmall.setProperty("smallSize", "1");
+    sorter = new AdaptiveSorter<Integer>(ORDER, AdaptiveSorter.Policy.defaults().with(tooSmall));
+    for (int n = 0; n < 4; n++) {
+      Integer[] values = new Integer[n];
+      for (int i = 0; i < n; i++) {
+        values[i] = n - i;
+      } // for
+      sorter.sort(values);
+      for (int i = 1; i < n; i++) {
+        assertTrue(values[i - 1] <= values[i]);
+      } // for
+    } // for
+  } // policyTest()
+} // class TestAdaptiveSorter
@@ -0,0 +1,121 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of BatchSorter.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestBatchSorter {
+  /**
+   * Make a list of random arrays of small, varying sizes.
+   *
+   * @param count
+   *   The number of arrays.
+   * @param rng
+   *   Where to get the values.
+   * @return The arrays.
+   */
+  static List<Integer[]> randomArrays(int count, Random rng) {
+    List<Integer[]> arrays = new ArrayList<Integer[]>(count);
+    for (int i = 0; i < count; i++) {
+      Integer[] values = new Integer[rng.nextInt(200)];
+      Arrays.setAll(values, j -> rng.nextInt(50));
+      arrays.add(values);
+    } // for
+    return arrays;
+  } // randomArrays(int, Random)
+
+  /**
+   * Ensure that every array in a collection gets sorted.
+   *
+   * @throws Exception
+   *   If the sorter is interrupted.
+   */
+  @Test
+  public void sortAllTest() throws Exception {
+    List<Integer[]> arrays = randomArrays(1000, new Random());
+    List<Integer[]> expected = new ArrayList<Integer[]>();
+    for (Integer[] values : arrays) {
+      Integer[] copy = values.clone();
+      Arrays.sort(copy);
+      expected.add(copy);
+    } // for
+    try (BatchSorter<Integer> batch = new BatchSorter<Integer>(
+        () -> new FargoAndrewSorter<Integer>((x, y) -> x.compareTo(y)))) {
+      batch.sortAll(arrays);
+    } // try
+    for (int i = 0; i < arrays.size(); i++) {
+      assertArrayEquals(expected.get(i), arrays.get(i));
+    } // for
+  } // sortAllTest()
+
+  /**
+   * Ensure that submitted arrays are sorted even when only one batch
+   * may be in flight at a time and the last batch is partial.
+   *
+   * @throws Exception
+   *   If the sorter is interrupted.
+   */
+  @Test
+  public void backpressureTest() throws Exception {
+    List<Integer[]> arrays = randomArrays(101, new Random());
+    List<CompletableFuture<Integer[]>> futures =
+        new ArrayList<CompletableFuture<Integer[]>>();
+    try (BatchSorter<Integer> batch = new BatchSorter<Integer>(
+        () -> new Quicksorter<Integer>((x, y) -> x.compareTo(y)), 2, 3, 1)) {
+      for (Integer[] values : arrays) {
+        futures.add(batch.submit(values));
+      } // for
+    } // try
+    for (int i = 0; i < arrays.size(); i++) {
+      Integer[] values = arrays.get(i);
+      Integer[] expected = values.clone();
+      Arrays.sort(expected);
+      assertSame(values, futures.get(i).join());
+      assertArrayEquals(expected, values);
+    } // for
+  } // backpressureTest()
+
+  /**
+   * Ensure that every future completes when a sorter cannot be made or
+   * a sort throws an Error.
+   *
+   * @throws Exception
+   *   If the sorter is interrupted.
+   */
+  @Test
+  public void failureTest() throws Exception {
+    List<CompletableFuture<Integer[]>> futures =
+        new ArrayList<CompletableFuture<Integer[]>>();
+    try (BatchSorter<Integer> batch = new BatchSorter<Integer>(() -> {
+      throw new IllegalStateException("no sorter");
+    }, 1, 4, 1)) {
+      for (Integer[] values : randomArrays(10, new Random())) {
+        futures.add(batch.submit(values));
+      } // for
+    } // try
+    try (BatchSorter<Integer> batch = new BatchSorter<Integer>(
+        () -> new InsertionSorter<Integer>((x, y) -> {
+          throw new Error("broken comparator");
+        }), 1, 4, 1)) {
+      for (int i = 0; i < 10; i++) {
+        futures.add(batch.submit(new Integer[] {2, 1}));
+      } // for
+    } // try
+    for (CompletableFuture<Integer[]> future : futures) {
+      assertThrows(CompletionException.class, future::join);
+    } // for
+  } // failureTest()
+} // class TestBatchSorter
@@ -0,0 +1,64 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of BottomUpMergeSorter. The sorters use tiny tiles, an odd
+ * fan-in, and the parallel path so that the small arrays in TestSorter
+ * go through every phase.
+ */
+public class TestBottomUpMergeSorter extends TestSorter {
+  /**
+   * Set up the sorters.
+   */
+  @BeforeAll
+  static void setup() {
+    stringSorter = new BottomUpMergeSorter<String>((x, y) -> x.compareTo(y), 32, 3, 2);
+    intSorter = new BottomUpMergeSorter<Integer>((x, y) -> x.compareTo(y), 32, 3, 2);
+  } // setup()
+
+  /**
+   * Sort a large array with the default settings and check that equal
+   * keys keep their order.
+   */
+  @Test
+  public void largeStableTest() {
+    Random rng = new Random();
+    Integer[][] values = new Integer[300000][];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = new Integer[] {rng.nextInt(1000), i};
+    } // for
+    Comparator<Integer[]> byKey = (x, y) -> x[0].compareTo(y[0]);
+    Integer[][] expected = values.clone();
+    Arrays.sort(expected, byKey);
+    new BottomUpMergeSorter<Integer[]>(byKey).sort(values);
+    for (int i = 0; i < values.length; i++) {
+      assertSame(expected[i], values[i]);
+    } // for
+  } // largeStableTest()
+
+  /**
+   * Sort arrays of awkward lengths around the tile and group sizes.
+   */
+  @Test
+  public void lengthsTest() {
+    Random rng = new Random();
+    Sorter<Integer> sorter = new BottomUpMergeSorter<Integer>((x, y) -> x.compareTo(y),
+        64, 4, 100);
+    for (int n : new int[] {0, 1, 63, 64, 65, 255, 256, 257, 1023, 1025, 4097}) {
+      Integer[] values = new Integer[n];
+      Arrays.setAll(values, i -> rng.nextInt(50));
+      Integer[] expected = values.clone();
+      Arrays.sort(expected);
+      sorter.sort(values);
+      assertArrayEquals(expected, values, "n = " + n);
+    } // for
+  } // lengthsTest()
+} // class TestBottomUpMergeSorter
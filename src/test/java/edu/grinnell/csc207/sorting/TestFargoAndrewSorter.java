@@ -1,11 +1,28 @@
 package edu.grinnell.csc207.sorting;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 
 /**
  * Tests of FargoAndrewSorter.
  */
 public class TestFargoAndrewSorter extends TestSorter {
+  /**
+   * How to compare integers.
+   */
+  static final Comparator<Integer> ORDER = (x, y) -> x.compareTo(y);
+
   /**
    * Set up the sorters.
    */
@@ -15,4 +32,130 @@ public class TestFargoAndrewSorter extends TestSorter {
     intSorter = new FargoAndrewSorter<Integer>((x,y) -> x.compareTo(y));
   } // setup()
 
+  /**
+   * Make an array of random values with many duplicates.
+   *
+   * @param rng
+   *   The random numbers.
+   * @param size
+   *   The length.
+   * @param distinct
+   *   The number of possible values.
+   * @return The array.
+   */
+  static Integer[] duplicates(Random rng, int size, int distinct) {
+    Integer[] values = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = rng.nextInt(distinct);
+    } // for
+    return values;
+  } // duplicates(Random, int, int)
+
+  /**
+   * sortUnique leaves the distinct values in order at the front and
+   * the duplicates after them.
+   */
+  @Test
+  public void sortUniqueTest() {
+    FargoAndrewSorter<Integer> sorter = new FargoAndrewSorter<Integer>(ORDER);
+    Random rng = new Random(45);
+    for (int size : new int[] {0, 1, 2, 19, 20, 21, 100, 5000}) {
+      for (int distinct : new int[] {1, 3, 50, 100000}) {
+        Integer[] values = duplicates(rng, size, distinct);
+        Integer[] expected = Arrays.stream(values).distinct().sorted().toArray(Integer[]::new);
+        Integer[] everything = values.clone();
+        Arrays.sort(everything);
+        int m = sorter.sortUnique(values);
+        assertEquals(expected.length, m, "size " + size + ", distinct " + distinct);
+        assertArrayEquals(expected, Arrays.copyOf(values, m));
+        Arrays.sort(values);
+        assertArrayEquals(everything, values, "sortUnique lost or invented values");
+      } // for distinct
+    } // for size
+  } // sortUniqueTest()
+
+  /**
+   * sortGroups sorts and reports exactly the boundaries between
+   * unequal neighbours.
+   */
+  @Test
+  public void sortGroupsTest() {
+    FargoAndrewSorter<Integer> sorter = new FargoAndrewSorter<Integer>(ORDER);
+    Random rng = new Random(45);
+    for (int size : new int[] {0, 1, 2, 19, 20, 21, 100, 5000}) {
+      for (int distinct : new int[] {1, 3, 50, 100000}) {
+        Integer[] values = duplicates(rng, size, distinct);
+        Integer[] expected = values.clone();
+        Arrays.sort(expected);
+        int[] bounds = sorter.sortGroups(values);
+        assertArrayEquals(expected, values);
+        int[] expectedBounds = new int[size + 1];
+        int groups = 0;
+        for (int i = 0; i < size; i++) {
+          if (i == 0 || !expected[i - 1].equals(expected[i])) {
+            expectedBounds[groups++] = i;
+          } // if
+        } // for
+        expectedBounds[groups++] = size;
+        assertArrayEquals(Arrays.copyOf(expectedBounds, groups), bounds,
+            "size " + size + ", distinct " + distinct);
+      } // for distinct
+    } // for size
+  } // sortGroupsTest()
+
+  /**
+   * sortedIterator returns the values in order, however far it is
+   * read, and leaves what it has returned at the front of the array.
+   */
+  @Test
+  public void sortedIteratorTest() {
+    FargoAndrewSorter<Integer> sorter = new FargoAndrewSorter<Integer>(ORDER);
+    Random rng = new Random(47);
+    for (int size : new int[] {0, 1, 2, 19, 20, 21, 100, 5000}) {
+      for (int distinct : new int[] {1, 3, 50, 100000}) {
+        for (int read : new int[] {0, 1, 7, size / 2, size}) {
+          Integer[] values = duplicates(rng, size, distinct);
+          Integer[] expected = values.clone();
+          Arrays.sort(expected);
+          Iterator<Integer> it = sorter.sortedIterator(values);
+          for (int i = 0; i < Math.min(read, size); i++) {
+            assertTrue(it.hasNext());
+            assertEquals(expected[i], it.next(), "size " + size + ", index " + i);
+          } // for
+          Integer[] rest = Arrays.copyOfRange(values, Math.min(read, size), size);
+          Arrays.sort(rest);
+          assertArrayEquals(Arrays.copyOfRange(expected, Math.min(read, size), size), rest);
+          if (read >= size) {
+            assertFalse(it.hasNext());
+            assertThrows(NoSuchElementException.class, it::next);
+            assertArrayEquals(expected, values);
+          } // if
+        } // for read
+      } // for distinct
+    } // for size
+  } // sortedIteratorTest()
+
+  /**
+   * Reading a few values from a sorted iterator takes far fewer
+   * comparisons than sorting everything.
+   */
+  @Test
+  public void sortedIteratorIsLazyTest() {
+    int[] comparisons = new int[1];
+    Comparator<Integer> counting = (x, y) -> {
+      comparisons[0]++;
+      return x.compareTo(y);
+    };
+    FargoAndrewSorter<Integer> sorter = new FargoAndrewSorter<Integer>(counting);
+    Integer[] values = duplicates(new Random(47), 100_000, Integer.MAX_VALUE);
+    sorter.sort(values.clone());
+    int full = comparisons[0];
+    comparisons[0] = 0;
+    Iterator<Integer> it = sorter.sortedIterator(values);
+    for (int i = 0; i < 100; i++) {
+      it.next();
+    } // for
+    assertTrue(comparisons[0] < full / 4,
+        comparisons[0] + " comparisons to read 100, " + full + " to sort");
+  } // sortedIteratorIsLazyTest()
 } // class FargoAndrewSorter
@@ -0,0 +1,82 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of InPlaceMergeSorter. The sorters use a two-element buffer so
+ * that the small arrays in TestSorter go through SymMerge and rotation
+ * rather than only the buffered merges.
+ */
+public class TestInPlaceMergeSorter extends TestSorter {
+  /**
+   * Compare pairs by their first element only.
+   */
+  static final Comparator<Integer[]> BY_KEY = (x, y) -> x[0].compareTo(y[0]);
+
+  /**
+   * Set up the sorters.
+   */
+  @BeforeAll
+  static void setup() {
+    stringSorter = new InPlaceMergeSorter<String>((x, y) -> x.compareTo(y), 2);
+    intSorter = new InPlaceMergeSorter<Integer>((x, y) -> x.compareTo(y), 2);
+  } // setup()
+
+  /**
+   * Sort keyed pairs and check that equal keys keep their order.
+   *
+   * @param sorter
+   *   The sorter.
+   * @param rng
+   *   The random numbers.
+   * @param n
+   *   The number of pairs.
+   * @param keys
+   *   The number of possible keys.
+   */
+  static void checkStable(Sorter<Integer[]> sorter, Random rng, int n, int keys) {
+    Integer[][] values = new Integer[n][];
+    for (int i = 0; i < n; i++) {
+      values[i] = new Integer[] {rng.nextInt(keys), i};
+    } // for
+    Integer[][] expected = values.clone();
+    Arrays.sort(expected, BY_KEY);
+    sorter.sort(values);
+    for (int i = 0; i < n; i++) {
+      assertSame(expected[i], values[i], "n = " + n + ", keys = " + keys + ", i = " + i);
+    } // for
+  } // checkStable(Sorter, Random, int, int)
+
+  /**
+   * Equal keys keep their order for awkward lengths and every kind of
+   * merge: buffered, SymMerge with buffered rotations, and SymMerge
+   * with rotations by reversal.
+   */
+  @Test
+  public void stableTest() {
+    Random rng = new Random(49);
+    for (int buffer : new int[] {1, 7, 64, InPlaceMergeSorter.DEFAULT_BUFFER}) {
+      Sorter<Integer[]> sorter = new InPlaceMergeSorter<Integer[]>(BY_KEY, buffer);
+      for (int n : new int[] {0, 1, 2, 19, 20, 21, 39, 40, 41, 99, 1000, 4097}) {
+        for (int keys : new int[] {1, 2, 10, 1000000}) {
+          checkStable(sorter, rng, n, keys);
+        } // for keys
+      } // for n
+    } // for buffer
+  } // stableTest()
+
+  /**
+   * Sort a large array with the default buffer and check that equal
+   * keys keep their order.
+   */
+  @Test
+  public void largeStableTest() {
+    checkStable(new InPlaceMergeSorter<Integer[]>(BY_KEY), new Random(49), 300000, 1000);
+  } // largeStableTest()
+} // class TestInPlaceMergeSorter
@@ -0,0 +1,142 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of KWayMerger.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestKWayMerger {
+  /**
+   * How to compare integers.
+   */
+  static final Comparator<Integer> ORDER = (x, y) -> x.compareTo(y);
+
+  /**
+   * Make k sorted runs of random lengths, some of them empty.
+   *
+   * @param rng
+   *   Where to get randomness.
+   * @param k
+   *   The number of runs.
+   * @return The runs.
+   */
+  static List<Integer[]> runs(Random rng, int k) {
+    List<Integer[]> runs = new ArrayList<Integer[]>();
+    for (int r = 0; r < k; r++) {
+      Integer[] run = new Integer[rng.nextInt(4) == 0 ? 0 : rng.nextInt(200)];
+      Arrays.setAll(run, i -> rng.nextInt(100));
+      Arrays.sort(run);
+      runs.add(run);
+    } // for
+    return runs;
+  } // runs(Random, int)
+
+  /**
+   * Concatenate and sort runs the slow way.
+   *
+   * @param runs
+   *   The runs.
+   * @return The sorted values.
+   */
+  static Integer[] expected(List<Integer[]> runs) {
+    List<Integer> all = new ArrayList<Integer>();
+    for (Integer[] run : runs) {
+      all.addAll(Arrays.asList(run));
+    } // for
+    Integer[] result = all.toArray(new Integer[0]);
+    Arrays.sort(result);
+    return result;
+  } // expected(List)
+
+  /**
+   * Array merges agree with sorting, for many values of k.
+   */
+  @Test
+  public void arrayTest() {
+    Random rng = new Random();
+    KWayMerger<Integer> merger = new KWayMerger<Integer>(ORDER);
+    for (int k = 0; k <= 37; k++) {
+      List<Integer[]> runs = runs(rng, k);
+      assertArrayEquals(expected(runs), merger.mergeArrays(runs), "k = " + k);
+    } // for
+  } // arrayTest()
+
+  /**
+   * Iterator merges agree with sorting and end cleanly.
+   */
+  @Test
+  public void iteratorTest() {
+    Random rng = new Random();
+    KWayMerger<Integer> merger = new KWayMerger<Integer>(ORDER);
+    for (int k = 0; k <= 37; k++) {
+      List<Integer[]> runs = runs(rng, k);
+      List<Iterator<Integer>> sources = new ArrayList<Iterator<Integer>>();
+      for (Integer[] run : runs) {
+        sources.add(Arrays.asList(run).iterator());
+      } // for
+      Iterator<Integer> merged = merger.mergeIterators(sources);
+      List<Integer> actual = new ArrayList<Integer>();
+      while (merged.hasNext()) {
+        actual.add(merged.next());
+      } // while
+      assertEquals(Arrays.asList(expected(runs)), actual, "k = " + k);
+      assertFalse(merged.hasNext());
+      assertThrows(NoSuchElementException.class, () -> merged.next());
+    } // for
+  } // iteratorTest()
+
+  /**
+   * Merging ranges of one array matches sorting the whole span.
+   */
+  @Test
+  public void rangeTest() {
+    Random rng = new Random();
+    KWayMerger<Integer> merger = new KWayMerger<Integer>(ORDER);
+    Integer[] source = new Integer[1000];
+    Arrays.setAll(source, i -> rng.nextInt(500));
+    int[] bounds = {100, 150, 150, 400, 401, 900};
+    for (int r = 0; r + 1 < bounds.length; r++) {
+      Arrays.sort(source, bounds[r], bounds[r + 1]);
+    } // for
+    Integer[] sink = new Integer[source.length];
+    merger.mergeRanges(source, bounds, sink);
+    Integer[] expected = Arrays.copyOfRange(source, 100, 900);
+    Arrays.sort(expected);
+    assertArrayEquals(expected, Arrays.copyOfRange(sink, 100, 900));
+    assertEquals(null, sink[99]);
+    assertEquals(null, sink[900]);
+  } // rangeTest()
+
+  /**
+   * Equal values come out in run order.
+   */
+  @Test
+  public void stabilityTest() {
+    Comparator<String> byLength = (x, y) -> x.length() - y.length();
+    KWayMerger<String> merger = new KWayMerger<String>(byLength);
+    String[] a = {"a", "bb", "ccc"};
+    String[] b = {"d", "ee"};
+    String[] c = {"f", "gg", "hhh"};
+    String[] merged = merger.mergeArrays(List.of(a, b, c));
+    String[] expected = {"a", "d", "f", "bb", "ee", "gg", "ccc", "hhh"};
+    for (int i = 0; i < expected.length; i++) {
+      assertSame(expected[i], merged[i]);
+    } // for
+    assertSame(String[].class, merged.getClass());
+  } // stabilityTest()
+} // class TestKWayMerger
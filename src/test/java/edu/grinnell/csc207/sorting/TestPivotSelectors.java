@@ -0,0 +1,144 @@
+package edu.grinnell.csc207.sorting;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the pivot selectors.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestPivotSelectors {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * How to compare integers.
+   */
+  static final Comparator<Integer> ORDER = (x, y) -> x.compareTo(y);
+
+  /**
+   * Every selector we know about.
+   */
+  static final PivotSelector[] SELECTORS = {
+    PivotSelectors.RANDOM_MEDIAN_OF_THREE,
+    PivotSelectors.MEDIAN_OF_THREE,
+    PivotSelectors.NINTHER,
+    PivotSelectors.seeded(207)
+  };
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Ensure that the median of three is the middle value.
+   */
+  @Test
+  public void medianTest() {
+    Integer[][] triples = {{1, 2, 3}, {1, 3, 2}, {2, 1, 3}, {2, 3, 1},
+                           {3, 1, 2}, {3, 2, 1}, {2, 2, 1}, {1, 2, 2}};
+    for (Integer[] t : triples) {
+      Integer[] sorted = t.clone();
+      Arrays.sort(sorted);
+      assertEquals(sorted[1], PivotSelectors.median(ORDER, t[0], t[1], t[2]));
+    } // for
+  } // medianTest()
+
+  /**
+   * Ensure that every selector picks a value from inside the bounds.
+   */
+  @Test
+  public void inBoundsTest() {
+    Integer[] values = new Integer[1000];
+    Arrays.setAll(values, i -> i);
+    for (PivotSelector selector : SELECTORS) {
+      for (int lb = 0; lb < 900; lb += 37) {
+        for (int ub = lb + 1; ub <= values.length; ub += 53) {
+          int pivot = selector.select(values, ORDER, lb, ub);
+          assertTrue(lb <= pivot && pivot < ub,
+              () -> selector.getClass().getSimpleName() + " left the subarray");
+        } // for ub
+      } // for lb
+    } // for
+  } // inBoundsTest()
+
+  /**
+   * Ensure that the seeded selector makes the same choices every time.
+   */
+  @Test
+  public void seededTest() {
+    Integer[] values = new Integer[500];
+    Arrays.setAll(values, i -> i);
+    PivotSelector first = PivotSelectors.seeded(42);
+    PivotSelector second = PivotSelectors.seeded(42);
+    for (int ub = 3; ub <= values.length; ub++) {
+      assertEquals(first.select(values, ORDER, 0, ub),
+          second.select(values, ORDER, 0, ub));
+    } // for
+  } // seededTest()
+
+  /**
+   * Ensure that FargoAndrewSorter sorts large arrays with every selector.
+   */
+  @Test
+  public void sortTest() {
+    Random rng = new Random();
+    for (PivotSelector selector : SELECTORS) {
+      Sorter<Integer> sorter = new FargoAndrewSorter<Integer>(ORDER, selector);
+      Integer[] values = new Integer[10000];
+      Arrays.setAll(values, i -> rng.nextInt(5000));
+      Integer[] expected = values.clone();
+      Arrays.sort(expected);
+      sorter.sort(values);
+      assertArrayEquals(expected, values);
+    } // for
+  } // sortTest()
+
+  /**
+   * Ensure that sorting, and thus every partition step, allocates
+   * nothing once the values exist.
+   */
+  @Test
+  public void allocationTest() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+      return;
+    } // if
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+    if (!threads.isThreadAllocatedMemorySupported()) {
+      return;
+    } // if
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    Integer[] source = new Integer[20000];
+    Random rng = new Random(207);
+    Arrays.setAll(source, i -> rng.nextInt());
+    Integer[] values = new Integer[source.length];
+    long id = Thread.currentThread().getId();
+    for (PivotSelector selector : SELECTORS) {
+      Sorter<Integer> sorter = new FargoAndrewSorter<Integer>(ORDER, selector);
+      // Warm up so that class loading is out of the way.
+      for (int i = 0; i < 5; i++) {
+        System.arraycopy(source, 0, values, 0, source.length);
+        sorter.sort(values);
+      } // for
+      System.arraycopy(source, 0, values, 0, source.length);
+      long before = threads.getThreadAllocatedBytes(id);
+      sorter.sort(values);
+      long after = threads.getThreadAllocatedBytes(id);
+      // Leave room for the bookkeeping of the measurement itself.
+      assertTrue(after - before < 1024,
+          () -> selector.getClass().getSimpleName() + " allocated "
+              + (after - before) + " bytes");
+    } // for
+  } // allocationTest()
+} // class TestPivotSelectors
@@ -0,0 +1,145 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of PrimitiveSorter and both of its backends.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestPrimitiveSorter {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Sizes that cover the small-block, partial-vector, and merge paths.
+   */
+  static final int[] SIZES = {0, 1, 2, 3, 7, 8, 9, 15, 16, 17, 31, 33, 100, 1000, 65537};
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Make random ints, some spread out, some with many duplicates,
+   * and some extreme.
+   *
+   * @param size
+   *   The number of ints.
+   * @param rng
+   *   Where to get them.
+   * @return The ints.
+   */
+  static int[] randomInts(int size, Random rng) {
+    int[] values = new int[size];
+    int spread = rng.nextBoolean() ? Integer.MAX_VALUE : 10;
+    for (int i = 0; i < size; i++) {
+      values[i] = (rng.nextInt(20) == 0)
+          ? (rng.nextBoolean() ? Integer.MIN_VALUE : Integer.MAX_VALUE)
+          : rng.nextInt(spread) - spread / 2;
+    } // for
+    return values;
+  } // randomInts(int, Random)
+
+  /**
+   * Check that a backend sorts ints and longs both ways.
+   *
+   * @param kernels
+   *   The backend.
+   */
+  static void assertKernelsSort(PrimitiveKernels kernels) {
+    Random rng = new Random();
+    for (int size : SIZES) {
+      for (int trial = 0; trial < 4; trial++) {
+        int[] ints = randomInts(size, rng);
+        int[] expected = ints.clone();
+        Arrays.sort(expected);
+        int[] copy = ints.clone();
+        kernels.quicksort(copy);
+        assertArrayEquals(expected, copy, "quicksort(int[]) of size " + size);
+        copy = ints.clone();
+        kernels.mergeSort(copy);
+        assertArrayEquals(expected, copy, "mergeSort(int[]) of size " + size);
+
+        long[] longs = new long[size];
+        for (int i = 0; i < size; i++) {
+          longs[i] = ((long) ints[i] << 20) ^ rng.nextInt(3);
+        } // for
+        long[] expectedLongs = longs.clone();
+        Arrays.sort(expectedLongs);
+        long[] copyLongs = longs.clone();
+        kernels.quicksort(copyLongs);
+        assertArrayEquals(expectedLongs, copyLongs, "quicksort(long[]) of size " + size);
+        copyLongs = longs.clone();
+        kernels.mergeSort(copyLongs);
+        assertArrayEquals(expectedLongs, copyLongs, "mergeSort(long[]) of size " + size);
+      } // for trial
+    } // for size
+  } // assertKernelsSort(PrimitiveKernels)
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * The facade uses the vector kernels exactly when the module is there
+   * and the kernels agree to run on this hardware.
+   */
+  @Test
+  public void backendTest() {
+    boolean usable = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    if (usable) {
+      try {
+        Class.forName("edu.grinnell.csc207.sorting.VectorKernels")
+            .getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException e) {
+        usable = false;
+      } // try/catch
+    } // if
+    assertEquals(usable, PrimitiveSorter.isAccelerated());
+  } // backendTest()
+
+  /**
+   * The backend chosen by the facade sorts correctly.
+   */
+  @Test
+  public void chosenKernelsTest() {
+    assertKernelsSort(PrimitiveSorter.KERNELS);
+  } // chosenKernelsTest()
+
+  /**
+   * The scalar fallback sorts correctly.
+   */
+  @Test
+  public void scalarKernelsTest() {
+    assertKernelsSort(new ScalarKernels());
+  } // scalarKernelsTest()
+
+  /**
+   * Floats sort like Arrays.sort, including zeros, infinities, and NaN.
+   */
+  @Test
+  public void floatTest() {
+    Random rng = new Random();
+    float[] special = {Float.NaN, -0.0f, 0.0f, Float.NEGATIVE_INFINITY,
+                       Float.POSITIVE_INFINITY, Float.MIN_VALUE, -Float.MAX_VALUE};
+    float[] values = new float[1000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = (i < special.length) ? special[i] : (rng.nextFloat() - 0.5f) * 1e6f;
+    } // for
+    float[] expected = values.clone();
+    Arrays.sort(expected);
+    float[] copy = values.clone();
+    PrimitiveSorter.quicksort(copy);
+    assertArrayEquals(expected, copy);
+    copy = values.clone();
+    PrimitiveSorter.mergeSort(copy);
+    assertArrayEquals(expected, copy);
+  } // floatTest()
+} // class TestPrimitiveSorter
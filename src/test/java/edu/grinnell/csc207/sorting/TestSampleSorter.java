@@ -0,0 +1,85 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of SampleSorter. The sorters are set up to take the parallel
+ * path even for the small arrays in TestSorter.
+ */
+public class TestSampleSorter extends TestSorter {
+  /**
+   * Set up the sorters.
+   */
+  @BeforeAll
+  static void setup() {
+    stringSorter = new SampleSorter<String>((x, y) -> x.compareTo(y),
+        new FargoAndrewSorter<String>((x, y) -> x.compareTo(y)), 8, 2);
+    intSorter = new SampleSorter<Integer>((x, y) -> x.compareTo(y),
+        new FargoAndrewSorter<Integer>((x, y) -> x.compareTo(y)), 8, 2);
+  } // setup()
+
+  /**
+   * Sort an array large enough to take several blocks, with and
+   * without many duplicates.
+   */
+  @Test
+  public void largeArrayTest() {
+    Random rng = new Random();
+    Sorter<Integer> sorter = new SampleSorter<Integer>((x, y) -> x.compareTo(y));
+    for (int range : new int[] {Integer.MAX_VALUE, 1000, 3}) {
+      Integer[] values = new Integer[200000];
+      Arrays.setAll(values, i -> rng.nextInt(range));
+      Integer[] expected = values.clone();
+      Arrays.sort(expected);
+      sorter.sort(values);
+      assertArrayEquals(expected, values);
+    } // for
+  } // largeArrayTest()
+
+  /**
+   * Wrap a sorter so that it remembers the largest array it sorts.
+   * The sample sorter hands it Object arrays, so this stays generic.
+   *
+   * @param <T>
+   *   The types of values that are sorted.
+   * @param inner
+   *   The sorter.
+   * @param largest
+   *   Where to remember the largest length.
+   * @return The wrapped sorter.
+   */
+  static <T> Sorter<T> measuring(Sorter<T> inner, AtomicInteger largest) {
+    return (values) -> {
+      largest.accumulateAndGet(values.length, Math::max);
+      inner.sort(values);
+    };
+  } // measuring(Sorter, AtomicInteger)
+
+  /**
+   * With only a few distinct values, each one gets an equality bucket
+   * of its own that is never sorted, so no bucket sort sees more than
+   * the sample.
+   */
+  @Test
+  public void lowCardinalityTest() {
+    Random rng = new Random(29);
+    AtomicInteger largest = new AtomicInteger();
+    Sorter<Integer> sorter = new SampleSorter<Integer>((x, y) -> x.compareTo(y),
+        measuring(new FargoAndrewSorter<Integer>((x, y) -> x.compareTo(y)), largest),
+        16, 1000);
+    Integer[] values = new Integer[200000];
+    Arrays.setAll(values, i -> rng.nextInt(5));
+    Integer[] expected = values.clone();
+    Arrays.sort(expected);
+    sorter.sort(values);
+    assertArrayEquals(expected, values);
+    assertTrue(largest.get() <= 16 * SampleSorter.OVERSAMPLE, "largest sort: " + largest);
+  } // lowCardinalityTest()
+} // class TestSampleSorter
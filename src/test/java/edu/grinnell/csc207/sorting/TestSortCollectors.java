@@ -0,0 +1,121 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of SortCollectors.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestSortCollectors {
+  /**
+   * How to compare integers.
+   */
+  static final Comparator<Integer> ORDER = (x, y) -> x.compareTo(y);
+
+  /**
+   * Make some random integers, with repeats.
+   *
+   * @param n
+   *   How many.
+   * @return The integers.
+   */
+  static List<Integer> randomList(int n) {
+    Random rng = new Random();
+    List<Integer> values = new ArrayList<Integer>(n);
+    for (int i = 0; i < n; i++) {
+      values.add(rng.nextInt(n / 2 + 1));
+    } // for
+    return values;
+  } // randomList(int)
+
+  /**
+   * Sort a copy of a list the JDK's way.
+   *
+   * @param values
+   *   The list.
+   * @return The sorted copy.
+   */
+  static List<Integer> expected(List<Integer> values) {
+    List<Integer> result = new ArrayList<Integer>(values);
+    result.sort(ORDER);
+    return result;
+  } // expected(List)
+
+  /**
+   * The collectors agree with List.sort on sequential and parallel
+   * streams.
+   */
+  @Test
+  public void collectorTest() {
+    for (int n : new int[] {0, 1, 2, 100, 100000}) {
+      List<Integer> values = randomList(n);
+      List<Integer> expected = expected(values);
+      assertEquals(expected, values.stream().collect(SortCollectors.sorted(ORDER)));
+      assertEquals(expected,
+          values.parallelStream().collect(SortCollectors.sorted(new MergeSorter<Integer>(ORDER))));
+      assertEquals(expected, values.stream().collect(SortCollectors.sortedParallel(ORDER)));
+      assertEquals(expected,
+          values.parallelStream().collect(SortCollectors.sortedParallel(ORDER)));
+    } // for
+  } // collectorTest()
+
+  /**
+   * With a stable sorter, the parallel collector keeps equal elements
+   * in encounter order.
+   */
+  @Test
+  public void parallelStabilityTest() {
+    Integer[][] pairs = new Integer[50000][];
+    Random rng = new Random();
+    for (int i = 0; i < pairs.length; i++) {
+      pairs[i] = new Integer[] {rng.nextInt(100), i};
+    } // for
+    Comparator<Integer[]> byKey = (x, y) -> x[0].compareTo(y[0]);
+    List<Integer[]> actual = Arrays.stream(pairs).parallel()
+        .collect(SortCollectors.sortedParallel(new MergeSorter<Integer[]>(byKey), byKey));
+    Integer[][] expected = pairs.clone();
+    Arrays.sort(expected, byKey);
+    for (int i = 0; i < expected.length; i++) {
+      assertSame(expected[i], actual.get(i));
+    } // for
+  } // parallelStabilityTest()
+
+  /**
+   * The stream adapter sorts, keeps the stream's parallelism, and
+   * does nothing until a terminal operation runs.
+   */
+  @Test
+  public void streamTest() {
+    List<Integer> values = randomList(20000);
+    List<Integer> expected = expected(values);
+    Sorter<Integer> sorter = new FargoAndrewSorter<Integer>(ORDER);
+    assertEquals(expected, SortCollectors.sorted(values.stream(), sorter, ORDER)
+        .collect(Collectors.toList()));
+    Stream<Integer> parallel = SortCollectors.sorted(values.parallelStream(), sorter, ORDER);
+    assertTrue(parallel.isParallel());
+    assertEquals(expected, parallel.collect(Collectors.toList()));
+    assertEquals(expected.subList(0, 10),
+        SortCollectors.sorted(IntStream.range(0, values.size()).mapToObj(values::get)
+            .filter(x -> true), sorter, ORDER).limit(10).collect(Collectors.toList()));
+
+    int[] pulled = new int[1];
+    Stream<Integer> lazy = SortCollectors.sorted(values.stream().peek(x -> pulled[0]++),
+        sorter, ORDER);
+    assertEquals(0, pulled[0]);
+    assertEquals(expected.get(0), lazy.findFirst().get());
+    assertEquals(values.size(), pulled[0]);
+  } // streamTest()
+} // class TestSortCollectors
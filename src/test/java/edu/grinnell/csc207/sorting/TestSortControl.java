@@ -0,0 +1,192 @@
+package edu.grinnell.csc207.sorting;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of SortControl and the cancellable sorts.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestSortControl {
+  /**
+   * How to compare integers.
+   */
+  static final Comparator<Integer> ORDER = (x, y) -> x.compareTo(y);
+
+  /**
+   * The sorters that check their controls as they go.
+   *
+   * @param order
+   *   How they compare.
+   * @return The sorters.
+   */
+  static List<Sorter<Integer>> sorters(Comparator<Integer> order) {
+    return List.of(new Quicksorter<Integer>(order), new FargoAndrewSorter<Integer>(order),
+        new MergeSorter<Integer>(order));
+  } // sorters(Comparator)
+
+  /**
+   * Make an array of random values.
+   *
+   * @param size
+   *   The length.
+   * @return The array.
+   */
+  static Integer[] random(int size) {
+    Random rng = new Random(48);
+    Integer[] values = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = rng.nextInt(size);
+    } // for
+    return values;
+  } // random(int)
+
+  /**
+   * Check that an array holds the same values as another.
+   *
+   * @param original
+   *   The values before sorting.
+   * @param values
+   *   The values after.
+   */
+  static void assertPermutation(Integer[] original, Integer[] values) {
+    Integer[] expected = original.clone();
+    Integer[] actual = values.clone();
+    Arrays.sort(expected);
+    Arrays.sort(actual);
+    assertArrayEquals(expected, actual, "cancelled sort lost or invented values");
+  } // assertPermutation(Integer[], Integer[])
+
+  /**
+   * A control that is never stopped sorts as usual and reports
+   * progress that only grows and ends at the length.
+   */
+  @Test
+  public void progressTest() {
+    for (Sorter<Integer> sorter : sorters(ORDER)) {
+      Integer[] values = random(100_000);
+      Integer[] expected = values.clone();
+      Arrays.sort(expected);
+      List<Long> reports = new ArrayList<Long>();
+      sorter.sort(values, new SortControl(Duration.ofMinutes(5), reports::add));
+      assertArrayEquals(expected, values);
+      assertTrue(reports.size() > 2, sorter + " reported " + reports);
+      for (int i = 1; i < reports.size(); i++) {
+        assertTrue(reports.get(i - 1) <= reports.get(i), sorter + " went backwards");
+      } // for
+      assertTrue(reports.get(reports.size() - 2) <= values.length);
+      assertEquals(values.length, reports.get(reports.size() - 1));
+    } // for
+  } // progressTest()
+
+  /**
+   * Cancelling partway stops the sort and leaves a permutation.
+   */
+  @Test
+  public void cancelTest() {
+    for (Sorter<Integer> sorter : sorters(ORDER)) {
+      Integer[] original = random(100_000);
+      Integer[] values = original.clone();
+      SortControl[] control = new SortControl[1];
+      control[0] = new SortControl(null, (settled) -> {
+        if (settled > 0) {
+          control[0].cancel();
+        } // if
+      });
+      assertThrows(CancellationException.class, () -> sorter.sort(values, control[0]));
+      assertTrue(control[0].isCancelled());
+      assertPermutation(original, values);
+    } // for
+  } // cancelTest()
+
+  /**
+   * A sort past its deadline stops, even in sorters that can only
+   * check before they start.
+   */
+  @Test
+  public void deadlineTest() {
+    Comparator<Integer> slow = (x, y) -> {
+      long until = System.nanoTime() + 1_000;
+      while (System.nanoTime() < until) {
+        Thread.onSpinWait();
+      } // while
+      return x.compareTo(y);
+    };
+    for (Sorter<Integer> sorter : sorters(slow)) {
+      Integer[] original = random(100_000);
+      Integer[] values = original.clone();
+      SortControl control = new SortControl(Duration.ofMillis(50));
+      long start = System.nanoTime();
+      assertThrows(CancellationException.class, () -> sorter.sort(values, control));
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5),
+          sorter + " ran long past its deadline");
+      assertTrue(control.expired());
+      assertPermutation(original, values);
+    } // for
+    Integer[] values = random(10);
+    assertThrows(CancellationException.class, () ->
+        new InsertionSorter<Integer>(ORDER).sort(values, new SortControl(Duration.ZERO)));
+  } // deadlineTest()
+
+  /**
+   * sortAsync completes with the sorted array, and cancelling its
+   * future stops the sort.
+   *
+   * @throws Exception
+   *   If the executor misbehaves.
+   */
+  @Test
+  public void asyncTest() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Integer[] values = random(50_000);
+      Integer[] expected = values.clone();
+      Arrays.sort(expected);
+      CompletableFuture<Integer[]> done =
+          new FargoAndrewSorter<Integer>(ORDER).sortAsync(values, new SortControl(), executor);
+      assertArrayEquals(expected, done.get(30, TimeUnit.SECONDS));
+
+      Comparator<Integer> slow = (x, y) -> {
+        Thread.onSpinWait();
+        return x.compareTo(y);
+      };
+      Integer[] original = random(1_000_000);
+      Integer[] big = original.clone();
+      SortControl control = new SortControl();
+      CompletableFuture<Integer[]> future =
+          new MergeSorter<Integer>(slow).sortAsync(big, control, executor);
+      future.cancel(true);
+      assertTrue(control.isCancelled());
+
+      SortControl late = new SortControl(Duration.ZERO);
+      ExecutionException failure = assertThrows(ExecutionException.class, () ->
+          new Quicksorter<Integer>(ORDER).sortAsync(random(10), late, executor)
+              .get(30, TimeUnit.SECONDS));
+      assertInstanceOf(CancellationException.class, failure.getCause());
+
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+      assertPermutation(original, big);
+    } finally {
+      executor.shutdownNow();
+    } // try/finally
+  } // asyncTest()
+} // class TestSortControl
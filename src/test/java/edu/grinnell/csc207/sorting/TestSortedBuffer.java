@@ -0,0 +1,126 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of SortedBuffer.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestSortedBuffer {
+  /**
+   * How to compare integers.
+   */
+  static final Comparator<Integer> ORDER = (x, y) -> x.compareTo(y);
+
+  /**
+   * Add random batches to a buffer and check its iteration, range
+   * queries, and counts against a plain sorted list.
+   *
+   * @param buffer
+   *   The buffer, initially empty.
+   */
+  static void assertAbsorbs(SortedBuffer<Integer> buffer) {
+    Random rng = new Random();
+    List<Integer> expected = new ArrayList<Integer>();
+    for (int round = 0; round < 50; round++) {
+      Integer[] batch = new Integer[rng.nextInt(round < 5 ? 2000 : 100)];
+      Arrays.setAll(batch, i -> rng.nextInt(5000));
+      buffer.addAll(batch);
+      expected.addAll(Arrays.asList(batch));
+    } // for
+    expected.sort(ORDER);
+
+    List<Integer> actual = new ArrayList<Integer>();
+    for (Integer value : buffer) {
+      actual.add(value);
+    } // for
+    assertEquals(expected, actual);
+    assertEquals(expected.size(), buffer.size());
+
+    for (int trial = 0; trial < 100; trial++) {
+      int lo = rng.nextInt(5200) - 100;
+      int hi = lo + rng.nextInt(500);
+      List<Integer> slice = new ArrayList<Integer>();
+      for (Integer value : expected) {
+        if (lo <= value && value < hi) {
+          slice.add(value);
+        } // if
+      } // for
+      assertEquals(slice, buffer.range(lo, hi));
+      assertEquals(slice.size(), buffer.count(lo, hi));
+    } // for
+  } // assertAbsorbs(SortedBuffer)
+
+  /**
+   * An eager buffer keeps one run.
+   */
+  @Test
+  public void eagerTest() {
+    SortedBuffer<Integer> buffer = new SortedBuffer<Integer>(ORDER);
+    assertAbsorbs(buffer);
+    assertEquals(1, buffer.runCount());
+  } // eagerTest()
+
+  /**
+   * A lazy buffer keeps a logarithmic number of runs until compacted.
+   */
+  @Test
+  public void lazyTest() {
+    SortedBuffer<Integer> buffer =
+        new SortedBuffer<Integer>(ORDER, new FargoAndrewSorter<Integer>(ORDER), true);
+    assertAbsorbs(buffer);
+    assertTrue(buffer.runCount() <= 32 - Integer.numberOfLeadingZeros(buffer.size()));
+    buffer.compact();
+    assertEquals(1, buffer.runCount());
+  } // lazyTest()
+
+  /**
+   * Equal values come out in the order they were added.
+   */
+  @Test
+  public void stabilityTest() {
+    Comparator<String> byLength = (x, y) -> x.length() - y.length();
+    SortedBuffer<String> buffer = new SortedBuffer<String>(byLength);
+    String[] first = {"bb", "a", "cc"};
+    String[] second = {"dd", "e", "ff"};
+    buffer.addAll(first);
+    buffer.addAll(second);
+    String[] expected = {"a", "e", "bb", "cc", "dd", "ff"};
+    int i = 0;
+    for (String value : buffer) {
+      assertSame(expected[i++], value);
+    } // for
+  } // stabilityTest()
+
+  /**
+   * A small run merges correctly into a much larger one wherever it
+   * lands, including before, after, and among equal values.
+   */
+  @Test
+  public void skewedMergeTest() {
+    SortedBuffer<Integer> buffer = new SortedBuffer<Integer>(ORDER);
+    Integer[] older = new Integer[100_000];
+    Arrays.setAll(older, i -> 2 * (i / 3));
+    for (Integer[] newer : new Integer[][] {{-5, -1}, {70_000, 70_000}, {1, 2, 3},
+        {66_666, 200_000}, {1_000_000}}) {
+      List<Integer> expected = new ArrayList<Integer>(Arrays.asList(older));
+      expected.addAll(Arrays.asList(newer));
+      expected.sort(ORDER);
+      /* The merge is an Object[], as the buffer's runs are internally. */
+      Object[] merged = buffer.gallopingMerge(older, newer);
+      assertEquals(expected, Arrays.asList(merged));
+      merged = buffer.gallopingMerge(newer, older);
+      assertEquals(expected, Arrays.asList(merged));
+    } // for
+  } // skewedMergeTest()
+} // class TestSortedBuffer
@@ -0,0 +1,103 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of SortedIndex.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestSortedIndex {
+  /**
+   * How to compare integers.
+   */
+  static final Comparator<Integer> ORDER = (x, y) -> x.compareTo(y);
+
+  /**
+   * Find the first position in a sorted array whose value is at least
+   * (or, if strict, greater than) key, the slow way.
+   *
+   * @param sorted
+   *   The array.
+   * @param key
+   *   The key.
+   * @param strict
+   *   Whether to skip values equal to key.
+   * @return The position.
+   */
+  static int bound(long[] sorted, long key, boolean strict) {
+    int i = 0;
+    while (i < sorted.length && (sorted[i] < key || (strict && sorted[i] == key))) {
+      i++;
+    } // while
+    return i;
+  } // bound(long[], long, boolean)
+
+  /**
+   * Every size up to a few levels past full trees answers like a
+   * linear scan, for objects, ints, and longs, including keys below,
+   * between, on, and above the values.
+   */
+  @Test
+  public void boundsTest() {
+    Random rng = new Random(44);
+    for (int n = 0; n <= 70; n++) {
+      long[] longs = new long[n];
+      for (int i = 0; i < n; i++) {
+        longs[i] = 2 * rng.nextInt(n / 2 + 1);
+      } // for
+      int[] ints = new int[n];
+      Integer[] boxed = new Integer[n];
+      for (int i = 0; i < n; i++) {
+        ints[i] = (int) longs[i];
+        boxed[i] = ints[i];
+      } // for
+      SortedIndex<Integer> index =
+          SortedIndex.build(boxed, new FargoAndrewSorter<Integer>(ORDER), ORDER);
+      SortedIndex.OfInt intIndex = SortedIndex.OfInt.build(ints);
+      SortedIndex.OfLong longIndex = SortedIndex.OfLong.build(longs);
+      Arrays.sort(longs);
+      assertEquals(n, index.size());
+      for (int r = 0; r < n; r++) {
+        assertEquals(longs[r], (long) index.get(r));
+        assertEquals(longs[r], intIndex.get(r));
+        assertEquals(longs[r], longIndex.get(r));
+      } // for
+      for (int key = -1; key <= n + 2; key++) {
+        int lower = bound(longs, key, false);
+        int upper = bound(longs, key, true);
+        assertEquals(lower, index.lowerBound(key), "n = " + n + ", key = " + key);
+        assertEquals(upper, index.upperBound(key), "n = " + n + ", key = " + key);
+        assertEquals(lower, intIndex.lowerBound(key));
+        assertEquals(upper, intIndex.upperBound(key));
+        assertEquals(lower, longIndex.lowerBound(key));
+        assertEquals(upper, longIndex.upperBound(key));
+        assertEquals(upper > lower, index.contains(key));
+        assertEquals(upper > lower, intIndex.contains(key));
+        assertEquals(upper > lower, longIndex.contains(key));
+        assertEquals(upper - lower, index.count(key, key + 1));
+        assertEquals(bound(longs, key + 5, false) - lower, longIndex.count(key, key + 5));
+        assertEquals(0, intIndex.count(key + 5, key));
+      } // for
+    } // for
+  } // boundsTest()
+
+  /**
+   * Extreme keys work in the primitive indices.
+   */
+  @Test
+  public void extremesTest() {
+    SortedIndex.OfLong index =
+        SortedIndex.OfLong.build(new long[] {Long.MAX_VALUE, 0, Long.MIN_VALUE, 0});
+    assertEquals(0, index.lowerBound(Long.MIN_VALUE));
+    assertEquals(1, index.upperBound(Long.MIN_VALUE));
+    assertEquals(3, index.upperBound(0));
+    assertEquals(4, index.upperBound(Long.MAX_VALUE));
+    assertEquals(2, index.count(0, Long.MAX_VALUE));
+  } // extremesTest()
+} // class TestSortedIndex
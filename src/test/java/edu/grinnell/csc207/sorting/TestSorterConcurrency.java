@@ -0,0 +1,141 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Stress tests that share one sorter instance between many threads.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestSorterConcurrency {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of threads sharing each sorter.
+   */
+  static final int THREADS = 8;
+
+  /**
+   * The number of arrays each thread sorts.
+   */
+  static final int ROUNDS = 200;
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Have several threads sort random arrays with the same sorter at
+   * the same time, and assert that every result is sorted.
+   *
+   * @param sorter
+   *   The shared sorter.
+   * @throws Exception
+   *   If a thread fails or is interrupted.
+   */
+  static void assertShareable(Sorter<Integer> sorter) throws Exception {
+    ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> results = new ArrayList<Future<?>>();
+    try {
+      for (int t = 0; t < THREADS; t++) {
+        results.add(threads.submit(() -> {
+          start.await();
+          ThreadLocalRandom rng = ThreadLocalRandom.current();
+          for (int round = 0; round < ROUNDS; round++) {
+            Integer[] values = new Integer[50 + rng.nextInt(500)];
+            Arrays.setAll(values, i -> rng.nextInt(100));
+            Integer[] expected = values.clone();
+            Arrays.sort(expected);
+            sorter.sort(values);
+            assertArrayEquals(expected, values);
+          } // for
+          return null;
+        }));
+      } // for
+      start.countDown();
+      for (Future<?> result : results) {
+        result.get();
+      } // for
+    } finally {
+      threads.shutdownNow();
+    } // try/finally
+  } // assertShareable(Sorter)
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Share a FargoAndrewSorter between threads.
+   *
+   * @throws Exception
+   *   If a thread fails.
+   */
+  @Test
+  public void fargoAndrewSorterTest() throws Exception {
+    Comparator<Integer> order = (x, y) -> x.compareTo(y);
+    assertShareable(new FargoAndrewSorter<Integer>(order));
+  } // fargoAndrewSorterTest()
+
+  /**
+   * Share a Quicksorter between threads.
+   *
+   * @throws Exception
+   *   If a thread fails.
+   */
+  @Test
+  public void quicksorterTest() throws Exception {
+    Comparator<Integer> order = (x, y) -> x.compareTo(y);
+    assertShareable(new Quicksorter<Integer>(order));
+  } // quicksorterTest()
+
+  /**
+   * Share a MergeSorter between threads.
+   *
+   * @throws Exception
+   *   If a thread fails.
+   */
+  @Test
+  public void mergeSorterTest() throws Exception {
+    Comparator<Integer> order = (x, y) -> x.compareTo(y);
+    assertShareable(new MergeSorter<Integer>(order));
+  } // mergeSorterTest()
+
+  /**
+   * Share an InsertionSorter between threads.
+   *
+   * @throws Exception
+   *   If a thread fails.
+   */
+  @Test
+  public void insertionSorterTest() throws Exception {
+    Comparator<Integer> order = (x, y) -> x.compareTo(y);
+    assertShareable(new InsertionSorter<Integer>(order));
+  } // insertionSorterTest()
+
+  /**
+   * Share a SelectionSorter between threads.
+   *
+   * @throws Exception
+   *   If a thread fails.
+   */
+  @Test
+  public void selectionSorterTest() throws Exception {
+    Comparator<Integer> order = (x, y) -> x.compareTo(y);
+    assertShareable(new SelectionSorter<Integer>(order));
+  } // selectionSorterTest()
+} // class TestSorterConcurrency
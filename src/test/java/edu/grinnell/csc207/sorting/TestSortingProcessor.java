@@ -0,0 +1,414 @@
+package edu.grinnell.csc207.sorting;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of SortingProcessor.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestSortingProcessor {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * How to compare integers.
+   */
+  static final Comparator<Integer> ORDER = (x, y) -> x.compareTo(y);
+
+  /**
+   * Where spilled runs go.
+   */
+  @TempDir
+  Path spillDirectory;
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * A publisher of a fixed array that sends elements only as they are
+   * requested, on the requesting thread, and records how many were
+   * requested.
+   */
+  static class ArrayPublisher implements Flow.Publisher<Integer> {
+    /**
+     * The elements.
+     */
+    Integer[] values;
+
+    /**
+     * The total number of elements requested.
+     */
+    AtomicLong requested = new AtomicLong();
+
+    /**
+     * Create a publisher.
+     *
+     * @param elements
+     *   The elements.
+     */
+    ArrayPublisher(Integer[] elements) {
+      this.values = elements;
+    } // ArrayPublisher(Integer[])
+
+    /**
+     * Add a subscriber.
+     *
+     * @param subscriber
+     *   The subscriber.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super Integer> subscriber) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        int next = 0;
+
+        @Override
+        public void request(long n) {
+          ArrayPublisher.this.requested.addAndGet(n);
+          for (long i = 0; i < n && this.next < values.length; i++) {
+            subscriber.onNext(values[this.next++]);
+          } // for
+          if (this.next == values.length) {
+            this.next++;
+            subscriber.onComplete();
+          } // if
+        } // request(long)
+
+        @Override
+        public void cancel() {
+          this.next = values.length + 1;
+        } // cancel()
+      });
+    } // subscribe(Flow.Subscriber)
+  } // class ArrayPublisher
+
+  /**
+   * A subscriber that asks for a fixed number of elements at a time,
+   * up to a limit, and records them.
+   */
+  static class Collecting implements Flow.Subscriber<Integer> {
+    /**
+     * The elements received.
+     */
+    List<Integer> received = new ArrayList<Integer>();
+
+    /**
+     * How many to ask for at a time.
+     */
+    int batch;
+
+    /**
+     * How many to ask for in all.
+     */
+    long limit;
+
+    /**
+     * The subscription.
+     */
+    Flow.Subscription subscription;
+
+    /**
+     * The error received, if any.
+     */
+    Throwable error;
+
+    /**
+     * Counts down on completion or error.
+     */
+    CountDownLatch done = new CountDownLatch(1);
+
+    /**
+     * Create a subscriber.
+     *
+     * @param perRequest
+     *   How many to ask for at a time.
+     * @param total
+     *   How many to ask for in all.
+     */
+    Collecting(int perRequest, long total) {
+      this.batch = perRequest;
+      this.limit = total;
+    } // Collecting(int, long)
+
+    /**
+     * Ask for the first batch.
+     *
+     * @param s
+     *   The subscription.
+     */
+    @Override
+    public void onSubscribe(Flow.Subscription s) {
+      this.subscription = s;
+      s.request(Math.min(this.batch, this.limit));
+    } // onSubscribe(Flow.Subscription)
+
+    /**
+     * Record an element, asking for more at the end of each batch.
+     *
+     * @param item
+     *   The element.
+     */
+    @Override
+    public void onNext(Integer item) {
+      this.received.add(item);
+      if (this.received.size() % this.batch == 0 && this.received.size() < this.limit) {
+        this.subscription.request(Math.min(this.batch, this.limit - this.received.size()));
+      } // if
+    } // onNext(Integer)
+
+    /**
+     * Record an error.
+     *
+     * @param throwable
+     *   The error.
+     */
+    @Override
+    public void onError(Throwable throwable) {
+      this.error = throwable;
+      this.done.countDown();
+    } // onError(Throwable)
+
+    /**
+     * Note completion.
+     */
+    @Override
+    public void onComplete() {
+      this.done.countDown();
+    } // onComplete()
+  } // class Collecting
+
+  /**
+   * Make some random integers.
+   *
+   * @param n
+   *   How many.
+   * @return The integers.
+   */
+  static Integer[] random(int n) {
+    Random rng = new Random();
+    Integer[] values = new Integer[n];
+    Arrays.setAll(values, i -> rng.nextInt(n));
+    return values;
+  } // random(int)
+
+  /**
+   * Count the files in the spill directory.
+   *
+   * @return The number of files.
+   * @throws IOException
+   *   If the directory cannot be read.
+   */
+  long spilledFiles() throws IOException {
+    try (Stream<Path> files = Files.list(this.spillDirectory)) {
+      return files.count();
+    } // try
+  } // spilledFiles()
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * A stream much larger than the memory budget comes out sorted, and
+   * the spill files are gone afterwards.
+   *
+   * @throws Exception
+   *   If the test is interrupted or cannot list files.
+   */
+  @Test
+  public void spillTest() throws Exception {
+    Integer[] values = random(10000);
+    SortingProcessor<Integer> processor = new SortingProcessor<Integer>(
+        new MergeSorter<Integer>(ORDER), ORDER, 700, this.spillDirectory);
+    Collecting subscriber = new Collecting(37, Long.MAX_VALUE);
+    processor.subscribe(subscriber);
+    new ArrayPublisher(values).subscribe(processor);
+    assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+    assertNull(subscriber.error);
+    Integer[] expected = values.clone();
+    Arrays.sort(expected);
+    assertEquals(Arrays.asList(expected), subscriber.received);
+    assertEquals(0, spilledFiles());
+  } // spillTest()
+
+  /**
+   * An empty stream completes at once.
+   */
+  @Test
+  public void emptyTest() {
+    SortingProcessor<Integer> processor = new SortingProcessor<Integer>(ORDER);
+    Collecting subscriber = new Collecting(1, Long.MAX_VALUE);
+    processor.subscribe(subscriber);
+    new ArrayPublisher(new Integer[0]).subscribe(processor);
+    assertEquals(0, subscriber.done.getCount());
+    assertTrue(subscriber.received.isEmpty());
+  } // emptyTest()
+
+  /**
+   * Each count window comes out sorted on its own.
+   */
+  @Test
+  public void countWindowTest() {
+    Integer[] values = random(1050);
+    SortingProcessor<Integer> processor = new SortingProcessor<Integer>(
+        new MergeSorter<Integer>(ORDER), ORDER, 30, this.spillDirectory, 100, Duration.ZERO);
+    Collecting subscriber = new Collecting(7, Long.MAX_VALUE);
+    processor.subscribe(subscriber);
+    new ArrayPublisher(values).subscribe(processor);
+    assertEquals(0, subscriber.done.getCount());
+    List<Integer> expected = new ArrayList<Integer>();
+    for (int lb = 0; lb < values.length; lb += 100) {
+      Integer[] window = Arrays.copyOfRange(values, lb, Math.min(lb + 100, values.length));
+      Arrays.sort(window);
+      expected.addAll(Arrays.asList(window));
+    } // for
+    assertEquals(expected, subscriber.received);
+  } // countWindowTest()
+
+  /**
+   * A comparator that throws while a window is sorted cancels upstream
+   * and sends the exception downstream.
+   */
+  @Test
+  public void failingSortTest() {
+    IllegalStateException broken = new IllegalStateException("cannot compare");
+    Comparator<Integer> order = (x, y) -> {
+      if (x == -1 || y == -1) {
+        throw broken;
+      } // if
+      return x.compareTo(y);
+    };
+    Integer[] values = random(1000);
+    values[150] = -1;
+    ArrayPublisher publisher = new ArrayPublisher(values);
+    SortingProcessor<Integer> processor = new SortingProcessor<Integer>(
+        new MergeSorter<Integer>(order), order, 1000, this.spillDirectory, 100, Duration.ZERO);
+    Collecting subscriber = new Collecting(1000, Long.MAX_VALUE);
+    processor.subscribe(subscriber);
+    publisher.subscribe(processor);
+    assertEquals(0, subscriber.done.getCount());
+    assertSame(broken, subscriber.error);
+    assertTrue(subscriber.received.size() <= 100, "sent " + subscriber.received.size());
+  } // failingSortTest()
+
+  /**
+   * A comparator that throws in the sort of the last window, which
+   * happens only once upstream completes, or in the merge of spilled
+   * runs, still reaches the subscriber's onError, and the processor
+   * does not wedge.
+   */
+  @Test
+  public void failingFinalSortTest() {
+    IllegalStateException broken = new IllegalStateException("cannot compare");
+    Comparator<Integer> lastWindow = (x, y) -> {
+      if (x == -1 || y == -1) {
+        throw broken;
+      } // if
+      return x.compareTo(y);
+    };
+    Integer[] values = random(1050);
+    values[1020] = -1;
+    SortingProcessor<Integer> processor = new SortingProcessor<Integer>(
+        new MergeSorter<Integer>(lastWindow), lastWindow, 1000, this.spillDirectory, 100,
+        Duration.ZERO);
+    Collecting subscriber = new Collecting(1000, Long.MAX_VALUE);
+    processor.subscribe(subscriber);
+    new ArrayPublisher(values).subscribe(processor);
+    assertEquals(0, subscriber.done.getCount());
+    assertSame(broken, subscriber.error);
+    assertEquals(1000, subscriber.received.size());
+    assertEquals(0, processor.wip.get());
+
+    /* -1 only meets large values when the two runs are merged. */
+    Comparator<Integer> merging = (x, y) -> {
+      if ((x == -1 && y >= 500) || (y == -1 && x >= 500)) {
+        throw broken;
+      } // if
+      return x.compareTo(y);
+    };
+    Integer[] runs = new Integer[1000];
+    for (int i = 0; i < runs.length; i++) {
+      runs[i] = (i < 500) ? 499 - i : i;
+    } // for
+    runs[0] = -1;
+    processor = new SortingProcessor<Integer>(new MergeSorter<Integer>(merging), merging, 500,
+        this.spillDirectory, 0, Duration.ZERO);
+    subscriber = new Collecting(1000, Long.MAX_VALUE);
+    processor.subscribe(subscriber);
+    new ArrayPublisher(runs).subscribe(processor);
+    assertEquals(0, subscriber.done.getCount());
+    assertSame(broken, subscriber.error);
+    assertEquals(0, processor.wip.get());
+  } // failingFinalSortTest()
+
+  /**
+   * A subscriber that stops asking stops the flow from upstream: only
+   * about one window more than it took is ever requested.
+   */
+  @Test
+  public void backpressureTest() {
+    ArrayPublisher publisher = new ArrayPublisher(random(100000));
+    SortingProcessor<Integer> processor = new SortingProcessor<Integer>(
+        new MergeSorter<Integer>(ORDER), ORDER, 1000, this.spillDirectory, 50, Duration.ZERO);
+    Collecting subscriber = new Collecting(10, 120);
+    processor.subscribe(subscriber);
+    publisher.subscribe(processor);
+    assertEquals(120, subscriber.received.size());
+    assertTrue(publisher.requested.get() <= 150, "requested " + publisher.requested.get());
+  } // backpressureTest()
+
+  /**
+   * A time window closes when an element arrives after it expires.
+   *
+   * @throws Exception
+   *   If the test is interrupted.
+   */
+  @Test
+  public void timeWindowTest() throws Exception {
+    SortingProcessor<Integer> processor = new SortingProcessor<Integer>(
+        new MergeSorter<Integer>(ORDER), ORDER, 1000, this.spillDirectory, 0,
+        Duration.ofMillis(50));
+    Collecting subscriber = new Collecting(100, Long.MAX_VALUE);
+    processor.subscribe(subscriber);
+    processor.onSubscribe(new Flow.Subscription() {
+      @Override
+      public void request(long n) {
+      } // request(long)
+
+      @Override
+      public void cancel() {
+      } // cancel()
+    });
+    processor.onNext(3);
+    processor.onNext(1);
+    Thread.sleep(100);
+    processor.onNext(2);
+    assertEquals(Arrays.asList(1, 3), subscriber.received);
+    processor.onNext(0);
+    processor.onComplete();
+    assertEquals(Arrays.asList(1, 3, 0, 2), subscriber.received);
+    assertEquals(0, subscriber.done.getCount());
+  } // timeWindowTest()
+} // class TestSortingProcessor
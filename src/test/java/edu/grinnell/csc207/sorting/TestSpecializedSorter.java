@@ -0,0 +1,70 @@
+package edu.grinnell.csc207.sorting;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of SpecializedSorter.
+ */
+public class TestSpecializedSorter extends TestSorter {
+  /**
+   * Set up the sorters.
+   */
+  @BeforeAll
+  static void setup() {
+    stringSorter = new SpecializedSorter<String>((x,y) -> x.compareTo(y));
+    intSorter = new SpecializedSorter<Integer>((x,y) -> x.compareTo(y));
+  } // setup()
+
+  /**
+   * Each comparator class gets a hidden kernel class of its own, and
+   * comparators of the same class share one.
+   */
+  @Test
+  void kernelPerComparatorClass() {
+    Comparator<Integer> up = (x, y) -> x.compareTo(y);
+    Comparator<Integer> down = (x, y) -> y.compareTo(x);
+    Class<?> upKernel = SpecializedSorter.kernel(up).getClass();
+    Class<?> downKernel = SpecializedSorter.kernel(down).getClass();
+    assertTrue(upKernel.isHidden(), "kernel should be a hidden class");
+    assertNotEquals(upKernel, downKernel);
+    assertSame(upKernel, SpecializedSorter.kernel(up).getClass());
+  } // kernelPerComparatorClass()
+
+  /**
+   * Several comparators used in turn all sort correctly.
+   */
+  @Test
+  void manyComparators() {
+    Random random = new Random(43);
+    Integer[] original = new Integer[1000];
+    for (int i = 0; i < original.length; i++) {
+      original[i] = random.nextInt(200);
+    } // for
+    Comparator<Integer>[] orders = new Comparator[] {
+      Comparator.naturalOrder(), Comparator.reverseOrder(),
+      (Comparator<Integer>) (x, y) -> Integer.compare(x % 10, y % 10),
+      Comparator.comparing((Integer x) -> -x)
+    };
+    for (Comparator<Integer> order : orders) {
+      Integer[] values = original.clone();
+      new SpecializedSorter<Integer>(order).sort(values);
+      for (int i = 1; i < values.length; i++) {
+        assertTrue(order.compare(values[i - 1], values[i]) <= 0);
+      } // for
+      Integer[] sortedValues = values.clone();
+      Arrays.sort(sortedValues);
+      Integer[] sortedOriginal = original.clone();
+      Arrays.sort(sortedOriginal);
+      assertArrayEquals(sortedOriginal, sortedValues);
+    } // for
+  } // manyComparators()
+} // class TestSpecializedSorter
@@ -0,0 +1,117 @@
+package edu.grinnell.csc207.sorting;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of StringArenaSorter. It only sorts strings, so intSorter
+ * stays null.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestStringArenaSorter extends TestSorter {
+  /**
+   * Set up the sorters.
+   */
+  @BeforeAll
+  static void setup() {
+    stringSorter = new StringArenaSorter();
+    intSorter = null;
+  } // setup()
+
+  /**
+   * Make random strings from an alphabet, many sharing long prefixes
+   * and some with embedded zeros, so that keys often tie.
+   *
+   * @param rng
+   *   The random numbers.
+   * @param n
+   *   The number of strings.
+   * @param alphabet
+   *   The characters to use.
+   * @return The strings.
+   */
+  static String[] strings(Random rng, int n, String alphabet) {
+    String[] prefixes = {"", "http://example.com/", "aaaaaaaa", "\0\0"};
+    String[] values = new String[n];
+    for (int i = 0; i < n; i++) {
+      StringBuilder builder = new StringBuilder(prefixes[rng.nextInt(prefixes.length)]);
+      int length = rng.nextInt(12);
+      for (int c = 0; c < length; c++) {
+        builder.append(alphabet.charAt(rng.nextInt(alphabet.length())));
+      } // for
+      values[i] = builder.toString();
+    } // for
+    return values;
+  } // strings(Random, int, String)
+
+  /**
+   * Latin-1 and wider strings sort as String.compareTo would, and the
+   * array keeps its own String objects.
+   */
+  @Test
+  public void compareToOrderTest() {
+    Random rng = new Random(50);
+    String[] alphabets = {"ab\0", "abcdefghijklmnopqrstuvwxyzéÿ",
+        "abéĀ中😀￿"};
+    for (String alphabet : alphabets) {
+      for (int n : new int[] {0, 1, 2, 16, 17, 1000, 20000}) {
+        String[] values = strings(rng, n, alphabet);
+        String[] expected = values.clone();
+        Arrays.sort(expected);
+        Set<String> original = Collections.newSetFromMap(new IdentityHashMap<String, Boolean>());
+        original.addAll(Arrays.asList(values));
+        new StringArenaSorter().sort(values);
+        assertArrayEquals(expected, values, "n = " + n + ", alphabet " + alphabet);
+        for (String value : values) {
+          assertTrue(original.contains(value), "sort made a new string");
+        } // for
+      } // for n
+    } // for alphabet
+  } // compareToOrderTest()
+
+  /**
+   * The arena form gives the sorted strings, their lengths and
+   * characters, and where each came from.
+   */
+  @Test
+  public void arenaTest() {
+    String[] values = {"pear", "éclair", "apple", "apple pie", "", "中"};
+    StringArenaSorter.Arena arena = StringArenaSorter.arena(values);
+    String[] expected = values.clone();
+    Arrays.sort(expected);
+    assertArrayEquals(expected, arena.toArray());
+    assertEquals(values.length, arena.size());
+    for (int rank = 0; rank < arena.size(); rank++) {
+      assertEquals(expected[rank], values[arena.source(rank)]);
+      assertEquals(expected[rank].length(), arena.length(rank));
+      for (int i = 0; i < arena.length(rank); i++) {
+        assertEquals(expected[rank].charAt(i), arena.charAt(rank, i));
+      } // for
+    } // for
+    assertEquals("pear", values[0], "arena should leave its input alone");
+  } // arenaTest()
+
+  /**
+   * Other orders are still sorted correctly.
+   */
+  @Test
+  public void otherOrderTest() {
+    String[] values = strings(new Random(50), 500, "abcé");
+    Comparator<String> backwards = Comparator.reverseOrder();
+    String[] expected = values.clone();
+    Arrays.sort(expected, backwards);
+    new StringArenaSorter(backwards).sort(values);
+    assertArrayEquals(expected, values);
+  } // otherOrderTest()
+} // class TestStringArenaSorter
@@ -0,0 +1,129 @@
+package edu.grinnell.csc207.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of BenchmarkResults.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestBenchmarkResults {
+  /**
+   * Where the files go.
+   */
+  @TempDir
+  Path directory;
+
+  /**
+   * Make some results with awkward metadata and names.
+   *
+   * @return The results.
+   */
+  static BenchmarkResults sample() {
+    Map<String, String> metadata = new LinkedHashMap<String, String>();
+    metadata.put("java.version", "17.0.2");
+    metadata.put("cpu", "Some CPU @ 3.00GHz: \"fast\" \\ model");
+    metadata.put("jvm.args", "-Xmx1g -Dx=a,b");
+    BenchmarkResults results = new BenchmarkResults(metadata);
+    results.add("compete", "edu.grinnell.csc207.sorting.MergeSorter", 0, "randomized",
+        1000, 1.25);
+    results.add("compete", "edu.grinnell.csc207.sorting.MergeSorter", 1, "randomized",
+        2000, 2.5);
+    results.add("time", "Quicksorter", 3, "few-unique", 1_000_000, 1.0e-3);
+    results.add("compete", "Quicksorter", 0, "randomized", 0, 7);
+    return results;
+  } // sample()
+
+  /**
+   * Check that two sets of results have the same metadata and rows.
+   *
+   * @param expected
+   *   The results written.
+   * @param actual
+   *   The results read back.
+   */
+  static void assertSameResults(BenchmarkResults expected, BenchmarkResults actual) {
+    assertEquals(expected.metadata(), actual.metadata());
+    List<BenchmarkResults.Row> rows = expected.rows();
+    assertEquals(rows.size(), actual.rows().size());
+    for (int i = 0; i < rows.size(); i++) {
+      BenchmarkResults.Row want = rows.get(i);
+      BenchmarkResults.Row got = actual.rows().get(i);
+      assertEquals(want.command, got.command);
+      assertEquals(want.sorter, got.sorter);
+      assertEquals(want.round, got.round);
+      assertEquals(want.shape, got.shape);
+      assertEquals(want.size, got.size);
+      assertEquals(want.millis, got.millis);
+    } // for
+  } // assertSameResults(BenchmarkResults, BenchmarkResults)
+
+  /**
+   * Results written as CSV read back the same.
+   *
+   * @throws IOException
+   *   If the file cannot be used.
+   */
+  @Test
+  public void csvRoundTripTest() throws IOException {
+    BenchmarkResults results = sample();
+    Path file = this.directory.resolve("results.csv");
+    results.write(file);
+    assertEquals("# java.version: 17.0.2", Files.readAllLines(file).get(0));
+    assertSameResults(results, BenchmarkResults.read(file));
+  } // csvRoundTripTest()
+
+  /**
+   * Results written as JSON read back the same, escapes and all.
+   *
+   * @throws IOException
+   *   If the file cannot be used.
+   */
+  @Test
+  public void jsonRoundTripTest() throws IOException {
+    BenchmarkResults results = sample();
+    results.metadata().put("notes", "tab\there, newline\nthere");
+    Path file = this.directory.resolve("results.JSON");
+    results.write(file);
+    assertEquals("{", Files.readAllLines(file).get(0));
+    assertSameResults(results, BenchmarkResults.read(file));
+  } // jsonRoundTripTest()
+
+  /**
+   * Samples are per sorter, in nanoseconds per element, and skip empty
+   * inputs and other commands.
+   */
+  @Test
+  public void samplesTest() {
+    Map<String, double[]> samples = sample().samples("compete");
+    assertEquals(List.of("edu.grinnell.csc207.sorting.MergeSorter"),
+        List.copyOf(samples.keySet()));
+    assertArrayEquals(new double[] {1250, 1250},
+        samples.get("edu.grinnell.csc207.sorting.MergeSorter"), 1e-9);
+    assertArrayEquals(new double[] {1e-3}, sample().samples("time").get("Quicksorter"), 1e-12);
+  } // samplesTest()
+
+  /**
+   * A CSV line with the wrong number of fields is an error.
+   *
+   * @throws IOException
+   *   If the file cannot be written.
+   */
+  @Test
+  public void malformedTest() throws IOException {
+    Path file = this.directory.resolve("bad.csv");
+    Files.writeString(file, "command,sorter,round,shape,size,millis\ncompete,x,1\n");
+    assertThrows(IOException.class, () -> BenchmarkResults.read(file));
+  } // malformedTest()
+} // class TestBenchmarkResults
@@ -0,0 +1,88 @@
+package edu.grinnell.csc207.util;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of Profiler and its Summary.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestProfiler {
+  /**
+   * How close computed values must be to the expected ones.
+   */
+  static final double TOLERANCE = 1e-9;
+
+  /**
+   * Percentiles and medians come from the wall-clock times; runs that
+   * report -1 are left out of the CPU and allocation medians; GC
+   * counts and times are totals.
+   */
+  @Test
+  public void summaryTest() {
+    List<Profiler.Measurement> runs = List.of(
+        new Profiler.Measurement(4_000_000, 3_000_000, 400, 1, 5),
+        new Profiler.Measurement(1_000_000, -1, -1, 0, 0),
+        new Profiler.Measurement(3_000_000, 1_000_000, -1, 2, 7),
+        new Profiler.Measurement(2_000_000, -1, 100, 0, 0));
+    Profiler.Summary summary = new Profiler.Summary(runs);
+    assertEquals(4, summary.count());
+    assertEquals(1.0, summary.percentile(0), TOLERANCE);
+    assertEquals(1.75, summary.percentile(25), TOLERANCE);
+    assertEquals(2.5, summary.median(), TOLERANCE);
+    assertEquals(3.7, summary.percentile(90), TOLERANCE);
+    assertEquals(4.0, summary.percentile(100), TOLERANCE);
+    assertEquals(2.0, summary.cpuMillis(), TOLERANCE);
+    assertEquals(250.0, summary.allocatedBytes(), TOLERANCE);
+    assertEquals(3, summary.gcCount());
+    assertEquals(12, summary.gcMillis());
+  } // summaryTest()
+
+  /**
+   * When no run could say, the CPU and allocation medians are NaN
+   * rather than -1; with no runs at all, so is everything else.
+   */
+  @Test
+  public void unknownTest() {
+    Profiler.Summary summary = new Profiler.Summary(List.of(
+        new Profiler.Measurement(1_000_000, -1, -1, 0, 0)));
+    assertEquals(1.0, summary.median(), TOLERANCE);
+    assertTrue(Double.isNaN(summary.cpuMillis()));
+    assertTrue(Double.isNaN(summary.allocatedBytes()));
+
+    Profiler.Summary empty = new Profiler.Summary(List.of());
+    assertEquals(0, empty.count());
+    assertTrue(Double.isNaN(empty.median()));
+    assertTrue(Double.isNaN(empty.percentile(90)));
+  } // unknownTest()
+
+  /**
+   * A measurement covers the work: it is no shorter than a sleep, and
+   * counts the allocation of a large array when the JVM can.
+   */
+  @Test
+  public void measureTest() {
+    Profiler profiler = new Profiler();
+    Profiler.Measurement sleep = profiler.measure(() -> {
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } // try/catch
+    });
+    assertTrue(sleep.nanos() >= 20_000_000, "slept only " + sleep.nanos() + " ns");
+    assertEquals(sleep.nanos() / 1e6, sleep.millis(), TOLERANCE);
+    assertTrue(sleep.gcCount() >= 0 && sleep.gcMillis() >= 0);
+
+    long[][] keep = new long[1][];
+    Profiler.Measurement allocation = profiler.measure(() -> keep[0] = new long[1_000_000]);
+    assertTrue(allocation.allocatedBytes() == -1
+        || allocation.allocatedBytes() >= 8L * keep[0].length,
+        "allocated " + allocation.allocatedBytes());
+    assertTrue(allocation.cpuNanos() >= -1);
+  } // measureTest()
+} // class TestProfiler
@@ -0,0 +1,104 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of Scaling on synthetic timings with known growth.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestScaling {
+  /**
+   * The sizes the synthetic timings are taken at.
+   */
+  static final double[] SIZES = {1_000, 2_000, 5_000, 10_000, 20_000, 50_000, 100_000};
+
+  /**
+   * Make timings that follow a model, with some relative noise.
+   *
+   * @param model
+   *   The model.
+   * @param constant
+   *   Its constant.
+   * @param noise
+   *   The largest relative error, such as 0.05.
+   * @param rng
+   *   Where the noise comes from.
+   * @return The times, one per size.
+   */
+  static double[] times(Scaling.Model model, double constant, double noise, Random rng) {
+    double[] times = new double[SIZES.length];
+    for (int i = 0; i < SIZES.length; i++) {
+      times[i] = constant * model.apply(SIZES[i]) * (1 + noise * (2 * rng.nextDouble() - 1));
+    } // for
+    return times;
+  } // times(Scaling.Model, double, double, Random)
+
+  /**
+   * Exact timings from each model are fit by that model alone, with
+   * the right constant and no error.
+   */
+  @Test
+  public void exactTest() {
+    double[] constants = {3e-6, 5e-8, 2e-9};
+    for (Scaling.Model model : Scaling.Model.values()) {
+      double c = constants[model.ordinal()];
+      double[] times = times(model, c, 0, new Random(41));
+      Scaling.Fit best = Scaling.best(SIZES, times);
+      assertSame(model, best.model(), model.label());
+      assertEquals(c, best.constant(), c * 1e-9, model.label());
+      assertEquals(0, best.error(), 1e-9, model.label());
+      for (Scaling.Fit fit : Scaling.fits(SIZES, times)) {
+        if (fit.model() != model) {
+          assertTrue(fit.error() > 0.1, fit.model().label() + " fit " + model.label());
+        } // if
+      } // for
+      assertEquals(c * model.apply(1_000_000), best.predict(1_000_000),
+          c * model.apply(1_000_000) * 1e-9);
+    } // for
+  } // exactTest()
+
+  /**
+   * Timings with a few percent of noise still pick the right model,
+   * with a constant within the noise.
+   */
+  @Test
+  public void noisyTest() {
+    Random rng = new Random(41);
+    for (int trial = 0; trial < 20; trial++) {
+      for (Scaling.Model model : Scaling.Model.values()) {
+        double c = 1e-7;
+        Scaling.Fit best = Scaling.best(SIZES, times(model, c, 0.05, rng));
+        assertSame(model, best.model(), model.label() + ", trial " + trial);
+        assertEquals(c, best.constant(), c * 0.05, model.label() + ", trial " + trial);
+      } // for
+    } // for
+  } // noisyTest()
+
+  /**
+   * The power law recovers the exponent and constant of c n^k,
+   * including exponents that none of the models have.
+   */
+  @Test
+  public void powerLawTest() {
+    for (double exponent : new double[] {1.0, 1.5, 2.0, 0.5, 3.0}) {
+      double[] times = new double[SIZES.length];
+      for (int i = 0; i < SIZES.length; i++) {
+        times[i] = 4e-6 * Math.pow(SIZES[i], exponent);
+      } // for
+      Scaling.PowerLaw law = Scaling.powerLaw(SIZES, times);
+      assertEquals(exponent, law.exponent(), 1e-9);
+      assertEquals(4e-6, law.constant(), 4e-6 * 1e-6);
+      assertEquals(4e-6 * Math.pow(1e6, exponent), law.predict(1e6),
+          4e-6 * Math.pow(1e6, exponent) * 1e-6);
+    } // for
+    double[] nlogn = times(Scaling.Model.LINEARITHMIC, 1e-8, 0, new Random(41));
+    double k = Scaling.powerLaw(SIZES, nlogn).exponent();
+    assertTrue(k > 1.05 && k < 1.15, "n log n looked like n^" + k);
+  } // powerLawTest()
+} // class TestScaling
@@ -0,0 +1,63 @@
+package edu.grinnell.csc207.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of SimpleTimer.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestSimpleTimer {
+  /**
+   * Wait for at least some time.
+   *
+   * @param millis
+   *   How long to wait, in milliseconds.
+   */
+  static void pause(long millis) {
+    long until = System.nanoTime() + millis * 1_000_000;
+    while (System.nanoTime() < until) {
+      Thread.onSpinWait();
+    } // while
+  } // pause(long)
+
+  /**
+   * A stopped timer stands still, and restarting it adds to what it
+   * had rather than starting over.
+   */
+  @Test
+  public void accumulateTest() {
+    long begin = System.nanoTime();
+    SimpleTimer timer = new SimpleTimer();
+    pause(20);
+    long first = timer.stop();
+    assertTrue(first >= 20, "first stretch was " + first + " ms");
+    long stopped = timer.elapsedNanos();
+    pause(20);
+    assertEquals(stopped, timer.elapsedNanos(), "a stopped timer kept running");
+
+    timer.restart();
+    pause(20);
+    long total = timer.stop();
+    assertTrue(total >= first + 20, "total was " + total + " ms after " + first);
+    long wall = System.nanoTime() - begin;
+    assertTrue(timer.elapsedNanos() <= wall - 20_000_000, "the stopped stretch was counted");
+    assertEquals(timer.elapsedNanos() / 1_000_000, timer.elapsed());
+  } // accumulateTest()
+
+  /**
+   * A running timer reads the time so far without stopping.
+   */
+  @Test
+  public void runningTest() {
+    SimpleTimer timer = new SimpleTimer();
+    pause(5);
+    long early = timer.elapsedNanos();
+    pause(5);
+    assertTrue(timer.elapsedNanos() >= early + 5_000_000);
+    timer.restart();
+    assertTrue(timer.elapsedNanos() >= early, "restart while running lost time");
+  } // runningTest()
+} // class TestSimpleTimer
@@ -0,0 +1,92 @@
+package edu.grinnell.csc207.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of Statistics. The expected p-values are those of the usual
+ * normal approximation with tie and continuity corrections (as in
+ * SciPy's asymptotic mannwhitneyu), worked out independently.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestStatistics {
+  /**
+   * How close computed values must be to the expected ones.
+   */
+  static final double TOLERANCE = 1e-6;
+
+  /**
+   * Percentiles interpolate between the nearest ranks and leave their
+   * input alone.
+   */
+  @Test
+  public void percentileTest() {
+    double[] values = {4, 1, 3, 2};
+    assertEquals(1.0, Statistics.percentile(values, 0), TOLERANCE);
+    assertEquals(1.75, Statistics.percentile(values, 25), TOLERANCE);
+    assertEquals(2.5, Statistics.percentile(values, 50), TOLERANCE);
+    assertEquals(3.7, Statistics.percentile(values, 90), TOLERANCE);
+    assertEquals(4.0, Statistics.percentile(values, 100), TOLERANCE);
+    assertEquals(4.0, values[0], "percentile sorted its input");
+    assertEquals(2.0, Statistics.median(new double[] {3, 1, 2}), TOLERANCE);
+    assertEquals(7.0, Statistics.median(new double[] {7}), TOLERANCE);
+    assertTrue(Double.isNaN(Statistics.median(new double[0])));
+  } // percentileTest()
+
+  /**
+   * U counts the pairs in which the first sample wins, with ties as
+   * half, and the two Us add up to n1 * n2.
+   */
+  @Test
+  public void mannWhitneyUTest() {
+    double[] low = {1, 2, 3};
+    double[] high = {4, 5, 6};
+    assertEquals(0.0, Statistics.mannWhitneyU(low, high), TOLERANCE);
+    assertEquals(9.0, Statistics.mannWhitneyU(high, low), TOLERANCE);
+
+    double[] a = {1, 2, 2, 3, 5};
+    double[] b = {2, 3, 4, 4, 6, 7};
+    assertEquals(6.5, Statistics.mannWhitneyU(a, b), TOLERANCE);
+    assertEquals(23.5, Statistics.mannWhitneyU(b, a), TOLERANCE);
+    assertEquals(3.0, Statistics.mannWhitneyU(new double[] {5, 5, 5}, new double[] {5, 5}),
+        TOLERANCE);
+  } // mannWhitneyUTest()
+
+  /**
+   * p-values match the normal approximation, with and without ties,
+   * and are symmetric in the two samples.
+   */
+  @Test
+  public void mannWhitneyPTest() {
+    double[] low = {1, 2, 3};
+    double[] high = {4, 5, 6};
+    assertEquals(0.0808555984, Statistics.mannWhitneyP(low, high), TOLERANCE);
+    assertEquals(0.0808555984, Statistics.mannWhitneyP(high, low), TOLERANCE);
+
+    double[] a = {1, 2, 2, 3, 5};
+    double[] b = {2, 3, 4, 4, 6, 7};
+    assertEquals(0.1386258799, Statistics.mannWhitneyP(a, b), TOLERANCE);
+
+    double[] before = {1.1, 2.3, 3.5, 4.2, 5.9, 6.1, 7.7, 8.4};
+    double[] after = {3.3, 5.5, 6.6, 7.1, 9.2, 9.9, 10.4, 11.8};
+    assertEquals(0.0660819159, Statistics.mannWhitneyP(before, after), TOLERANCE);
+
+    assertEquals(1.0, Statistics.mannWhitneyP(new double[] {5, 5, 5}, new double[] {5, 5}),
+        "all ties");
+    assertEquals(1.0, Statistics.mannWhitneyP(low, low), TOLERANCE, "identical samples");
+    assertEquals(1.0, Statistics.mannWhitneyP(low, new double[0]), "empty sample");
+  } // mannWhitneyPTest()
+
+  /**
+   * The normal CDF is accurate to the approximation's bound.
+   */
+  @Test
+  public void normalCdfTest() {
+    assertEquals(0.5, Statistics.normalCdf(0), TOLERANCE);
+    assertEquals(0.9750021049, Statistics.normalCdf(1.96), TOLERANCE);
+    assertEquals(0.0249978951, Statistics.normalCdf(-1.96), TOLERANCE);
+    assertEquals(0.8413447461, Statistics.normalCdf(1), TOLERANCE);
+  } // normalCdfTest()
+} // class TestStatistics
@@ -0,0 +1,115 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of Workloads.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestWorkloads {
+  /**
+   * The seed most tests use.
+   */
+  static final long SEED = 39;
+
+  /**
+   * Lengths that exercise the awkward cases of each shape.
+   */
+  static final int[] SIZES = {0, 1, 2, 3, 4, 5, 7, 100, 1001, 10_000};
+
+  /**
+   * The same seed, shape, and length give the same keys, whatever
+   * instance makes them and whatever was asked for before; another
+   * seed gives other keys.
+   */
+  @Test
+  public void reproducibleTest() {
+    Workloads first = new Workloads(SEED);
+    long[][] keys = new long[Workloads.Shape.values().length][];
+    for (Workloads.Shape shape : Workloads.Shape.values()) {
+      keys[shape.ordinal()] = first.longs(shape, 1000);
+    } // for
+
+    Workloads second = new Workloads(SEED);
+    Workloads.Shape[] shapes = Workloads.Shape.values();
+    for (int s = shapes.length - 1; s >= 0; s--) {
+      second.longs(shapes[s], 500);
+      assertArrayEquals(keys[s], second.longs(shapes[s], 1000), shapes[s].label());
+      assertArrayEquals(keys[s], first.longs(shapes[s], 1000), shapes[s].label());
+    } // for
+
+    long[] other = new Workloads(SEED + 1).longs(Workloads.Shape.UNIFORM, 1000);
+    assertFalse(Arrays.equals(keys[Workloads.Shape.UNIFORM.ordinal()], other));
+
+    String[] words = first.strings(Workloads.Shape.ZIPF, 100);
+    Integer[] shuffled = first.integers(Workloads.Shape.SORTED, 100);
+    first.shuffle(shuffled);
+    Integer[] again = second.integers(Workloads.Shape.SORTED, 100);
+    second.shuffle(again);
+    assertArrayEquals(shuffled, again);
+    assertArrayEquals(words, second.strings(Workloads.Shape.ZIPF, 100));
+  } // reproducibleTest()
+
+  /**
+   * SORTED is sorted, and FEW_UNIQUE uses exactly eight values.
+   */
+  @Test
+  public void shapesTest() {
+    Workloads workloads = new Workloads(SEED);
+    for (int n : SIZES) {
+      long[] sorted = workloads.longs(Workloads.Shape.SORTED, n);
+      for (int i = 1; i < n; i++) {
+        assertTrue(sorted[i - 1] <= sorted[i], "SORTED out of order at " + i);
+      } // for
+    } // for
+    long[] few = workloads.longs(Workloads.Shape.FEW_UNIQUE, 10_000);
+    assertEquals(Workloads.FEW, LongStream.of(few).distinct().count());
+    assertTrue(LongStream.of(few).allMatch((k) -> k >= 0 && k < Workloads.FEW));
+  } // shapesTest()
+
+  /**
+   * The median-of-3 killer is a permutation of 1 through n for every
+   * length, including those that are not multiples of four.
+   */
+  @Test
+  public void killerTest() {
+    Workloads workloads = new Workloads(SEED);
+    for (int n : SIZES) {
+      long[] keys = workloads.longs(Workloads.Shape.MEDIAN_OF_3_KILLER, n);
+      Arrays.sort(keys);
+      assertArrayEquals(LongStream.rangeClosed(1, n).toArray(), keys, "n = " + n);
+    } // for
+  } // killerTest()
+
+  /**
+   * The String, Integer, and Item versions of every workload are
+   * ordered as its keys are.
+   */
+  @Test
+  public void sameOrderTest() {
+    Workloads workloads = new Workloads(SEED);
+    for (Workloads.Shape shape : Workloads.Shape.values()) {
+      long[] keys = workloads.longs(shape, 2000);
+      String[] strings = workloads.strings(shape, 2000);
+      Integer[] integers = workloads.integers(shape, 2000);
+      Workloads.Item[] items = workloads.items(shape, 2000);
+      for (int i = 1; i < keys.length; i++) {
+        int expected = Long.signum(Long.compare(keys[i - 1], keys[i]));
+        String where = shape.label() + " at " + i;
+        assertEquals(expected, Integer.signum(strings[i - 1].compareTo(strings[i])), where);
+        assertEquals(expected, Integer.signum(integers[i - 1].compareTo(integers[i])), where);
+        assertEquals(expected, Long.signum(Long.compare(items[i - 1].key(), items[i].key())),
+            where);
+      } // for
+      assertEquals(keys[0], integers[0].longValue(), shape.label());
+    } // for
+  } // sameOrderTest()
+} // class TestWorkloads
@@ -0,0 +1,97 @@
+package edu.grinnell.csc207.sorting;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+import java.util.Random;
+
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of SegmentSorter.
+ *
+ * @author Andrew N. Fargo
+ */
+public class TestSegmentSorter {
+  /**
+   * Random longs, including extremes and many duplicates.
+   *
+   * @param size
+   *   The number of longs.
+   * @return The longs.
+   */
+  static long[] randomLongs(int size) {
+    Random rng = new Random(30);
+    long[] keys = new long[size];
+    for (int i = 0; i < size; i++) {
+      switch (rng.nextInt(4)) {
+        case 0:
+          keys[i] = rng.nextLong();
+          break;
+        case 1:
+          keys[i] = rng.nextInt(10) - 5;
+          break;
+        case 2:
+          keys[i] = rng.nextBoolean() ? Long.MIN_VALUE : Long.MAX_VALUE;
+          break;
+        default:
+          keys[i] = rng.nextInt();
+          break;
+      } // switch
+    } // for
+    return keys;
+  } // randomLongs(int)
+
+  /**
+   * Sort off-heap longs both ways.
+   */
+  @Test
+  public void longsTest() {
+    for (int size : new int[] {0, 1, 19, 1000, 100000}) {
+      long[] keys = randomLongs(size);
+      long[] expected = keys.clone();
+      Arrays.sort(expected);
+      try (Arena arena = Arena.ofConfined()) {
+        MemorySegment seg = arena.allocate(size * JAVA_LONG.byteSize(),
+            JAVA_LONG.byteAlignment());
+        MemorySegment.copy(MemorySegment.ofArray(keys), 0, seg, 0, seg.byteSize());
+        SegmentSorter.quicksortLongs(seg);
+        assertArrayEquals(expected, seg.toArray(JAVA_LONG));
+
+        MemorySegment.copy(MemorySegment.ofArray(keys), 0, seg, 0, seg.byteSize());
+        SegmentSorter.radixSortLongs(seg);
+        assertArrayEquals(expected, seg.toArray(JAVA_LONG));
+      } // try
+    } // for
+  } // longsTest()
+
+  /**
+   * Sort off-heap ints both ways.
+   */
+  @Test
+  public void intsTest() {
+    for (int size : new int[] {0, 1, 19, 1000, 100000}) {
+      long[] wide = randomLongs(size);
+      int[] keys = new int[size];
+      for (int i = 0; i < size; i++) {
+        keys[i] = (int) (wide[i] >> 32);
+      } // for
+      int[] expected = keys.clone();
+      Arrays.sort(expected);
+      try (Arena arena = Arena.ofConfined()) {
+        MemorySegment seg = arena.allocate(size * JAVA_INT.byteSize(),
+            JAVA_INT.byteAlignment());
+        MemorySegment.copy(MemorySegment.ofArray(keys), 0, seg, 0, seg.byteSize());
+        SegmentSorter.quicksortInts(seg);
+        assertArrayEquals(expected, seg.toArray(JAVA_INT));
+
+        MemorySegment.copy(MemorySegment.ofArray(keys), 0, seg, 0, seg.byteSize());
+        SegmentSorter.radixSortInts(seg);
+        assertArrayEquals(expected, seg.toArray(JAVA_INT));
+      } // try
+    } // for
+  } // intsTest()
+} // class TestSegmentSorter